@@ -19,10 +19,13 @@ package org.gradle.caching.http.internal
 import org.apache.http.HttpHeaders
 import org.apache.http.HttpStatus
 import org.gradle.api.UncheckedIOException
+import org.gradle.api.internal.file.TemporaryFileProvider
 import org.gradle.caching.BuildCacheException
 import org.gradle.caching.BuildCacheKey
 import org.gradle.caching.BuildCacheService
 import org.gradle.caching.http.HttpBuildCache
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.resource.transport.http.DefaultSslContextFactory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.test.fixtures.server.http.AuthScheme
@@ -68,7 +71,7 @@ class HttpBuildCacheServiceTest extends Specification {
         server.start()
         def config = new HttpBuildCache()
         config.url = server.uri.resolve("/cache/")
-        cache = new DefaultHttpBuildCacheServiceFactory(new DefaultSslContextFactory()).createBuildCacheService(config)
+        cache = createFactory().createBuildCacheService(config)
     }
 
     def "can cache artifact"() {
@@ -243,7 +246,7 @@ class HttpBuildCacheServiceTest extends Specification {
         configuration.url = server.uri.resolve("/cache/")
         configuration.credentials.username = 'user'
         configuration.credentials.password = 'password'
-        cache = new DefaultHttpBuildCacheServiceFactory(new DefaultSslContextFactory()).createBuildCacheService(configuration) as HttpBuildCacheService
+        cache = createFactory().createBuildCacheService(configuration) as HttpBuildCacheService
 
         server.authenticationScheme = AuthScheme.BASIC
 
@@ -270,6 +273,10 @@ class HttpBuildCacheServiceTest extends Specification {
         server.authenticationAttempts == ['Basic'] as Set
     }
 
+    private DefaultHttpBuildCacheServiceFactory createFactory() {
+        new DefaultHttpBuildCacheServiceFactory(new DefaultSslContextFactory(), Mock(ListenerManager), Mock(ExecutorFactory), Mock(TemporaryFileProvider))
+    }
+
     private HttpResourceInteraction expectError(int httpCode, String method) {
         server.expect("/cache/${key.hashCode}", false, [method], new HttpServer.ActionSupport("return ${httpCode} broken") {
             @Override
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.http.internal
+
+import org.gradle.api.execution.internal.TaskOperationInternal
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.tasks.execution.TaskOutputCacheLoadPlanner
+import org.gradle.caching.internal.tasks.BuildCacheKeyInputs
+import org.gradle.caching.internal.tasks.TaskOutputCachingBuildCacheKey
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.event.DefaultListenerManager
+import org.gradle.internal.resource.transport.http.DefaultHttpSettings
+import org.gradle.internal.resource.transport.http.DefaultSslContextFactory
+import org.gradle.internal.resource.transport.http.HttpClientHelper
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.fixtures.server.http.HttpServer
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.servlet.http.HttpServletRequest
+import javax.servlet.http.HttpServletResponse
+
+/**
+ * Calls the cache in the order of a build: the loads of ready tasks are planned when another task starts executing, and each task then looks up its key
+ * once it is found to be out of date, stores its outputs when they were not found, and finishes.
+ */
+class PrefetchingBuildCacheServiceTest extends Specification {
+    @Rule HttpServer server = new HttpServer()
+    @Rule TestNameTestDirectoryProvider tempDir = new TestNameTestDirectoryProvider()
+
+    def listenerManager = new DefaultListenerManager()
+    def executorFactory = new DefaultExecutorFactory()
+    def transferDir = tempDir.file("transfer")
+    PrefetchingBuildCacheService cache
+
+    def setup() {
+        server.start()
+        cache = createCache(1024 * 1024)
+    }
+
+    def cleanup() {
+        cache.close()
+    }
+
+    def "loads entry of a task that was not planned"() {
+        def key = key("0123456abcdef")
+        server.expectGet("/cache/${key.hashCode}", file("Data"))
+
+        when:
+        def loaded = execute(Mock(TaskInternal), key)
+
+        then:
+        loaded == "Data"
+        transferDir.listFiles().length == 0
+    }
+
+    def "loads entry of a planned task before the task executes"() {
+        def task = Mock(TaskInternal)
+        def key = key("0123456abcdef")
+        server.expectGet("/cache/${key.hashCode}", file("Data"))
+
+        when:
+        plan((task): key)
+        def loaded = execute(task, key)
+
+        then:
+        loaded == "Data"
+        transferDir.listFiles().length == 0
+    }
+
+    def "reports cache miss from prefetched entry"() {
+        def task = Mock(TaskInternal)
+        def key = key("0123456abcdef")
+        server.expectGetMissing("/cache/${key.hashCode}")
+
+        when:
+        plan((task): key)
+        def loaded = execute(task, key)
+
+        then:
+        loaded == null
+    }
+
+    def "loads entry when requested when it could not be prefetched"() {
+        def task = Mock(TaskInternal)
+        def key = key("0123456abcdef")
+        server.expectGetBroken("/cache/${key.hashCode}")
+        server.expectGet("/cache/${key.hashCode}", file("Data"))
+
+        when:
+        plan((task): key)
+        def loaded = execute(task, key)
+
+        then:
+        loaded == "Data"
+    }
+
+    def "loads entry when requested when it does not fit into the temporary area"() {
+        cache.close()
+        cache = createCache(2)
+        def task = Mock(TaskInternal)
+        def key = key("0123456abcdef")
+        def srcFile = file("Data")
+        server.expectGet("/cache/${key.hashCode}", srcFile)
+        server.expectGet("/cache/${key.hashCode}", srcFile)
+
+        when:
+        plan((task): key)
+        def loaded = execute(task, key)
+
+        then:
+        loaded == "Data"
+        transferDir.listFiles().length == 0
+    }
+
+    def "discards prefetched entry that the task does not load"() {
+        def task = Mock(TaskInternal)
+        def key = key("0123456abcdef")
+        server.allowGetOrHead("/cache/${key.hashCode}", file("Data"))
+
+        when:
+        plan((task): key)
+        // Another build cache has the entry
+        executeWithoutLoad(task, key)
+        cache.close()
+
+        then:
+        !transferDir.exists()
+    }
+
+    def "discards prefetched entry when the task executes with another key"() {
+        def task = Mock(TaskInternal)
+        def plannedKey = key("0123456abcdef")
+        def key = key("fedcba6543210")
+        server.allowGetOrHead("/cache/${plannedKey.hashCode}", file("Planned"))
+        server.expectGet("/cache/${key.hashCode}", file("Data"))
+
+        when:
+        plan((task): plannedKey)
+        def loaded = execute(task, key)
+        def loadedLater = execute(Mock(TaskInternal), plannedKey)
+        cache.close()
+
+        then:
+        loaded == "Data"
+        loadedLater == "Planned"
+        !transferDir.exists()
+    }
+
+    def "stores entry in the background"() {
+        def key = key("0123456abcdef")
+        def destFile = tempDir.file("cached.zip")
+        server.expectGetMissing("/cache/${key.hashCode}")
+        server.expectPut("/cache/${key.hashCode}", destFile)
+
+        when:
+        def loaded = execute(Mock(TaskInternal), key, "Data")
+        cache.close()
+
+        then:
+        loaded == null
+        destFile.text == "Data"
+        !transferDir.exists()
+    }
+
+    def "loads entry that an earlier task is storing in the background"() {
+        def latency = 1000
+        def key = key("0123456abcdef")
+        def storedFile = tempDir.file("stored.zip")
+        server.expectGetMissing("/cache/${key.hashCode}")
+        server.expect("/cache/${key.hashCode}", ["PUT"], new HttpServer.ActionSupport("store entry after ${latency}ms") {
+            void handle(HttpServletRequest request, HttpServletResponse response) {
+                def content = request.inputStream.bytes
+                Thread.sleep(latency)
+                storedFile.bytes = content
+                response.setStatus(200)
+            }
+        })
+        server.expectGet("/cache/${key.hashCode}", storedFile)
+
+        when:
+        def first = execute(Mock(TaskInternal), key, "Stored")
+        def second = execute(Mock(TaskInternal), key)
+
+        then:
+        first == null
+        second == "Stored"
+    }
+
+    def "loads the entries of ready tasks while the tasks before them execute"() {
+        def count = 8
+        def latency = 500
+        def tasks = (1..count).collect { Mock(TaskInternal) }
+        def keys = (1..count).collect { key("0123456abcdef${it}") }
+        keys.each { key ->
+            server.expect("/cache/${key.hashCode}", ["GET"], new HttpServer.ActionSupport("return entry after ${latency}ms") {
+                void handle(HttpServletRequest request, HttpServletResponse response) {
+                    Thread.sleep(latency)
+                    response.setStatus(200)
+                    response.outputStream << "Data ${key.hashCode}"
+                }
+            })
+        }
+
+        when:
+        def start = System.currentTimeMillis()
+        def planned = [] as Set
+        def loaded = (0..<count).collect { index ->
+            // The independent tasks are all ready, and the ones not planned yet are planned when a task starts executing
+            def readyTasks = ((index + 1)..<count).findAll { !planned.contains(it) }.take(TaskOutputCacheLoadPlanner.MAX_PLANNED_TASKS)
+            planned.addAll(readyTasks)
+            plan(readyTasks.collectEntries { [(tasks[it]): keys[it]] })
+            execute(tasks[index], keys[index])
+        }
+        def elapsed = System.currentTimeMillis() - start
+
+        then:
+        loaded == keys.collect { "Data ${it.hashCode}" }
+        // Loading the entries when the tasks execute takes at least count * latency
+        elapsed < count * latency / 2
+    }
+
+    def "loads entries while uploads are pending"() {
+        def latency = 2000
+        def storeKeys = (1..4).collect { key("0123456abcdef${it}") }
+        storeKeys.each { key ->
+            server.expectGetMissing("/cache/${key.hashCode}")
+            server.expect("/cache/${key.hashCode}", ["PUT"], new HttpServer.ActionSupport("store entry after ${latency}ms") {
+                void handle(HttpServletRequest request, HttpServletResponse response) {
+                    Thread.sleep(latency)
+                    response.setStatus(200)
+                }
+            })
+        }
+        def loadKey = key("fedcba6543210")
+        server.expectGet("/cache/${loadKey.hashCode}", file("Data"))
+
+        when:
+        storeKeys.each { key ->
+            execute(Mock(TaskInternal), key, "Stored")
+        }
+        def start = System.currentTimeMillis()
+        def loaded = execute(Mock(TaskInternal), loadKey)
+        def elapsed = System.currentTimeMillis() - start
+
+        then:
+        loaded == "Data"
+        // The uploads occupy all store threads for at least twice the latency
+        elapsed < latency
+    }
+
+    /**
+     * Plans the loads of ready tasks, as {@link TaskOutputCacheLoadPlanner} does when another task starts executing.
+     */
+    private void plan(Map<TaskInternal, TaskOutputCachingBuildCacheKey> readyTasks) {
+        readyTasks.each { task, key ->
+            cache.beforeLoad(task, key)
+        }
+    }
+
+    /**
+     * Executes an out-of-date task, and stores the given outputs when the entry is not found.
+     */
+    private String execute(TaskInternal task, TaskOutputCachingBuildCacheKey key, String outputs = null) {
+        def operation = new TaskOperationInternal(task, task)
+        cache.beforeExecute(operation, null)
+        cache.beforeLoad(task, key)
+        String loaded = null
+        cache.load(key) { input ->
+            loaded = input.text
+        }
+        if (loaded == null && outputs != null) {
+            cache.store(key) { output ->
+                output << outputs
+            }
+        }
+        cache.afterExecute(operation, null)
+        return loaded
+    }
+
+    private void executeWithoutLoad(TaskInternal task, TaskOutputCachingBuildCacheKey key) {
+        def operation = new TaskOperationInternal(task, task)
+        cache.beforeExecute(operation, null)
+        cache.beforeLoad(task, key)
+        cache.afterExecute(operation, null)
+    }
+
+    private File file(String content) {
+        def file = tempDir.file("cached-${content}.zip")
+        file.text = content
+        return file
+    }
+
+    private PrefetchingBuildCacheService createCache(long maxTempSize) {
+        def httpClientHelper = new HttpClientHelper(new DefaultHttpSettings([], new DefaultSslContextFactory()))
+        transferDir.createDir()
+        def delegate = new HttpBuildCacheService(httpClientHelper, server.uri.resolve("/cache/"))
+        def cache = new PrefetchingBuildCacheService(delegate, listenerManager, executorFactory.create("load", 8), executorFactory.create("store", 2), transferDir, maxTempSize)
+        listenerManager.addListener(cache)
+        return cache
+    }
+
+    private static TaskOutputCachingBuildCacheKey key(String hashCode) {
+        return new TaskOutputCachingBuildCacheKey() {
+            @Override
+            String getHashCode() {
+                return hashCode
+            }
+
+            @Override
+            BuildCacheKeyInputs getInputs() {
+                return null
+            }
+
+            @Override
+            boolean isValid() {
+                return true
+            }
+
+            @Override
+            String toString() {
+                return hashCode
+            }
+        }
+    }
+}
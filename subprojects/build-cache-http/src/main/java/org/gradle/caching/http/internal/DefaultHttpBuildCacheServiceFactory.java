@@ -17,11 +17,15 @@
 package org.gradle.caching.http.internal;
 
 import org.gradle.api.GradleException;
+import org.gradle.api.internal.file.TemporaryFileProvider;
+import org.gradle.api.internal.tasks.execution.TaskOutputCacheLoadPlanner;
 import org.gradle.authentication.Authentication;
 import org.gradle.caching.BuildCacheService;
 import org.gradle.caching.BuildCacheServiceFactory;
 import org.gradle.caching.http.HttpBuildCache;
 import org.gradle.internal.authentication.DefaultBasicAuthentication;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.resource.transport.http.DefaultHttpSettings;
 import org.gradle.internal.resource.transport.http.HttpClientHelper;
 import org.gradle.internal.resource.transport.http.SslContextFactory;
@@ -36,11 +40,25 @@ import java.util.Collections;
  * Build cache factory for HTTP backend.
  */
 public class DefaultHttpBuildCacheServiceFactory implements BuildCacheServiceFactory<HttpBuildCache> {
+    /**
+     * Enables loading entries before they are requested and storing entries in the background, see {@link PrefetchingBuildCacheService}.
+     */
+    public static final String PREFETCH_PROPERTY = TaskOutputCacheLoadPlanner.PREFETCH_PROPERTY;
+    private static final int LOAD_THREADS = 8;
+    private static final int STORE_THREADS = 4;
+    private static final long MAX_PREFETCH_SIZE = 256L * 1024 * 1024;
+
     private final SslContextFactory sslContextFactory;
+    private final ListenerManager listenerManager;
+    private final ExecutorFactory executorFactory;
+    private final TemporaryFileProvider temporaryFileProvider;
 
     @Inject
-    public DefaultHttpBuildCacheServiceFactory(SslContextFactory sslContextFactory) {
+    public DefaultHttpBuildCacheServiceFactory(SslContextFactory sslContextFactory, ListenerManager listenerManager, ExecutorFactory executorFactory, TemporaryFileProvider temporaryFileProvider) {
         this.sslContextFactory = sslContextFactory;
+        this.listenerManager = listenerManager;
+        this.executorFactory = executorFactory;
+        this.temporaryFileProvider = temporaryFileProvider;
     }
 
     @Override
@@ -63,6 +81,21 @@ public class DefaultHttpBuildCacheServiceFactory implements BuildCacheServiceFac
         }
 
         HttpClientHelper httpClientHelper = new HttpClientHelper(new DefaultHttpSettings(authentications, sslContextFactory));
-        return new HttpBuildCacheService(httpClientHelper, url);
+        HttpBuildCacheService service = new HttpBuildCacheService(httpClientHelper, url);
+        if (!Boolean.getBoolean(PREFETCH_PROPERTY)) {
+            return service;
+        }
+
+        // Requests share the pooled keep-alive connections of the HTTP client, which allow more connections per host than there are load and store threads
+        PrefetchingBuildCacheService prefetchingService = new PrefetchingBuildCacheService(
+            service,
+            listenerManager,
+            executorFactory.create("HTTP build cache load", LOAD_THREADS),
+            executorFactory.create("HTTP build cache store", STORE_THREADS),
+            temporaryFileProvider.createTemporaryDirectory("http-build-cache", null),
+            MAX_PREFETCH_SIZE
+        );
+        listenerManager.addListener(prefetchingService);
+        return prefetchingService;
     }
 }
@@ -0,0 +1,396 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.http.internal;
+
+import org.gradle.api.Task;
+import org.gradle.api.execution.internal.InternalTaskExecutionListener;
+import org.gradle.api.execution.internal.TaskOperationInternal;
+import org.gradle.caching.BuildCacheEntryReader;
+import org.gradle.caching.BuildCacheEntryWriter;
+import org.gradle.caching.BuildCacheException;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.tasks.TaskOutputCacheLoadListener;
+import org.gradle.caching.internal.tasks.TaskOutputCachingBuildCacheKey;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.progress.OperationResult;
+import org.gradle.internal.progress.OperationStartEvent;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Decorates a remote build cache service to load entries before they are requested, and to store entries in the background.
+ *
+ * Loading an entry starts when a task is found to be out of date, so that no entries are loaded for up-to-date tasks. This is usually found ahead of the
+ * execution of the task, while the tasks before it execute, see {@link org.gradle.api.internal.tasks.execution.TaskOutputCacheLoadPlanner}. Otherwise it is
+ * found when the task executes, and the request overlaps with the lookup in the other build caches. Loaded entries are kept in temporary files until the task
+ * requests them, or are discarded once the task has executed or has been found to use another key.
+ *
+ * Stored entries are written to a temporary file first, so that the task outputs are not read after the task has finished, and then uploaded in the background.
+ * Failures to store an entry in the background are logged rather than failing the build. Loading an entry waits for a pending upload of the same entry.
+ * Loads and stores use separate threads, so that pending uploads do not delay the entries that tasks are waiting for.
+ *
+ * The temporary files are limited to a maximum total size. Entries that do not fit are loaded or stored directly by the calling thread instead.
+ */
+class PrefetchingBuildCacheService implements BuildCacheService, TaskOutputCacheLoadListener, InternalTaskExecutionListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrefetchingBuildCacheService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BuildCacheService delegate;
+    private final ListenerManager listenerManager;
+    private final StoppableExecutor loadExecutor;
+    private final StoppableExecutor storeExecutor;
+    private final File tempDir;
+    private final long maxTempSize;
+    private final ConcurrentMap<String, Prefetch> prefetches = new ConcurrentHashMap<String, Prefetch>();
+    private final ConcurrentMap<Task, String> prefetchedTasks = new ConcurrentHashMap<Task, String>();
+    private final ConcurrentMap<String, CountDownLatch> pendingStores = new ConcurrentHashMap<String, CountDownLatch>();
+    private long tempSize;
+    private volatile boolean closed;
+
+    PrefetchingBuildCacheService(BuildCacheService delegate, ListenerManager listenerManager, StoppableExecutor loadExecutor, StoppableExecutor storeExecutor, File tempDir, long maxTempSize) {
+        this.delegate = delegate;
+        this.listenerManager = listenerManager;
+        this.loadExecutor = loadExecutor;
+        this.storeExecutor = storeExecutor;
+        this.tempDir = tempDir;
+        this.maxTempSize = maxTempSize;
+    }
+
+    @Override
+    public void beforeLoad(Task task, TaskOutputCachingBuildCacheKey key) {
+        if (closed || !key.isValid()) {
+            return;
+        }
+        String previousHashCode = prefetchedTasks.put(task, key.getHashCode());
+        if (previousHashCode != null && !previousHashCode.equals(key.getHashCode())) {
+            // The task was planned with a key it does not use
+            abandon(previousHashCode);
+        }
+        if (pendingStores.containsKey(key.getHashCode())) {
+            // Loading the entry waits for the upload when the task requests it
+            return;
+        }
+        Prefetch prefetch = new Prefetch(key);
+        if (prefetches.putIfAbsent(key.getHashCode(), prefetch) == null) {
+            loadExecutor.execute(prefetch);
+        }
+    }
+
+    @Override
+    public void beforeExecute(TaskOperationInternal taskOperation, OperationStartEvent startEvent) {
+    }
+
+    @Override
+    public void afterExecute(TaskOperationInternal taskOperation, OperationResult result) {
+        // Discard the entry when the task did not load it, for example because another build cache had it
+        String hashCode = prefetchedTasks.remove(taskOperation.getTask());
+        if (hashCode != null) {
+            abandon(hashCode);
+        }
+    }
+
+    private void abandon(String hashCode) {
+        Prefetch prefetch = prefetches.remove(hashCode);
+        if (prefetch != null) {
+            prefetch.abandon();
+        }
+    }
+
+    @Override
+    public boolean load(BuildCacheKey key, BuildCacheEntryReader reader) throws BuildCacheException {
+        awaitPendingStore(key);
+        Prefetch prefetch = prefetches.remove(key.getHashCode());
+        if (prefetch != null) {
+            PrefetchResult result = prefetch.await();
+            if (result == PrefetchResult.MISS) {
+                return false;
+            }
+            if (result != PrefetchResult.NOT_LOADED) {
+                try {
+                    readFrom(result.file, reader);
+                    return true;
+                } finally {
+                    discard(result);
+                }
+            }
+        }
+        return delegate.load(key, reader);
+    }
+
+    @Override
+    public void store(final BuildCacheKey key, BuildCacheEntryWriter writer) throws BuildCacheException {
+        final File file = createTempFile("store");
+        final long size;
+        try {
+            OutputStream output = new FileOutputStream(file);
+            try {
+                writer.writeTo(output);
+            } finally {
+                output.close();
+            }
+            size = file.length();
+        } catch (IOException e) {
+            GFileUtils.deleteQuietly(file);
+            throw new BuildCacheException(String.format("Unable to write entry %s to temporary file '%s'", key, file), e);
+        }
+
+        if (closed || !reserve(size)) {
+            try {
+                delegate.store(key, writerFor(file));
+            } finally {
+                GFileUtils.deleteQuietly(file);
+            }
+            return;
+        }
+
+        final CountDownLatch stored = new CountDownLatch(1);
+        pendingStores.put(key.getHashCode(), stored);
+        // A prefetch of the entry could finish before the upload, and miss it
+        abandon(key.getHashCode());
+        storeExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    delegate.store(key, writerFor(file));
+                } catch (Exception e) {
+                    LOGGER.warn("Could not store entry {} in {}: {}", key, delegate.getDescription(), e.getMessage());
+                    LOGGER.debug("Failure to store entry in the background", e);
+                } finally {
+                    GFileUtils.deleteQuietly(file);
+                    release(size);
+                    pendingStores.remove(key.getHashCode(), stored);
+                    stored.countDown();
+                }
+            }
+        });
+    }
+
+    private void awaitPendingStore(BuildCacheKey key) {
+        CountDownLatch stored = pendingStores.get(key.getHashCode());
+        if (stored != null) {
+            await(stored);
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return delegate.getDescription();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        listenerManager.removeListener(this);
+        for (Prefetch prefetch : prefetches.values()) {
+            prefetch.abandon();
+        }
+        prefetches.clear();
+        prefetchedTasks.clear();
+        try {
+            // Waits for the pending uploads
+            CompositeStoppable.stoppable(loadExecutor, storeExecutor).stop();
+        } finally {
+            GFileUtils.deleteQuietly(tempDir);
+            delegate.close();
+        }
+    }
+
+    private PrefetchResult prefetch(BuildCacheKey key) {
+        final File file = createTempFile("load");
+        final long[] reserved = new long[1];
+        try {
+            boolean found = delegate.load(key, new BuildCacheEntryReader() {
+                @Override
+                public void readFrom(InputStream input) throws IOException {
+                    OutputStream output = new FileOutputStream(file);
+                    try {
+                        byte[] buffer = new byte[BUFFER_SIZE];
+                        int count;
+                        while ((count = input.read(buffer)) >= 0) {
+                            if (!reserve(count)) {
+                                throw new TempAreaFullException();
+                            }
+                            reserved[0] += count;
+                            output.write(buffer, 0, count);
+                        }
+                    } finally {
+                        output.close();
+                    }
+                }
+            });
+            if (found) {
+                return new PrefetchResult(file, reserved[0]);
+            }
+            GFileUtils.deleteQuietly(file);
+            return PrefetchResult.MISS;
+        } catch (TempAreaFullException e) {
+            LOGGER.debug("Entry {} does not fit into the temporary area, it will be loaded when requested.", key);
+        } catch (Exception e) {
+            // Loading is retried when the entry is requested, and fails there
+            LOGGER.debug("Could not prefetch entry {} from {}.", key, delegate.getDescription(), e);
+        }
+        discard(new PrefetchResult(file, reserved[0]));
+        return PrefetchResult.NOT_LOADED;
+    }
+
+    private File createTempFile(String prefix) {
+        try {
+            return File.createTempFile(prefix, ".bin", tempDir);
+        } catch (IOException e) {
+            throw new UncheckedException(e);
+        }
+    }
+
+    private synchronized boolean reserve(long size) {
+        if (tempSize + size > maxTempSize) {
+            return false;
+        }
+        tempSize += size;
+        return true;
+    }
+
+    private synchronized void release(long size) {
+        tempSize -= size;
+    }
+
+    private void discard(PrefetchResult result) {
+        if (result.file != null) {
+            GFileUtils.deleteQuietly(result.file);
+            release(result.size);
+        }
+    }
+
+    private static void readFrom(File file, BuildCacheEntryReader reader) {
+        try {
+            InputStream input = new FileInputStream(file);
+            try {
+                reader.readFrom(input);
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            throw new BuildCacheException(String.format("Unable to load entry from temporary file '%s'", file), e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static BuildCacheEntryWriter writerFor(final File file) {
+        return new BuildCacheEntryWriter() {
+            @Override
+            public void writeTo(OutputStream output) throws IOException {
+                InputStream input = new FileInputStream(file);
+                try {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int count;
+                    while ((count = input.read(buffer)) >= 0) {
+                        output.write(buffer, 0, count);
+                    }
+                } finally {
+                    input.close();
+                }
+            }
+        };
+    }
+
+    private static class PrefetchResult {
+        static final PrefetchResult MISS = new PrefetchResult(null, 0);
+        static final PrefetchResult NOT_LOADED = new PrefetchResult(null, 0);
+
+        final File file;
+        final long size;
+
+        PrefetchResult(File file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    private static class TempAreaFullException extends IOException {
+    }
+
+    private class Prefetch implements Runnable {
+        private final BuildCacheKey key;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private PrefetchResult result;
+        private boolean abandoned;
+
+        Prefetch(BuildCacheKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            try {
+                synchronized (this) {
+                    if (abandoned) {
+                        return;
+                    }
+                }
+                PrefetchResult loaded = prefetch(key);
+                synchronized (this) {
+                    if (abandoned) {
+                        discard(loaded);
+                    } else {
+                        result = loaded;
+                    }
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        PrefetchResult await() {
+            PrefetchingBuildCacheService.await(done);
+            synchronized (this) {
+                return result == null ? PrefetchResult.NOT_LOADED : result;
+            }
+        }
+
+        synchronized void abandon() {
+            abandoned = true;
+            if (result != null) {
+                discard(result);
+                result = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.jdk7.ParallelDirectorySnapshotter;
+import org.gradle.api.internal.file.collections.DefaultDirectoryFileTreeFactory;
+import org.gradle.api.internal.hash.DefaultFileHasher;
+import org.gradle.api.internal.hash.HashAlgorithm;
+import org.gradle.internal.classpath.CachedJarFileStore;
+import org.gradle.internal.nativeintegration.services.FileSystems;
+import org.gradle.internal.nativeintegration.services.NativeServices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+/**
+ * Snapshots synthetic directory trees sequentially and in parallel.
+ * Each snapshot uses a new file system mirror, so that the tree is walked and hashed again.
+ */
+@State(Scope.Benchmark)
+public class DirectorySnapshotterBenchmark {
+    private static final int FILES_PER_DIRECTORY = 100;
+    private static final int DIRECTORIES_PER_LEVEL = 10;
+
+    @Param({"10000", "100000", "1000000"})
+    int fileCount;
+
+    File tempDir;
+    File tree;
+    ParallelDirectorySnapshotter sequential;
+    ParallelDirectorySnapshotter parallel;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tempDir = Files.createTempDirectory("snapshotting").toFile();
+        NativeServices.initialize(new File(tempDir, "native"));
+        tree = new File(tempDir, "tree");
+        int directoryCount = fileCount / FILES_PER_DIRECTORY;
+        for (int i = 0; i < directoryCount; i++) {
+            File dir = new File(tree, "dir" + (i / DIRECTORIES_PER_LEVEL) + "/sub" + (i % DIRECTORIES_PER_LEVEL));
+            dir.mkdirs();
+            for (int j = 0; j < FILES_PER_DIRECTORY; j++) {
+                Files.write(new File(dir, "file" + j + ".txt").toPath(), ("content of file " + i + "/" + j).getBytes("UTF-8"));
+            }
+        }
+        sequential = new ParallelDirectorySnapshotter(false, 1);
+        parallel = new ParallelDirectorySnapshotter(true, Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        parallel.stop();
+        FileUtils.deleteDirectory(tempDir);
+    }
+
+    @Benchmark
+    public void snapshot_sequential(Blackhole bh) {
+        bh.consume(snapshotter(sequential).snapshotDirectoryTree(tree));
+    }
+
+    @Benchmark
+    public void snapshot_parallel(Blackhole bh) {
+        bh.consume(snapshotter(parallel).snapshotDirectoryTree(tree));
+    }
+
+    private static FileSystemSnapshotter snapshotter(ParallelDirectorySnapshotter parallelDirectorySnapshotter) {
+        return new DefaultFileSystemSnapshotter(new DefaultFileHasher(), new StringInterner(), FileSystems.getDefault(), new DefaultDirectoryFileTreeFactory(),
+            new DefaultFileSystemMirror(Collections.<CachedJarFileStore>emptyList()), HashAlgorithm.MD5, parallelDirectorySnapshotter);
+    }
+}
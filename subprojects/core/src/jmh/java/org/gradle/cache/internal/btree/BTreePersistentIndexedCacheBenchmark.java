@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Reads and writes entries of a persistent indexed cache backed by the file or the memory mapped block store.
+ * The keys look like file paths, and are accessed with a skewed distribution, so that a few keys are much hotter than the rest, as for the file hash cache.
+ */
+@State(Scope.Benchmark)
+public class BTreePersistentIndexedCacheBenchmark {
+    private static final int KEY_COUNT = 50000;
+
+    @Param({"file", "mmap"})
+    String store;
+
+    @Param({"64", "1024"})
+    int valueSize;
+
+    File tempDir;
+    BTreePersistentIndexedCache<String, byte[]> cache;
+    String[] keys;
+    byte[] value;
+    Random random;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tempDir = Files.createTempDirectory("btree").toFile();
+        cache = new BTreePersistentIndexedCache<String, byte[]>(new File(tempDir, "cache.bin"), BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER, "mmap".equals(store));
+        keys = new String[KEY_COUNT];
+        value = new byte[valueSize];
+        random = new Random(42);
+        random.nextBytes(value);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "/home/user/project/module" + (i % 100) + "/src/main/java/org/gradle/sample/package" + (i / 100) + "/Sample" + i + ".java";
+            cache.put(keys[i], value);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        cache.close();
+        FileUtils.deleteDirectory(tempDir);
+    }
+
+    @Benchmark
+    public byte[] get() {
+        return cache.get(nextKey());
+    }
+
+    @Benchmark
+    public void put() {
+        cache.put(nextKey(), value);
+    }
+
+    @Benchmark
+    public void removeAndPut() {
+        String key = nextKey();
+        cache.remove(key);
+        cache.put(key, value);
+    }
+
+    /**
+     * Picks a key with a roughly Zipf-like distribution, where the lowest keys are accessed most often.
+     */
+    private String nextKey() {
+        double skewed = Math.pow(random.nextDouble(), 4);
+        return keys[(int) (skewed * KEY_COUNT)];
+    }
+}
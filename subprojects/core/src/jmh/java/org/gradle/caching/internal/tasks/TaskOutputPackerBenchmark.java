@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import com.google.common.collect.ImmutableSortedSet;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.internal.file.IdentityFileResolver;
+import org.gradle.api.internal.tasks.CacheableTaskOutputFilePropertySpec.OutputType;
+import org.gradle.api.internal.tasks.DefaultCacheableTaskOutputFilePropertySpec;
+import org.gradle.api.internal.tasks.TaskOutputFilePropertySpec;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter;
+import org.gradle.internal.nativeintegration.services.FileSystems;
+import org.gradle.internal.nativeintegration.services.NativeServices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.concurrent.Executors;
+
+/**
+ * Packs and unpacks a task output directory with the tar+gzip format and the parallel format.
+ * The files contain random words, which compress about as well as typical build outputs.
+ */
+@State(Scope.Benchmark)
+public class TaskOutputPackerBenchmark {
+    private static final String[] WORDS = {"public", "class", "void", "return", "org/gradle/api", "java/lang/String", "Ljava/util/List;", "<init>", "()V", "Code", "LineNumberTable"};
+    private static final TaskOutputOriginWriter NO_ORIGIN_WRITER = new TaskOutputOriginWriter() {
+        @Override
+        public void execute(OutputStream outputStream) {
+        }
+    };
+    private static final TaskOutputOriginReader NO_ORIGIN_READER = new TaskOutputOriginReader() {
+        @Override
+        public void execute(InputStream inputStream) {
+        }
+    };
+
+    @Param({"tar.gz", "parallel"})
+    String format;
+
+    // Number of files x size of each file
+    @Param({"10000x4096", "20x10485760"})
+    String outputs;
+
+    File tempDir;
+    File entry;
+    SortedSet<TaskOutputFilePropertySpec> sourceProperties;
+    SortedSet<TaskOutputFilePropertySpec> targetProperties;
+    TaskOutputPacker packer;
+    ParallelTaskOutputPacker parallelPacker;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tempDir = Files.createTempDirectory("packing").toFile();
+        NativeServices.initialize(new File(tempDir, "native"));
+        File source = new File(tempDir, "source");
+        int fileCount = Integer.parseInt(outputs.substring(0, outputs.indexOf('x')));
+        int fileSize = Integer.parseInt(outputs.substring(outputs.indexOf('x') + 1));
+        Random random = new Random(1234);
+        for (int i = 0; i < fileCount; i++) {
+            File dir = new File(source, "dir" + (i / 100));
+            dir.mkdirs();
+            writeFile(new File(dir, "file" + i + ".class"), fileSize, random);
+        }
+        entry = new File(tempDir, "entry.bin");
+        sourceProperties = outputProperty(source);
+        targetProperties = outputProperty(new File(tempDir, "target"));
+
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        parallelPacker = new ParallelTaskOutputPacker(FileSystems.getDefault(), Executors.newFixedThreadPool(parallelism), parallelism);
+        packer = format.equals("parallel") ? parallelPacker : new GZipTaskOutputPacker(new TarTaskOutputPacker(FileSystems.getDefault()));
+        pack();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        parallelPacker.stop();
+        FileUtils.deleteDirectory(tempDir);
+    }
+
+    @Benchmark
+    public void pack() throws IOException {
+        OutputStream output = new BufferedOutputStream(new FileOutputStream(entry));
+        try {
+            packer.pack(sourceProperties, output, NO_ORIGIN_WRITER);
+        } finally {
+            output.close();
+        }
+    }
+
+    @Benchmark
+    public void unpack() throws IOException {
+        InputStream input = new BufferedInputStream(new FileInputStream(entry));
+        try {
+            packer.unpack(targetProperties, input, NO_ORIGIN_READER);
+        } finally {
+            input.close();
+        }
+    }
+
+    private static SortedSet<TaskOutputFilePropertySpec> outputProperty(File dir) {
+        DefaultCacheableTaskOutputFilePropertySpec spec = new DefaultCacheableTaskOutputFilePropertySpec("benchmark", new IdentityFileResolver(), OutputType.DIRECTORY, dir);
+        spec.withPropertyName("classes");
+        return ImmutableSortedSet.<TaskOutputFilePropertySpec>of(spec);
+    }
+
+    private static void writeFile(File file, int size, Random random) throws IOException {
+        StringBuilder content = new StringBuilder(size + 32);
+        while (content.length() < size) {
+            content.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(1000)).append(' ');
+        }
+        content.setLength(size);
+        Files.write(file.toPath(), content.toString().getBytes("UTF-8"));
+    }
+}
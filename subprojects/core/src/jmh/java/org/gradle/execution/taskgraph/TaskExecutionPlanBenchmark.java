@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.initialization.DefaultBuildCancellationToken;
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService;
+import org.gradle.internal.work.DefaultWorkerLeaseService;
+import org.gradle.internal.work.WorkerLeaseRegistry.WorkerLease;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures the overhead of scheduling the tasks of a synthetic task graph, with task actions that do nothing.
+ * The tasks are spread over a number of projects, and each task depends on a few randomly chosen tasks created before it.
+ */
+@State(Scope.Benchmark)
+public class TaskExecutionPlanBenchmark {
+    private static final int PROJECT_COUNT = 100;
+    private static final int DEPENDENCIES_PER_TASK = 3;
+
+    @Param({"500", "5000"})
+    int taskCount;
+
+    @Param({"1", "8", "32"})
+    int workerCount;
+
+    File projectDir;
+    List<Task> tasks;
+    DefaultResourceLockCoordinationService coordinationService;
+    DefaultWorkerLeaseService workerLeaseService;
+    ExecutorService executor;
+    DefaultTaskExecutionPlan executionPlan;
+
+    @Setup(Level.Trial)
+    public void createTaskGraph() throws IOException {
+        projectDir = Files.createTempDirectory("task-graph").toFile();
+        Project root = ProjectBuilder.builder().withProjectDir(projectDir).build();
+        List<Project> projects = new ArrayList<Project>();
+        for (int i = 0; i < PROJECT_COUNT; i++) {
+            projects.add(ProjectBuilder.builder().withName("project" + i).withParent(root).build());
+        }
+        Random random = new Random(42);
+        tasks = new ArrayList<Task>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            Task task = projects.get(i % PROJECT_COUNT).getTasks().create("task" + i);
+            for (int j = 0; j < DEPENDENCIES_PER_TASK && i > 0; j++) {
+                task.dependsOn(tasks.get(random.nextInt(i)));
+            }
+            tasks.add(task);
+        }
+        coordinationService = new DefaultResourceLockCoordinationService();
+        workerLeaseService = new DefaultWorkerLeaseService(coordinationService, true, workerCount);
+        executor = Executors.newFixedThreadPool(workerCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        FileUtils.deleteDirectory(projectDir);
+    }
+
+    @Setup(Level.Invocation)
+    public void createExecutionPlan() {
+        executionPlan = new DefaultTaskExecutionPlan(new DefaultBuildCancellationToken(), coordinationService, workerLeaseService);
+        executionPlan.addToTaskGraph(tasks);
+        executionPlan.determineExecutionPlan();
+    }
+
+    @Benchmark
+    public void executePlan() throws Exception {
+        final WorkerLease parentWorkerLease = workerLeaseService.getWorkerLease();
+        List<Future<Void>> workers = new ArrayList<Future<Void>>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    boolean moreTasks = true;
+                    while (moreTasks) {
+                        moreTasks = executionPlan.executeWithTask(parentWorkerLease, new Action<TaskInfo>() {
+                            @Override
+                            public void execute(TaskInfo taskInfo) {
+                                executionPlan.taskComplete(taskInfo);
+                            }
+                        });
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> worker : workers) {
+            worker.get();
+        }
+        executionPlan.awaitCompletion();
+    }
+}
@@ -37,6 +37,8 @@ import org.gradle.caching.internal.tasks.TaskCacheKeyCalculator;
 import org.gradle.caching.internal.tasks.TaskOutputCachingBuildCacheKey;
 import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
 import org.gradle.internal.reflect.Instantiator;
+import org.gradle.internal.time.Timer;
+import org.gradle.internal.time.Timers;
 
 import java.io.File;
 import java.util.Collection;
@@ -75,6 +77,7 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
         private boolean upToDate;
         private TaskUpToDateState states;
         private IncrementalTaskInputsInternal taskInputs;
+        private Timer executionTimer;
 
         public TaskArtifactStateImpl(TaskInternal task, TaskHistoryRepository.History history) {
             this.task = task;
@@ -154,6 +157,7 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
         }
 
         public void beforeTask() {
+            executionTimer = Timers.startTimer();
         }
 
         public void afterTask() {
@@ -161,6 +165,10 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
                 return;
             }
 
+            if (executionTimer != null) {
+                history.getCurrentExecution().setExecutionTime(executionTimer.getElapsedMillis());
+            }
+
             if (taskInputs != null) {
                 getStates().newInputs(taskInputs.getDiscoveredInputs());
             }
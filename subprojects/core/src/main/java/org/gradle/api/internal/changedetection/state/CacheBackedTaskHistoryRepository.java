@@ -30,7 +30,9 @@ import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.tasks.CacheableTaskOutputFilePropertySpec;
 import org.gradle.api.internal.tasks.TaskOutputFilePropertySpec;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.execution.taskgraph.TaskExecutionTimeEstimator;
 import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.BaseSerializerFactory;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.Serializer;
@@ -46,11 +48,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
+public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository, TaskExecutionTimeEstimator {
     private static final int MAX_HISTORY_ENTRIES = 3;
 
     private final FileSnapshotRepository snapshotRepository;
     private final PersistentIndexedCache<String, ImmutableList<TaskExecutionSnapshot>> taskHistoryCache;
+    private final PersistentIndexedCache<String, Long> taskExecutionTimeCache;
     private final StringInterner stringInterner;
 
     public CacheBackedTaskHistoryRepository(TaskHistoryStore cacheAccess, FileSnapshotRepository snapshotRepository, StringInterner stringInterner) {
@@ -58,6 +61,16 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         this.stringInterner = stringInterner;
         TaskExecutionListSerializer serializer = new TaskExecutionListSerializer(stringInterner);
         taskHistoryCache = cacheAccess.createCache("taskHistory", String.class, serializer, 10000, false);
+        taskExecutionTimeCache = cacheAccess.createCache("taskExecutionTimes", String.class, BaseSerializerFactory.LONG_SERIALIZER, 10000, true);
+    }
+
+    /**
+     * Returns the execution time of the most recent execution of the task, which is kept separately from the task history
+     * as it is only used for scheduling and is also needed for tasks that are up-to-date.
+     */
+    @Override
+    public Long getEstimatedExecutionTime(TaskInternal task) {
+        return taskExecutionTimeCache.get(task.getPath());
     }
 
     public History getHistory(final TaskInternal task) {
@@ -116,6 +129,9 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                     }
                 }
                 taskHistoryCache.put(task.getPath(), previousExecutions.snapshot());
+                if (currentExecution.getExecutionTime() != null) {
+                    taskExecutionTimeCache.put(task.getPath(), currentExecution.getExecutionTime());
+                }
             }
         };
     }
@@ -16,34 +16,94 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import org.gradle.api.Action;
 import org.gradle.api.Nullable;
 import org.gradle.api.internal.tasks.execution.TaskOutputsGenerationListener;
 import org.gradle.initialization.RootBuildLifecycleListener;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.classpath.CachedJarFileStore;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.file.DefaultFileHierarchySet;
 import org.gradle.internal.file.FileHierarchySet;
+import org.gradle.internal.filewatch.FileWatcher;
+import org.gradle.internal.filewatch.FileWatcherEvent;
+import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.filewatch.FileWatcherListener;
+import org.gradle.internal.nativeintegration.filesystem.FileType;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * See {@link DefaultFileSystemSnapshotter} for some more details
+ * See {@link DefaultFileSystemSnapshotter} for some more details.
+ *
+ * <p>When a {@link FileWatcherFactory} is provided, state about files that do not live in an append-only cache can be kept between builds.
+ * Each directory is watched without its subdirectories. The parent directory of a file is watched before the file is snapshotted, and the directories
+ * of a tree are watched when the tree is snapshotted. State is only kept between builds when all the directories it depends on were watched before
+ * it was snapshotted, and when no change was reported while it was snapshotted. The state for a file is discarded when the watcher reports a change
+ * to the file, to one of its ancestors or to one of its descendants. At the start of each build, the mirror waits until the watcher has reported all
+ * changes made before the build. All state is discarded when the watcher overflows, or when a directory cannot be watched.</p>
  */
-public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputsGenerationListener, RootBuildLifecycleListener {
+public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputsGenerationListener, RootBuildLifecycleListener, Stoppable {
+    /**
+     * Set to {@code true} to keep file system state between builds in the daemon.
+     */
+    public static final String WATCH_SYSTEM_PROPERTY = "org.gradle.internal.snapshotting.watch";
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultFileSystemMirror.class);
+    private static final int MARKER_TIMEOUT_SECONDS = 5;
+
     // Maps from interned absolute path for a file to known details for the file.
-    private final Map<String, FileSnapshot> files = new ConcurrentHashMap<String, FileSnapshot>();
+    private final ConcurrentNavigableMap<String, FileSnapshot> files = new ConcurrentSkipListMap<String, FileSnapshot>();
     private final Map<String, FileSnapshot> cacheFiles = new ConcurrentHashMap<String, FileSnapshot>();
     // Maps from interned absolute path for a directory to known details for the directory.
-    private final Map<String, FileTreeSnapshot> trees = new ConcurrentHashMap<String, FileTreeSnapshot>();
+    private final ConcurrentNavigableMap<String, FileTreeSnapshot> trees = new ConcurrentSkipListMap<String, FileTreeSnapshot>();
     private final Map<String, FileTreeSnapshot> cacheTrees = new ConcurrentHashMap<String, FileTreeSnapshot>();
     // Maps from interned absolute path to a snapshot
-    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<String, Snapshot>();
+    private final ConcurrentNavigableMap<String, Snapshot> snapshots = new ConcurrentSkipListMap<String, Snapshot>();
     private final Map<String, Snapshot> cacheSnapshots = new ConcurrentHashMap<String, Snapshot>();
     private final FileHierarchySet cachedDirectories;
 
+    @Nullable
+    private final FileWatcherFactory fileWatcherFactory;
+    // Paths whose state cannot be kept between builds
+    private final Set<String> unwatchedPaths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    // Maps from the path of a file being snapshotted to the state of the watcher when the snapshot started
+    private final ConcurrentMap<String, SnapshotStart> fileStarts = new ConcurrentHashMap<String, SnapshotStart>();
+    private final ConcurrentMap<String, SnapshotStart> treeStarts = new ConcurrentHashMap<String, SnapshotStart>();
+    private final ConcurrentMap<String, SnapshotStart> contentStarts = new ConcurrentHashMap<String, SnapshotStart>();
+    // Maps from the path of a watched directory to the sequence number of its watch
+    private final ConcurrentNavigableMap<String, Long> watchedDirectories = new ConcurrentSkipListMap<String, Long>();
+    private final AtomicLong watchSequence = new AtomicLong();
+    private final AtomicLong changeCount = new AtomicLong();
+    private final Object watchLock = new Object();
+    // Guarded by watchLock
+    private FileWatcher fileWatcher;
+    private File markerDir;
+    private long markerCount;
+    private volatile boolean watchingFailed;
+    private volatile CountDownLatch pendingMarkerLatch;
+    private volatile File pendingMarker;
+
     public DefaultFileSystemMirror(List<CachedJarFileStore> fileStores) {
+        this(fileStores, null);
+    }
+
+    public DefaultFileSystemMirror(List<CachedJarFileStore> fileStores, @Nullable FileWatcherFactory fileWatcherFactory) {
         FileHierarchySet cachedDirectories = DefaultFileHierarchySet.of();
         for (CachedJarFileStore fileStore : fileStores) {
             for (File file : fileStore.getFileStoreRoots()) {
@@ -51,6 +111,7 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputsGen
             }
         }
         this.cachedDirectories = cachedDirectories;
+        this.fileWatcherFactory = fileWatcherFactory;
     }
 
     @Nullable
@@ -60,17 +121,22 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputsGen
         // Could possibly infer that the path refers to a directory, if we have details for a descendant path (and it's not a missing file)
         if (cachedDirectories.contains(path)) {
             return cacheFiles.get(path);
-        } else {
-            return files.get(path);
         }
+        FileSnapshot file = files.get(path);
+        if (file == null) {
+            beforeSnapshot(fileStarts, path, false);
+        }
+        return file;
     }
 
     @Override
     public void putFile(FileSnapshot file) {
-        if (cachedDirectories.contains(file.getPath())) {
-            cacheFiles.put(file.getPath(), file);
+        String path = file.getPath();
+        if (cachedDirectories.contains(path)) {
+            cacheFiles.put(path, file);
         } else {
-            files.put(file.getPath(), file);
+            files.put(path, file);
+            afterSnapshot(fileStarts, path, false, Collections.<String>emptyList());
         }
     }
 
@@ -79,9 +145,12 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputsGen
     public Snapshot getContent(String path) {
         if (cachedDirectories.contains(path)) {
             return cacheSnapshots.get(path);
-        } else {
-            return snapshots.get(path);
         }
+        Snapshot snapshot = snapshots.get(path);
+        if (snapshot == null) {
+            beforeSnapshot(contentStarts, path, false);
+        }
+        return snapshot;
     }
 
     @Override
@@ -90,6 +159,14 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputsGen
             cacheSnapshots.put(path, snapshot);
         } else {
             snapshots.put(path, snapshot);
+            // The content is calculated from the snapshots of the file and of its tree, it can only be kept when they are kept
+            FileSnapshot file = files.get(path);
+            if (file == null || (file.getType() == FileType.Directory && !trees.containsKey(path))) {
+                contentStarts.remove(path);
+                unwatchedPaths.add(path);
+            } else {
+                afterSnapshot(contentStarts, path, false, Collections.<String>emptyList());
+            }
         }
     }
 
@@ -100,17 +177,28 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputsGen
         // Could possibly also short-circuit some scanning if we have details for some sub trees
         if (cachedDirectories.contains(path)) {
             return cacheTrees.get(path);
-        } else {
-            return trees.get(path);
         }
+        FileTreeSnapshot tree = trees.get(path);
+        if (tree == null) {
+            beforeSnapshot(treeStarts, path, true);
+        }
+        return tree;
     }
 
     @Override
     public void putDirectory(FileTreeSnapshot directory) {
-        if (cachedDirectories.contains(directory.getPath())) {
-            cacheTrees.put(directory.getPath(), directory);
+        String path = directory.getPath();
+        if (cachedDirectories.contains(path)) {
+            cacheTrees.put(path, directory);
         } else {
-            trees.put(directory.getPath(), directory);
+            trees.put(path, directory);
+            List<String> subDirectories = new ArrayList<String>();
+            for (FileSnapshot descendant : directory.getDescendants()) {
+                if (descendant.getType() == FileType.Directory) {
+                    subDirectories.add(descendant.getPath());
+                }
+            }
+            afterSnapshot(treeStarts, path, true, subDirectories);
         }
     }
 
@@ -121,20 +209,279 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputsGen
         files.clear();
         trees.clear();
         snapshots.clear();
+        unwatchedPaths.clear();
+        clearSnapshotStarts();
     }
 
     @Override
     public void afterStart() {
+        if (isWatching() && !(files.isEmpty() && trees.isEmpty() && snapshots.isEmpty())) {
+            waitForPendingChanges();
+        }
     }
 
     @Override
     public void beforeComplete() {
-        // We throw away all state between builds
-        files.clear();
         cacheFiles.clear();
-        trees.clear();
         cacheTrees.clear();
-        snapshots.clear();
         cacheSnapshots.clear();
+        if (isWatching()) {
+            // Keep the state for watched files, it is discarded when the files change
+            for (String path : unwatchedPaths) {
+                files.remove(path);
+                trees.remove(path);
+                snapshots.remove(path);
+            }
+        } else {
+            // We throw away all state between builds
+            files.clear();
+            trees.clear();
+            snapshots.clear();
+        }
+        unwatchedPaths.clear();
+        clearSnapshotStarts();
+    }
+
+    @Override
+    public void stop() {
+        synchronized (watchLock) {
+            if (fileWatcher != null) {
+                fileWatcher.stop();
+                fileWatcher = null;
+            }
+            if (markerDir != null) {
+                GFileUtils.deleteQuietly(markerDir);
+                markerDir = null;
+            }
+        }
+    }
+
+    private boolean isWatching() {
+        if (watchingFailed) {
+            return false;
+        }
+        synchronized (watchLock) {
+            return fileWatcher != null && fileWatcher.isRunning();
+        }
+    }
+
+    private void clearSnapshotStarts() {
+        fileStarts.clear();
+        treeStarts.clear();
+        contentStarts.clear();
+    }
+
+    /**
+     * Watches the directories that a snapshot of the given path depends on, and records the state of the watcher before the snapshot is taken.
+     */
+    private void beforeSnapshot(Map<String, SnapshotStart> starts, String path, boolean tree) {
+        if (fileWatcherFactory == null || watchingFailed) {
+            return;
+        }
+        File file = new File(path);
+        watchDirectory(file.getParentFile());
+        if (tree) {
+            watchDirectory(file);
+        }
+        starts.put(path, new SnapshotStart(changeCount.get(), watchSequence.get()));
+    }
+
+    /**
+     * Decides whether the snapshot of the given path, which has been added to the mirror, can be kept between builds.
+     * This is checked after the snapshot has been added, so that a change reported at the same time either fails the check or discards the snapshot.
+     */
+    private void afterSnapshot(Map<String, SnapshotStart> starts, String path, boolean tree, List<String> subDirectories) {
+        SnapshotStart start = starts.remove(path);
+        if (fileWatcherFactory == null || watchingFailed) {
+            unwatchedPaths.add(path);
+            return;
+        }
+        // Watch the subdirectories of a tree, so that the tree can be kept when it is snapshotted again
+        for (String subDirectory : subDirectories) {
+            watchDirectory(new File(subDirectory));
+        }
+        if (!canKeep(start, path, tree, subDirectories)) {
+            unwatchedPaths.add(path);
+        }
+    }
+
+    private boolean canKeep(@Nullable SnapshotStart start, String path, boolean tree, List<String> subDirectories) {
+        if (start == null || changeCount.get() != start.changeCount) {
+            return false;
+        }
+        File file = new File(path);
+        if (!isWatchedSince(file.getParentFile(), start)) {
+            return false;
+        }
+        if (!tree) {
+            return true;
+        }
+        if (!isWatchedSince(file, start)) {
+            return false;
+        }
+        for (String subDirectory : subDirectories) {
+            if (!isWatchedSince(new File(subDirectory), start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isWatchedSince(@Nullable File dir, SnapshotStart start) {
+        if (dir == null) {
+            return false;
+        }
+        Long sequence = watchedDirectories.get(dir.getPath());
+        return sequence != null && sequence <= start.watchSequence;
+    }
+
+    private void watchDirectory(@Nullable File dir) {
+        if (dir == null || watchedDirectories.containsKey(dir.getPath()) || !dir.isDirectory()) {
+            // Don't watch a distant ancestor of a missing file, the state for the file is only kept for the current build
+            return;
+        }
+        synchronized (watchLock) {
+            if (watchingFailed || watchedDirectories.containsKey(dir.getPath())) {
+                return;
+            }
+            try {
+                if (fileWatcher == null) {
+                    startWatching();
+                }
+                fileWatcher.watchDirectory(dir);
+                watchedDirectories.put(dir.getPath(), watchSequence.incrementAndGet());
+            } catch (IOException e) {
+                if (dir.isDirectory()) {
+                    stopWatching(dir, e);
+                }
+            } catch (RuntimeException e) {
+                stopWatching(dir, e);
+            }
+        }
+    }
+
+    // Guarded by watchLock
+    private void startWatching() throws IOException {
+        fileWatcher = fileWatcherFactory.watch(new Action<Throwable>() {
+            @Override
+            public void execute(Throwable throwable) {
+                LOGGER.info("Stopped watching the file system for changes to snapshotted files.", throwable);
+                watchingFailed = true;
+                invalidateAll();
+            }
+        }, new FileWatcherListener() {
+            @Override
+            public void onChange(FileWatcher watcher, FileWatcherEvent event) {
+                if (event.getType() == FileWatcherEvent.Type.UNDEFINED || event.getFile() == null) {
+                    // Some events have been lost
+                    invalidateAll();
+                } else if (isMarker(event.getFile())) {
+                    markerReported(event.getFile());
+                } else {
+                    invalidate(event);
+                }
+            }
+        });
+        // The watcher reports the changes in the order they happen, so the creation of a marker file tells when all earlier changes have been reported
+        File dir = File.createTempFile("gradle-watch", "");
+        GFileUtils.forceDelete(dir);
+        GFileUtils.mkdirs(dir);
+        markerDir = dir;
+        fileWatcher.watchDirectory(dir);
+    }
+
+    // Guarded by watchLock
+    private void stopWatching(File dir, Exception failure) {
+        LOGGER.info("Could not watch {} for changes, no longer keeping file system state between builds.", dir, failure);
+        watchingFailed = true;
+        if (fileWatcher != null) {
+            fileWatcher.stop();
+            fileWatcher = null;
+        }
+    }
+
+    private void waitForPendingChanges() {
+        CountDownLatch latch = new CountDownLatch(1);
+        File marker;
+        synchronized (watchLock) {
+            if (markerDir == null) {
+                return;
+            }
+            marker = new File(markerDir, "build-" + (++markerCount));
+            pendingMarkerLatch = latch;
+            pendingMarker = marker;
+        }
+        try {
+            if (!marker.createNewFile() || !latch.await(MARKER_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.info("Could not wait for the changes to the file system made before the build, discarding file system state from previous builds.");
+                invalidateAll();
+            }
+        } catch (IOException e) {
+            LOGGER.info("Could not wait for the changes to the file system made before the build, discarding file system state from previous builds.", e);
+            invalidateAll();
+        } catch (InterruptedException e) {
+            invalidateAll();
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            GFileUtils.deleteQuietly(marker);
+        }
+    }
+
+    private boolean isMarker(File file) {
+        File dir = markerDir;
+        return dir != null && dir.equals(file.getParentFile());
+    }
+
+    private void markerReported(File file) {
+        File marker = pendingMarker;
+        if (file.equals(marker)) {
+            pendingMarkerLatch.countDown();
+        }
+    }
+
+    private void invalidate(FileWatcherEvent event) {
+        String path = event.getFile().getAbsolutePath();
+        // Count the change before discarding any state, so that a snapshot being added at the same time is either discarded or not kept between builds
+        changeCount.incrementAndGet();
+        if (event.getType() != FileWatcherEvent.Type.MODIFY) {
+            // A created or deleted directory needs to be watched again
+            watchedDirectories.remove(path);
+            removeDescendants(watchedDirectories, path);
+        }
+        // A change to a file affects the file itself, the trees containing it and, when it is a directory, everything below it
+        files.remove(path);
+        removeDescendants(files, path);
+        invalidateHierarchy(trees, path);
+        invalidateHierarchy(snapshots, path);
+    }
+
+    private static void invalidateHierarchy(ConcurrentNavigableMap<String, ?> map, String path) {
+        map.remove(path);
+        removeDescendants(map, path);
+        for (File ancestor = new File(path).getParentFile(); ancestor != null; ancestor = ancestor.getParentFile()) {
+            map.remove(ancestor.getPath());
+        }
+    }
+
+    private void invalidateAll() {
+        changeCount.incrementAndGet();
+        files.clear();
+        trees.clear();
+        snapshots.clear();
+    }
+
+    private static void removeDescendants(ConcurrentNavigableMap<String, ?> map, String path) {
+        String prefix = path.endsWith(File.separator) ? path.substring(0, path.length() - 1) : path;
+        map.subMap(prefix + File.separatorChar, prefix + (char) (File.separatorChar + 1)).clear();
+    }
+
+    private static class SnapshotStart {
+        private final long changeCount;
+        private final long watchSequence;
+
+        SnapshotStart(long changeCount, long watchSequence) {
+            this.changeCount = changeCount;
+            this.watchSequence = watchSequence;
+        }
     }
 }
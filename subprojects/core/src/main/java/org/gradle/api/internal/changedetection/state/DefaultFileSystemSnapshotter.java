@@ -24,11 +24,13 @@ import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.jdk7.ParallelDirectorySnapshotter;
 import org.gradle.api.internal.file.FileTreeInternal;
 import org.gradle.api.internal.file.collections.DirectoryFileTree;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.file.collections.SimpleFileCollection;
 import org.gradle.api.internal.hash.FileHasher;
+import org.gradle.api.internal.hash.HashAlgorithm;
 import org.gradle.cache.internal.DefaultProducerGuard;
 import org.gradle.cache.internal.ProducerGuard;
 import org.gradle.caching.internal.BuildCacheHasher;
@@ -55,17 +57,21 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
     private final FileSystem fileSystem;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
     private final FileSystemMirror fileSystemMirror;
+    private final HashAlgorithm hashAlgorithm;
+    private final ParallelDirectorySnapshotter parallelDirectorySnapshotter;
     private final ProducerGuard<String> producingSelfSnapshots = new DefaultProducerGuard<String>();
     private final ProducerGuard<String> producingTrees = new DefaultProducerGuard<String>();
     private final ProducerGuard<String> producingAllSnapshots = new DefaultProducerGuard<String>();
     private final DefaultGenericFileCollectionSnapshotter snapshotter;
 
-    public DefaultFileSystemSnapshotter(FileHasher hasher, StringInterner stringInterner, FileSystem fileSystem, DirectoryFileTreeFactory directoryFileTreeFactory, FileSystemMirror fileSystemMirror) {
+    public DefaultFileSystemSnapshotter(FileHasher hasher, StringInterner stringInterner, FileSystem fileSystem, DirectoryFileTreeFactory directoryFileTreeFactory, FileSystemMirror fileSystemMirror, HashAlgorithm hashAlgorithm, ParallelDirectorySnapshotter parallelDirectorySnapshotter) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.fileSystem = fileSystem;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
         this.fileSystemMirror = fileSystemMirror;
+        this.hashAlgorithm = hashAlgorithm;
+        this.parallelDirectorySnapshotter = parallelDirectorySnapshotter;
         snapshotter = new DefaultGenericFileCollectionSnapshotter(stringInterner, directoryFileTreeFactory, this);
     }
 
@@ -96,7 +102,7 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
                 Snapshot snapshot = fileSystemMirror.getContent(path);
                 if (snapshot == null) {
                     FileCollectionSnapshot fileCollectionSnapshot = snapshotter.snapshot(new SimpleFileCollection(file), TaskFilePropertyCompareStrategy.UNORDERED, TaskFilePropertySnapshotNormalizationStrategy.ABSOLUTE);
-                    DefaultBuildCacheHasher hasher = new DefaultBuildCacheHasher();
+                    DefaultBuildCacheHasher hasher = new DefaultBuildCacheHasher(hashAlgorithm);
                     fileCollectionSnapshot.appendToHasher(hasher);
                     HashCode hashCode = hasher.hash();
                     snapshot = new HashBackedSnapshot(hashCode);
@@ -159,9 +165,15 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
     }
 
     private FileTreeSnapshot doSnapshot(DirectoryFileTree directoryTree) {
-        String path = getPath(directoryTree.getDir());
-        List<FileSnapshot> elements = Lists.newArrayList();
-        directoryTree.visit(new FileVisitorImpl(elements));
+        File dir = directoryTree.getDir();
+        String path = getPath(dir);
+        List<FileSnapshot> elements;
+        if (parallelDirectorySnapshotter.isEnabled() && dir.isDirectory()) {
+            elements = parallelDirectorySnapshotter.snapshot(dir, directoryTree.getPatterns().getAsSpec(), fileSystem, new SnapshotFactoryImpl());
+        } else {
+            elements = Lists.newArrayList();
+            directoryTree.visit(new FileVisitorImpl(elements));
+        }
         return new DirectoryTreeDetails(path, ImmutableList.copyOf(elements));
     }
 
@@ -205,8 +217,21 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
         }
     }
 
+    private class SnapshotFactoryImpl implements ParallelDirectorySnapshotter.SnapshotFactory {
+        @Override
+        public FileSnapshot directorySnapshot(FileVisitDetails dirDetails) {
+            return new DirectoryFileSnapshot(getPath(dirDetails.getFile()), dirDetails.getRelativePath(), false);
+        }
+
+        @Override
+        public FileSnapshot regularFileSnapshot(FileVisitDetails fileDetails) {
+            return new RegularFileSnapshot(getPath(fileDetails.getFile()), fileDetails.getRelativePath(), false, fileSnapshot(fileDetails));
+        }
+    }
+
     private class FileVisitorImpl implements FileVisitor {
         private final List<FileSnapshot> fileTreeElements;
+        private final SnapshotFactoryImpl snapshotFactory = new SnapshotFactoryImpl();
 
         FileVisitorImpl(List<FileSnapshot> fileTreeElements) {
             this.fileTreeElements = fileTreeElements;
@@ -214,12 +239,12 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
 
         @Override
         public void visitDir(FileVisitDetails dirDetails) {
-            fileTreeElements.add(new DirectoryFileSnapshot(getPath(dirDetails.getFile()), dirDetails.getRelativePath(), false));
+            fileTreeElements.add(snapshotFactory.directorySnapshot(dirDetails));
         }
 
         @Override
         public void visitFile(FileVisitDetails fileDetails) {
-            fileTreeElements.add(new RegularFileSnapshot(getPath(fileDetails.getFile()), fileDetails.getRelativePath(), false, fileSnapshot(fileDetails)));
+            fileTreeElements.add(snapshotFactory.regularFileSnapshot(fileDetails));
         }
     }
 }
@@ -19,6 +19,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.TaskExecutionHistory;
 
 import java.util.List;
@@ -34,6 +35,7 @@ public abstract class TaskExecution {
     private Iterable<String> outputPropertyNamesForCacheKey;
     private ImmutableSet<String> declaredOutputFilePaths;
     private TaskExecutionHistory.OverlappingOutputs detectedOverlappingOutputs;
+    private Long executionTime;
 
     /**
      * Returns the names of all cacheable output property names that have a value set.
@@ -116,4 +118,16 @@ public abstract class TaskExecution {
     public void setDetectedOverlappingOutputs(TaskExecutionHistory.OverlappingOutputs detectedOverlappingOutputs) {
         this.detectedOverlappingOutputs = detectedOverlappingOutputs;
     }
+
+    /**
+     * Returns the time it took to execute the task actions, in milliseconds, or null when not known.
+     */
+    @Nullable
+    public Long getExecutionTime() {
+        return executionTime;
+    }
+
+    public void setExecutionTime(@Nullable Long executionTime) {
+        this.executionTime = executionTime;
+    }
 }
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state.jdk7;
+
+import com.google.common.collect.Lists;
+import org.gradle.api.GradleException;
+import org.gradle.api.JavaVersion;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.changedetection.state.FileSnapshot;
+import org.gradle.api.internal.file.DefaultFileVisitDetails;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Snapshots a directory tree using a fork-join pool, walking sub-directories and hashing regular files in parallel.
+ *
+ * The result is identical to visiting the tree with {@link org.gradle.api.internal.file.collections.jdk7.Jdk7DirectoryWalker} in prefix order:
+ * entries are returned in directory listing order, and each directory is followed by the entries of its subtree.
+ * Symbolic links are followed, and links that would cause a loop are skipped.
+ */
+public class ParallelDirectorySnapshotter implements Stoppable {
+    public static final String SYSTEM_PROPERTY = "org.gradle.internal.snapshotting.parallel";
+    private static final int FILE_BATCH_SIZE = 64;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism The number of threads to snapshot with, usually the maximum number of workers of the build.
+     */
+    public ParallelDirectorySnapshotter(boolean enabled, int parallelism) {
+        this.pool = enabled ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * Parallel snapshotting is used on Java 8 and later, where directories are always walked with {@link org.gradle.api.internal.file.collections.jdk7.Jdk7DirectoryWalker},
+     * unless disabled with the {@value #SYSTEM_PROPERTY} system property.
+     */
+    public static ParallelDirectorySnapshotter fromSystemProperty(int parallelism) {
+        boolean enabled = JavaVersion.current().isJava8Compatible() && !"false".equals(System.getProperty(SYSTEM_PROPERTY));
+        return new ParallelDirectorySnapshotter(enabled, parallelism);
+    }
+
+    public boolean isEnabled() {
+        return pool != null;
+    }
+
+    /**
+     * Snapshots the contents of the given directory, excluding the directory itself.
+     */
+    public List<FileSnapshot> snapshot(File rootDir, Spec<? super FileTreeElement> spec, FileSystem fileSystem, SnapshotFactory snapshotFactory) {
+        if (pool == null) {
+            throw new IllegalStateException("Parallel directory snapshotting is disabled.");
+        }
+        Path rootPath = rootDir.toPath();
+        List<Object> ancestorKeys = new ArrayList<Object>();
+        ancestorKeys.add(readAttributes(rootPath).fileKey());
+        Context context = new Context(spec, fileSystem, snapshotFactory);
+        return pool.invoke(new DirectoryTask(context, rootPath, RelativePath.EMPTY_ROOT, ancestorKeys));
+    }
+
+    @Override
+    public void stop() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new GradleException(String.format("Could not read path '%s'.", path), e);
+        }
+    }
+
+    /**
+     * Creates the snapshots for the visited elements. Must be thread-safe.
+     */
+    public interface SnapshotFactory {
+        FileSnapshot directorySnapshot(FileVisitDetails directoryDetails);
+
+        FileSnapshot regularFileSnapshot(FileVisitDetails fileDetails);
+    }
+
+    private static class Context {
+        private final Spec<? super FileTreeElement> spec;
+        private final FileSystem fileSystem;
+        private final SnapshotFactory snapshotFactory;
+        private final AtomicBoolean stopFlag = new AtomicBoolean();
+
+        Context(Spec<? super FileTreeElement> spec, FileSystem fileSystem, SnapshotFactory snapshotFactory) {
+            this.spec = spec;
+            this.fileSystem = fileSystem;
+            this.snapshotFactory = snapshotFactory;
+        }
+
+        FileVisitDetails details(Path path, RelativePath relativePath, BasicFileAttributes attributes, boolean isDirectory) {
+            return new DefaultFileVisitDetails(path.toFile(), relativePath, stopFlag, fileSystem, fileSystem, isDirectory, attributes.lastModifiedTime().toMillis(), attributes.size());
+        }
+    }
+
+    /**
+     * Snapshots the contents of a directory. Sub-directories and batches of regular files are processed as forked tasks,
+     * and the results are joined in listing order.
+     */
+    private static class DirectoryTask extends RecursiveTask<List<FileSnapshot>> {
+        private final Context context;
+        private final Path dir;
+        private final RelativePath relativePath;
+        private final List<Object> ancestorKeys;
+
+        DirectoryTask(Context context, Path dir, RelativePath relativePath, List<Object> ancestorKeys) {
+            this.context = context;
+            this.dir = dir;
+            this.relativePath = relativePath;
+            this.ancestorKeys = ancestorKeys;
+        }
+
+        @Override
+        protected List<FileSnapshot> compute() {
+            // Each entry is either the snapshot of a directory, followed by its subtree, or a batch of regular files
+            List<Object> entries = new ArrayList<Object>();
+            List<FileVisitDetails> files = new ArrayList<FileVisitDetails>();
+
+            for (Path child : listChildren()) {
+                BasicFileAttributes attributes = readChildAttributes(child);
+                String name = child.getFileName().toString();
+                if (attributes.isDirectory()) {
+                    FileVisitDetails details = context.details(child, relativePath.append(false, name), attributes, true);
+                    if (!context.spec.isSatisfiedBy(details) || wouldLoop(child, attributes)) {
+                        continue;
+                    }
+                    if (!files.isEmpty()) {
+                        entries.add(new RegularFilesTask(context, files).fork());
+                        files = new ArrayList<FileVisitDetails>();
+                    }
+                    entries.add(context.snapshotFactory.directorySnapshot(details));
+                    List<Object> childAncestorKeys = new ArrayList<Object>(ancestorKeys);
+                    childAncestorKeys.add(attributes.fileKey());
+                    entries.add(new DirectoryTask(context, child, details.getRelativePath(), childAncestorKeys).fork());
+                } else {
+                    FileVisitDetails details = context.details(child, relativePath.append(true, name), attributes, false);
+                    if (!context.spec.isSatisfiedBy(details)) {
+                        continue;
+                    }
+                    if (attributes.isSymbolicLink()) {
+                        // We only get here when the link couldn't be followed
+                        throw new GradleException(String.format("Could not list contents of '%s'. Couldn't follow symbolic link.", child));
+                    }
+                    files.add(details);
+                    if (files.size() == FILE_BATCH_SIZE) {
+                        entries.add(new RegularFilesTask(context, files).fork());
+                        files = new ArrayList<FileVisitDetails>();
+                    }
+                }
+            }
+            if (!files.isEmpty()) {
+                // Hash the last batch on this thread
+                entries.add(new RegularFilesTask(context, files).compute());
+            }
+
+            List<FileSnapshot> result = new ArrayList<FileSnapshot>();
+            for (Object entry : entries) {
+                if (entry instanceof FileSnapshot) {
+                    result.add((FileSnapshot) entry);
+                } else if (entry instanceof ForkJoinTask) {
+                    @SuppressWarnings("unchecked")
+                    ForkJoinTask<List<FileSnapshot>> task = (ForkJoinTask<List<FileSnapshot>>) entry;
+                    result.addAll(task.join());
+                } else {
+                    @SuppressWarnings("unchecked")
+                    List<FileSnapshot> snapshots = (List<FileSnapshot>) entry;
+                    result.addAll(snapshots);
+                }
+            }
+            return result;
+        }
+
+        private List<Path> listChildren() {
+            try {
+                DirectoryStream<Path> stream = Files.newDirectoryStream(dir);
+                try {
+                    return Lists.newArrayList(stream);
+                } finally {
+                    stream.close();
+                }
+            } catch (IOException e) {
+                throw new GradleException(String.format("Could not read directory path '%s'.", dir), e);
+            }
+        }
+
+        private BasicFileAttributes readChildAttributes(Path child) {
+            try {
+                return Files.readAttributes(child, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // The child may be a link that cannot be followed
+                try {
+                    return Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException ignored) {
+                    throw new GradleException(String.format("Could not read path '%s'.", child), e);
+                }
+            }
+        }
+
+        private boolean wouldLoop(Path child, BasicFileAttributes attributes) {
+            Object key = attributes.fileKey();
+            if (key != null) {
+                return ancestorKeys.contains(key);
+            }
+            // Without file keys, compare the real paths of the ancestors
+            try {
+                Path ancestor = child.getParent();
+                for (int i = ancestorKeys.size() - 1; i >= 0 && ancestor != null; i--) {
+                    if (Files.isSameFile(child, ancestor)) {
+                        return true;
+                    }
+                    ancestor = ancestor.getParent();
+                }
+                return false;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    private static class RegularFilesTask extends RecursiveTask<List<FileSnapshot>> {
+        private final Context context;
+        private final List<FileVisitDetails> files;
+
+        RegularFilesTask(Context context, List<FileVisitDetails> files) {
+            this.context = context;
+            this.files = files;
+        }
+
+        @Override
+        protected List<FileSnapshot> compute() {
+            List<FileSnapshot> snapshots = new ArrayList<FileSnapshot>(files.size());
+            for (FileVisitDetails file : files) {
+                snapshots.add(context.snapshotFactory.regularFileSnapshot(file));
+            }
+            return snapshots;
+        }
+    }
+}
@@ -18,7 +18,6 @@ package org.gradle.api.internal.hash;
 import com.google.common.base.Charsets;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hasher;
-import com.google.common.hash.Hashing;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.internal.nativeintegration.filesystem.FileMetadataSnapshot;
@@ -32,15 +31,25 @@ import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 
 public class DefaultFileHasher implements FileHasher {
-    private static final byte[] SIGNATURE = Hashing.md5().hashString(DefaultFileHasher.class.getName(), Charsets.UTF_8).asBytes();
+    private final HashAlgorithm hashAlgorithm;
+    private final byte[] signature;
     private final Queue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(16);
 
+    public DefaultFileHasher() {
+        this(HashAlgorithm.MD5);
+    }
+
+    public DefaultFileHasher(HashAlgorithm hashAlgorithm) {
+        this.hashAlgorithm = hashAlgorithm;
+        this.signature = hashAlgorithm.getHashFunction().hashString(DefaultFileHasher.class.getName(), Charsets.UTF_8).asBytes();
+    }
+
     @Override
     public HashCode hash(InputStream inputStream) {
         try {
             return doHash(inputStream);
         } catch (IOException e) {
-            throw new UncheckedIOException("Failed to create MD5 hash for file content.", e);
+            throw new UncheckedIOException(String.format("Failed to create %s hash for file content.", hashAlgorithm.getId()), e);
         }
     }
 
@@ -57,7 +66,7 @@ public class DefaultFileHasher implements FileHasher {
             InputStream inputStream = new FileInputStream(file);
             return doHash(inputStream);
         } catch (IOException e) {
-            throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s'.", file), e);
+            throw new UncheckedIOException(String.format("Failed to create %s hash for file '%s'.", hashAlgorithm.getId(), file), e);
         }
     }
 
@@ -105,9 +114,9 @@ public class DefaultFileHasher implements FileHasher {
         return hash(fileDetails.getFile());
     }
 
-    private static Hasher createFileHasher() {
-        Hasher hasher = Hashing.md5().newHasher();
-        hasher.putBytes(SIGNATURE);
+    private Hasher createFileHasher() {
+        Hasher hasher = hashAlgorithm.getHashFunction().newHasher();
+        hasher.putBytes(signature);
         return hasher;
     }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * The hash function used to hash file contents, file system snapshots and build cache keys.
+ *
+ * All algorithms produce 128 bit hashes, so that hashes can be stored and compared in the same way regardless of the algorithm.
+ * Persistent caches that store hashes must be keyed by the algorithm, see {@link #getCacheName(String)}.
+ */
+public enum HashAlgorithm {
+    MD5("md5") {
+        @Override
+        public HashFunction getHashFunction() {
+            return Hashing.md5();
+        }
+    },
+    /**
+     * A fast non-cryptographic hash function.
+     */
+    MURMUR3_128("murmur3_128") {
+        @Override
+        public HashFunction getHashFunction() {
+            return Hashing.murmur3_128();
+        }
+    };
+
+    public static final String SYSTEM_PROPERTY = "org.gradle.internal.hash.algorithm";
+
+    private final String id;
+
+    HashAlgorithm(String id) {
+        this.id = id;
+    }
+
+    public abstract HashFunction getHashFunction();
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the name to use for a persistent cache holding hashes created by this algorithm.
+     * MD5 keeps the given name, so that existing caches remain usable.
+     */
+    public String getCacheName(String baseName) {
+        return this == MD5 ? baseName : baseName + "-" + id;
+    }
+
+    /**
+     * Returns the algorithm selected by the {@value #SYSTEM_PROPERTY} system property, defaulting to {@link #MD5}.
+     */
+    public static HashAlgorithm fromSystemProperty() {
+        String id = System.getProperty(SYSTEM_PROPERTY);
+        return id == null ? MD5 : forId(id);
+    }
+
+    public static HashAlgorithm forId(String id) {
+        for (HashAlgorithm algorithm : values()) {
+            if (algorithm.id.equals(id)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown hash algorithm '%s'. Supported algorithms are: md5, murmur3_128.", id));
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.TaskExecutionContext;
+import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.caching.internal.tasks.TaskOutputCacheLoadListener;
+import org.gradle.caching.internal.tasks.TaskOutputCachingBuildCacheKey;
+
+/**
+ * Notifies the listener before the outputs of a task are looked up in the build cache. Runs after the up-to-date check, so that up-to-date tasks are not reported.
+ */
+public class NotifyTaskOutputCacheLoadExecuter implements TaskExecuter {
+    private final TaskOutputCacheLoadListener listener;
+    private final TaskExecuter delegate;
+
+    public NotifyTaskOutputCacheLoadExecuter(TaskOutputCacheLoadListener listener, TaskExecuter delegate) {
+        this.listener = listener;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(TaskInternal task, TaskStateInternal state, TaskExecutionContext context) {
+        TaskOutputCachingBuildCacheKey cacheKey = context.getBuildCacheKey();
+        if (state.getTaskOutputCaching().isEnabled() && cacheKey.isValid() && context.getTaskArtifactState().isAllowedToUseCachedResults()) {
+            listener.beforeLoad(task, cacheKey);
+        }
+        delegate.execute(task, state, context);
+    }
+}
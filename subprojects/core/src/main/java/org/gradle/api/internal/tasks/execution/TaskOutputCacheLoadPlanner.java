@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.TaskArtifactState;
+import org.gradle.api.internal.changedetection.TaskArtifactStateRepository;
+import org.gradle.caching.internal.tasks.TaskOutputCacheLoadListener;
+import org.gradle.caching.internal.tasks.TaskOutputCachingBuildCacheKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Notifies the listener of the build cache loads of tasks that are ready to execute, ahead of their execution, so that the loads can be started early.
+ *
+ * A task is ready to execute when all its dependencies have completed, so its inputs are known. Its cache key and its up-to-date state are calculated
+ * from a separate task artifact state, which is then discarded: the task can still change before it executes, for example in a task execution listener.
+ * The task calculates its cache key again when it executes, and a load that was announced for a different key is not used.
+ */
+public class TaskOutputCacheLoadPlanner {
+    /**
+     * Enables announcing the loads of ready tasks ahead of their execution, and the prefetching of these loads by the HTTP build cache.
+     */
+    public static final String PREFETCH_PROPERTY = "org.gradle.internal.cache.http.prefetch";
+    /**
+     * The maximum number of ready tasks to plan each time a task starts executing. Planning a task takes time from the executing task.
+     */
+    public static final int MAX_PLANNED_TASKS = 4;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskOutputCacheLoadPlanner.class);
+
+    private final TaskArtifactStateRepository repository;
+    private final TaskOutputCacheLoadListener listener;
+
+    public TaskOutputCacheLoadPlanner(TaskArtifactStateRepository repository, TaskOutputCacheLoadListener listener) {
+        this.repository = repository;
+        this.listener = listener;
+    }
+
+    /**
+     * Plans the build cache loads of the given tasks. Must be called while holding the lock of the project of the tasks.
+     */
+    public void plan(Iterable<? extends TaskInternal> readyTasks) {
+        for (TaskInternal task : readyTasks) {
+            try {
+                plan(task);
+            } catch (Exception e) {
+                // The task reports the failure when it executes
+                LOGGER.debug("Could not plan the build cache load of {}.", task, e);
+            }
+        }
+    }
+
+    private void plan(TaskInternal task) {
+        if (task.getTaskActions().isEmpty() || !task.getOutputs().getHasOutput() || !task.getOutputs().getCachingState().isEnabled()) {
+            return;
+        }
+        if (task.getInputs().getHasSourceFiles() && task.getInputs().getSourceFiles().isEmpty()) {
+            return;
+        }
+        TaskArtifactState taskArtifactState = repository.getStateFor(task);
+        if (!taskArtifactState.isAllowedToUseCachedResults()) {
+            return;
+        }
+        TaskOutputCachingBuildCacheKey cacheKey = taskArtifactState.calculateCacheKey();
+        if (cacheKey.isValid() && !taskArtifactState.isUpToDate(null)) {
+            LOGGER.debug("Planning the build cache load of {} with key {}.", task, cacheKey.getHashCode());
+            listener.beforeLoad(task, cacheKey);
+        }
+    }
+}
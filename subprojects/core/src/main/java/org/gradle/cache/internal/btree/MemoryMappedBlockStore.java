@@ -0,0 +1,358 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.CountingOutputStream;
+import org.gradle.api.UncheckedIOException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A block store that accesses the cache file through memory mapped regions, instead of seeking and reading the file for each block.
+ * The mapped regions live outside of the heap, and the operating system keeps the hot blocks of the file in memory.
+ *
+ * Uses the same file format as {@link FileBackedBlockStore}, so that either store can be used for an existing file.
+ * The file grows by whole regions while it is open, and is truncated to the end of the last block when the store is closed.
+ */
+public class MemoryMappedBlockStore implements BlockStore {
+    /**
+     * Selects this store for the caches that support it, instead of {@link FileBackedBlockStore}.
+     */
+    public static final String SYSTEM_PROPERTY = "org.gradle.internal.cache.mmap";
+    private static final int REGION_SIZE = 4 * 1024 * 1024;
+
+    private final File cacheFile;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private final ExposedByteArrayOutputStream writeBuffer = new ExposedByteArrayOutputStream();
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private long nextBlock;
+    private Factory factory;
+    private long currentFileSize;
+
+    public MemoryMappedBlockStore(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    public static boolean isSelected() {
+        return Boolean.getBoolean(SYSTEM_PROPERTY);
+    }
+
+    @Override
+    public String toString() {
+        return "cache '" + cacheFile + "'";
+    }
+
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            cacheFile.getParentFile().mkdirs();
+            file = new RandomAccessFile(cacheFile, "rw");
+            channel = file.getChannel();
+            currentFileSize = file.length();
+            nextBlock = currentFileSize;
+            if (currentFileSize == 0) {
+                runnable.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() {
+        try {
+            unmapRegions();
+            if (file.length() > currentFileSize) {
+                try {
+                    file.setLength(currentFileSize);
+                } catch (IOException e) {
+                    // The regions may still be mapped when they could not be unmapped explicitly. Keep the padding, which is never read.
+                }
+            }
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void clear() {
+        try {
+            unmapRegions();
+            file.setLength(0);
+            currentFileSize = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nextBlock = 0;
+    }
+
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    public void flush() {
+    }
+
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(new BlockPointer(0), payloadType);
+    }
+
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        try {
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    private MappedByteBuffer region(int index) throws IOException {
+        while (regions.size() <= index) {
+            // Mapping a region beyond the end of the file grows the file
+            regions.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) regions.size() * REGION_SIZE, REGION_SIZE));
+        }
+        return regions.get(index);
+    }
+
+    private void get(long pos, byte[] target, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            MappedByteBuffer region = region((int) (pos / REGION_SIZE));
+            int regionOffset = (int) (pos % REGION_SIZE);
+            int count = Math.min(length - offset, REGION_SIZE - regionOffset);
+            region.position(regionOffset);
+            region.get(target, offset, count);
+            offset += count;
+            pos += count;
+        }
+    }
+
+    private void put(long pos, byte[] source, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            MappedByteBuffer region = region((int) (pos / REGION_SIZE));
+            int regionOffset = (int) (pos % REGION_SIZE);
+            int count = Math.min(length - offset, REGION_SIZE - regionOffset);
+            region.position(regionOffset);
+            region.put(source, offset, count);
+            offset += count;
+            pos += count;
+        }
+    }
+
+    private void unmapRegions() {
+        for (MappedByteBuffer region : regions) {
+            unmap(region);
+        }
+        regions.clear();
+    }
+
+    /**
+     * Releases the mapping without waiting for the buffer to be garbage collected, where the JVM allows this.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                Method cleanMethod = cleaner.getClass().getMethod("clean");
+                cleanMethod.setAccessible(true);
+                cleanMethod.invoke(cleaner);
+            }
+        } catch (Exception e) {
+            // Leave the buffer to the garbage collector
+        }
+    }
+
+    private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+
+    private final class BlockImpl extends Block {
+        private static final int HEADER_SIZE = 1 + INT_SIZE; // type, payload size
+        private static final int TAIL_SIZE = INT_SIZE;
+
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = new BlockPointer(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+
+            writeBuffer.reset();
+            DataOutputStream outputStream = new DataOutputStream(writeBuffer);
+
+            BlockPayload payload = getPayload();
+
+            // Write header
+            outputStream.writeByte(payload.getType());
+            outputStream.writeInt(payloadSize);
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
+
+            // Write body
+            CountingOutputStream countingOutputStream = new CountingOutputStream(writeBuffer);
+            DataOutputStream bodyStream = new DataOutputStream(countingOutputStream);
+            payload.write(bodyStream);
+            bodyStream.flush();
+
+            // Write count, which includes the header
+            long bytesWritten = HEADER_SIZE + countingOutputStream.getCount();
+            if (bytesWritten > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Block payload exceeds maximum size");
+            }
+            outputStream.writeInt((int) bytesWritten);
+            outputStream.flush();
+
+            put(pos, writeBuffer.getBuffer(), writeBuffer.size());
+
+            // Pad
+            long end = Math.max(finalSize, pos + writeBuffer.size());
+            if (currentFileSize < end) {
+                currentFileSize = end;
+            }
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            if (pos + HEADER_SIZE >= currentFileSize) {
+                throw blockCorruptedException();
+            }
+
+            byte[] header = new byte[HEADER_SIZE];
+            get(pos, header, HEADER_SIZE);
+            DataInputStream headerStream = new DataInputStream(new ByteArrayInputStream(header));
+
+            BlockPayload payload = getPayload();
+
+            // Read header
+            byte type = headerStream.readByte();
+            if (type != payload.getType()) {
+                throw blockCorruptedException();
+            }
+
+            // Read body
+            payloadSize = headerStream.readInt();
+            if (payloadSize < 0 || pos + HEADER_SIZE + TAIL_SIZE + payloadSize > currentFileSize) {
+                throw blockCorruptedException();
+            }
+            byte[] body = new byte[payloadSize + TAIL_SIZE];
+            get(pos + HEADER_SIZE, body, body.length);
+            CountingInputStream countingInputStream = new CountingInputStream(new ByteArrayInputStream(body));
+            DataInputStream inputStream = new DataInputStream(countingInputStream);
+            payload.read(inputStream);
+
+            // Read and verify count, which includes the header
+            long actualCount = HEADER_SIZE + countingInputStream.getCount();
+            long count = inputStream.readInt();
+            if (actualCount != count) {
+                throw blockCorruptedException();
+            }
+        }
+
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                    MemoryMappedBlockStore.this));
+        }
+    }
+}
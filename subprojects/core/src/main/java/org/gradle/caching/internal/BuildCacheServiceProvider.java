@@ -24,6 +24,7 @@ import org.gradle.caching.BuildCacheServiceFactory;
 import org.gradle.caching.configuration.BuildCache;
 import org.gradle.caching.configuration.internal.BuildCacheConfigurationInternal;
 import org.gradle.internal.Cast;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.util.SingleMessageLogger;
@@ -41,14 +42,18 @@ public class BuildCacheServiceProvider {
     private final Instantiator instantiator;
     private final StartParameter startParameter;
     private final TemporaryFileProvider temporaryFileProvider;
+    private final ExecutorFactory executorFactory;
+    private final InMemoryBuildCacheService inMemoryBuildCacheService;
 
     @Inject
-    public BuildCacheServiceProvider(BuildCacheConfigurationInternal buildCacheConfiguration, StartParameter startParameter, Instantiator instantiator, BuildOperationExecutor buildOperationExecutor, TemporaryFileProvider temporaryFileProvider) {
+    public BuildCacheServiceProvider(BuildCacheConfigurationInternal buildCacheConfiguration, StartParameter startParameter, Instantiator instantiator, BuildOperationExecutor buildOperationExecutor, TemporaryFileProvider temporaryFileProvider, ExecutorFactory executorFactory, InMemoryBuildCacheService inMemoryBuildCacheService) {
         this.buildCacheConfiguration = buildCacheConfiguration;
         this.startParameter = startParameter;
         this.instantiator = instantiator;
         this.buildOperationExecutor = buildOperationExecutor;
         this.temporaryFileProvider = temporaryFileProvider;
+        this.executorFactory = executorFactory;
+        this.inMemoryBuildCacheService = inMemoryBuildCacheService;
     }
 
     public BuildCacheService createBuildCacheService() {
@@ -81,23 +86,37 @@ public class BuildCacheServiceProvider {
             return new NoOpBuildCacheService();
         }
 
+        if (inMemoryBuildCacheService.isEnabled()) {
+            buildCacheService = createInMemoryTier(buildCacheService);
+        }
         return buildCacheService;
     }
 
     private RoleAwareBuildCacheService createDispatchingBuildCacheService(BuildCache local, BuildCache remote) {
         return new DispatchingBuildCacheService(
-            createDecoratedBuildCacheService("local", local), local.isPush(),
-            createDecoratedBuildCacheService("remote", remote), remote.isPush(),
-            temporaryFileProvider
+            createDecoratedBuildCacheService("local", local, true), local.isPush(),
+            createDecoratedBuildCacheService("remote", remote, false), remote.isPush(),
+            temporaryFileProvider,
+            executorFactory.create("Build cache write-through")
+        );
+    }
+
+    private RoleAwareBuildCacheService createInMemoryTier(RoleAwareBuildCacheService buildCacheService) {
+        // Pushing to the tiers behind the memory tier is prevented by the tiers themselves
+        return new DispatchingBuildCacheService(
+            decorate("memory", inMemoryBuildCacheService, true), true,
+            buildCacheService, true,
+            temporaryFileProvider,
+            executorFactory.create("Build cache write-through to memory")
         );
     }
 
     private RoleAwareBuildCacheService createStandaloneLocalBuildService(BuildCache local) {
-        return preventPushIfNecessary(createDecoratedBuildCacheService("local", local), local.isPush());
+        return preventPushIfNecessary(createDecoratedBuildCacheService("local", local, false), local.isPush());
     }
 
     private RoleAwareBuildCacheService createStandaloneRemoteBuildService(BuildCache remote) {
-        return preventPushIfNecessary(createDecoratedBuildCacheService("remote", remote), remote.isPush());
+        return preventPushIfNecessary(createDecoratedBuildCacheService("remote", remote, false), remote.isPush());
     }
 
     private RoleAwareBuildCacheService preventPushIfNecessary(RoleAwareBuildCacheService buildCacheService, boolean pushEnabled) {
@@ -107,10 +126,15 @@ public class BuildCacheServiceProvider {
     }
 
     @VisibleForTesting
-    RoleAwareBuildCacheService createDecoratedBuildCacheService(String role, BuildCache buildCache) {
-        RoleAwareBuildCacheService buildCacheService = new BuildCacheServiceWithRole(role, createRawBuildCacheService(buildCache));
-        LOGGER.warn("Using {} as {} build cache, push is {}.", buildCacheService.getDescription(), role, buildCache.isPush() ? "enabled" : "disabled");
-        buildCacheService = new BuildOperationFiringBuildCacheServiceDecorator(buildOperationExecutor, buildCacheService);
+    RoleAwareBuildCacheService createDecoratedBuildCacheService(String role, BuildCache buildCache, boolean frontTier) {
+        BuildCacheService rawBuildCacheService = createRawBuildCacheService(buildCache);
+        LOGGER.warn("Using {} as {} build cache, push is {}.", rawBuildCacheService.getDescription(), role, buildCache.isPush() ? "enabled" : "disabled");
+        return decorate(role, rawBuildCacheService, frontTier);
+    }
+
+    private RoleAwareBuildCacheService decorate(String role, BuildCacheService rawBuildCacheService, boolean frontTier) {
+        RoleAwareBuildCacheService buildCacheService = new BuildCacheServiceWithRole(role, rawBuildCacheService);
+        buildCacheService = new BuildOperationFiringBuildCacheServiceDecorator(buildOperationExecutor, buildCacheService, frontTier);
         buildCacheService = new LoggingBuildCacheServiceDecorator(buildCacheService);
         buildCacheService = new ShortCircuitingErrorHandlerBuildCacheServiceDecorator(MAX_ERROR_COUNT_FOR_BUILD_CACHE, buildCacheService);
         return buildCacheService;
@@ -16,6 +16,7 @@
 
 package org.gradle.caching.internal;
 
+import com.google.common.io.CountingInputStream;
 import org.gradle.caching.BuildCacheEntryReader;
 import org.gradle.caching.BuildCacheEntryWriter;
 import org.gradle.caching.BuildCacheException;
@@ -31,10 +32,19 @@ import java.io.OutputStream;
 
 public class BuildOperationFiringBuildCacheServiceDecorator extends AbstractRoleAwareBuildCacheServiceDecorator {
     private final BuildOperationExecutor buildOperationExecutor;
+    private final boolean frontTier;
 
     public BuildOperationFiringBuildCacheServiceDecorator(BuildOperationExecutor buildOperationExecutor, RoleAwareBuildCacheService delegate) {
+        this(buildOperationExecutor, delegate, false);
+    }
+
+    /**
+     * @param frontTier whether the service is a tier in front of another tier, so that loading entries from it saves loading them from the other tier.
+     */
+    public BuildOperationFiringBuildCacheServiceDecorator(BuildOperationExecutor buildOperationExecutor, RoleAwareBuildCacheService delegate, boolean frontTier) {
         super(delegate);
         this.buildOperationExecutor = buildOperationExecutor;
+        this.frontTier = frontTier;
     }
 
     @Override
@@ -61,8 +71,10 @@ public class BuildOperationFiringBuildCacheServiceDecorator extends AbstractRole
             buildOperationExecutor.run(new RunnableBuildOperation() {
                @Override
                public void run(BuildOperationContext buildOperationContext) {
+                   CountingInputStream countingInput = new CountingInputStream(input);
                    try {
-                       delegate.readFrom(input);
+                       delegate.readFrom(countingInput);
+                       buildOperationContext.setResult(new LoadBuildCacheEntryOperationResult(getRole(), countingInput.getCount(), frontTier));
                    } catch (IOException e) {
                        buildOperationContext.failed(e);
                    }
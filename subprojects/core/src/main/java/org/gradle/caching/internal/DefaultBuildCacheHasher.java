@@ -19,7 +19,7 @@ package org.gradle.caching.internal;
 import com.google.common.base.Charsets;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hasher;
-import com.google.common.hash.Hashing;
+import org.gradle.api.internal.hash.HashAlgorithm;
 
 /**
  * A hasher used for build cache keys.
@@ -28,7 +28,15 @@ import com.google.common.hash.Hashing;
  * hasher (see this <a href="http://crypto.stackexchange.com/a/10065">answer</a> on stackexchange).
  */
 public class DefaultBuildCacheHasher implements BuildCacheHasher {
-    private final Hasher hasher = Hashing.md5().newHasher();
+    private final Hasher hasher;
+
+    public DefaultBuildCacheHasher() {
+        this(HashAlgorithm.MD5);
+    }
+
+    public DefaultBuildCacheHasher(HashAlgorithm hashAlgorithm) {
+        this.hasher = hashAlgorithm.getHashFunction().newHasher();
+    }
 
     @Override
     public DefaultBuildCacheHasher putByte(byte b) {
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Striped;
+import org.gradle.cache.PersistentCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.time.TimeProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Removes entries from the directory of a {@link DirectoryBuildCacheService}.
+ *
+ * Entries that have not been used for longer than the maximum age are removed first, then the least recently used entries
+ * until the cache is below its target size. The last modification time of an entry is used as its last access time.
+ *
+ * The directory is scanned without holding the cache lock. The lock is only held while deleting a batch of entries,
+ * and each entry is checked again before it is deleted, so that entries being loaded or used since the scan are kept.
+ */
+class DirectoryBuildCacheCleanup {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryBuildCacheCleanup.class);
+    private static final Pattern ENTRY_NAME = Pattern.compile("[0-9a-f]+");
+    private static final int DELETE_BATCH_SIZE = 100;
+
+    private final File baseDir;
+    private final PersistentCache persistentCache;
+    private final Striped<ReadWriteLock> entryLocks;
+    private final TimeProvider timeProvider;
+    private final long targetSizeInBytes;
+    private final long maxEntryAgeInMillis;
+    private volatile boolean stopRequested;
+
+    DirectoryBuildCacheCleanup(File baseDir, PersistentCache persistentCache, Striped<ReadWriteLock> entryLocks, TimeProvider timeProvider, long targetSizeInBytes, long maxEntryAgeInMillis) {
+        this.baseDir = baseDir;
+        this.persistentCache = persistentCache;
+        this.entryLocks = entryLocks;
+        this.timeProvider = timeProvider;
+        this.targetSizeInBytes = targetSizeInBytes;
+        this.maxEntryAgeInMillis = maxEntryAgeInMillis;
+    }
+
+    /**
+     * Removes expired and least recently used entries.
+     *
+     * @return the size of the entries remaining in the cache, in bytes.
+     */
+    long cleanup() {
+        List<CacheEntry> entries = findEntries();
+        long totalSize = 0;
+        for (CacheEntry entry : entries) {
+            totalSize += entry.size;
+        }
+
+        Collections.sort(entries, new Comparator<CacheEntry>() {
+            @Override
+            public int compare(CacheEntry o1, CacheEntry o2) {
+                return o1.lastAccessed < o2.lastAccessed ? -1 : (o1.lastAccessed == o2.lastAccessed ? 0 : 1);
+            }
+        });
+
+        long oldestAllowedAccess = timeProvider.getCurrentTime() - maxEntryAgeInMillis;
+        long sizeAfterCleanup = totalSize;
+        List<CacheEntry> candidates = new ArrayList<CacheEntry>();
+        for (CacheEntry entry : entries) {
+            if (sizeAfterCleanup <= targetSizeInBytes && entry.lastAccessed >= oldestAllowedAccess) {
+                break;
+            }
+            candidates.add(entry);
+            sizeAfterCleanup -= entry.size;
+        }
+        if (candidates.isEmpty()) {
+            return totalSize;
+        }
+
+        long removedSize = 0;
+        int removedCount = 0;
+        for (final List<CacheEntry> batch : Lists.partition(candidates, DELETE_BATCH_SIZE)) {
+            if (stopRequested) {
+                break;
+            }
+            List<CacheEntry> removed = persistentCache.withFileLock(new Factory<List<CacheEntry>>() {
+                @Override
+                public List<CacheEntry> create() {
+                    List<CacheEntry> removed = new ArrayList<CacheEntry>(batch.size());
+                    for (CacheEntry entry : batch) {
+                        if (evict(entry)) {
+                            removed.add(entry);
+                        }
+                    }
+                    return removed;
+                }
+            });
+            for (CacheEntry entry : removed) {
+                removedSize += entry.size;
+                removedCount++;
+            }
+        }
+        LOGGER.info("Removed {} entries ({} bytes) from {}.", removedCount, removedSize, persistentCache);
+        return totalSize - removedSize;
+    }
+
+    /**
+     * Requests an ongoing cleanup to stop after the current batch of entries.
+     */
+    void stop() {
+        stopRequested = true;
+    }
+
+    private List<CacheEntry> findEntries() {
+        File[] files = baseDir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return ENTRY_NAME.matcher(file.getName()).matches() && file.isFile();
+            }
+        });
+        if (files == null) {
+            return new ArrayList<CacheEntry>();
+        }
+        List<CacheEntry> entries = new ArrayList<CacheEntry>(files.length);
+        for (File file : files) {
+            long lastModified = file.lastModified();
+            // The entry may have been removed in the meantime
+            if (lastModified != 0) {
+                entries.add(new CacheEntry(file, file.length(), lastModified));
+            }
+        }
+        return entries;
+    }
+
+    private boolean evict(CacheEntry entry) {
+        Lock lock = entryLocks.get(entry.file.getName()).writeLock();
+        // The entry is being loaded
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            // The entry has been used since the directory was scanned
+            if (entry.file.lastModified() != entry.lastAccessed) {
+                return false;
+            }
+            return entry.file.delete();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class CacheEntry {
+        private final File file;
+        private final long size;
+        private final long lastAccessed;
+
+        CacheEntry(File file, long size, long lastAccessed) {
+            this.file = file;
+            this.size = size;
+            this.lastAccessed = lastAccessed;
+        }
+    }
+}
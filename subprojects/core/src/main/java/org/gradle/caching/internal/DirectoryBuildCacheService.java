@@ -17,6 +17,7 @@
 package org.gradle.caching.internal;
 
 import com.google.common.io.Closer;
+import com.google.common.util.concurrent.Striped;
 import org.apache.commons.io.FileUtils;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.cache.CacheBuilder;
@@ -28,23 +29,43 @@ import org.gradle.caching.BuildCacheException;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
 import org.gradle.internal.Factory;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.internal.resource.local.LocallyAvailableResource;
 import org.gradle.internal.resource.local.PathKeyFileStore;
+import org.gradle.internal.time.TimeProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 
 import static org.gradle.cache.internal.FileLockManager.LockMode.None;
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
 public class DirectoryBuildCacheService implements BuildCacheService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryBuildCacheService.class);
+
     private final PathKeyFileStore fileStore;
     private final PersistentCache persistentCache;
+    private final TimeProvider timeProvider;
+    private final long targetSizeInBytes;
+    // Loads hold the read lock of an entry, so that cleanup never removes an entry while it is being loaded
+    private final Striped<ReadWriteLock> entryLocks = Striped.readWriteLock(64);
+    private final DirectoryBuildCacheCleanup cleanup;
+    private final StoppableExecutor cleanupExecutor;
+    private final AtomicBoolean cleanupScheduled = new AtomicBoolean();
+    private final AtomicLong estimatedSizeInBytes = new AtomicLong();
 
-    public DirectoryBuildCacheService(CacheRepository cacheRepository, File baseDir) {
+    public DirectoryBuildCacheService(CacheRepository cacheRepository, File baseDir, ExecutorFactory executorFactory, TimeProvider timeProvider, long targetSizeInBytes, long maxEntryAgeInMillis) {
         this.fileStore = new PathKeyFileStore(baseDir);
         this.persistentCache = cacheRepository
             .cache(checkDirectory(baseDir))
@@ -52,6 +73,12 @@ public class DirectoryBuildCacheService implements BuildCacheService {
             .withLockOptions(mode(None))
             .withCrossVersionCache(CacheBuilder.LockTarget.DefaultTarget)
             .open();
+        this.timeProvider = timeProvider;
+        this.targetSizeInBytes = targetSizeInBytes;
+        this.cleanup = new DirectoryBuildCacheCleanup(baseDir, persistentCache, entryLocks, timeProvider, targetSizeInBytes, maxEntryAgeInMillis);
+        this.cleanupExecutor = executorFactory.create("Build cache cleanup");
+        // The size of the cache is unknown until the directory has been scanned
+        scheduleCleanup();
     }
 
     private static File checkDirectory(File directory) {
@@ -75,29 +102,39 @@ public class DirectoryBuildCacheService implements BuildCacheService {
 
     @Override
     public boolean load(final BuildCacheKey key, final BuildCacheEntryReader reader) throws BuildCacheException {
-        // We need to lock here because garbage collection can be under way in another thread
-        return persistentCache.withFileLock(new Factory<Boolean>() {
-            @Override
-            public Boolean create() {
-                LocallyAvailableResource resource = fileStore.get(key.getHashCode());
-                if (resource == null) {
-                    return false;
-                }
+        final String hashCode = key.getHashCode();
+        Lock entryLock = entryLocks.get(hashCode).readLock();
+        entryLock.lock();
+        try {
+            // We need to lock here because garbage collection can be under way in another process
+            return persistentCache.withFileLock(new Factory<Boolean>() {
+                @Override
+                public Boolean create() {
+                    LocallyAvailableResource resource = fileStore.get(hashCode);
+                    if (resource == null) {
+                        return false;
+                    }
 
-                try {
-                    Closer closer = Closer.create();
-                    FileInputStream stream = closer.register(new FileInputStream(resource.getFile()));
+                    File file = resource.getFile();
+                    // Record the access, so that recently used entries are kept during cleanup
+                    file.setLastModified(timeProvider.getCurrentTime());
                     try {
-                        reader.readFrom(stream);
-                        return true;
-                    } finally {
-                        closer.close();
+                        Closer closer = Closer.create();
+                        FileInputStream stream = closer.register(new FileInputStream(file));
+                        try {
+                            reader.readFrom(stream);
+                            return true;
+                        } finally {
+                            closer.close();
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
                     }
-                } catch (IOException ex) {
-                    throw new UncheckedIOException(ex);
                 }
-            }
-        });
+            });
+        } finally {
+            entryLock.unlock();
+        }
     }
 
     @Override
@@ -122,17 +159,39 @@ public class DirectoryBuildCacheService implements BuildCacheService {
             } catch (IOException ex) {
                 throw new UncheckedIOException(ex);
             }
+            long size = tempFile.length();
             persistentCache.useCache(new Runnable() {
                 @Override
                 public void run() {
                     fileStore.move(hashCode, tempFile);
                 }
             });
+            if (estimatedSizeInBytes.addAndGet(size) > targetSizeInBytes) {
+                scheduleCleanup();
+            }
         } finally {
             FileUtils.deleteQuietly(tempFile);
         }
     }
 
+    private void scheduleCleanup() {
+        if (!cleanupScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        cleanupExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    estimatedSizeInBytes.set(cleanup.cleanup());
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Could not clean up " + getDescription() + ".", e);
+                } finally {
+                    cleanupScheduled.set(false);
+                }
+            }
+        });
+    }
+
     @Override
     public String getDescription() {
         return "directory (" + persistentCache.getBaseDir() + ")";
@@ -140,6 +199,7 @@ public class DirectoryBuildCacheService implements BuildCacheService {
 
     @Override
     public void close() throws IOException {
-        persistentCache.close();
+        cleanup.stop();
+        CompositeStoppable.stoppable(cleanupExecutor, persistentCache).stop();
     }
 }
@@ -23,9 +23,12 @@ import org.gradle.cache.internal.VersionStrategy;
 import org.gradle.caching.BuildCacheService;
 import org.gradle.caching.BuildCacheServiceFactory;
 import org.gradle.caching.local.DirectoryBuildCache;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.time.TimeProvider;
 
 import javax.inject.Inject;
 import java.io.File;
+import java.util.concurrent.TimeUnit;
 
 public class DirectoryBuildCacheServiceFactory implements BuildCacheServiceFactory<DirectoryBuildCache> {
     private static final String BUILD_CACHE_VERSION = "1";
@@ -34,12 +37,16 @@ public class DirectoryBuildCacheServiceFactory implements BuildCacheServiceFacto
     private final CacheRepository cacheRepository;
     private final CacheScopeMapping cacheScopeMapping;
     private final FileResolver resolver;
+    private final ExecutorFactory executorFactory;
+    private final TimeProvider timeProvider;
 
     @Inject
-    public DirectoryBuildCacheServiceFactory(CacheRepository cacheRepository, CacheScopeMapping cacheScopeMapping, FileResolver resolver) {
+    public DirectoryBuildCacheServiceFactory(CacheRepository cacheRepository, CacheScopeMapping cacheScopeMapping, FileResolver resolver, ExecutorFactory executorFactory, TimeProvider timeProvider) {
         this.cacheRepository = cacheRepository;
         this.cacheScopeMapping = cacheScopeMapping;
         this.resolver = resolver;
+        this.executorFactory = executorFactory;
+        this.timeProvider = timeProvider;
     }
 
     @Override
@@ -51,6 +58,16 @@ public class DirectoryBuildCacheServiceFactory implements BuildCacheServiceFacto
         } else {
             target = cacheScopeMapping.getBaseDirectory(null, BUILD_CACHE_KEY, VersionStrategy.SharedCache);
         }
-        return new DirectoryBuildCacheService(cacheRepository, target);
+        int targetSizeInMB = configuration.getTargetSizeInMB();
+        if (targetSizeInMB <= 0) {
+            throw new IllegalArgumentException(String.format("Directory build cache needs a positive target size, but %d MB was configured.", targetSizeInMB));
+        }
+        int removeUnusedEntriesAfterDays = configuration.getRemoveUnusedEntriesAfterDays();
+        if (removeUnusedEntriesAfterDays <= 0) {
+            throw new IllegalArgumentException(String.format("Directory build cache needs to keep unused entries for at least a day, but %d days were configured.", removeUnusedEntriesAfterDays));
+        }
+        long targetSizeInBytes = targetSizeInMB * 1024L * 1024L;
+        long maxEntryAgeInMillis = TimeUnit.DAYS.toMillis(removeUnusedEntriesAfterDays);
+        return new DirectoryBuildCacheService(cacheRepository, target, executorFactory, timeProvider, targetSizeInBytes, maxEntryAgeInMillis);
     }
 }
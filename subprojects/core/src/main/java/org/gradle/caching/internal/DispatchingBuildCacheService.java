@@ -18,6 +18,7 @@ package org.gradle.caching.internal;
 
 import com.google.common.io.Files;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.TeeInputStream;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.caching.BuildCacheEntryReader;
@@ -25,35 +26,83 @@ import org.gradle.caching.BuildCacheEntryWriter;
 import org.gradle.caching.BuildCacheException;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 
+/**
+ * Combines a local tier with a remote tier behind it. Entries are loaded from the local tier first, and stored in both tiers.
+ *
+ * When pushing to the local tier is enabled, entries loaded from the remote tier are written to the local tier in the background,
+ * using a copy of the bytes that were downloaded, so that later builds find them locally.
+ */
 public class DispatchingBuildCacheService implements RoleAwareBuildCacheService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DispatchingBuildCacheService.class);
+
     private final RoleAwareBuildCacheService local;
     private final boolean pushToLocal;
     private final RoleAwareBuildCacheService remote;
     private final boolean pushToRemote;
     private final TemporaryFileProvider temporaryFileProvider;
+    private final StoppableExecutor writeThroughExecutor;
     private final String role;
 
-    DispatchingBuildCacheService(RoleAwareBuildCacheService local, boolean pushToLocal, RoleAwareBuildCacheService remote, boolean pushToRemote, TemporaryFileProvider temporaryFileProvider) {
+    DispatchingBuildCacheService(RoleAwareBuildCacheService local, boolean pushToLocal, RoleAwareBuildCacheService remote, boolean pushToRemote, TemporaryFileProvider temporaryFileProvider, StoppableExecutor writeThroughExecutor) {
         this.local = local;
         this.pushToLocal = pushToLocal;
         this.remote = remote;
         this.pushToRemote = pushToRemote;
         this.temporaryFileProvider = temporaryFileProvider;
+        this.writeThroughExecutor = writeThroughExecutor;
         this.role = local.getRole() + " and " + remote.getRole();
     }
 
     @Override
     public boolean load(BuildCacheKey key, BuildCacheEntryReader reader) throws BuildCacheException {
-        return local.load(key, reader) || remote.load(key, reader);
+        if (local.load(key, reader)) {
+            return true;
+        }
+        if (!pushToLocal) {
+            return remote.load(key, reader);
+        }
+
+        File copy = temporaryFileProvider.createTemporaryFile("gradle_cache", "entry");
+        CopyingBuildCacheEntryReader copyingReader = new CopyingBuildCacheEntryReader(reader, copy);
+        boolean loaded = false;
+        try {
+            loaded = remote.load(key, copyingReader);
+        } finally {
+            if (loaded && copyingReader.complete) {
+                writeThrough(key, copy);
+            } else {
+                GFileUtils.deleteQuietly(copy);
+            }
+        }
+        return loaded;
+    }
+
+    private void writeThrough(final BuildCacheKey key, final File copy) {
+        writeThroughExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    local.store(key, new CopyBuildCacheEntryWriter(copy));
+                } catch (Exception e) {
+                    LOGGER.warn("Could not copy entry {} from {} to {} build cache: {}", key, remote.getRole(), local.getRole(), e.getMessage());
+                } finally {
+                    GFileUtils.deleteQuietly(copy);
+                }
+            }
+        });
     }
 
     @Override
@@ -105,7 +154,38 @@ public class DispatchingBuildCacheService implements RoleAwareBuildCacheService
 
     @Override
     public void close() throws IOException {
-        CompositeStoppable.stoppable(local, remote).stop();
+        // Finish writing through before the tiers are closed
+        CompositeStoppable.stoppable(writeThroughExecutor, local, remote).stop();
+    }
+
+    /**
+     * Copies the bytes of an entry to a file while they are read. Bytes that the reader leaves unread are copied afterwards, so that the copy is complete.
+     */
+    private static class CopyingBuildCacheEntryReader implements BuildCacheEntryReader {
+        private final BuildCacheEntryReader delegate;
+        private final File destination;
+        private boolean complete;
+
+        private CopyingBuildCacheEntryReader(BuildCacheEntryReader delegate, File destination) {
+            this.delegate = delegate;
+            this.destination = destination;
+        }
+
+        @Override
+        public void readFrom(InputStream input) throws IOException {
+            OutputStream output = new BufferedOutputStream(new FileOutputStream(destination));
+            try {
+                delegate.readFrom(new TeeInputStream(input, output));
+                try {
+                    IOUtils.copy(input, output);
+                    complete = true;
+                } catch (IOException e) {
+                    // The reader may have closed the stream, in which case the entry is not copied
+                }
+            } finally {
+                IOUtils.closeQuietly(output);
+            }
+        }
     }
 
     private class CopyBuildCacheEntryWriter implements BuildCacheEntryWriter {
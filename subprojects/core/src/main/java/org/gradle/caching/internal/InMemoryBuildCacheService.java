@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.caching.BuildCacheEntryReader;
+import org.gradle.caching.BuildCacheEntryWriter;
+import org.gradle.caching.BuildCacheException;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.BuildCacheService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Keeps small build cache entries in memory, so that they can be reused by later builds in the same daemon without reading them from disk or the network.
+ *
+ * The entries are limited to a total size, given in megabytes by the {@value #SIZE_PROPERTY} system property, and the least recently used entries are evicted first.
+ * Entries larger than a sixteenth of the total size are not kept. The memory tier is disabled when no size is given.
+ */
+public class InMemoryBuildCacheService implements BuildCacheService {
+    public static final String SIZE_PROPERTY = "org.gradle.internal.cache.memory.size";
+
+    private final Cache<String, byte[]> entries;
+    private final long maxEntrySize;
+
+    public InMemoryBuildCacheService(long maxSize) {
+        this.maxEntrySize = maxSize / 16;
+        this.entries = CacheBuilder.newBuilder()
+            .maximumWeight(maxSize)
+            .weigher(new Weigher<String, byte[]>() {
+                @Override
+                public int weigh(String key, byte[] value) {
+                    return value.length;
+                }
+            })
+            .build();
+    }
+
+    public static InMemoryBuildCacheService fromSystemProperty() {
+        return new InMemoryBuildCacheService(Long.getLong(SIZE_PROPERTY, 0L) * 1024 * 1024);
+    }
+
+    public boolean isEnabled() {
+        return maxEntrySize > 0;
+    }
+
+    @Override
+    public boolean load(BuildCacheKey key, BuildCacheEntryReader reader) throws BuildCacheException {
+        byte[] entry = entries.getIfPresent(key.getHashCode());
+        if (entry == null) {
+            return false;
+        }
+        try {
+            reader.readFrom(new ByteArrayInputStream(entry));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    @Override
+    public void store(BuildCacheKey key, BuildCacheEntryWriter writer) throws BuildCacheException {
+        BoundedByteArrayOutputStream output = new BoundedByteArrayOutputStream();
+        try {
+            writer.writeTo(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!output.overflowed) {
+            entries.put(key.getHashCode(), output.toByteArray());
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "in-memory build cache";
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Entries are kept for later builds
+    }
+
+    /**
+     * Discards the entry once it grows beyond the maximum entry size, rather than failing the writer.
+     */
+    private class BoundedByteArrayOutputStream extends ByteArrayOutputStream {
+        private boolean overflowed;
+
+        @Override
+        public synchronized void write(int b) {
+            if (fits(1)) {
+                super.write(b);
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            if (fits(len)) {
+                super.write(b, off, len);
+            }
+        }
+
+        private boolean fits(int length) {
+            if (!overflowed && count + length > maxEntrySize) {
+                overflowed = true;
+                reset();
+            }
+            return !overflowed;
+        }
+    }
+}
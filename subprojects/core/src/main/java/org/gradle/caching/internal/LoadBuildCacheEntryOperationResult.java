@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal;
+
+/**
+ * The result of loading an entry from one tier of the build cache, such as the memory, local or remote tier.
+ */
+public class LoadBuildCacheEntryOperationResult {
+    private final String role;
+    private final long archiveSize;
+    private final boolean frontTier;
+
+    public LoadBuildCacheEntryOperationResult(String role, long archiveSize, boolean frontTier) {
+        this.role = role;
+        this.archiveSize = archiveSize;
+        this.frontTier = frontTier;
+    }
+
+    /**
+     * The tier the entry was loaded from.
+     */
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * The number of bytes loaded.
+     */
+    public long getArchiveSize() {
+        return archiveSize;
+    }
+
+    /**
+     * The number of bytes that did not have to be loaded from a tier further away, because the entry was found in this tier.
+     */
+    public long getBytesSaved() {
+        return frontTier ? archiveSize : 0;
+    }
+}
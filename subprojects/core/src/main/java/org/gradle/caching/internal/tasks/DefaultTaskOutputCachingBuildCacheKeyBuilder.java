@@ -21,6 +21,7 @@ import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.hash.HashCode;
 import org.gradle.api.Nullable;
+import org.gradle.api.internal.hash.HashAlgorithm;
 import org.gradle.caching.internal.BuildCacheHasher;
 import org.gradle.caching.internal.DefaultBuildCacheHasher;
 import org.slf4j.Logger;
@@ -33,13 +34,21 @@ public class DefaultTaskOutputCachingBuildCacheKeyBuilder {
 
     public static final TaskOutputCachingBuildCacheKey NO_CACHE_KEY = new DefaultTaskOutputCachingBuildCacheKeyBuilder().build();
 
-    private BuildCacheHasher hasher = new DefaultBuildCacheHasher();
+    private final BuildCacheHasher hasher;
     private String taskClass;
     private HashCode classLoaderHash;
     private List<HashCode> actionsClassLoaderHashes;
     private final ImmutableSortedMap.Builder<String, HashCode> inputHashes = ImmutableSortedMap.naturalOrder();
     private final ImmutableSortedSet.Builder<String> outputPropertyNames = ImmutableSortedSet.naturalOrder();
 
+    public DefaultTaskOutputCachingBuildCacheKeyBuilder() {
+        this(HashAlgorithm.MD5);
+    }
+
+    public DefaultTaskOutputCachingBuildCacheKeyBuilder(HashAlgorithm hashAlgorithm) {
+        this.hasher = new DefaultBuildCacheHasher(hashAlgorithm);
+    }
+
     public DefaultTaskOutputCachingBuildCacheKeyBuilder appendTaskClass(String taskClass) {
         this.taskClass = taskClass;
         hasher.putString(taskClass);
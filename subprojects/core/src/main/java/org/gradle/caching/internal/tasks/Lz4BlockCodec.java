@@ -0,0 +1,210 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import java.util.Arrays;
+
+/**
+ * Compresses blocks of data using the LZ4 block format. Compression is much faster than deflate, at the cost of a lower compression ratio.
+ *
+ * The compressor uses a single hash table lookup per position and does not search for longer matches, similar to the fast mode of the reference implementation.
+ * Instances are not thread-safe, as they reuse the hash table between blocks.
+ */
+class Lz4BlockCodec {
+    private static final int MIN_MATCH = 4;
+    // The last match must start at least 12 bytes before the end of the block, and the last 5 bytes are always literals
+    private static final int MF_LIMIT = 12;
+    private static final int LAST_LITERALS = 5;
+    private static final int MAX_OFFSET = 65535;
+    private static final int HASH_LOG = 14;
+    // Increase the step between positions when no match has been found for a while, so that incompressible data is skipped quickly
+    private static final int SKIP_STRENGTH = 6;
+    private static final int RUN_MASK = 15;
+
+    private final int[] hashTable = new int[1 << HASH_LOG];
+
+    /**
+     * Returns the maximum size of the compressed form of the given number of bytes.
+     */
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses the given bytes into the target array, which must hold at least {@link #maxCompressedLength(int)} bytes.
+     *
+     * @return the length of the compressed data.
+     */
+    int compress(byte[] source, int sourceOffset, int length, byte[] target, int targetOffset) {
+        int sourceEnd = sourceOffset + length;
+        int matchLimit = sourceEnd - MF_LIMIT;
+        int matchEndLimit = sourceEnd - LAST_LITERALS;
+        int anchor = sourceOffset;
+        int targetPos = targetOffset;
+
+        if (length > MF_LIMIT) {
+            int[] table = hashTable;
+            Arrays.fill(table, -1);
+            int pos = sourceOffset;
+            while (pos < matchLimit) {
+                int sequence = readInt(source, pos);
+                int hash = hash(sequence);
+                int ref = table[hash];
+                table[hash] = pos;
+                if (ref >= 0 && pos - ref <= MAX_OFFSET && readInt(source, ref) == sequence) {
+                    // Extend the match backwards over the pending literals
+                    while (pos > anchor && ref > sourceOffset && source[pos - 1] == source[ref - 1]) {
+                        pos--;
+                        ref--;
+                    }
+                    int matchLength = MIN_MATCH;
+                    while (pos + matchLength < matchEndLimit && source[ref + matchLength] == source[pos + matchLength]) {
+                        matchLength++;
+                    }
+                    targetPos = writeSequence(source, anchor, pos - anchor, pos - ref, matchLength, target, targetPos);
+                    pos += matchLength;
+                    anchor = pos;
+                } else {
+                    pos += 1 + ((pos - anchor) >>> SKIP_STRENGTH);
+                }
+            }
+        }
+
+        return writeLastLiterals(source, anchor, sourceEnd - anchor, target, targetPos) - targetOffset;
+    }
+
+    /**
+     * Decompresses the given block into the target array.
+     *
+     * @throws IllegalStateException when the block is malformed or does not decompress to exactly the given number of bytes.
+     */
+    static void decompress(byte[] source, int sourceOffset, int length, byte[] target, int targetOffset, int decompressedLength) {
+        int sourceEnd = sourceOffset + length;
+        int targetEnd = targetOffset + decompressedLength;
+        int pos = sourceOffset;
+        int targetPos = targetOffset;
+        try {
+            while (true) {
+                int token = source[pos++] & 0xFF;
+                int literalLength = token >>> 4;
+                if (literalLength == RUN_MASK) {
+                    int b;
+                    do {
+                        b = source[pos++] & 0xFF;
+                        literalLength += b;
+                    } while (b == 255);
+                }
+                if (literalLength > targetEnd - targetPos || literalLength > sourceEnd - pos) {
+                    throw corrupt();
+                }
+                System.arraycopy(source, pos, target, targetPos, literalLength);
+                pos += literalLength;
+                targetPos += literalLength;
+                if (pos == sourceEnd) {
+                    break;
+                }
+
+                int offset = (source[pos++] & 0xFF) | ((source[pos++] & 0xFF) << 8);
+                int matchLength = token & RUN_MASK;
+                if (matchLength == RUN_MASK) {
+                    int b;
+                    do {
+                        b = source[pos++] & 0xFF;
+                        matchLength += b;
+                    } while (b == 255);
+                }
+                matchLength += MIN_MATCH;
+                int ref = targetPos - offset;
+                if (offset == 0 || ref < targetOffset || matchLength > targetEnd - targetPos) {
+                    throw corrupt();
+                }
+                if (offset >= matchLength) {
+                    System.arraycopy(target, ref, target, targetPos, matchLength);
+                    targetPos += matchLength;
+                } else {
+                    // Overlapping match, which repeats the last bytes
+                    for (int i = 0; i < matchLength; i++) {
+                        target[targetPos++] = target[ref++];
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw corrupt();
+        }
+        if (targetPos != targetEnd) {
+            throw corrupt();
+        }
+    }
+
+    private static IllegalStateException corrupt() {
+        return new IllegalStateException("Cached result format error, corrupt compressed block.");
+    }
+
+    private static int writeSequence(byte[] source, int literalOffset, int literalLength, int offset, int matchLength, byte[] target, int targetPos) {
+        int tokenPos = targetPos++;
+        int token;
+        if (literalLength >= RUN_MASK) {
+            token = RUN_MASK << 4;
+            targetPos = writeLength(literalLength - RUN_MASK, target, targetPos);
+        } else {
+            token = literalLength << 4;
+        }
+        System.arraycopy(source, literalOffset, target, targetPos, literalLength);
+        targetPos += literalLength;
+
+        target[targetPos++] = (byte) offset;
+        target[targetPos++] = (byte) (offset >>> 8);
+
+        int remainingMatchLength = matchLength - MIN_MATCH;
+        if (remainingMatchLength >= RUN_MASK) {
+            token |= RUN_MASK;
+            targetPos = writeLength(remainingMatchLength - RUN_MASK, target, targetPos);
+        } else {
+            token |= remainingMatchLength;
+        }
+        target[tokenPos] = (byte) token;
+        return targetPos;
+    }
+
+    private static int writeLastLiterals(byte[] source, int literalOffset, int literalLength, byte[] target, int targetPos) {
+        if (literalLength >= RUN_MASK) {
+            target[targetPos++] = (byte) (RUN_MASK << 4);
+            targetPos = writeLength(literalLength - RUN_MASK, target, targetPos);
+        } else {
+            target[targetPos++] = (byte) (literalLength << 4);
+        }
+        System.arraycopy(source, literalOffset, target, targetPos, literalLength);
+        return targetPos + literalLength;
+    }
+
+    private static int writeLength(int length, byte[] target, int targetPos) {
+        while (length >= 255) {
+            target[targetPos++] = (byte) 255;
+            length -= 255;
+        }
+        target[targetPos++] = (byte) length;
+        return targetPos;
+    }
+
+    private static int readInt(byte[] bytes, int pos) {
+        return (bytes[pos] & 0xFF) | ((bytes[pos + 1] & 0xFF) << 8) | ((bytes[pos + 2] & 0xFF) << 16) | ((bytes[pos + 3] & 0xFF) << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
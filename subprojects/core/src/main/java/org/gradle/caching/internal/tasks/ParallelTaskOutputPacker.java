@@ -0,0 +1,546 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.GradleException;
+import org.gradle.api.JavaVersion;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.collections.DefaultDirectoryWalkerFactory;
+import org.gradle.api.internal.tasks.CacheableTaskOutputFilePropertySpec;
+import org.gradle.api.internal.tasks.CacheableTaskOutputFilePropertySpec.OutputType;
+import org.gradle.api.internal.tasks.TaskFilePropertySpec;
+import org.gradle.api.internal.tasks.TaskOutputFilePropertySpec;
+import org.gradle.api.specs.Specs;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.nativeplatform.filesystem.FileSystem;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Packs task output into a format that is compressed and restored in parallel.
+ *
+ * An entry starts with a header, the origin metadata and a manifest describing every file and directory of the output properties.
+ * The contents of the regular files follow as a single stream, split into blocks that are compressed independently with {@link Lz4BlockCodec}.
+ * While packing, blocks are compressed concurrently while the next blocks are read. While unpacking, blocks are decompressed and the file
+ * segments they contain are written concurrently, and file modes and modification times are restored once all contents have been written.
+ */
+public class ParallelTaskOutputPacker implements TaskOutputPacker, Stoppable {
+    private static final byte[] MAGIC = {'G', 'R', 'B', 'C'};
+    private static final int FORMAT_VERSION = 1;
+    private static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private static final byte MISSING = 0;
+    private static final byte DIRECTORY = 1;
+    private static final byte FILE = 2;
+
+    private final DefaultDirectoryWalkerFactory directoryWalkerFactory;
+    private final FileSystem fileSystem;
+    private final ExecutorService executor;
+    private final int maxPendingBlocks;
+    private final int blockSize;
+
+    public ParallelTaskOutputPacker(FileSystem fileSystem, ExecutorService executor, int parallelism) {
+        this(fileSystem, executor, parallelism, DEFAULT_BLOCK_SIZE);
+    }
+
+    ParallelTaskOutputPacker(FileSystem fileSystem, ExecutorService executor, int parallelism, int blockSize) {
+        this.directoryWalkerFactory = new DefaultDirectoryWalkerFactory(JavaVersion.current(), fileSystem);
+        this.fileSystem = fileSystem;
+        this.executor = executor;
+        // Limits the memory used for blocks that have been read but not yet written
+        this.maxPendingBlocks = 2 * parallelism;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns whether the given bytes are the start of an entry in this format.
+     */
+    static boolean isParallelFormat(byte[] header) {
+        return header.length >= MAGIC.length && Arrays.equals(MAGIC, Arrays.copyOf(header, MAGIC.length));
+    }
+
+    static int getHeaderLength() {
+        return MAGIC.length;
+    }
+
+    @Override
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void pack(SortedSet<TaskOutputFilePropertySpec> propertySpecs, OutputStream output, TaskOutputOriginWriter writeOrigin) {
+        List<Entry> entries = new ArrayList<Entry>();
+        for (TaskOutputFilePropertySpec spec : propertySpecs) {
+            try {
+                collectEntries((CacheableTaskOutputFilePropertySpec) spec, entries);
+            } catch (Exception ex) {
+                throw new GradleException(String.format("Could not pack property '%s': %s", spec.getPropertyName(), ex.getMessage()), ex);
+            }
+        }
+
+        KryoBackedEncoder encoder = new KryoBackedEncoder(output);
+        try {
+            encoder.writeBytes(MAGIC);
+            encoder.writeSmallInt(FORMAT_VERSION);
+            ByteArrayOutputStream origin = new ByteArrayOutputStream();
+            writeOrigin.execute(origin);
+            encoder.writeBinary(origin.toByteArray());
+            writeManifest(entries, encoder);
+            packContents(entries, encoder);
+            encoder.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void collectEntries(CacheableTaskOutputFilePropertySpec propertySpec, final List<Entry> entries) {
+        final String propertyName = propertySpec.getPropertyName();
+        File outputFile = propertySpec.getOutputFile();
+        if (outputFile == null) {
+            return;
+        }
+        if (!outputFile.exists()) {
+            entries.add(new Entry(propertyName, MISSING, "", 0, 0, 0, null));
+            return;
+        }
+        switch (propertySpec.getOutputType()) {
+            case DIRECTORY:
+                if (!outputFile.isDirectory()) {
+                    throw new IllegalArgumentException(String.format("Expected '%s' to be a directory", outputFile));
+                }
+                entries.add(new Entry(propertyName, DIRECTORY, "", fileSystem.getUnixMode(outputFile), outputFile.lastModified(), 0, null));
+                directoryWalkerFactory.create().walkDir(outputFile, RelativePath.EMPTY_ROOT, new FileVisitor() {
+                    @Override
+                    public void visitDir(FileVisitDetails dirDetails) {
+                        entries.add(new Entry(propertyName, DIRECTORY, dirDetails.getRelativePath().getPathString(), dirDetails.getMode(), dirDetails.getLastModified(), 0, null));
+                    }
+
+                    @Override
+                    public void visitFile(FileVisitDetails fileDetails) {
+                        entries.add(new Entry(propertyName, FILE, fileDetails.getRelativePath().getPathString(), fileDetails.getMode(), fileDetails.getLastModified(), fileDetails.getSize(), fileDetails.getFile()));
+                    }
+                }, Specs.satisfyAll(), new AtomicBoolean(), false);
+                break;
+            case FILE:
+                if (!outputFile.isFile()) {
+                    throw new IllegalArgumentException(String.format("Expected '%s' to be a file", outputFile));
+                }
+                entries.add(new Entry(propertyName, FILE, "", fileSystem.getUnixMode(outputFile), outputFile.lastModified(), outputFile.length(), outputFile));
+                break;
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    private static void writeManifest(List<Entry> entries, Encoder encoder) throws IOException {
+        encoder.writeSmallInt(entries.size());
+        for (Entry entry : entries) {
+            encoder.writeString(entry.propertyName);
+            encoder.writeByte(entry.type);
+            encoder.writeString(entry.path);
+            encoder.writeSmallInt(entry.mode);
+            encoder.writeLong(entry.lastModified);
+            encoder.writeSmallLong(entry.size);
+        }
+    }
+
+    /**
+     * Reads the contents of the files into blocks, and writes the compressed blocks in order as they become available.
+     */
+    private void packContents(List<Entry> entries, Encoder encoder) throws IOException {
+        Deque<Future<CompressedBlock>> pendingBlocks = new ArrayDeque<Future<CompressedBlock>>();
+        try {
+            byte[] block = new byte[blockSize];
+            int blockLength = 0;
+            for (Entry entry : entries) {
+                if (entry.type != FILE || entry.size == 0) {
+                    continue;
+                }
+                InputStream input = new FileInputStream(entry.file);
+                try {
+                    long remaining = entry.size;
+                    while (remaining > 0) {
+                        int read = input.read(block, blockLength, (int) Math.min(blockSize - blockLength, remaining));
+                        if (read < 0) {
+                            throw new IOException(String.format("File '%s' was modified while it was packed", entry.file));
+                        }
+                        blockLength += read;
+                        remaining -= read;
+                        if (blockLength == blockSize) {
+                            submitBlock(block, blockLength, pendingBlocks, encoder);
+                            block = new byte[blockSize];
+                            blockLength = 0;
+                        }
+                    }
+                } finally {
+                    input.close();
+                }
+            }
+            if (blockLength > 0) {
+                submitBlock(block, blockLength, pendingBlocks, encoder);
+            }
+            while (!pendingBlocks.isEmpty()) {
+                writeBlock(await(pendingBlocks.removeFirst()), encoder);
+            }
+        } finally {
+            cancel(pendingBlocks);
+        }
+    }
+
+    private void submitBlock(final byte[] block, final int length, Deque<Future<CompressedBlock>> pendingBlocks, Encoder encoder) throws IOException {
+        pendingBlocks.add(executor.submit(new Callable<CompressedBlock>() {
+            @Override
+            public CompressedBlock call() {
+                byte[] compressed = new byte[Lz4BlockCodec.maxCompressedLength(length)];
+                int compressedLength = new Lz4BlockCodec().compress(block, 0, length, compressed, 0);
+                if (compressedLength >= length) {
+                    // Store incompressible data as is
+                    return new CompressedBlock(length, block, length);
+                }
+                return new CompressedBlock(length, compressed, compressedLength);
+            }
+        }));
+        if (pendingBlocks.size() > maxPendingBlocks) {
+            writeBlock(await(pendingBlocks.removeFirst()), encoder);
+        }
+    }
+
+    private static void writeBlock(CompressedBlock block, Encoder encoder) throws IOException {
+        encoder.writeSmallInt(block.length);
+        encoder.writeSmallInt(block.compressedLength);
+        encoder.writeBytes(block.bytes, 0, block.compressedLength);
+    }
+
+    @Override
+    public void unpack(SortedSet<TaskOutputFilePropertySpec> propertySpecs, InputStream input, TaskOutputOriginReader readOrigin) {
+        Map<String, TaskOutputFilePropertySpec> propertySpecsMap = Maps.uniqueIndex(propertySpecs, new Function<TaskFilePropertySpec, String>() {
+            @Override
+            public String apply(TaskFilePropertySpec propertySpec) {
+                return propertySpec.getPropertyName();
+            }
+        });
+        KryoBackedDecoder decoder = new KryoBackedDecoder(input);
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            decoder.readBytes(magic);
+            if (!isParallelFormat(magic)) {
+                throw new IllegalStateException("Cached result format error, unknown format.");
+            }
+            int version = decoder.readSmallInt();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException(String.format("Cached result format error, unsupported format version %d.", version));
+            }
+            readOrigin.execute(new ByteArrayInputStream(decoder.readBinary()));
+            List<Entry> entries = readManifest(propertySpecsMap, decoder);
+            prepareOutputs(entries);
+            unpackContents(entries, decoder);
+            restoreMetadata(entries);
+        } catch (EOFException e) {
+            throw new IllegalStateException("Cached result format error, unexpected end of entry.", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Entry> readManifest(Map<String, TaskOutputFilePropertySpec> propertySpecsMap, Decoder decoder) throws IOException {
+        int count = decoder.readSmallInt();
+        List<Entry> entries = new ArrayList<Entry>(count);
+        for (int i = 0; i < count; i++) {
+            String propertyName = decoder.readString();
+            byte type = decoder.readByte();
+            String path = decoder.readString();
+            int mode = decoder.readSmallInt();
+            long lastModified = decoder.readLong();
+            long size = decoder.readSmallLong();
+
+            CacheableTaskOutputFilePropertySpec propertySpec = (CacheableTaskOutputFilePropertySpec) propertySpecsMap.get(propertyName);
+            if (propertySpec == null) {
+                throw new IllegalStateException(String.format("No output property '%s' registered", propertyName));
+            }
+            File propertyRoot = propertySpec.getOutputFile();
+            if (propertyRoot == null) {
+                throw new IllegalStateException("Optional property should have a value: " + propertyName);
+            }
+            if (path.isEmpty()) {
+                OutputType outputType = propertySpec.getOutputType();
+                if (type == DIRECTORY && outputType != OutputType.DIRECTORY) {
+                    throw new IllegalStateException("Property should be an output directory property: " + propertyName);
+                }
+                if (type == FILE && outputType == OutputType.DIRECTORY) {
+                    throw new IllegalStateException("Property should be an output file property: " + propertyName);
+                }
+            }
+            File file = path.isEmpty() ? propertyRoot : new File(propertyRoot, path);
+            entries.add(new Entry(propertyName, type, path, mode, lastModified, size, file));
+        }
+        return entries;
+    }
+
+    /**
+     * Cleans up the property roots and creates the directories, so that files can be written in any order.
+     */
+    private static void prepareOutputs(List<Entry> entries) throws IOException {
+        for (Entry entry : entries) {
+            if (entry.path.isEmpty()) {
+                if (entry.type == MISSING) {
+                    if (!makeDirectory(entry.file.getParentFile()) && entry.file.exists()) {
+                        FileUtils.forceDelete(entry.file);
+                    }
+                } else {
+                    TarTaskOutputPacker.ensureDirectoryForProperty(entry.type == DIRECTORY ? OutputType.DIRECTORY : OutputType.FILE, entry.file);
+                }
+            } else if (entry.type == DIRECTORY) {
+                FileUtils.forceMkdir(entry.file);
+            }
+        }
+    }
+
+    private static boolean makeDirectory(File output) throws IOException {
+        if (output.isDirectory()) {
+            return false;
+        } else if (output.isFile()) {
+            FileUtils.forceDelete(output);
+        }
+        FileUtils.forceMkdir(output);
+        return true;
+    }
+
+    /**
+     * Reads the blocks in order, and decompresses each block and writes the file segments it contains concurrently.
+     */
+    private void unpackContents(List<Entry> entries, Decoder decoder) throws IOException {
+        Deque<Future<?>> pendingBlocks = new ArrayDeque<Future<?>>();
+        try {
+            int entryIndex = 0;
+            long offsetInFile = 0;
+            while (true) {
+                // Find the next file that has contents
+                while (entryIndex < entries.size() && (entries.get(entryIndex).type != FILE || offsetInFile == entries.get(entryIndex).size)) {
+                    entryIndex++;
+                    offsetInFile = 0;
+                }
+                if (entryIndex == entries.size()) {
+                    break;
+                }
+
+                int length = decoder.readSmallInt();
+                int compressedLength = decoder.readSmallInt();
+                if (length <= 0 || length > blockSize || compressedLength <= 0 || compressedLength > length) {
+                    throw new IllegalStateException("Cached result format error, invalid block.");
+                }
+                byte[] compressed = new byte[compressedLength];
+                decoder.readBytes(compressed);
+
+                // Split the block into the segments of the files it contains
+                List<Segment> segments = new ArrayList<Segment>();
+                int offsetInBlock = 0;
+                while (offsetInBlock < length) {
+                    if (entryIndex == entries.size()) {
+                        throw new IllegalStateException("Cached result format error, unexpected file contents.");
+                    }
+                    Entry entry = entries.get(entryIndex);
+                    if (entry.type != FILE || offsetInFile == entry.size) {
+                        entryIndex++;
+                        offsetInFile = 0;
+                        continue;
+                    }
+                    int segmentLength = (int) Math.min(entry.size - offsetInFile, length - offsetInBlock);
+                    segments.add(new Segment(entry.file, offsetInFile, offsetInBlock, segmentLength));
+                    offsetInFile += segmentLength;
+                    offsetInBlock += segmentLength;
+                }
+
+                pendingBlocks.add(executor.submit(new UnpackBlock(compressed, length, segments)));
+                if (pendingBlocks.size() > maxPendingBlocks) {
+                    await(pendingBlocks.removeFirst());
+                }
+            }
+            while (!pendingBlocks.isEmpty()) {
+                await(pendingBlocks.removeFirst());
+            }
+        } finally {
+            cancel(pendingBlocks);
+        }
+    }
+
+    /**
+     * Creates the empty files and restores file modes and modification times. Directories are handled last, children before parents,
+     * as creating files changes the modification time of their parent directory.
+     */
+    private void restoreMetadata(List<Entry> entries) throws IOException {
+        for (Entry entry : entries) {
+            if (entry.type == FILE) {
+                if (entry.size == 0) {
+                    Files.write(new byte[0], entry.file);
+                }
+                restoreMetadata(entry);
+            }
+        }
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Entry entry = entries.get(i);
+            if (entry.type == DIRECTORY) {
+                restoreMetadata(entry);
+            }
+        }
+    }
+
+    private void restoreMetadata(Entry entry) {
+        //noinspection OctalInteger
+        fileSystem.chmod(entry.file, entry.mode & 0777);
+        if (!entry.file.setLastModified(entry.lastModified)) {
+            throw new UnsupportedOperationException(String.format("Could not set modification time for '%s'", entry.file));
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+
+    private static void cancel(Deque<? extends Future<?>> pendingBlocks) {
+        for (Future<?> pendingBlock : pendingBlocks) {
+            pendingBlock.cancel(false);
+        }
+    }
+
+    private static class Entry {
+        private final String propertyName;
+        private final byte type;
+        // The path relative to the property root, empty for the root itself
+        private final String path;
+        private final int mode;
+        private final long lastModified;
+        private final long size;
+        private final File file;
+
+        Entry(String propertyName, byte type, String path, int mode, long lastModified, long size, File file) {
+            this.propertyName = propertyName;
+            this.type = type;
+            this.path = path;
+            this.mode = mode;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.file = file;
+        }
+    }
+
+    private static class CompressedBlock {
+        private final int length;
+        private final byte[] bytes;
+        private final int compressedLength;
+
+        CompressedBlock(int length, byte[] bytes, int compressedLength) {
+            this.length = length;
+            this.bytes = bytes;
+            this.compressedLength = compressedLength;
+        }
+    }
+
+    private static class Segment {
+        private final File file;
+        private final long offsetInFile;
+        private final int offsetInBlock;
+        private final int length;
+
+        Segment(File file, long offsetInFile, int offsetInBlock, int length) {
+            this.file = file;
+            this.offsetInFile = offsetInFile;
+            this.offsetInBlock = offsetInBlock;
+            this.length = length;
+        }
+    }
+
+    private static class UnpackBlock implements Callable<Void> {
+        private final byte[] compressed;
+        private final int length;
+        private final List<Segment> segments;
+
+        UnpackBlock(byte[] compressed, int length, List<Segment> segments) {
+            this.compressed = compressed;
+            this.length = length;
+            this.segments = segments;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            byte[] block;
+            if (compressed.length == length) {
+                block = compressed;
+            } else {
+                block = new byte[length];
+                Lz4BlockCodec.decompress(compressed, 0, compressed.length, block, 0, length);
+            }
+            for (Segment segment : segments) {
+                // Files spanning several blocks are written by several tasks at different positions
+                RandomAccessFile file = new RandomAccessFile(segment.file, "rw");
+                try {
+                    FileChannel channel = file.getChannel();
+                    ByteBuffer buffer = ByteBuffer.wrap(block, segment.offsetInBlock, segment.length);
+                    long position = segment.offsetInFile;
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                } finally {
+                    file.close();
+                }
+            }
+            return null;
+        }
+    }
+}
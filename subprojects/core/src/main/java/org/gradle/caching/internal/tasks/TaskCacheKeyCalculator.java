@@ -20,6 +20,7 @@ import com.google.common.hash.HashCode;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot;
 import org.gradle.api.internal.changedetection.state.TaskExecution;
 import org.gradle.api.internal.changedetection.state.ValueSnapshot;
+import org.gradle.api.internal.hash.HashAlgorithm;
 import org.gradle.caching.internal.DefaultBuildCacheHasher;
 
 import java.util.List;
@@ -28,9 +29,14 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 
 public class TaskCacheKeyCalculator {
+    private final HashAlgorithm hashAlgorithm;
+
+    public TaskCacheKeyCalculator(HashAlgorithm hashAlgorithm) {
+        this.hashAlgorithm = hashAlgorithm;
+    }
 
     public TaskOutputCachingBuildCacheKey calculate(TaskExecution execution) {
-        DefaultTaskOutputCachingBuildCacheKeyBuilder builder = new DefaultTaskOutputCachingBuildCacheKeyBuilder();
+        DefaultTaskOutputCachingBuildCacheKeyBuilder builder = new DefaultTaskOutputCachingBuildCacheKeyBuilder(hashAlgorithm);
         HashCode taskClassLoaderHash = execution.getTaskClassLoaderHash();
         List<HashCode> taskActionsClassLoaderHashes = execution.getTaskActionsClassLoaderHashes();
 
@@ -40,7 +46,7 @@ public class TaskCacheKeyCalculator {
 
         SortedMap<String, ValueSnapshot> inputProperties = execution.getInputProperties();
         for (Map.Entry<String, ValueSnapshot> entry : inputProperties.entrySet()) {
-            DefaultBuildCacheHasher newHasher = new DefaultBuildCacheHasher();
+            DefaultBuildCacheHasher newHasher = new DefaultBuildCacheHasher(hashAlgorithm);
             entry.getValue().appendToHasher(newHasher);
             HashCode hash = newHasher.hash();
             builder.appendInputPropertyHash(entry.getKey(), hash);
@@ -49,7 +55,7 @@ public class TaskCacheKeyCalculator {
         SortedMap<String, FileCollectionSnapshot> inputFilesSnapshots = execution.getInputFilesSnapshot();
         for (Map.Entry<String, FileCollectionSnapshot> entry : inputFilesSnapshots.entrySet()) {
             FileCollectionSnapshot snapshot = entry.getValue();
-            DefaultBuildCacheHasher newHasher = new DefaultBuildCacheHasher();
+            DefaultBuildCacheHasher newHasher = new DefaultBuildCacheHasher(hashAlgorithm);
             snapshot.appendToHasher(newHasher);
             HashCode hash = newHasher.hash();
             builder.appendInputPropertyHash(entry.getKey(), hash);
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import org.gradle.api.Task;
+
+/**
+ * Notified when the outputs of a task that is not up-to-date are about to be looked up in the build cache.
+ *
+ * The listener is notified when the task executes, and may also be notified ahead of the execution, once the task is ready to execute. The key notified
+ * ahead of the execution is not necessarily the key the task looks up when it executes.
+ */
+public interface TaskOutputCacheLoadListener {
+    void beforeLoad(Task task, TaskOutputCachingBuildCacheKey key);
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.tasks.TaskOutputFilePropertySpec;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.SortedSet;
+
+/**
+ * Packs task output using either the tar+gzip format or the {@link ParallelTaskOutputPacker parallel format}, and unpacks entries in either format.
+ *
+ * The format of an entry is detected from its first bytes, so that entries stored by earlier versions remain usable.
+ * The tar+gzip format is used for new entries unless the {@value #FORMAT_PROPERTY} system property is set to {@code parallel},
+ * as earlier versions cannot read entries in the parallel format.
+ */
+public class VersionedTaskOutputPacker implements TaskOutputPacker, Stoppable {
+    public static final String FORMAT_PROPERTY = "org.gradle.internal.cache.packing.format";
+
+    private final TaskOutputPacker tarPacker;
+    private final ParallelTaskOutputPacker parallelPacker;
+    private final boolean packParallel;
+
+    public VersionedTaskOutputPacker(TaskOutputPacker tarPacker, ParallelTaskOutputPacker parallelPacker, boolean packParallel) {
+        this.tarPacker = tarPacker;
+        this.parallelPacker = parallelPacker;
+        this.packParallel = packParallel;
+    }
+
+    public static boolean isParallelFormatSelected() {
+        return "parallel".equals(System.getProperty(FORMAT_PROPERTY));
+    }
+
+    @Override
+    public void pack(SortedSet<TaskOutputFilePropertySpec> propertySpecs, OutputStream output, TaskOutputOriginWriter writeOrigin) {
+        if (packParallel) {
+            parallelPacker.pack(propertySpecs, output, writeOrigin);
+        } else {
+            tarPacker.pack(propertySpecs, output, writeOrigin);
+        }
+    }
+
+    @Override
+    public void unpack(SortedSet<TaskOutputFilePropertySpec> propertySpecs, InputStream input, TaskOutputOriginReader readOrigin) {
+        BufferedInputStream bufferedInput = new BufferedInputStream(input);
+        if (startsWithParallelFormat(bufferedInput)) {
+            parallelPacker.unpack(propertySpecs, bufferedInput, readOrigin);
+        } else {
+            tarPacker.unpack(propertySpecs, bufferedInput, readOrigin);
+        }
+    }
+
+    private static boolean startsWithParallelFormat(BufferedInputStream input) {
+        byte[] header = new byte[ParallelTaskOutputPacker.getHeaderLength()];
+        input.mark(header.length);
+        try {
+            int read = 0;
+            while (read < header.length) {
+                int count = input.read(header, read, header.length - read);
+                if (count < 0) {
+                    break;
+                }
+                read += count;
+            }
+            input.reset();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ParallelTaskOutputPacker.isParallelFormat(header);
+    }
+
+    @Override
+    public void stop() {
+        CompositeStoppable.stoppable(tarPacker, parallelPacker).stop();
+    }
+}
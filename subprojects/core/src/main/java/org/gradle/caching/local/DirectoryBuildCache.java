@@ -28,6 +28,8 @@ import org.gradle.caching.configuration.AbstractBuildCache;
 @Incubating
 public class DirectoryBuildCache extends AbstractBuildCache {
     private Object directory;
+    private int targetSizeInMB = 5 * 1024;
+    private int removeUnusedEntriesAfterDays = 7;
 
     /**
      * Returns the directory to use to store the build cache.
@@ -45,4 +47,43 @@ public class DirectoryBuildCache extends AbstractBuildCache {
     public void setDirectory(Object directory) {
         this.directory = directory;
     }
+
+    /**
+     * Returns the target size of the build cache in megabytes.
+     *
+     * <p>When the cache grows beyond this size, the least recently used entries are removed in the background
+     * until the cache is below the target size again. Defaults to 5 GB.</p>
+     *
+     * @since 4.0
+     */
+    public int getTargetSizeInMB() {
+        return targetSizeInMB;
+    }
+
+    /**
+     * Sets the target size of the build cache in megabytes.
+     *
+     * @since 4.0
+     */
+    public void setTargetSizeInMB(int targetSizeInMB) {
+        this.targetSizeInMB = targetSizeInMB;
+    }
+
+    /**
+     * Returns the number of days after which unused entries are removed from the build cache. Defaults to 7 days.
+     *
+     * @since 4.0
+     */
+    public int getRemoveUnusedEntriesAfterDays() {
+        return removeUnusedEntriesAfterDays;
+    }
+
+    /**
+     * Sets the number of days after which unused entries are removed from the build cache.
+     *
+     * @since 4.0
+     */
+    public void setRemoveUnusedEntriesAfterDays(int removeUnusedEntriesAfterDays) {
+        this.removeUnusedEntriesAfterDays = removeUnusedEntriesAfterDays;
+    }
 }
@@ -63,29 +63,62 @@ import static org.gradle.internal.resources.ResourceLockState.Disposition.*;
  * methods.
  */
 public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
+    /**
+     * Enables executing the ready tasks with the longest estimated critical path first, instead of in execution plan order. Tasks of an earlier
+     * group of requested tasks are still executed first.
+     */
+    public static final String CRITICAL_PATH_SCHEDULING_PROPERTY = "org.gradle.internal.tasks.scheduling.criticalpath";
+
     private final static Logger LOGGER = Logging.getLogger(DefaultTaskExecutionPlan.class);
 
     private final Set<TaskInfo> tasksInUnknownState = new LinkedHashSet<TaskInfo>();
     private final Set<TaskInfo> entryTasks = new LinkedHashSet<TaskInfo>();
+    // The entry tasks of each call to addToTaskGraph(), in the order the groups were added
+    private final List<Set<TaskInfo>> entryTaskGroups = new ArrayList<Set<TaskInfo>>();
     private final TaskDependencyGraph graph = new TaskDependencyGraph();
     private final LinkedHashMap<Task, TaskInfo> executionPlan = new LinkedHashMap<Task, TaskInfo>();
-    private final List<TaskInfo> executionQueue = new LinkedList<TaskInfo>();
+    // Tasks whose dependencies are complete, by group of requested tasks, then with the longest critical path first and then in execution plan order.
+    // Tasks that are no longer ready to execute are discarded when selecting a task. Only this queue needs to be searched for a task to execute, instead of the whole plan.
+    private final NavigableSet<TaskInfo> readyQueue = new TreeSet<TaskInfo>(new Comparator<TaskInfo>() {
+        @Override
+        public int compare(TaskInfo o1, TaskInfo o2) {
+            if (o1.getEntryTaskGroup() != o2.getEntryTaskGroup()) {
+                return o1.getEntryTaskGroup() < o2.getEntryTaskGroup() ? -1 : 1;
+            }
+            if (o1.getCriticalPathTime() != o2.getCriticalPathTime()) {
+                return o1.getCriticalPathTime() > o2.getCriticalPathTime() ? -1 : 1;
+            }
+            return o1.getExecutionOrder() < o2.getExecutionOrder() ? -1 : (o1.getExecutionOrder() == o2.getExecutionOrder() ? 0 : 1);
+        }
+    });
+    private int incompleteTaskCount;
     private final List<Throwable> failures = new ArrayList<Throwable>();
     private Spec<? super Task> filter = Specs.satisfyAll();
 
     private TaskFailureHandler failureHandler = new RethrowingFailureHandler();
     private final BuildCancellationToken cancellationToken;
     private final Set<TaskInternal> runningTasks = Sets.newIdentityHashSet();
+    // Ready tasks that were already returned by takeReadyTasksToPlan()
+    private final Set<TaskInfo> plannedTasks = Sets.newIdentityHashSet();
     private final Set<Task> filteredTasks = Sets.newIdentityHashSet();
     private final Map<Task, Set<String>> canonicalizedOutputCache = Maps.newIdentityHashMap();
     private final ResourceLockCoordinationService coordinationService;
     private final WorkerLeaseService workerLeaseService;
+    private final TaskExecutionTimeEstimator executionTimeEstimator;
     private boolean tasksCancelled;
 
     public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, ResourceLockCoordinationService coordinationService, WorkerLeaseService workerLeaseService) {
+        this(cancellationToken, coordinationService, workerLeaseService, null);
+    }
+
+    /**
+     * @param executionTimeEstimator When not null, ready tasks with the longest estimated critical path are executed first. Otherwise, ready tasks are executed in execution plan order.
+     */
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, ResourceLockCoordinationService coordinationService, WorkerLeaseService workerLeaseService, @Nullable TaskExecutionTimeEstimator executionTimeEstimator) {
         this.cancellationToken = cancellationToken;
         this.coordinationService = coordinationService;
         this.workerLeaseService = workerLeaseService;
+        this.executionTimeEstimator = executionTimeEstimator;
     }
 
     public void addToTaskGraph(Collection<? extends Task> tasks) {
@@ -93,6 +126,8 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
         List<Task> sortedTasks = new ArrayList<Task>(tasks);
         Collections.sort(sortedTasks);
+        Set<TaskInfo> entryTaskGroup = new LinkedHashSet<TaskInfo>();
+        entryTaskGroups.add(entryTaskGroup);
         for (Task task : sortedTasks) {
             TaskInfo node = graph.addNode(task);
             if (node.isMustNotRun()) {
@@ -101,6 +136,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 node.require();
             }
             entryTasks.add(node);
+            entryTaskGroup.add(node);
             queue.add(node);
         }
 
@@ -302,8 +338,99 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 }
             }
         }
-        executionQueue.clear();
-        executionQueue.addAll(executionPlan.values());
+        initializeReadyQueue();
+    }
+
+    private void initializeReadyQueue() {
+        readyQueue.clear();
+        incompleteTaskCount = 0;
+        List<TaskInfo> plan = new ArrayList<TaskInfo>(executionPlan.values());
+        int executionOrder = 0;
+        for (TaskInfo taskInfo : plan) {
+            taskInfo.setExecutionOrder(executionOrder++);
+            taskInfo.countIncompleteDependencies();
+            if (!taskInfo.isComplete()) {
+                incompleteTaskCount++;
+            }
+        }
+        if (executionTimeEstimator != null) {
+            assignEntryTaskGroups(plan);
+            estimateCriticalPaths(plan);
+        }
+        // The queue order depends on the critical paths, so only add tasks once these are known
+        for (TaskInfo taskInfo : plan) {
+            if (taskInfo.isReady() && !taskInfo.hasIncompleteDependencies()) {
+                readyQueue.add(taskInfo);
+            }
+        }
+    }
+
+    /**
+     * Assigns each task to the group of requested tasks it is executed for. The plan contains the tasks of each group after the tasks of the
+     * earlier groups, so a group ends with the last of its entry tasks in the plan. Tasks after the last entry task, such as finalizers, belong to the last group.
+     */
+    private void assignEntryTaskGroups(List<TaskInfo> plan) {
+        List<Integer> groupEnds = new ArrayList<Integer>();
+        int groupEnd = -1;
+        for (Set<TaskInfo> group : entryTaskGroups) {
+            for (TaskInfo entryTask : group) {
+                if (executionPlan.containsKey(entryTask.getTask())) {
+                    groupEnd = Math.max(groupEnd, entryTask.getExecutionOrder());
+                }
+            }
+            groupEnds.add(groupEnd);
+        }
+        int group = 0;
+        for (TaskInfo taskInfo : plan) {
+            while (group < groupEnds.size() - 1 && taskInfo.getExecutionOrder() > groupEnds.get(group)) {
+                group++;
+            }
+            taskInfo.setEntryTaskGroup(group);
+        }
+    }
+
+    /**
+     * Calculates for each task the estimated time to execute the task and the longest chain of tasks that depend on it or should run after it.
+     * Tasks without an estimate are assumed to take the average time of the tasks with an estimate. When no task has an estimate,
+     * each task counts as one unit of time, so that tasks are prioritised by the depth of the graph that depends on them.
+     *
+     * <p>As a task that should run after another task gets a shorter critical path than that task, the critical paths never reorder tasks that have
+     * a dependency or ordering relationship.</p>
+     */
+    private void estimateCriticalPaths(List<TaskInfo> plan) {
+        Map<TaskInfo, Long> estimates = new HashMap<TaskInfo, Long>();
+        long totalEstimatedTime = 0;
+        for (TaskInfo taskInfo : plan) {
+            Long estimate = executionTimeEstimator.getEstimatedExecutionTime(taskInfo.getTask());
+            if (estimate != null) {
+                // Count each task at least once, so that the depth of the graph breaks ties between fast tasks
+                estimate = Math.max(1, estimate);
+                estimates.put(taskInfo, estimate);
+                totalEstimatedTime += estimate;
+            }
+        }
+        long defaultEstimate = estimates.isEmpty() ? 1 : Math.max(1, totalEstimatedTime / estimates.size());
+
+        // Only the should run after relationships that the plan honours, which are those to a task earlier in the plan
+        Multimap<TaskInfo, TaskInfo> shouldRunAfterDependents = ArrayListMultimap.create();
+        for (TaskInfo taskInfo : plan) {
+            for (TaskInfo shouldRunBefore : taskInfo.getShouldSuccessors()) {
+                if (executionPlan.containsKey(shouldRunBefore.getTask()) && shouldRunBefore.getExecutionOrder() < taskInfo.getExecutionOrder()) {
+                    shouldRunAfterDependents.put(shouldRunBefore, taskInfo);
+                }
+            }
+        }
+
+        // The dependents of a task come after it in the plan
+        for (int i = plan.size() - 1; i >= 0; i--) {
+            TaskInfo taskInfo = plan.get(i);
+            long longestDependentPath = 0;
+            for (TaskInfo dependent : Iterables.concat(taskInfo.getDependents(), shouldRunAfterDependents.get(taskInfo))) {
+                longestDependentPath = Math.max(longestDependentPath, dependent.getCriticalPathTime());
+            }
+            Long estimate = estimates.get(taskInfo);
+            taskInfo.setCriticalPathTime((estimate != null ? estimate : defaultEstimate) + longestDependentPath);
+        }
     }
 
     private void maybeRemoveProcessedShouldRunAfterEdge(Stack<GraphEdge> walkedShouldRunAfterEdges, TaskInfo taskNode) {
@@ -446,11 +573,14 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
                 graph.clear();
                 entryTasks.clear();
+                entryTaskGroups.clear();
                 executionPlan.clear();
-                executionQueue.clear();
+                readyQueue.clear();
+                incompleteTaskCount = 0;
                 failures.clear();
                 canonicalizedOutputCache.clear();
                 runningTasks.clear();
+                plannedTasks.clear();
                 return FINISHED;
             }
         });
@@ -487,10 +617,15 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                     }
                 }
 
-                final Iterator<TaskInfo> iterator = executionQueue.iterator();
+                final Iterator<TaskInfo> iterator = readyQueue.iterator();
                 while (iterator.hasNext()) {
                     final TaskInfo taskInfo = iterator.next();
-                    if (taskInfo.isReady() && taskInfo.allDependenciesComplete()) {
+                    if (!taskInfo.isReady()) {
+                        // Task has been skipped, or is a finalizer that is not required to run yet
+                        iterator.remove();
+                        continue;
+                    }
+                    if (taskInfo.allDependenciesComplete()) {
                         coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
                             @Override
                             public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
@@ -505,6 +640,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                                         canExecute.set(true);
                                     } else {
                                         taskInfo.skipExecution();
+                                        recordTaskFinished(taskInfo);
                                     }
                                     return FINISHED;
                                 } else {
@@ -544,6 +680,32 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         return !allTasksComplete();
     }
 
+    /**
+     * Returns the other tasks of the project of the given executing task that are ready to execute, in the order they are selected for execution.
+     * A task is only returned once. The caller holds the lock of the project, so it can inspect the returned tasks before they execute.
+     */
+    public List<TaskInternal> takeReadyTasksToPlan(final TaskInternal executingTask, final int maxTasks) {
+        final List<TaskInternal> readyTasks = new ArrayList<TaskInternal>();
+        coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
+            @Override
+            public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                for (TaskInfo taskInfo : readyQueue) {
+                    if (readyTasks.size() == maxTasks) {
+                        break;
+                    }
+                    TaskInternal task = taskInfo.getTask();
+                    if (task != executingTask && task.getProject() == executingTask.getProject()
+                        && taskInfo.isReady() && taskInfo.allDependenciesComplete() && taskInfo.allDependenciesSuccessful()
+                        && plannedTasks.add(taskInfo)) {
+                        readyTasks.add(task);
+                    }
+                }
+                return FINISHED;
+            }
+        });
+        return readyTasks;
+    }
+
     private ResourceLock getProjectLock(TaskInfo taskInfo) {
         Project project = taskInfo.getTask().getProject();
         String gradlePath = ((GradleInternal) project.getGradle()).getIdentityPath().toString();
@@ -644,12 +806,25 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
                 taskInfo.finishExecution();
                 recordTaskCompleted(taskInfo);
+                recordTaskFinished(taskInfo);
 
                 return FINISHED;
             }
         });
     }
 
+    /**
+     * Updates the ready queue after a task has been executed or skipped.
+     */
+    private void recordTaskFinished(TaskInfo taskInfo) {
+        incompleteTaskCount--;
+        for (TaskInfo dependent : taskInfo.getDependents()) {
+            if (dependent.dependencyCompleted() && dependent.isReady()) {
+                readyQueue.add(dependent);
+            }
+        }
+    }
+
     private void enforceFinalizerTasks(TaskInfo taskInfo) {
         for (TaskInfo finalizerNode : taskInfo.getFinalizers()) {
             if (finalizerNode.isRequired() || finalizerNode.isMustNotRun()) {
@@ -670,7 +845,18 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 candidateNodes.addAll(node.getDependencySuccessors());
 
                 if (node.isMustNotRun() || node.isRequired()) {
+                    boolean wasComplete = node.isComplete();
                     node.enforceRun();
+                    if (wasComplete) {
+                        // A task that was not going to run is now required, so its dependents need to wait for it
+                        incompleteTaskCount++;
+                        for (TaskInfo dependent : node.getDependents()) {
+                            dependent.dependencyReopened();
+                        }
+                    }
+                    if (!node.hasIncompleteDependencies()) {
+                        readyQueue.add(node);
+                    }
                 }
             }
         }
@@ -702,6 +888,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         for (TaskInfo taskInfo : executionPlan.values()) {
             if (taskInfo.isRequired()) {
                 taskInfo.skipExecution();
+                recordTaskFinished(taskInfo);
                 aborted = true;
             }
         }
@@ -738,12 +925,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     }
 
     private boolean allTasksComplete() {
-        for (TaskInfo taskInfo : executionPlan.values()) {
-            if (!taskInfo.isComplete()) {
-                return false;
-            }
-        }
-        return true;
+        return incompleteTaskCount == 0;
     }
 
     private static class GraphEdge {
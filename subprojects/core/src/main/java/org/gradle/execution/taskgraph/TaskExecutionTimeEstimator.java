@@ -0,0 +1,31 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.TaskInternal;
+
+/**
+ * Estimates how long a task takes to execute, used to prioritise the tasks on the critical path of the task graph.
+ */
+public interface TaskExecutionTimeEstimator {
+    /**
+     * Returns the estimated execution time of the given task in milliseconds, or null when there is no estimate for the task.
+     */
+    @Nullable
+    Long getEstimatedExecutionTime(TaskInternal task);
+}
@@ -34,8 +34,13 @@ public class TaskInfo implements Comparable<TaskInfo> {
     private final TreeSet<TaskInfo> dependencyPredecessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> dependencySuccessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> mustSuccessors = new TreeSet<TaskInfo>();
+    private final TreeSet<TaskInfo> mustPredecessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> shouldSuccessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> finalizers = new TreeSet<TaskInfo>();
+    private int executionOrder;
+    private int incompleteDependencies;
+    private int entryTaskGroup;
+    private long criticalPathTime;
 
     public TaskInfo(TaskInternal task) {
         this.task = task;
@@ -138,6 +143,79 @@ public class TaskInfo implements Comparable<TaskInfo> {
         return true;
     }
 
+    /**
+     * Counts the dependencies and must-run-after tasks of this task that are not complete yet.
+     * The count is kept up to date by {@link #dependencyCompleted()} and {@link #dependencyReopened()}.
+     */
+    public void countIncompleteDependencies() {
+        incompleteDependencies = 0;
+        for (TaskInfo dependency : Iterables.concat(mustSuccessors, dependencySuccessors)) {
+            if (!dependency.isComplete()) {
+                incompleteDependencies++;
+            }
+        }
+    }
+
+    /**
+     * Records that one of the dependencies or must-run-after tasks of this task has completed.
+     *
+     * @return true if all dependencies of this task are now complete.
+     */
+    public boolean dependencyCompleted() {
+        return --incompleteDependencies == 0;
+    }
+
+    /**
+     * Records that one of the dependencies or must-run-after tasks of this task, which was complete, is now required to run.
+     */
+    public void dependencyReopened() {
+        incompleteDependencies++;
+    }
+
+    public boolean hasIncompleteDependencies() {
+        return incompleteDependencies > 0;
+    }
+
+    /**
+     * Returns the tasks that depend on this task or must run after it.
+     */
+    public Iterable<TaskInfo> getDependents() {
+        return Iterables.concat(mustPredecessors, dependencyPredecessors);
+    }
+
+    /**
+     * The position of this task in the execution plan.
+     */
+    public int getExecutionOrder() {
+        return executionOrder;
+    }
+
+    public void setExecutionOrder(int executionOrder) {
+        this.executionOrder = executionOrder;
+    }
+
+    /**
+     * The position of the group of requested tasks that this task is executed for, in the order the groups were requested.
+     */
+    public int getEntryTaskGroup() {
+        return entryTaskGroup;
+    }
+
+    public void setEntryTaskGroup(int entryTaskGroup) {
+        this.entryTaskGroup = entryTaskGroup;
+    }
+
+    /**
+     * The estimated time to execute this task and the longest chain of tasks that depend on it or should run after it.
+     */
+    public long getCriticalPathTime() {
+        return criticalPathTime;
+    }
+
+    public void setCriticalPathTime(long criticalPathTime) {
+        this.criticalPathTime = criticalPathTime;
+    }
+
     public boolean allDependenciesSuccessful() {
         for (TaskInfo dependency : dependencySuccessors) {
             if (!dependency.isSuccessful()) {
@@ -182,6 +260,7 @@ public class TaskInfo implements Comparable<TaskInfo> {
 
     public void addMustSuccessor(TaskInfo toNode) {
         mustSuccessors.add(toNode);
+        toNode.mustPredecessors.add(this);
     }
 
     public void addFinalizer(TaskInfo finalizerNode) {
@@ -20,6 +20,7 @@ import net.jcip.annotations.ThreadSafe;
 import org.gradle.api.internal.file.FileSystemSubset;
 import org.gradle.internal.concurrent.Stoppable;
 
+import java.io.File;
 import java.io.IOException;
 
 @ThreadSafe
@@ -39,4 +40,11 @@ public interface FileWatcher extends Stoppable {
     boolean isRunning();
 
     void watch(FileSystemSubset fileSystemSubset) throws IOException;
+
+    /**
+     * Starts watching for changes to the given directory and to its direct children. Unlike {@link #watch(FileSystemSubset)}, subdirectories are not watched.
+     *
+     * @param directory the directory to watch, which must exist.
+     */
+    void watchDirectory(File directory) throws IOException;
 }
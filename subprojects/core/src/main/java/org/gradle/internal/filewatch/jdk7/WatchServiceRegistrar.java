@@ -45,6 +45,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -52,6 +54,7 @@ class WatchServiceRegistrar implements FileWatcherListener {
     private final static Logger LOG = Logging.getLogger(WatchServiceRegistrar.class);
     private static final boolean FILE_TREE_WATCHING_SUPPORTED = OperatingSystem.current().isWindows() && !JavaVersion.current().isJava9Compatible();
     private static final WatchEvent.Modifier[] WATCH_MODIFIERS = instantiateWatchModifiers();
+    private static final WatchEvent.Modifier[] DIRECTORY_WATCH_MODIFIERS = instantiateDirectoryWatchModifiers();
     private static final WatchEvent.Kind[] WATCH_KINDS = new WatchEvent.Kind[]{StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY};
 
     private final WatchService watchService;
@@ -59,6 +62,8 @@ class WatchServiceRegistrar implements FileWatcherListener {
     private final Lock lock = new ReentrantLock(true);
     private final WatchPointsRegistry watchPointsRegistry;
     private final HashMap<Path, WatchKey> watchKeys = new HashMap<Path, WatchKey>();
+    // Directories whose direct children are watched, without their subdirectories. Modified under the lock, and read by the watcher thread without it.
+    private final ConcurrentMap<Path, WatchKey> directoryWatchKeys = new ConcurrentHashMap<Path, WatchKey>();
 
     WatchServiceRegistrar(WatchService watchService, FileWatcherListener delegate, FileSystem fileSystem) {
         this.watchService = watchService;
@@ -81,6 +86,14 @@ class WatchServiceRegistrar implements FileWatcherListener {
         }
     }
 
+    private static WatchEvent.Modifier[] instantiateDirectoryWatchModifiers() {
+        if (JavaVersion.current().isJava9Compatible()) {
+            return new WatchEvent.Modifier[]{};
+        } else {
+            return new WatchEvent.Modifier[]{instantiateEnum("com.sun.nio.file.SensitivityWatchEventModifier", "HIGH")};
+        }
+    }
+
     private static WatchEvent.Modifier instantiateEnum(String className, String enumName) {
         try {
             return (WatchEvent.Modifier) Enum.valueOf((Class<Enum>) Class.forName(className), enumName);
@@ -126,6 +139,21 @@ class WatchServiceRegistrar implements FileWatcherListener {
         }
     }
 
+    void watchDirectory(File dir) throws IOException {
+        lock.lock();
+        try {
+            Path dirPath = dir.toPath();
+            WatchKey previousWatchKey = directoryWatchKeys.get(dirPath);
+            if (previousWatchKey != null && previousWatchKey.isValid()) {
+                return;
+            }
+            LOG.debug("Registering watch for direct children of {}", dirPath);
+            directoryWatchKeys.put(dirPath, dirPath.register(watchService, WATCH_KINDS, DIRECTORY_WATCH_MODIFIERS));
+        } finally {
+            lock.unlock();
+        }
+    }
+
     private Iterable<File> getCurrentWatchPoints() {
         List<File> currentWatchPoints = new LinkedList<File>();
         for (Map.Entry<Path, WatchKey> entry : watchKeys.entrySet()) {
@@ -234,7 +262,7 @@ class WatchServiceRegistrar implements FileWatcherListener {
     }
 
     private void maybeFire(FileWatcher watcher, FileWatcherEvent event) {
-        if (watchPointsRegistry.shouldFire(event.getFile())) {
+        if (watchPointsRegistry.shouldFire(event.getFile()) || isInWatchedDirectory(event.getFile())) {
             LOG.debug("Calling onChange with event {}", event);
             deliverEventToDelegate(watcher, event);
         } else {
@@ -242,6 +270,14 @@ class WatchServiceRegistrar implements FileWatcherListener {
         }
     }
 
+    private boolean isInWatchedDirectory(File file) {
+        if (directoryWatchKeys.isEmpty()) {
+            return false;
+        }
+        Path path = file.toPath();
+        return directoryWatchKeys.containsKey(path) || (path.getParent() != null && directoryWatchKeys.containsKey(path.getParent()));
+    }
+
     private void maybeWatchNewDirectory(FileWatcher watcher, File dir) throws IOException {
         LOG.debug("Begin - maybeWatchNewDirectory {}", dir);
         if (isStopRequested(watcher)) {
@@ -79,6 +79,7 @@ import org.gradle.caching.configuration.internal.DefaultBuildCacheConfiguration;
 import org.gradle.caching.configuration.internal.DefaultBuildCacheServiceRegistration;
 import org.gradle.caching.internal.BuildCacheServiceProvider;
 import org.gradle.caching.internal.DirectoryBuildCacheServiceFactory;
+import org.gradle.caching.internal.InMemoryBuildCacheService;
 import org.gradle.caching.local.DirectoryBuildCache;
 import org.gradle.configuration.BuildConfigurer;
 import org.gradle.configuration.DefaultBuildConfigurer;
@@ -454,13 +455,15 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         return instantiator.newInstance(DefaultBuildCacheConfiguration.class, instantiator, allBuildCacheServiceFactories);
     }
 
-    BuildCacheServiceProvider createBuildCacheServiceProvider(BuildCacheConfigurationInternal buildCacheConfiguration, StartParameter startParameter, BuildOperationExecutor buildOperationExecutor, TemporaryFileProvider temporaryFileProvider, InstantiatorFactory instantiatorFactory) {
+    BuildCacheServiceProvider createBuildCacheServiceProvider(BuildCacheConfigurationInternal buildCacheConfiguration, StartParameter startParameter, BuildOperationExecutor buildOperationExecutor, TemporaryFileProvider temporaryFileProvider, InstantiatorFactory instantiatorFactory, ExecutorFactory executorFactory, InMemoryBuildCacheService inMemoryBuildCacheService) {
         return new BuildCacheServiceProvider(
             buildCacheConfiguration,
             startParameter,
             instantiatorFactory.inject(this),
             buildOperationExecutor,
-            temporaryFileProvider);
+            temporaryFileProvider,
+            executorFactory,
+            inMemoryBuildCacheService);
     }
 
     BuildCacheServiceRegistration createDirectoryBuildCacheServiceRegistration() {
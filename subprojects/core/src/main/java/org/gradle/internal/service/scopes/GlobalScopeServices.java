@@ -43,6 +43,7 @@ import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.internal.file.TmpDirTemporaryFileProvider;
 import org.gradle.api.internal.file.collections.DefaultDirectoryFileTreeFactory;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
+import org.gradle.api.internal.hash.HashAlgorithm;
 import org.gradle.api.internal.provider.DefaultProviderFactory;
 import org.gradle.api.provider.ProviderFactory;
 import org.gradle.api.tasks.util.PatternSet;
@@ -360,6 +361,10 @@ public class GlobalScopeServices {
         return new TrueTimeProvider();
     }
 
+    HashAlgorithm createHashAlgorithm() {
+        return HashAlgorithm.fromSystemProperty();
+    }
+
     OsMemoryInfo createOsMemoryInfo() {
         return new DefaultOsMemoryInfo();
     }
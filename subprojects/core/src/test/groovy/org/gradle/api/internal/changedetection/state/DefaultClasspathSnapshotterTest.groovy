@@ -18,6 +18,7 @@ package org.gradle.api.internal.changedetection.state
 
 import org.gradle.api.file.FileVisitor
 import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.changedetection.state.jdk7.ParallelDirectorySnapshotter
 import org.gradle.api.internal.file.DefaultFileVisitDetails
 import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.internal.file.collections.DirectoryFileTree
@@ -25,6 +26,7 @@ import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory
 import org.gradle.api.internal.file.collections.SimpleFileCollection
 import org.gradle.api.internal.hash.DefaultFileHasher
 import org.gradle.api.internal.hash.FileHasher
+import org.gradle.api.internal.hash.HashAlgorithm
 import org.gradle.api.tasks.util.PatternSet
 import org.gradle.test.fixtures.file.CleanupTestDirectory
 import org.gradle.test.fixtures.file.TestFile
@@ -49,7 +51,7 @@ class DefaultClasspathSnapshotterTest extends Specification {
     }
     def fileSystem = TestFiles.fileSystem()
     def directoryFileTreeFactory = Mock(DirectoryFileTreeFactory)
-    def fileSystemSnapshotter = new DefaultFileSystemSnapshotter(new DefaultFileHasher(), stringInterner, fileSystem, directoryFileTreeFactory, new DefaultFileSystemMirror([]))
+    def fileSystemSnapshotter = new DefaultFileSystemSnapshotter(new DefaultFileHasher(), stringInterner, fileSystem, directoryFileTreeFactory, new DefaultFileSystemMirror([]), HashAlgorithm.MD5, new ParallelDirectorySnapshotter(false, 1))
     def classpathHasher = new DefaultClasspathEntryHasher(new DefaultClasspathContentHasher())
     def snapshotter = new DefaultClasspathSnapshotter(stringInterner, directoryFileTreeFactory, fileSystemSnapshotter, classpathHasher)
 
@@ -19,6 +19,11 @@ package org.gradle.api.internal.changedetection.state
 import org.gradle.BuildResult
 import org.gradle.api.internal.GradleInternal
 import org.gradle.internal.classpath.CachedJarFileStore
+import org.gradle.internal.filewatch.FileWatcher
+import org.gradle.internal.filewatch.FileWatcherEvent
+import org.gradle.internal.filewatch.FileWatcherFactory
+import org.gradle.internal.filewatch.FileWatcherListener
+import org.gradle.internal.nativeintegration.filesystem.FileType
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
@@ -141,4 +146,292 @@ class DefaultFileSystemMirrorTest extends Specification {
         mirror.getDirectoryTree(file.path) == null
         mirror.getContent(file.path) == null
     }
+
+    def "keeps state about watched files between builds until they change"() {
+        def watcher = Mock(FileWatcher)
+        def watcherFactory = Mock(FileWatcherFactory)
+        FileWatcherListener listener = null
+        def dir = tmpDir.createDir("dir")
+        def file = dir.file("a")
+        def fileSnapshot = Stub(FileSnapshot)
+        def snapshot = Stub(Snapshot)
+        _ * fileSnapshot.path >> file.path
+        _ * fileSnapshot.type >> FileType.RegularFile
+        _ * watcher.running >> true
+        mirror = new DefaultFileSystemMirror([], watcherFactory)
+
+        when:
+        mirror.getFile(file.path)
+        mirror.putFile(fileSnapshot)
+        mirror.getContent(file.path)
+        mirror.putContent(file.path, snapshot)
+        mirror.beforeComplete()
+
+        then:
+        1 * watcherFactory.watch(_, _) >> { onError, FileWatcherListener l ->
+            listener = l
+            watcher
+        }
+        1 * watcher.watchDirectory(dir)
+        mirror.getFile(file.path) == fileSnapshot
+        mirror.getContent(file.path) == snapshot
+
+        when:
+        listener.onChange(watcher, FileWatcherEvent.modify(file))
+
+        then:
+        mirror.getFile(file.path) == null
+        mirror.getContent(file.path) == null
+    }
+
+    def "watches directories without their subdirectories"() {
+        def watcher = Mock(FileWatcher)
+        def watcherFactory = Stub(FileWatcherFactory)
+        def dir = tmpDir.createDir("dir")
+        def file = dir.file("a")
+        def fileSnapshot = Stub(FileSnapshot)
+        _ * fileSnapshot.path >> file.path
+        _ * watcher.running >> true
+        _ * watcherFactory.watch(_, _) >> watcher
+        mirror = new DefaultFileSystemMirror([], watcherFactory)
+
+        when:
+        mirror.getFile(file.path)
+        mirror.putFile(fileSnapshot)
+
+        then:
+        1 * watcher.watchDirectory(dir)
+        0 * watcher.watch(_)
+    }
+
+    def "does not keep state between builds for a file that changes while it is snapshotted"() {
+        def watcher = Stub(FileWatcher)
+        def watcherFactory = Mock(FileWatcherFactory)
+        FileWatcherListener listener = null
+        def dir = tmpDir.createDir("dir")
+        def file = dir.file("a")
+        def fileSnapshot = Stub(FileSnapshot)
+        _ * fileSnapshot.path >> file.path
+        _ * watcher.running >> true
+        _ * watcherFactory.watch(_, _) >> { onError, FileWatcherListener l ->
+            listener = l
+            watcher
+        }
+        mirror = new DefaultFileSystemMirror([], watcherFactory)
+
+        when:
+        mirror.getFile(file.path)
+        listener.onChange(watcher, FileWatcherEvent.modify(file))
+        mirror.putFile(fileSnapshot)
+
+        then:
+        mirror.getFile(file.path) == fileSnapshot
+
+        when:
+        mirror.beforeComplete()
+
+        then:
+        mirror.getFile(file.path) == null
+    }
+
+    def "keeps a tree between builds only once all of its directories were watched before it was snapshotted"() {
+        def watcher = Mock(FileWatcher)
+        def watcherFactory = Stub(FileWatcherFactory)
+        def dir = tmpDir.createDir("dir")
+        def subDir = dir.createDir("sub")
+        def subDirSnapshot = Stub(FileSnapshot)
+        def treeSnapshot = Stub(FileTreeSnapshot)
+        _ * subDirSnapshot.path >> subDir.path
+        _ * subDirSnapshot.type >> FileType.Directory
+        _ * treeSnapshot.path >> dir.path
+        _ * treeSnapshot.descendants >> [subDirSnapshot]
+        _ * watcher.running >> true
+        _ * watcherFactory.watch(_, _) >> watcher
+        mirror = new DefaultFileSystemMirror([], watcherFactory)
+
+        when:
+        mirror.getDirectoryTree(dir.path)
+        mirror.putDirectory(treeSnapshot)
+        mirror.beforeComplete()
+
+        then:
+        1 * watcher.watchDirectory(tmpDir.testDirectory)
+        1 * watcher.watchDirectory(dir)
+        1 * watcher.watchDirectory(subDir)
+        mirror.getDirectoryTree(dir.path) == null
+
+        when:
+        mirror.getDirectoryTree(dir.path)
+        mirror.putDirectory(treeSnapshot)
+        mirror.beforeComplete()
+
+        then:
+        0 * watcher.watchDirectory(tmpDir.testDirectory)
+        0 * watcher.watchDirectory(dir)
+        0 * watcher.watchDirectory(subDir)
+        mirror.getDirectoryTree(dir.path) == treeSnapshot
+    }
+
+    def "discards state about trees containing a changed file and about files below a changed directory"() {
+        def watcher = Stub(FileWatcher)
+        def watcherFactory = Mock(FileWatcherFactory)
+        FileWatcherListener listener = null
+        def dir = tmpDir.createDir("dir")
+        def subDir = dir.createDir("sub")
+        def otherDir = tmpDir.createDir("dir-other")
+        def treeSnapshot = Stub(FileTreeSnapshot)
+        def subDirFileSnapshot = Stub(FileSnapshot)
+        def otherTreeSnapshot = Stub(FileTreeSnapshot)
+        _ * treeSnapshot.path >> dir.path
+        _ * treeSnapshot.descendants >> []
+        _ * subDirFileSnapshot.path >> subDir.file("a").path
+        _ * otherTreeSnapshot.path >> otherDir.path
+        _ * otherTreeSnapshot.descendants >> []
+        _ * watcher.running >> true
+        _ * watcherFactory.watch(_, _) >> { onError, FileWatcherListener l ->
+            listener = l
+            watcher
+        }
+        mirror = new DefaultFileSystemMirror([], watcherFactory)
+
+        given:
+        mirror.getDirectoryTree(dir.path)
+        mirror.putDirectory(treeSnapshot)
+        mirror.getFile(subDir.file("a").path)
+        mirror.putFile(subDirFileSnapshot)
+        mirror.getDirectoryTree(otherDir.path)
+        mirror.putDirectory(otherTreeSnapshot)
+
+        when:
+        listener.onChange(watcher, FileWatcherEvent.delete(subDir))
+
+        then:
+        mirror.getDirectoryTree(dir.path) == null
+        mirror.getFile(subDir.file("a").path) == null
+        mirror.getDirectoryTree(otherDir.path) == otherTreeSnapshot
+    }
+
+    def "discards all state when the watcher overflows"() {
+        def watcher = Stub(FileWatcher)
+        def watcherFactory = Mock(FileWatcherFactory)
+        FileWatcherListener listener = null
+        def file = tmpDir.createDir("dir").file("a")
+        def fileSnapshot = Stub(FileSnapshot)
+        _ * fileSnapshot.path >> file.path
+        _ * watcher.running >> true
+        _ * watcherFactory.watch(_, _) >> { onError, FileWatcherListener l ->
+            listener = l
+            watcher
+        }
+        mirror = new DefaultFileSystemMirror([], watcherFactory)
+
+        given:
+        mirror.getFile(file.path)
+        mirror.putFile(fileSnapshot)
+
+        when:
+        listener.onChange(watcher, FileWatcherEvent.undefined())
+
+        then:
+        mirror.getFile(file.path) == null
+    }
+
+    def "waits for the changes made before a build at the start of the build"() {
+        def watcher = Stub(FileWatcher)
+        def watcherFactory = Mock(FileWatcherFactory)
+        FileWatcherListener listener = null
+        File markerDir = null
+        def dir = tmpDir.createDir("dir")
+        def file = dir.file("a")
+        def fileSnapshot = Stub(FileSnapshot)
+        _ * fileSnapshot.path >> file.path
+        _ * watcher.running >> true
+        _ * watcher.watchDirectory(_) >> { File d ->
+            if (markerDir == null) {
+                markerDir = d
+            }
+        }
+        _ * watcherFactory.watch(_, _) >> { onError, FileWatcherListener l ->
+            listener = l
+            watcher
+        }
+        mirror = new DefaultFileSystemMirror([], watcherFactory)
+
+        given:
+        mirror.getFile(file.path)
+        mirror.putFile(fileSnapshot)
+        mirror.beforeComplete()
+
+        when:
+        def changeReporter = Thread.start {
+            // Report a change made before the build, then the marker file created by the mirror
+            File marker = null
+            while (marker == null) {
+                marker = markerDir.listFiles().find()
+                Thread.sleep(10)
+            }
+            listener.onChange(watcher, FileWatcherEvent.modify(file))
+            listener.onChange(watcher, FileWatcherEvent.create(marker))
+        }
+        mirror.afterStart()
+        changeReporter.join()
+
+        then:
+        mirror.getFile(file.path) == null
+    }
+
+    def "throws away state at end of build when a directory cannot be watched"() {
+        def watcher = Mock(FileWatcher)
+        def watcherFactory = Stub(FileWatcherFactory)
+        def dir = tmpDir.createDir("dir")
+        def file = dir.file("a")
+        def fileSnapshot = Stub(FileSnapshot)
+        _ * fileSnapshot.path >> file.path
+        _ * watcher.running >> true
+        _ * watcherFactory.watch(_, _) >> watcher
+        mirror = new DefaultFileSystemMirror([], watcherFactory)
+
+        when:
+        mirror.getFile(file.path)
+        mirror.putFile(fileSnapshot)
+
+        then:
+        1 * watcher.watchDirectory(dir) >> { throw new IOException("too many watches") }
+        1 * watcher.stop()
+        mirror.getFile(file.path) == fileSnapshot
+
+        when:
+        mirror.beforeComplete()
+
+        then:
+        mirror.getFile(file.path) == null
+    }
+
+    def "does not keep state between builds for a file whose parent directory does not exist"() {
+        def watcher = Stub(FileWatcher)
+        def watcherFactory = Mock(FileWatcherFactory)
+        def file = tmpDir.file("missing/a")
+        def fileSnapshot = Stub(FileSnapshot)
+        _ * fileSnapshot.path >> file.path
+        _ * watcher.running >> true
+        mirror = new DefaultFileSystemMirror([], watcherFactory)
+
+        when:
+        mirror.getFile(file.path)
+        mirror.putFile(fileSnapshot)
+
+        then:
+        0 * watcherFactory._
+        mirror.getFile(file.path) == fileSnapshot
+
+        when:
+        mirror.beforeComplete()
+
+        then:
+        mirror.getFile(file.path) == null
+    }
+
+    def cleanup() {
+        mirror.stop()
+    }
 }
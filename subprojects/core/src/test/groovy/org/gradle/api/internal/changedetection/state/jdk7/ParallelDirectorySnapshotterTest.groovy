@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state.jdk7
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.changedetection.state.DefaultFileSystemMirror
+import org.gradle.api.internal.changedetection.state.DefaultFileSystemSnapshotter
+import org.gradle.api.internal.changedetection.state.FileTreeSnapshot
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.hash.DefaultFileHasher
+import org.gradle.api.internal.hash.HashAlgorithm
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+import spock.lang.Specification
+
+@Requires(TestPrecondition.JDK8_OR_LATER)
+class ParallelDirectorySnapshotterTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def parallelDirectorySnapshotter = new ParallelDirectorySnapshotter(true, 4)
+
+    def cleanup() {
+        parallelDirectorySnapshotter.stop()
+    }
+
+    def "creates the same snapshot as a sequential walk"() {
+        def root = tmpDir.createDir("root")
+        (1..150).each { root.file("file${it}.txt").text = "content ${it}" }
+        root.file("a/b/c/deep.txt").text = "deep"
+        root.createDir("a/empty")
+        (1..5).each { dir -> (1..70).each { root.file("dir${dir}/sub/file${it}.bin").text = "${dir}:${it}" } }
+        // Default excludes apply to both
+        root.file(".git/config").text = "ignored"
+        root.file("file.txt~").text = "ignored"
+
+        when:
+        def parallel = snapshot(root, parallelDirectorySnapshotter)
+        def sequential = snapshot(root, new ParallelDirectorySnapshotter(false, 1))
+
+        then:
+        describe(parallel) == describe(sequential)
+        describe(parallel).size() == 150 + 4 + 1 + 5 * 72
+    }
+
+    def "snapshots an empty directory"() {
+        def root = tmpDir.createDir("root")
+
+        expect:
+        snapshot(root, parallelDirectorySnapshotter).descendants.empty
+    }
+
+    def "skips directories matching an exclude"() {
+        def root = tmpDir.createDir("root")
+        root.file("included/file.txt").text = "included"
+        root.file("excluded/file.txt").text = "excluded"
+        def tree = TestFiles.directoryFileTreeFactory().create(root)
+        tree.patterns.exclude("excluded")
+
+        when:
+        def elements = parallelDirectorySnapshotter.snapshot(root, tree.patterns.asSpec, TestFiles.fileSystem(), Stub(ParallelDirectorySnapshotter.SnapshotFactory))
+
+        then:
+        elements.size() == 2
+    }
+
+    private static FileTreeSnapshot snapshot(TestFile root, ParallelDirectorySnapshotter parallelDirectorySnapshotter) {
+        def snapshotter = new DefaultFileSystemSnapshotter(new DefaultFileHasher(), new StringInterner(), TestFiles.fileSystem(), TestFiles.directoryFileTreeFactory(), new DefaultFileSystemMirror([]), HashAlgorithm.MD5, parallelDirectorySnapshotter)
+        return snapshotter.snapshotDirectoryTree(root)
+    }
+
+    private static List<List<Object>> describe(FileTreeSnapshot snapshot) {
+        snapshot.descendants.collect { [it.path, it.relativePath.pathString, it.type, it.content] }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class DefaultFileHasherTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    @Unroll
+    def "hashes file content the same way as a stream using #algorithm"() {
+        def hasher = new DefaultFileHasher(algorithm)
+        def file = tmpDir.file("file.txt")
+        file.bytes = content(size)
+
+        expect:
+        hasher.hash(file) == hasher.hash(new ByteArrayInputStream(content(size)))
+
+        where:
+        algorithm                 | size
+        HashAlgorithm.MD5         | 100
+        HashAlgorithm.MD5         | 1024 * 1024
+        HashAlgorithm.MURMUR3_128 | 100
+        HashAlgorithm.MURMUR3_128 | 1024 * 1024
+    }
+
+    def "different algorithms produce different hashes of the same length"() {
+        def file = tmpDir.file("file.txt")
+        file.text = "content"
+
+        when:
+        def md5 = new DefaultFileHasher(HashAlgorithm.MD5).hash(file)
+        def murmur = new DefaultFileHasher(HashAlgorithm.MURMUR3_128).hash(file)
+
+        then:
+        md5 != murmur
+        md5.bits() == murmur.bits()
+    }
+
+    def "default hasher uses MD5"() {
+        def file = tmpDir.file("file.txt")
+        file.text = "content"
+
+        expect:
+        new DefaultFileHasher().hash(file) == new DefaultFileHasher(HashAlgorithm.MD5).hash(file)
+    }
+
+    private static byte[] content(long size) {
+        def bytes = new byte[size]
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) i
+        }
+        return bytes
+    }
+}
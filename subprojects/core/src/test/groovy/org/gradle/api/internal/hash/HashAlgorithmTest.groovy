@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash
+
+import spock.lang.Specification
+
+class HashAlgorithmTest extends Specification {
+    def "looks up algorithm by id"() {
+        expect:
+        HashAlgorithm.forId("md5") == HashAlgorithm.MD5
+        HashAlgorithm.forId("murmur3_128") == HashAlgorithm.MURMUR3_128
+    }
+
+    def "fails on unknown algorithm"() {
+        when:
+        HashAlgorithm.forId("sha1")
+
+        then:
+        def e = thrown IllegalArgumentException
+        e.message == "Unknown hash algorithm 'sha1'. Supported algorithms are: md5, murmur3_128."
+    }
+
+    def "cache names record the algorithm"() {
+        expect:
+        HashAlgorithm.MD5.getCacheName("fileHashes") == "fileHashes"
+        HashAlgorithm.MURMUR3_128.getCacheName("fileHashes") == "fileHashes-murmur3_128"
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution
+
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.TaskOutputCachingState
+import org.gradle.api.internal.changedetection.TaskArtifactState
+import org.gradle.api.internal.tasks.TaskExecuter
+import org.gradle.api.internal.tasks.TaskExecutionContext
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.caching.internal.tasks.TaskOutputCacheLoadListener
+import org.gradle.caching.internal.tasks.TaskOutputCachingBuildCacheKey
+import spock.lang.Specification
+
+class NotifyTaskOutputCacheLoadExecuterTest extends Specification {
+    def task = Mock(TaskInternal)
+    def taskState = Mock(TaskStateInternal)
+    def taskContext = Mock(TaskExecutionContext)
+    def taskArtifactState = Mock(TaskArtifactState)
+    def taskOutputCaching = Mock(TaskOutputCachingState)
+    def cacheKey = Mock(TaskOutputCachingBuildCacheKey)
+    def delegate = Mock(TaskExecuter)
+    def listener = Mock(TaskOutputCacheLoadListener)
+    def executer = new NotifyTaskOutputCacheLoadExecuter(listener, delegate)
+
+    def "notifies listener before the outputs are loaded from the cache"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskContext.getBuildCacheKey() >> cacheKey
+        1 * taskState.getTaskOutputCaching() >> taskOutputCaching
+        1 * taskOutputCaching.isEnabled() >> true
+        1 * cacheKey.isValid() >> true
+        1 * taskContext.getTaskArtifactState() >> taskArtifactState
+        1 * taskArtifactState.isAllowedToUseCachedResults() >> true
+
+        then:
+        1 * listener.beforeLoad(task, cacheKey)
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        0 * _
+    }
+
+    def "does not notify listener when caching is disabled for the task"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskContext.getBuildCacheKey() >> cacheKey
+        1 * taskState.getTaskOutputCaching() >> taskOutputCaching
+        1 * taskOutputCaching.isEnabled() >> false
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        0 * _
+    }
+
+    def "does not notify listener when the cache key is invalid"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskContext.getBuildCacheKey() >> cacheKey
+        1 * taskState.getTaskOutputCaching() >> taskOutputCaching
+        1 * taskOutputCaching.isEnabled() >> true
+        1 * cacheKey.isValid() >> false
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        0 * _
+    }
+
+    def "does not notify listener when the task is not allowed to use cached results"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskContext.getBuildCacheKey() >> cacheKey
+        1 * taskState.getTaskOutputCaching() >> taskOutputCaching
+        1 * taskOutputCaching.isEnabled() >> true
+        1 * cacheKey.isValid() >> true
+        1 * taskContext.getTaskArtifactState() >> taskArtifactState
+        1 * taskArtifactState.isAllowedToUseCachedResults() >> false
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        0 * _
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.execution
+
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.TaskInputsInternal
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.TaskOutputCachingState
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.changedetection.TaskArtifactState
+import org.gradle.api.internal.changedetection.TaskArtifactStateRepository
+import org.gradle.api.internal.tasks.ContextAwareTaskAction
+import org.gradle.caching.internal.tasks.TaskOutputCacheLoadListener
+import org.gradle.caching.internal.tasks.TaskOutputCachingBuildCacheKey
+import spock.lang.Specification
+
+class TaskOutputCacheLoadPlannerTest extends Specification {
+    def task = Mock(TaskInternal)
+    def taskInputs = Mock(TaskInputsInternal)
+    def taskOutputs = Mock(TaskOutputsInternal)
+    def taskOutputCaching = Mock(TaskOutputCachingState)
+    def sourceFiles = Mock(FileCollection)
+    def repository = Mock(TaskArtifactStateRepository)
+    def taskArtifactState = Mock(TaskArtifactState)
+    def cacheKey = Mock(TaskOutputCachingBuildCacheKey)
+    def listener = Mock(TaskOutputCacheLoadListener)
+    def planner = new TaskOutputCacheLoadPlanner(repository, listener)
+
+    def setup() {
+        task.getTaskActions() >> [Mock(ContextAwareTaskAction)]
+        task.getInputs() >> taskInputs
+        task.getOutputs() >> taskOutputs
+        taskOutputs.getHasOutput() >> true
+        taskOutputs.getCachingState() >> taskOutputCaching
+        taskInputs.getSourceFiles() >> sourceFiles
+        cacheKey.getHashCode() >> "0123456abcdef"
+    }
+
+    def "notifies listener of the load of an out-of-date task"() {
+        when:
+        planner.plan([task])
+
+        then:
+        1 * taskOutputCaching.isEnabled() >> true
+        1 * repository.getStateFor(task) >> taskArtifactState
+        1 * taskArtifactState.isAllowedToUseCachedResults() >> true
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * cacheKey.isValid() >> true
+        1 * taskArtifactState.isUpToDate(null) >> false
+
+        then:
+        1 * listener.beforeLoad(task, cacheKey)
+    }
+
+    def "does not notify listener of an up-to-date task"() {
+        when:
+        planner.plan([task])
+
+        then:
+        1 * taskOutputCaching.isEnabled() >> true
+        1 * repository.getStateFor(task) >> taskArtifactState
+        1 * taskArtifactState.isAllowedToUseCachedResults() >> true
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * cacheKey.isValid() >> true
+        1 * taskArtifactState.isUpToDate(null) >> true
+        0 * listener._
+    }
+
+    def "does not calculate the cache key when caching is disabled for the task"() {
+        when:
+        planner.plan([task])
+
+        then:
+        1 * taskOutputCaching.isEnabled() >> false
+        0 * repository._
+        0 * listener._
+    }
+
+    def "does not calculate the cache key of a task without source files"() {
+        when:
+        planner.plan([task])
+
+        then:
+        1 * taskOutputCaching.isEnabled() >> true
+        1 * taskInputs.getHasSourceFiles() >> true
+        1 * sourceFiles.isEmpty() >> true
+        0 * repository._
+        0 * listener._
+    }
+
+    def "does not notify listener when the task is not allowed to use cached results"() {
+        when:
+        planner.plan([task])
+
+        then:
+        1 * taskOutputCaching.isEnabled() >> true
+        1 * repository.getStateFor(task) >> taskArtifactState
+        1 * taskArtifactState.isAllowedToUseCachedResults() >> false
+        0 * taskArtifactState.calculateCacheKey()
+        0 * listener._
+    }
+
+    def "continues with the next task when a task cannot be planned"() {
+        def otherTask = Mock(TaskInternal)
+        otherTask.getTaskActions() >> { throw new RuntimeException("broken") }
+
+        when:
+        planner.plan([otherTask, task])
+
+        then:
+        1 * taskOutputCaching.isEnabled() >> true
+        1 * repository.getStateFor(task) >> taskArtifactState
+        1 * taskArtifactState.isAllowedToUseCachedResults() >> true
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * cacheKey.isValid() >> true
+        1 * taskArtifactState.isUpToDate(null) >> false
+        1 * listener.beforeLoad(task, cacheKey)
+    }
+}
@@ -52,8 +52,12 @@ public class BTreePersistentIndexedCacheTest {
         cacheFile = tmpDir.file("cache.bin");
     }
 
+    protected boolean isMemoryMapped() {
+        return false;
+    }
+
     private void createCache() {
-        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100);
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100, isMemoryMapped());
     }
 
     private void verifyAndCloseCache() {
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import org.gradle.internal.serialize.DefaultSerializer;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.test.fixtures.file.TestFile;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class MemoryMappedBTreePersistentIndexedCacheTest extends BTreePersistentIndexedCacheTest {
+    private final Serializer<String> stringSerializer = new DefaultSerializer<String>();
+    private final Serializer<Integer> integerSerializer = new DefaultSerializer<Integer>();
+
+    @Override
+    protected boolean isMemoryMapped() {
+        return true;
+    }
+
+    @Test
+    public void fileCanBeReadByEitherStore() {
+        TestFile file = tmpDir.file("shared.bin");
+
+        BTreePersistentIndexedCache<String, Integer> mappedCache = new BTreePersistentIndexedCache<String, Integer>(file, stringSerializer, integerSerializer, (short) 4, 100, true);
+        for (int i = 0; i < 100; i++) {
+            mappedCache.put("key_" + i, i);
+        }
+        mappedCache.close();
+
+        BTreePersistentIndexedCache<String, Integer> fileCache = new BTreePersistentIndexedCache<String, Integer>(file, stringSerializer, integerSerializer, (short) 4, 100, false);
+        for (int i = 0; i < 100; i++) {
+            assertThat(fileCache.get("key_" + i), equalTo(i));
+        }
+        for (int i = 100; i < 200; i++) {
+            fileCache.put("key_" + i, i);
+        }
+        fileCache.verify();
+        fileCache.close();
+
+        mappedCache = new BTreePersistentIndexedCache<String, Integer>(file, stringSerializer, integerSerializer, (short) 4, 100, true);
+        for (int i = 0; i < 200; i++) {
+            assertThat(mappedCache.get("key_" + i), equalTo(i));
+        }
+        mappedCache.verify();
+        mappedCache.close();
+    }
+
+    @Test
+    public void truncatesFileToUsedSizeOnClose() {
+        TestFile mappedFile = tmpDir.file("mapped.bin");
+        TestFile plainFile = tmpDir.file("plain.bin");
+
+        for (boolean memoryMapped : new boolean[]{true, false}) {
+            BTreePersistentIndexedCache<String, Integer> cache = new BTreePersistentIndexedCache<String, Integer>(memoryMapped ? mappedFile : plainFile, stringSerializer, integerSerializer, (short) 4, 100, memoryMapped);
+            for (int i = 0; i < 50; i++) {
+                cache.put("key_" + i, i);
+            }
+            cache.close();
+        }
+
+        assertThat(mappedFile.length(), equalTo(plainFile.length()));
+    }
+}
@@ -22,6 +22,7 @@ import org.gradle.caching.configuration.AbstractBuildCache
 import org.gradle.caching.configuration.BuildCache
 import org.gradle.caching.configuration.internal.BuildCacheConfigurationInternal
 import org.gradle.caching.local.DirectoryBuildCache
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.operations.BuildOperationExecutor
 import org.gradle.internal.reflect.Instantiator
 import spock.lang.Specification
@@ -53,9 +54,14 @@ class BuildCacheServiceProviderTest extends Specification {
     }
     def buildOperationExecuter = Mock(BuildOperationExecutor)
     def temporaryFileProvider = Mock(TemporaryFileProvider)
-    def provider = new BuildCacheServiceProvider(buildCacheConfiguration, startParameter, instantiator, buildOperationExecuter, temporaryFileProvider) {
+    def executorFactory = Mock(ExecutorFactory)
+    boolean memoryTierEnabled = false
+    def inMemoryBuildCacheService = Stub(InMemoryBuildCacheService) {
+        isEnabled() >> { memoryTierEnabled }
+    }
+    def provider = new BuildCacheServiceProvider(buildCacheConfiguration, startParameter, instantiator, buildOperationExecuter, temporaryFileProvider, executorFactory, inMemoryBuildCacheService) {
         @Override
-        RoleAwareBuildCacheService createDecoratedBuildCacheService(String role, BuildCache buildCache) {
+        RoleAwareBuildCacheService createDecoratedBuildCacheService(String role, BuildCache buildCache, boolean frontTier) {
             sensedBuildCaches += buildCache
             buildCacheService
         }
@@ -111,6 +117,19 @@ class BuildCacheServiceProviderTest extends Specification {
         buildCacheService instanceof DispatchingBuildCacheService
     }
 
+    def 'memory tier is added in front of the configured caches when enabled'() {
+        memoryTierEnabled = true
+        local = createConfiguration(DirectoryBuildCache)
+        remote = null
+
+        when:
+        def buildCacheService = provider.createBuildCacheService()
+        then:
+        sensedBuildCaches == [local]
+        buildCacheService instanceof DispatchingBuildCacheService
+        buildCacheService.role == "memory and mock"
+    }
+
     def 'when caching is disabled no services are created'() {
         buildCacheEnabled = false
 
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal
+
+import com.google.common.util.concurrent.Striped
+import org.gradle.cache.PersistentCache
+import org.gradle.internal.Factory
+import org.gradle.internal.time.TimeProvider
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.locks.ReadWriteLock
+
+@CleanupTestDirectory
+class DirectoryBuildCacheCleanupTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    def cacheDir = temporaryFolder.createDir("cache")
+    def persistentCache = Mock(PersistentCache) {
+        withFileLock(_) >> { Factory factory -> factory.create() }
+    }
+    def entryLocks = Striped.<ReadWriteLock>readWriteLock(4)
+    def timeProvider = Mock(TimeProvider) {
+        getCurrentTime() >> 100000
+    }
+
+    def "keeps entries when cache is below target size"() {
+        def cleanup = new DirectoryBuildCacheCleanup(cacheDir, persistentCache, entryLocks, timeProvider, 100, 100000)
+        def entry1 = entry("0001", 10, 90000)
+        def entry2 = entry("0002", 10, 95000)
+
+        expect:
+        cleanup.cleanup() == 20
+        entry1.exists()
+        entry2.exists()
+    }
+
+    def "removes least recently used entries until cache is below target size"() {
+        def cleanup = new DirectoryBuildCacheCleanup(cacheDir, persistentCache, entryLocks, timeProvider, 25, 100000)
+        def oldest = entry("0001", 10, 90000)
+        def older = entry("0002", 10, 91000)
+        def newer = entry("0003", 10, 92000)
+        def newest = entry("0004", 10, 93000)
+
+        expect:
+        cleanup.cleanup() == 20
+        !oldest.exists()
+        !older.exists()
+        newer.exists()
+        newest.exists()
+    }
+
+    def "removes entries that have not been used for longer than the maximum age"() {
+        def cleanup = new DirectoryBuildCacheCleanup(cacheDir, persistentCache, entryLocks, timeProvider, 100, 5000)
+        def expired = entry("0001", 10, 90000)
+        def recent = entry("0002", 10, 96000)
+
+        expect:
+        cleanup.cleanup() == 10
+        !expired.exists()
+        recent.exists()
+    }
+
+    def "ignores files that are not cache entries"() {
+        def cleanup = new DirectoryBuildCacheCleanup(cacheDir, persistentCache, entryLocks, timeProvider, 0, 5000)
+        def properties = cacheDir.file("cache.properties").createFile()
+        def partial = cacheDir.file("0001123.part").createFile()
+        properties.lastModified = 1000
+        partial.lastModified = 1000
+
+        expect:
+        cleanup.cleanup() == 0
+        properties.exists()
+        partial.exists()
+    }
+
+    def "does not remove entry that is being loaded"() {
+        def cleanup = new DirectoryBuildCacheCleanup(cacheDir, persistentCache, entryLocks, timeProvider, 0, 5000)
+        def entry = entry("0001", 10, 1000)
+        def lock = entryLocks.get("0001").readLock()
+        lock.lock()
+
+        when:
+        def remainingSize = cleanup.cleanup()
+
+        then:
+        remainingSize == 10
+        entry.exists()
+
+        cleanup:
+        lock.unlock()
+    }
+
+    def "does not hold the cache lock while scanning the directory"() {
+        def cleanup = new DirectoryBuildCacheCleanup(cacheDir, persistentCache, entryLocks, timeProvider, 0, 5000)
+        entry("0001", 10, 1000)
+
+        when:
+        cleanup.cleanup()
+
+        then:
+        1 * persistentCache.withFileLock(_) >> { Factory factory ->
+            // Scanning has already finished
+            assert cacheDir.file("0001").exists()
+            factory.create()
+        }
+        !cacheDir.file("0001").exists()
+    }
+
+    private TestFile entry(String name, int size, long lastAccessed) {
+        def file = cacheDir.file(name)
+        file.bytes = new byte[size]
+        file.lastModified = lastAccessed
+        return file
+    }
+}
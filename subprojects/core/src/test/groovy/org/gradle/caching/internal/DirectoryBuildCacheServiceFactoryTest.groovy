@@ -22,6 +22,9 @@ import org.gradle.cache.CacheRepository
 import org.gradle.cache.internal.CacheScopeMapping
 import org.gradle.cache.internal.VersionStrategy
 import org.gradle.caching.local.DirectoryBuildCache
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.StoppableExecutor
+import org.gradle.internal.time.TimeProvider
 import org.gradle.test.fixtures.file.CleanupTestDirectory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.UsesNativeServices
@@ -34,7 +37,10 @@ class DirectoryBuildCacheServiceFactoryTest extends Specification {
     def cacheRepository = Mock(CacheRepository)
     def cacheScopeMapping = Mock(CacheScopeMapping)
     def resolver = Mock(FileResolver)
-    def factory = new DirectoryBuildCacheServiceFactory(cacheRepository, cacheScopeMapping, resolver)
+    def executorFactory = Mock(ExecutorFactory)
+    def cleanupExecutor = Mock(StoppableExecutor)
+    def timeProvider = Mock(TimeProvider)
+    def factory = new DirectoryBuildCacheServiceFactory(cacheRepository, cacheScopeMapping, resolver, executorFactory, timeProvider)
     def cacheBuilder = Stub(CacheBuilder)
     def config = Mock(DirectoryBuildCache)
 
@@ -50,6 +56,10 @@ class DirectoryBuildCacheServiceFactoryTest extends Specification {
         1 * config.getDirectory() >> null
         1 * cacheScopeMapping.getBaseDirectory(null, "build-cache-1", VersionStrategy.SharedCache) >> cacheDir
         1 * cacheRepository.cache(cacheDir) >> cacheBuilder
+        1 * config.getTargetSizeInMB() >> 5120
+        1 * config.getRemoveUnusedEntriesAfterDays() >> 7
+        1 * executorFactory.create(_) >> cleanupExecutor
+        1 * cleanupExecutor.execute(_)
         0 * _
     }
 
@@ -63,6 +73,20 @@ class DirectoryBuildCacheServiceFactoryTest extends Specification {
         1 * config.getDirectory() >> cacheDir
         1 * resolver.resolve(cacheDir) >> cacheDir
         1 * cacheRepository.cache(cacheDir) >> cacheBuilder
+        1 * config.getTargetSizeInMB() >> 5120
+        1 * config.getRemoveUnusedEntriesAfterDays() >> 7
+        1 * executorFactory.create(_) >> cleanupExecutor
+        1 * cleanupExecutor.execute(_)
         0 * _
     }
+
+    def "does not accept non-positive target size"() {
+        when:
+        factory.createBuildCacheService(config)
+        then:
+        def ex = thrown IllegalArgumentException
+        ex.message == "Directory build cache needs a positive target size, but 0 MB was configured."
+        1 * config.getDirectory() >> temporaryFolder.file("cache-dir")
+        1 * config.getTargetSizeInMB() >> 0
+    }
 }
@@ -19,7 +19,12 @@ package org.gradle.caching.internal
 import org.gradle.cache.CacheBuilder
 import org.gradle.cache.CacheRepository
 import org.gradle.cache.PersistentCache
+import org.gradle.caching.BuildCacheEntryReader
 import org.gradle.caching.BuildCacheKey
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.StoppableExecutor
+import org.gradle.internal.time.TimeProvider
 import org.gradle.test.fixtures.file.CleanupTestDirectory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.UsesNativeServices
@@ -41,7 +46,14 @@ class DirectoryBuildCacheServiceTest extends Specification {
     def cacheRepository = Mock(CacheRepository) {
         cache(cacheDir) >> cacheBuilder
     }
-    def service = new DirectoryBuildCacheService(cacheRepository, cacheDir)
+    def cleanupExecutor = Mock(StoppableExecutor) {
+        execute(_) >> { Runnable action -> action.run() }
+    }
+    def executorFactory = Mock(ExecutorFactory) {
+        create(_) >> cleanupExecutor
+    }
+    def timeProvider = Mock(TimeProvider)
+    def service = new DirectoryBuildCacheService(cacheRepository, cacheDir, executorFactory, timeProvider, 1024, 1000)
     def key = Mock(BuildCacheKey)
 
     def "does not store partial result"() {
@@ -65,4 +77,44 @@ class DirectoryBuildCacheServiceTest extends Specification {
         cacheDir.listFiles() as List == []
         1 * key.getHashCode() >> hashCode
     }
+
+    def "records last access time when loading entry"() {
+        def hashCode = "1234abcd"
+        def entry = cacheDir.file(hashCode)
+        entry.text = "abcd"
+        entry.lastModified = 1000
+        def reader = Mock(BuildCacheEntryReader)
+
+        when:
+        def loaded = service.load(key, reader)
+
+        then:
+        loaded
+        1 * key.getHashCode() >> hashCode
+        1 * persistentCache.withFileLock(_) >> { Factory factory -> factory.create() }
+        1 * timeProvider.getCurrentTime() >> 5000
+        1 * reader.readFrom(_)
+        entry.lastModified() == 5000
+    }
+
+    def "schedules cleanup when stored entries exceed target size"() {
+        when:
+        service.store(key) { OutputStream output ->
+            output << ("x" * 2048)
+        }
+
+        then:
+        1 * key.getHashCode() >> "1234abcd"
+        1 * persistentCache.useCache(_ as Runnable) >> { Runnable action -> action.run() }
+        1 * cleanupExecutor.execute(_)
+    }
+
+    def "stops cleanup when closed"() {
+        when:
+        service.close()
+
+        then:
+        1 * cleanupExecutor.stop()
+        1 * persistentCache.close()
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal
+
+import org.gradle.api.internal.file.DefaultTemporaryFileProvider
+import org.gradle.caching.BuildCacheEntryReader
+import org.gradle.caching.BuildCacheEntryWriter
+import org.gradle.caching.BuildCacheKey
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.StoppableExecutor
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class DispatchingBuildCacheServiceTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+
+    def key = Mock(BuildCacheKey)
+    def local = Mock(RoleAwareBuildCacheService) {
+        getRole() >> "local"
+    }
+    def remote = Mock(RoleAwareBuildCacheService) {
+        getRole() >> "remote"
+    }
+    def executor = Mock(StoppableExecutor) {
+        execute(_) >> { Runnable runnable -> runnable.run() }
+    }
+    def tempDir = temporaryFolder.createDir("tmp")
+    def temporaryFileProvider = new DefaultTemporaryFileProvider(new Factory<File>() {
+        @Override
+        File create() {
+            return tempDir
+        }
+    })
+
+    def "loads from local tier before remote tier"() {
+        def service = new DispatchingBuildCacheService(local, true, remote, true, temporaryFileProvider, executor)
+        def reader = Mock(BuildCacheEntryReader)
+
+        when:
+        def loaded = service.load(key, reader)
+
+        then:
+        loaded
+        1 * local.load(key, reader) >> true
+        0 * remote._
+    }
+
+    def "writes remote hit to local tier from the downloaded bytes"() {
+        def service = new DispatchingBuildCacheService(local, true, remote, true, temporaryFileProvider, executor)
+        def readBytes = null
+        def storedBytes = null
+
+        when:
+        def loaded = service.load(key) { input ->
+            // Read only part of the entry
+            readBytes = [input.read(), input.read()]
+        }
+
+        then:
+        loaded
+        readBytes == [1, 2]
+        1 * local.load(key, _) >> false
+        1 * remote.load(key, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            reader.readFrom(new ByteArrayInputStream([1, 2, 3, 4] as byte[]))
+            true
+        }
+        1 * local.store(key, _) >> { BuildCacheKey key, BuildCacheEntryWriter writer ->
+            def output = new ByteArrayOutputStream()
+            writer.writeTo(output)
+            storedBytes = output.toByteArray() as List
+        }
+        storedBytes == [1, 2, 3, 4]
+        tempDir.listFiles().length == 0
+    }
+
+    def "does not write remote miss to local tier"() {
+        def service = new DispatchingBuildCacheService(local, true, remote, true, temporaryFileProvider, executor)
+
+        when:
+        def loaded = service.load(key, Mock(BuildCacheEntryReader))
+
+        then:
+        !loaded
+        1 * local.load(key, _) >> false
+        1 * remote.load(key, _) >> false
+        0 * local.store(_, _)
+        tempDir.listFiles().length == 0
+    }
+
+    def "does not write remote hit to local tier when pushing to local tier is disabled"() {
+        def service = new DispatchingBuildCacheService(local, false, remote, true, temporaryFileProvider, executor)
+        def reader = Mock(BuildCacheEntryReader)
+
+        when:
+        def loaded = service.load(key, reader)
+
+        then:
+        loaded
+        1 * local.load(key, reader) >> false
+        1 * remote.load(key, reader) >> true
+        0 * local.store(_, _)
+    }
+
+    def "finishes writing through before closing the tiers"() {
+        def service = new DispatchingBuildCacheService(local, true, remote, true, temporaryFileProvider, executor)
+
+        when:
+        service.close()
+
+        then:
+        1 * executor.stop()
+
+        then:
+        1 * local.close()
+        1 * remote.close()
+    }
+}
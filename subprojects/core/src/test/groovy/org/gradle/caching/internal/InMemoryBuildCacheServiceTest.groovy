@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal
+
+import org.gradle.caching.BuildCacheKey
+import spock.lang.Specification
+
+class InMemoryBuildCacheServiceTest extends Specification {
+    def key = Stub(BuildCacheKey) {
+        getHashCode() >> "0123456abcdef"
+    }
+    def service = new InMemoryBuildCacheService(1600)
+
+    def "loads stored entry"() {
+        when:
+        service.store(key) { output -> output.write([1, 2, 3] as byte[]) }
+        def loaded = null
+        def found = service.load(key) { input -> loaded = input.bytes as List }
+
+        then:
+        found
+        loaded == [1, 2, 3]
+    }
+
+    def "reports miss for unknown entry"() {
+        expect:
+        !service.load(key) { input -> throw new RuntimeException("That should never be called") }
+    }
+
+    def "does not keep entries larger than a sixteenth of the maximum size"() {
+        when:
+        service.store(key) { output -> output.write(new byte[101]) }
+
+        then:
+        !service.load(key) { input -> throw new RuntimeException("That should never be called") }
+    }
+
+    def "is disabled without a size"() {
+        expect:
+        service.enabled
+        !new InMemoryBuildCacheService(0).enabled
+    }
+}
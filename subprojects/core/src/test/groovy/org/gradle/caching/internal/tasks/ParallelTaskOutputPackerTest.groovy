@@ -0,0 +1,175 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks
+
+import org.gradle.internal.nativeplatform.filesystem.FileSystem
+import spock.lang.Unroll
+
+import java.util.concurrent.Executors
+
+import static org.gradle.api.internal.tasks.CacheableTaskOutputFilePropertySpec.OutputType.DIRECTORY
+import static org.gradle.api.internal.tasks.CacheableTaskOutputFilePropertySpec.OutputType.FILE
+
+class ParallelTaskOutputPackerTest extends AbstractTaskOutputPackerSpec {
+    def fileSystem = Mock(FileSystem)
+    def executor = Executors.newFixedThreadPool(4)
+    // Use small blocks, so that files span several blocks and blocks contain several files
+    def parallelPacker = new ParallelTaskOutputPacker(fileSystem, executor, 2, 16)
+
+    @Override
+    TaskOutputPacker getPacker() {
+        return parallelPacker
+    }
+
+    def cleanup() {
+        parallelPacker.stop()
+    }
+
+    def "can pack task output directory"() {
+        def sourceOutputDir = tempDir.file("source").createDir()
+        def sourceSubDir = sourceOutputDir.file("subdir").createDir()
+        def emptyFile = sourceOutputDir.file("empty.txt").createFile()
+        def smallFile = sourceSubDir.file("small.txt")
+        smallFile << "output"
+        def largeFile = sourceSubDir.file("large.txt")
+        largeFile << ("large output " * 100)
+        smallFile.lastModified = 123456789012L
+        def targetOutputDir = tempDir.file("target").createDir()
+        def targetSubDir = targetOutputDir.file("subdir")
+        targetOutputDir.file("stale.txt").createFile()
+        def output = new ByteArrayOutputStream()
+
+        when:
+        pack output,
+            new TestProperty(propertyName: "test", outputFile: sourceOutputDir)
+
+        then:
+        1 * fileSystem.getUnixMode(sourceOutputDir) >> 0755
+        1 * fileSystem.getUnixMode(sourceSubDir) >> 0711
+        1 * fileSystem.getUnixMode(emptyFile) >> 0644
+        1 * fileSystem.getUnixMode(smallFile) >> 0600
+        1 * fileSystem.getUnixMode(largeFile) >> 0644
+        0 * _
+
+        when:
+        def input = new ByteArrayInputStream(output.toByteArray())
+        unpack input,
+            new TestProperty(propertyName: "test", outputFile: targetOutputDir)
+
+        then:
+        1 * fileSystem.chmod(targetOutputDir, 0755)
+        1 * fileSystem.chmod(targetSubDir, 0711)
+        1 * fileSystem.chmod(targetOutputDir.file("empty.txt"), 0644)
+        1 * fileSystem.chmod(targetSubDir.file("small.txt"), 0600)
+        1 * fileSystem.chmod(targetSubDir.file("large.txt"), 0644)
+        0 * _
+
+        then:
+        targetOutputDir.file("empty.txt").text == ""
+        targetSubDir.file("small.txt").text == "output"
+        targetSubDir.file("small.txt").lastModified() == 123456789012L
+        targetSubDir.file("large.txt").text == "large output " * 100
+        !targetOutputDir.file("stale.txt").exists()
+    }
+
+    def "can pack several task output files"() {
+        def sourceOutputFile1 = tempDir.file("source1.txt")
+        sourceOutputFile1 << "first output"
+        def sourceOutputFile2 = tempDir.file("source2.txt")
+        sourceOutputFile2 << "second output"
+        def targetOutputFile1 = tempDir.file("target/target1.txt")
+        def targetOutputFile2 = tempDir.file("target/target2.txt")
+        def output = new ByteArrayOutputStream()
+
+        when:
+        pack output,
+            new TestProperty(propertyName: "out1", outputFile: sourceOutputFile1),
+            new TestProperty(propertyName: "out2", outputFile: sourceOutputFile2)
+
+        then:
+        2 * fileSystem.getUnixMode(_) >> 0644
+        0 * _
+
+        when:
+        def input = new ByteArrayInputStream(output.toByteArray())
+        unpack input,
+            new TestProperty(propertyName: "out1", outputFile: targetOutputFile1),
+            new TestProperty(propertyName: "out2", outputFile: targetOutputFile2)
+
+        then:
+        1 * fileSystem.chmod(targetOutputFile1, 0644)
+        1 * fileSystem.chmod(targetOutputFile2, 0644)
+        0 * _
+
+        then:
+        targetOutputFile1.text == "first output"
+        targetOutputFile2.text == "second output"
+    }
+
+    @Unroll
+    def "can pack task output with missing #type (pre-existing as: #preExistsAs)"() {
+        def sourceOutput = tempDir.file("source")
+        def targetOutput = tempDir.file("target")
+        switch (preExistsAs) {
+            case "file":
+                targetOutput.createNewFile()
+                break
+            case "dir":
+                targetOutput.createDir()
+                break
+            case "none":
+                break
+        }
+        def output = new ByteArrayOutputStream()
+
+        when:
+        pack output,
+            new TestProperty(propertyName: "test", outputFile: sourceOutput, outputType: type)
+        def input = new ByteArrayInputStream(output.toByteArray())
+        unpack input,
+            new TestProperty(propertyName: "test", outputFile: targetOutput, outputType: type)
+
+        then:
+        !targetOutput.exists()
+        0 * _
+
+        where:
+        type      | preExistsAs
+        FILE      | "file"
+        FILE      | "none"
+        DIRECTORY | "dir"
+        DIRECTORY | "none"
+    }
+
+    def "fails when entry is truncated"() {
+        def sourceOutputFile = tempDir.file("source.txt")
+        sourceOutputFile << ("output " * 10)
+        def output = new ByteArrayOutputStream()
+        fileSystem.getUnixMode(_) >> 0644
+        pack output,
+            new TestProperty(propertyName: "test", outputFile: sourceOutputFile)
+        def bytes = output.toByteArray()
+
+        when:
+        unpack new ByteArrayInputStream(bytes, 0, bytes.length - 5),
+            new TestProperty(propertyName: "test", outputFile: tempDir.file("target.txt"))
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message == "Cached result format error, unexpected end of entry."
+    }
+}
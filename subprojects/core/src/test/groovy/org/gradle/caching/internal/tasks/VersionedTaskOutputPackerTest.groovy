@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks
+
+import org.gradle.internal.nativeplatform.filesystem.FileSystem
+import spock.lang.Unroll
+
+import java.util.concurrent.Executors
+
+class VersionedTaskOutputPackerTest extends AbstractTaskOutputPackerSpec {
+    def fileSystem = Stub(FileSystem) {
+        getUnixMode(_) >> 0644
+    }
+    def tarPacker = new GZipTaskOutputPacker(new TarTaskOutputPacker(fileSystem))
+    def parallelPacker = new ParallelTaskOutputPacker(fileSystem, Executors.newFixedThreadPool(2), 2)
+    TaskOutputPacker packer
+
+    def cleanup() {
+        parallelPacker.stop()
+    }
+
+    @Unroll
+    def "unpacks entries in either format when packing in #format format"() {
+        def sourceOutputFile = tempDir.file("source.txt")
+        sourceOutputFile << "output"
+        def targetOutputFile = tempDir.file("target.txt")
+        def output = new ByteArrayOutputStream()
+        def writePacker = parallel ? parallelPacker : tarPacker
+        packer = new VersionedTaskOutputPacker(tarPacker, parallelPacker, !parallel)
+
+        when:
+        writePacker.pack([new TestProperty(propertyName: "test", outputFile: sourceOutputFile)] as SortedSet, output, writeOrigin)
+        unpack new ByteArrayInputStream(output.toByteArray()),
+            new TestProperty(propertyName: "test", outputFile: targetOutputFile)
+
+        then:
+        targetOutputFile.text == "output"
+
+        where:
+        format     | parallel
+        "tar"      | false
+        "parallel" | true
+    }
+
+    @Unroll
+    def "packs entries in the selected format (parallel: #parallel)"() {
+        def sourceOutputFile = tempDir.file("source.txt")
+        sourceOutputFile << "output"
+        def output = new ByteArrayOutputStream()
+        packer = new VersionedTaskOutputPacker(tarPacker, parallelPacker, parallel)
+
+        when:
+        pack output,
+            new TestProperty(propertyName: "test", outputFile: sourceOutputFile)
+
+        then:
+        ParallelTaskOutputPacker.isParallelFormat(output.toByteArray()) == parallel
+
+        where:
+        parallel << [true, false]
+    }
+}
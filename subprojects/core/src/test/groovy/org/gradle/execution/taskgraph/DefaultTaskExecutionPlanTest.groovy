@@ -738,6 +738,125 @@ class DefaultTaskExecutionPlanTest extends AbstractProjectBuilderSpec {
         e == failure
     }
 
+    def "executes a task once all of its dependencies and must run after tasks are complete"() {
+        given:
+        Task a = task("a")
+        Task b = task("b", dependsOn: [a], mustRunAfter: [a])
+        Task c = task("c", mustRunAfter: [b])
+
+        when:
+        addToGraphAndPopulate([c, b])
+
+        then:
+        executedTasks == [a, b, c]
+    }
+
+    def "executes finalizer task once its dependencies that were not required before are complete"() {
+        given:
+        Task finalizerDependency = task("finalizerDependency")
+        Task finalizer = task("finalizer", dependsOn: [finalizerDependency])
+        Task finalized = task("finalized", finalizedBy: [finalizer])
+
+        when:
+        addToGraphAndPopulate([finalized])
+
+        then:
+        executedTasks == [finalized, finalizerDependency, finalizer]
+    }
+
+    def "executes ready tasks with the longest estimated critical path first"() {
+        given:
+        def estimator = Mock(TaskExecutionTimeEstimator)
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, coordinationService, workerLeaseService, estimator)
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [a, b])
+        estimator.getEstimatedExecutionTime(a) >> 10L
+        estimator.getEstimatedExecutionTime(b) >> 100L
+
+        when:
+        addToGraphAndPopulate([c])
+
+        then:
+        executedTasks == [b, a, c]
+    }
+
+    def "executes ready tasks with the deepest graph of dependents first when there are no execution time estimates"() {
+        given:
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, coordinationService, workerLeaseService, Mock(TaskExecutionTimeEstimator))
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+        Task d = task("d", dependsOn: [a, c])
+
+        when:
+        addToGraphAndPopulate([d])
+
+        then:
+        executedTasks == [b, a, c, d]
+    }
+
+    def "executes the tasks of earlier requested task groups first when prioritising the critical path"() {
+        given:
+        def estimator = Mock(TaskExecutionTimeEstimator)
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, coordinationService, workerLeaseService, estimator)
+        Task clean = task("clean")
+        Task compile = task("compile")
+        Task jar = task("jar", dependsOn: [compile])
+        estimator.getEstimatedExecutionTime(clean) >> 1L
+        estimator.getEstimatedExecutionTime(compile) >> 100L
+
+        when:
+        executionPlan.addToTaskGraph([clean])
+        executionPlan.addToTaskGraph([jar])
+        executionPlan.determineExecutionPlan()
+
+        then:
+        executedTasks == [clean, compile, jar]
+    }
+
+    def "does not execute a task before the tasks it should run after when prioritising the critical path"() {
+        given:
+        def estimator = Mock(TaskExecutionTimeEstimator)
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, coordinationService, workerLeaseService, estimator)
+        Task a = task("a")
+        Task b = task("b", shouldRunAfter: [a])
+        Task c = task("c", dependsOn: [b])
+        Task d = task("d", dependsOn: [a, c])
+        estimator.getEstimatedExecutionTime(a) >> 1L
+        estimator.getEstimatedExecutionTime(b) >> 100L
+
+        when:
+        addToGraphAndPopulate([d])
+
+        then:
+        executedTasks == [a, b, c, d]
+    }
+
+    @Unroll
+    def "returns the other ready tasks of the project of an executing task once, at most #maxTasks at a time"() {
+        given:
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [a, b])
+        Task d = task("d")
+        addToGraphAndPopulate([c, d])
+
+        when:
+        def readyTasks = [:]
+        executeTasks { TaskInfo taskInfo ->
+            readyTasks[taskInfo.task.name] = executionPlan.takeReadyTasksToPlan(taskInfo.task, maxTasks)*.name
+        }
+
+        then:
+        readyTasks == expected
+
+        where:
+        maxTasks | expected
+        10       | [a: ["b", "d"], b: [], c: [], d: []]
+        1        | [a: ["b"], b: ["d"], c: [], d: []]
+    }
+
     def "clear removes all tasks"() {
         given:
         _ * coordinationService.withStateLock(_) >> { args ->
@@ -878,6 +997,13 @@ class DefaultTaskExecutionPlanTest extends AbstractProjectBuilderSpec {
 
     def getExecutedTasks() {
         def tasks = []
+        executeTasks { TaskInfo taskInfo ->
+            tasks << taskInfo.task
+        }
+        return tasks
+    }
+
+    private void executeTasks(Closure action) {
         _ * parentWorkerLease.createChild() >> Mock(WorkerLeaseRegistry.WorkerLease) {
             _ * tryLock() >> true
         }
@@ -893,12 +1019,11 @@ class DefaultTaskExecutionPlanTest extends AbstractProjectBuilderSpec {
             moreTasks = executionPlan.executeWithTask(parentWorkerLease, new Action<TaskInfo>() {
                 @Override
                 void execute(TaskInfo taskInfo) {
-                    tasks << taskInfo.task
+                    action.call(taskInfo)
                     executionPlan.taskComplete(taskInfo)
                 }
             })
         }
-        return tasks
     }
 
     private TaskDependency taskDependencyResolvingTo(TaskInternal task, List<Task> tasks) {
@@ -25,6 +25,7 @@ import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.TaskOutputsInternal
 import org.gradle.api.internal.tasks.TaskExecuter
 import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.api.internal.tasks.execution.TaskOutputCacheLoadPlanner
 import org.gradle.api.tasks.TaskDependency
 import org.gradle.initialization.BuildCancellationToken
 import org.gradle.internal.Factories
@@ -48,7 +49,7 @@ class DefaultTaskGraphExecuterSpec extends Specification {
     def coordinationService = new DefaultResourceLockCoordinationService()
     def workerLeases = new DefaultWorkerLeaseService(coordinationService, true, 1)
     def executorFactory = Mock(ExecutorFactory)
-    def taskExecuter = new DefaultTaskGraphExecuter(listenerManager, new DefaultTaskPlanExecutor(1, executorFactory, workerLeases), Factories.constant(executer), cancellationToken, buildOperationExecutor, workerLeases, coordinationService)
+    def taskExecuter = new DefaultTaskGraphExecuter(listenerManager, new DefaultTaskPlanExecutor(1, executorFactory, workerLeases), Factories.constant(executer), cancellationToken, buildOperationExecutor, workerLeases, coordinationService, null, null)
     WorkerLeaseRegistry.WorkerLeaseCompletion parentWorkerLease
 
     def setup() {
@@ -100,6 +101,33 @@ class DefaultTaskGraphExecuterSpec extends Specification {
         buildOperationExecutor.operations[1].displayName == "Task :b"
     }
 
+    def "plans the build cache loads of the other ready tasks before executing a task"() {
+        def loadPlanner = Mock(TaskOutputCacheLoadPlanner)
+        def graphExecuter = new DefaultTaskGraphExecuter(listenerManager, new DefaultTaskPlanExecutor(1, executorFactory, workerLeases), Factories.constant(executer), cancellationToken, buildOperationExecutor, workerLeases, coordinationService, null, Factories.constant(loadPlanner))
+        def a = task("a")
+        def b = task("b")
+
+        given:
+        graphExecuter.addTasks([a, b])
+
+        when:
+        graphExecuter.execute()
+
+        then:
+        1 * executorFactory.create(_) >> Mock(StoppableExecutor)
+        1 * loadPlanner.plan([b])
+
+        then:
+        1 * executer.execute(a, _, _)
+
+        then:
+        1 * loadPlanner.plan([])
+
+        then:
+        1 * executer.execute(b, _, _)
+        0 * loadPlanner._
+    }
+
     def "notifies task listener when task fails"() {
         def listener = Mock(TaskExecutionListener)
         def failure = new RuntimeException()
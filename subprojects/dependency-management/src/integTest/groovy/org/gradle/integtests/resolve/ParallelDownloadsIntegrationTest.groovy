@@ -172,4 +172,52 @@ class ParallelDownloadsIntegrationTest extends AbstractHttpDependencyResolutionT
         build.waitForFinish()
     }
 
+    def "downloads meta-data of the dependencies of a module in parallel when enabled"() {
+        def m5 = mavenRepo.module('test', 'test5', '1.0').publish()
+        def m6 = mavenRepo.module('test', 'test6', '1.0').publish()
+        def m1 = mavenRepo.module('test', 'test1', '1.0').dependsOn(m5).dependsOn(m6).publish()
+        def m2 = mavenRepo.module('test', 'test2', '1.0').publish()
+        def m3 = mavenRepo.module('test', 'test3', '1.0').publish()
+
+        file("gradle.properties") << "systemProp.org.gradle.internal.resolution.parallelMetadata=true"
+        buildFile << """
+            repositories {
+                maven { url = uri('$server.uri') }
+            }
+            configurations { compile }
+            dependencies {
+                compile 'test:test1:1.0'
+                compile 'test:test2:1.0'
+                compile 'test:test3:1.0'
+            }
+            task resolve {
+                inputs.files configurations.compile
+                doLast {
+                    println configurations.compile.files
+                }
+            }
+"""
+
+        given:
+        server.expectConcurrentExecutionTo([
+            server.file(m1.pom.path, m1.pom.file),
+            server.file(m2.pom.path, m2.pom.file),
+            server.file(m3.pom.path, m3.pom.file),
+        ])
+        server.expectConcurrentExecutionTo([
+            server.file(m5.pom.path, m5.pom.file),
+            server.file(m6.pom.path, m6.pom.file),
+        ])
+        server.expectConcurrentExecutionTo([
+            server.file(m1.artifact.path, m1.artifact.file),
+            server.file(m2.artifact.path, m2.artifact.file),
+            server.file(m3.artifact.path, m3.artifact.file),
+            server.file(m5.artifact.path, m5.artifact.file),
+            server.file(m6.artifact.path, m6.artifact.file),
+        ])
+
+        expect:
+        executer.withArguments('--max-workers', '5')
+        succeeds("resolve")
+    }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Parses POM files with the DOM and the streaming parser. The POM files are shaped like the POM files found in Maven Central:
+ * a small library POM, a parent POM with a large dependency management section and a build section, and a BOM.
+ */
+@State(Scope.Benchmark)
+public class PomParserBenchmark {
+    private static final String SYSTEM_ID = "file:/pom.xml";
+
+    @Param({"library", "parent", "bom"})
+    String pom;
+
+    byte[] content;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String xml;
+        if ("library".equals(pom)) {
+            xml = libraryPom();
+        } else if ("parent".equals(pom)) {
+            xml = parentPom();
+        } else {
+            xml = bomPom();
+        }
+        content = xml.getBytes(Charset.forName("UTF-8"));
+    }
+
+    @Benchmark
+    public PomElement dom() throws Exception {
+        return PomDomParser.parsePom(new ByteArrayInputStream(content), SYSTEM_ID);
+    }
+
+    @Benchmark
+    public PomElement streaming() throws Exception {
+        return PomStreamingParser.parsePom(new ByteArrayInputStream(content), SYSTEM_ID);
+    }
+
+    private static String libraryPom() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        builder.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"http://maven.apache.org/POM/4.0.0 http://maven.apache.org/xsd/maven-4.0.0.xsd\">\n");
+        builder.append("  <modelVersion>4.0.0</modelVersion>\n");
+        parent(builder);
+        builder.append("  <artifactId>library</artifactId>\n  <name>Library</name>\n  <description>A library &amp; its dependencies</description>\n");
+        licenses(builder);
+        builder.append("  <dependencies>\n");
+        for (int i = 0; i < 8; i++) {
+            dependency(builder, "org.example.dep" + i, "dep" + i, "${dep.version}", i % 3 == 0 ? "test" : null, true);
+        }
+        builder.append("  </dependencies>\n");
+        builder.append("</project>\n");
+        return builder.toString();
+    }
+
+    private static String parentPom() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        builder.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+        builder.append("  <modelVersion>4.0.0</modelVersion>\n  <groupId>org.example</groupId>\n  <artifactId>parent</artifactId>\n  <version>1.0</version>\n  <packaging>pom</packaging>\n");
+        licenses(builder);
+        developers(builder);
+        builder.append("  <properties>\n");
+        for (int i = 0; i < 40; i++) {
+            builder.append("    <dep").append(i).append(".version>1.").append(i).append("</dep").append(i).append(".version>\n");
+        }
+        builder.append("  </properties>\n");
+        builder.append("  <dependencyManagement>\n    <dependencies>\n");
+        for (int i = 0; i < 40; i++) {
+            dependency(builder, "org.example.dep" + i, "dep" + i, "${dep" + i + ".version}", null, i % 5 == 0);
+        }
+        builder.append("    </dependencies>\n  </dependencyManagement>\n");
+        build(builder);
+        builder.append("  <profiles>\n");
+        for (int i = 0; i < 4; i++) {
+            builder.append("    <profile>\n      <id>profile").append(i).append("</id>\n      <activation><property><name>release").append(i).append("</name></property></activation>\n");
+            build(builder);
+            builder.append("    </profile>\n");
+        }
+        builder.append("  </profiles>\n");
+        builder.append("</project>\n");
+        return builder.toString();
+    }
+
+    private static String bomPom() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        builder.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+        builder.append("  <modelVersion>4.0.0</modelVersion>\n  <groupId>org.example</groupId>\n  <artifactId>bom</artifactId>\n  <version>1.0</version>\n  <packaging>pom</packaging>\n");
+        builder.append("  <dependencyManagement>\n    <dependencies>\n");
+        for (int i = 0; i < 200; i++) {
+            dependency(builder, "org.example.module" + (i / 10), "module" + i, "1.0", null, false);
+        }
+        builder.append("    </dependencies>\n  </dependencyManagement>\n");
+        builder.append("</project>\n");
+        return builder.toString();
+    }
+
+    private static void parent(StringBuilder builder) {
+        builder.append("  <parent>\n    <groupId>org.example</groupId>\n    <artifactId>parent</artifactId>\n    <version>1.0</version>\n  </parent>\n");
+    }
+
+    private static void licenses(StringBuilder builder) {
+        builder.append("  <licenses>\n    <license>\n      <name>The Apache Software License, Version 2.0</name>\n      <url>http://www.apache.org/licenses/LICENSE-2.0.txt</url>\n      <distribution>repo</distribution>\n    </license>\n  </licenses>\n");
+        builder.append("  <scm>\n    <url>https://github.com/example/example</url>\n    <connection>scm:git:https://github.com/example/example.git</connection>\n  </scm>\n");
+    }
+
+    private static void developers(StringBuilder builder) {
+        builder.append("  <developers>\n");
+        for (int i = 0; i < 10; i++) {
+            builder.append("    <developer>\n      <id>dev").append(i).append("</id>\n      <name>Developer ").append(i).append("</name>\n      <email>dev").append(i).append("@example.org</email>\n      <roles><role>developer</role></roles>\n    </developer>\n");
+        }
+        builder.append("  </developers>\n");
+    }
+
+    private static void build(StringBuilder builder) {
+        builder.append("  <build>\n    <plugins>\n");
+        for (int i = 0; i < 10; i++) {
+            builder.append("      <plugin>\n        <groupId>org.apache.maven.plugins</groupId>\n        <artifactId>maven-plugin-").append(i).append("</artifactId>\n        <version>2.").append(i).append("</version>\n");
+            builder.append("        <configuration>\n          <source>1.6</source>\n          <target>1.6</target>\n          <excludes><exclude>**/*.txt</exclude><exclude>**/*.md</exclude></excludes>\n        </configuration>\n");
+            builder.append("        <executions><execution><id>default</id><phase>package</phase><goals><goal>run</goal></goals></execution></executions>\n      </plugin>\n");
+        }
+        builder.append("    </plugins>\n  </build>\n");
+    }
+
+    private static void dependency(StringBuilder builder, String group, String name, String version, String scope, boolean exclusions) {
+        builder.append("      <dependency>\n        <groupId>").append(group).append("</groupId>\n        <artifactId>").append(name).append("</artifactId>\n        <version>").append(version).append("</version>\n");
+        if (scope != null) {
+            builder.append("        <scope>").append(scope).append("</scope>\n");
+        }
+        if (exclusions) {
+            builder.append("        <exclusions>\n          <exclusion>\n            <groupId>commons-logging</groupId>\n            <artifactId>commons-logging</artifactId>\n          </exclusion>\n        </exclusions>\n");
+        }
+        builder.append("      </dependency>\n");
+    }
+}
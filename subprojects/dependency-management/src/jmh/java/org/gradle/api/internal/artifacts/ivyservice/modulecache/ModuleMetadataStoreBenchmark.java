@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.DefaultImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.internal.component.external.descriptor.Artifact;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.external.descriptor.MavenScope;
+import org.gradle.internal.component.external.descriptor.MutableModuleDescriptorState;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.external.model.DefaultMutableMavenModuleResolveMetadata;
+import org.gradle.internal.component.external.model.MavenDependencyMetadata;
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
+import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.Exclude;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reads module metadata from a file per module with the standard serializer, as {@link ModuleMetadataStore} does, and from a single memory mapped cache with indexed strings, as {@link CompactModuleMetadataStore} does.
+ * Reports the reads per second. Run with the GC profiler to also report the allocation per read.
+ */
+@State(Scope.Benchmark)
+public class ModuleMetadataStoreBenchmark {
+    private static final int MODULE_COUNT = 2000;
+    private static final ImmutableModuleIdentifierFactory MODULE_IDENTIFIER_FACTORY = new DefaultImmutableModuleIdentifierFactory();
+    private static final ModuleExclusions MODULE_EXCLUSIONS = new ModuleExclusions(MODULE_IDENTIFIER_FACTORY);
+
+    @Param({"files", "compact"})
+    String store;
+
+    File tempDir;
+    ModuleMetadataSerializer serializer;
+    BTreePersistentIndexedCache<ModuleComponentAtRepositoryKey, byte[]> cache;
+    ModuleComponentAtRepositoryKey[] keys;
+    Random random;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tempDir = Files.createTempDirectory("module-metadata").toFile();
+        serializer = new ModuleMetadataSerializer("compact".equals(store));
+        if ("compact".equals(store)) {
+            cache = new BTreePersistentIndexedCache<ModuleComponentAtRepositoryKey, byte[]>(new File(tempDir, "module-metadata-compact.bin"), new DefaultModuleMetaDataCache.RevisionKeySerializer(), BaseSerializerFactory.BYTE_ARRAY_SERIALIZER, true);
+        }
+        keys = new ModuleComponentAtRepositoryKey[MODULE_COUNT];
+        for (int i = 0; i < MODULE_COUNT; i++) {
+            String group = "org.example.group" + (i % 50);
+            keys[i] = new ModuleComponentAtRepositoryKey("maven", DefaultModuleComponentIdentifier.newId(group, "module" + i, "1." + i));
+            byte[] entry = encode(metadata(keys[i]));
+            if (cache != null) {
+                cache.put(keys[i], entry);
+            } else {
+                FileUtils.writeByteArrayToFile(file(keys[i]), entry);
+            }
+        }
+        random = new Random(42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (cache != null) {
+            cache.close();
+        }
+        FileUtils.forceDelete(tempDir);
+    }
+
+    @Benchmark
+    public MutableModuleComponentResolveMetadata read() throws IOException {
+        ModuleComponentAtRepositoryKey key = keys[random.nextInt(MODULE_COUNT)];
+        if (cache != null) {
+            byte[] entry = cache.get(key);
+            return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(entry), entry.length), MODULE_IDENTIFIER_FACTORY, MODULE_EXCLUSIONS);
+        }
+        KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(file(key)));
+        try {
+            return serializer.read(decoder, MODULE_IDENTIFIER_FACTORY, MODULE_EXCLUSIONS);
+        } finally {
+            decoder.close();
+        }
+    }
+
+    private File file(ModuleComponentAtRepositoryKey key) {
+        return new File(tempDir, key.getComponentId().getGroup() + "/" + key.getComponentId().getModule() + "/" + key.getComponentId().getVersion() + "/" + key.getRepositoryId() + "/descriptor.bin");
+    }
+
+    private byte[] encode(ModuleComponentResolveMetadata metadata) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        serializer.write(encoder, metadata);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * A module with dependencies on other modules of the same groups, much like the modules of a large multi-module library.
+     */
+    private static ModuleComponentResolveMetadata metadata(ModuleComponentAtRepositoryKey key) {
+        List<DependencyMetadata> dependencies = new ArrayList<DependencyMetadata>();
+        for (int i = 0; i < 15; i++) {
+            List<Exclude> excludes = i % 3 == 0
+                ? Collections.<Exclude>singletonList(new DefaultExclude(MODULE_IDENTIFIER_FACTORY.module("commons-logging", "commons-logging")))
+                : Collections.<Exclude>emptyList();
+            MavenScope scope = i % 4 == 0 ? MavenScope.Test : MavenScope.Compile;
+            dependencies.add(new MavenDependencyMetadata(scope, i % 7 == 0, DefaultModuleVersionSelector.newSelector("org.example.group" + (i % 50), "module" + (i * 31 % MODULE_COUNT), "1." + i), Collections.<Artifact>emptyList(), excludes));
+        }
+        ModuleComponentIdentifier id = key.getComponentId();
+        return new DefaultMutableMavenModuleResolveMetadata(MODULE_IDENTIFIER_FACTORY.moduleWithVersion(id.getGroup(), id.getModule(), id.getVersion()), id, new MutableModuleDescriptorState(id), "jar", false, dependencies).asImmutable();
+    }
+}
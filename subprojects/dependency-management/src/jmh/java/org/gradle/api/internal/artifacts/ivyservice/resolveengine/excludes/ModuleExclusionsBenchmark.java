@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import org.gradle.api.internal.artifacts.DefaultImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.model.Exclude;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Combines exclusions the way the dependency graph builder does: the exclusions along a path are intersected, the exclusions of the paths to a module are united,
+ * and the result is compared with the exclusions of the previous traversal of the module.
+ *
+ * The "spring" graph has about 100 modules that declare a few excludes each, mostly of logging libraries. The "hadoop" graph has about 300 modules, and many of its
+ * dependencies declare long lists of excludes, as the Hadoop client modules do.
+ */
+@State(Scope.Benchmark)
+public class ModuleExclusionsBenchmark {
+    private static final ImmutableModuleIdentifierFactory MODULE_IDENTIFIER_FACTORY = new DefaultImmutableModuleIdentifierFactory();
+
+    @Param({"spring", "hadoop"})
+    String graph;
+
+    int moduleCount;
+    int[][] dependencies;
+    List<List<Exclude>> edgeExcludes;
+    ModuleExclusions moduleExclusions;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        boolean hadoop = "hadoop".equals(graph);
+        moduleCount = hadoop ? 300 : 100;
+        int excludePoolSize = hadoop ? 120 : 25;
+        int maxExcludesPerEdge = hadoop ? 40 : 4;
+        Random random = new Random(42);
+
+        List<Exclude> excludePool = new ArrayList<Exclude>(excludePoolSize);
+        for (int i = 0; i < excludePoolSize; i++) {
+            if (i % 5 == 0) {
+                excludePool.add(new DefaultExclude(MODULE_IDENTIFIER_FACTORY.module("org.excluded.group" + i, "*")));
+            } else {
+                excludePool.add(new DefaultExclude(MODULE_IDENTIFIER_FACTORY.module("org.excluded.group" + (i % 7), "excluded" + i)));
+            }
+        }
+
+        // Each module depends on a few modules further down, so that most modules are reached through several paths
+        dependencies = new int[moduleCount][];
+        edgeExcludes = new ArrayList<List<Exclude>>();
+        for (int module = 0; module < moduleCount; module++) {
+            int remaining = moduleCount - module - 1;
+            int count = Math.min(remaining, 1 + random.nextInt(4));
+            dependencies[module] = new int[count];
+            for (int i = 0; i < count; i++) {
+                dependencies[module][i] = module + 1 + random.nextInt(remaining);
+                List<Exclude> excludes = new ArrayList<Exclude>();
+                if (random.nextInt(3) == 0) {
+                    int excludeCount = 1 + random.nextInt(maxExcludesPerEdge);
+                    int start = random.nextInt(excludePoolSize);
+                    for (int j = 0; j < excludeCount; j++) {
+                        excludes.add(excludePool.get((start + j) % excludePoolSize));
+                    }
+                }
+                edgeExcludes.add(excludes);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createModuleExclusions() {
+        moduleExclusions = new ModuleExclusions(MODULE_IDENTIFIER_FACTORY);
+    }
+
+    @Benchmark
+    public void traverseGraph(Blackhole blackhole) {
+        // Modules are numbered in topological order, so a single pass visits each module after all of its incoming paths
+        ModuleExclusion[] moduleFilters = new ModuleExclusion[moduleCount];
+        moduleFilters[0] = ModuleExclusions.excludeNone();
+        int edge = 0;
+        for (int module = 0; module < moduleCount; module++) {
+            ModuleExclusion filter = moduleFilters[module];
+            for (int target : dependencies[module]) {
+                List<Exclude> excludes = edgeExcludes.get(edge++);
+                if (filter == null) {
+                    continue;
+                }
+                ModuleExclusion edgeFilter = moduleExclusions.intersect(filter, moduleExclusions.excludeAny(excludes));
+                ModuleExclusion previous = moduleFilters[target];
+                if (previous == null) {
+                    moduleFilters[target] = edgeFilter;
+                } else {
+                    ModuleExclusion union = moduleExclusions.union(previous, edgeFilter);
+                    blackhole.consume(previous.excludesSameModulesAs(union));
+                    moduleFilters[target] = union;
+                }
+            }
+        }
+        blackhole.consume(moduleFilters);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Registers modules with the conflict container the way the dependency graph builder does, on a synthetic graph where thousands of modules are requested in
+ * several versions. Modules are registered again each time another version is found, and the batched up conflicts are popped once a wave of modules has been
+ * registered. A few modules are replaced by other modules.
+ */
+@State(Scope.Benchmark)
+public class ConflictContainerBenchmark {
+    @Param({"1000", "5000"})
+    int moduleCount;
+
+    List<String> registrations;
+    List<List<Integer>> candidates;
+    List<String> replacements;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        registrations = new ArrayList<String>();
+        candidates = new ArrayList<List<Integer>>();
+        replacements = new ArrayList<String>();
+        int[] versionCounts = new int[moduleCount];
+        for (int wave = 0; wave < 4; wave++) {
+            for (int module = 0; module < moduleCount; module++) {
+                if (wave > 0 && random.nextInt(3) != 0) {
+                    continue;
+                }
+                versionCounts[module]++;
+                List<Integer> versions = new ArrayList<Integer>();
+                for (int version = 0; version < versionCounts[module]; version++) {
+                    versions.add(version);
+                }
+                registrations.add("module" + module);
+                candidates.add(versions);
+                replacements.add(module % 50 == 0 ? "module" + (module + 1) : null);
+            }
+            // Marks the end of a wave
+            registrations.add(null);
+            candidates.add(null);
+            replacements.add(null);
+        }
+    }
+
+    @Benchmark
+    public void registerAndResolveConflicts(Blackhole blackhole) {
+        ConflictContainer<String, Integer> container = new ConflictContainer<String, Integer>();
+        for (int i = 0; i < registrations.size(); i++) {
+            String module = registrations.get(i);
+            if (module == null) {
+                while (container.getSize() > 0) {
+                    blackhole.consume(container.popConflict());
+                }
+            } else {
+                blackhole.consume(container.newElement(module, candidates.get(i), replacements.get(i)));
+            }
+        }
+    }
+}
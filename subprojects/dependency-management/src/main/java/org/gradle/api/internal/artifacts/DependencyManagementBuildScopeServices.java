@@ -273,7 +273,8 @@ class DependencyManagementBuildScopeServices {
                                                                 List<ResolverProviderFactory> resolverFactories,
                                                                 ImmutableAttributesFactory cache,
                                                                 ImmutableModuleIdentifierFactory moduleIdentifierFactory,
-                                                                ModuleExclusions moduleExclusions) {
+                                                                ModuleExclusions moduleExclusions,
+                                                                BuildOperationExecutor buildOperationExecutor) {
         return new DefaultArtifactDependencyResolver(
             resolverFactories,
             resolveIvyFactory,
@@ -281,7 +282,8 @@ class DependencyManagementBuildScopeServices {
             versionComparator,
             cache,
             moduleIdentifierFactory,
-            moduleExclusions
+            moduleExclusions,
+            buildOperationExecutor
         );
     }
 
@@ -18,6 +18,7 @@ package org.gradle.api.internal.artifacts.ivyservice;
 import net.jcip.annotations.ThreadSafe;
 import org.gradle.cache.CacheAccess;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.internal.serialize.Serializer;
 
 /**
@@ -33,4 +34,11 @@ public interface CacheLockingManager extends CacheAccess {
      *
      */
     <K, V> PersistentIndexedCache<K, V> createCache(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer);
+
+    /**
+     * Creates a cache implementation that is managed by this locking manager, using the given parameters. The name of the cache is relative to the meta-data store.
+     *
+     * @see #createCache(String, Serializer, Serializer)
+     */
+    <K, V> PersistentIndexedCache<K, V> createCache(PersistentIndexedCacheParameters<K, V> parameters);
 }
@@ -64,8 +64,18 @@ public class DefaultCacheLockingManager implements CacheLockingManager, Closeabl
 
     @Override
     public <K, V> PersistentIndexedCache<K, V> createCache(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
-        String cacheFileInMetaDataStore = CacheLayout.META_DATA.getKey() + "/" + cacheName;
-        final PersistentIndexedCache<K, V> persistentCache = cache.createCache(new PersistentIndexedCacheParameters<K, V>(cacheFileInMetaDataStore, keySerializer, valueSerializer));
+        return createCache(new PersistentIndexedCacheParameters<K, V>(cacheName, keySerializer, valueSerializer));
+    }
+
+    @Override
+    public <K, V> PersistentIndexedCache<K, V> createCache(PersistentIndexedCacheParameters<K, V> parameters) {
+        String cacheFileInMetaDataStore = CacheLayout.META_DATA.getKey() + "/" + parameters.getCacheName();
+        PersistentIndexedCacheParameters<K, V> parametersInMetaDataStore = new PersistentIndexedCacheParameters<K, V>(cacheFileInMetaDataStore, parameters.getKeySerializer(), parameters.getValueSerializer())
+            .memoryMapped(parameters.isMemoryMapped());
+        if (parameters.getCacheDecorator() != null) {
+            parametersInMetaDataStore.cacheDecorator(parameters.getCacheDecorator());
+        }
+        final PersistentIndexedCache<K, V> persistentCache = cache.createCache(parametersInMetaDataStore);
         return new CacheLockingPersistentCache<K, V>(persistentCache);
     }
 
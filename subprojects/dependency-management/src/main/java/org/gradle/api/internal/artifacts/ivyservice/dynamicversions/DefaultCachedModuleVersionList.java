@@ -15,16 +15,20 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.dynamicversions;
 
+import org.gradle.internal.resource.transfer.ExternalResourceListing;
 import org.gradle.util.BuildCommencedTimeProvider;
 
+import java.util.Map;
 import java.util.Set;
 
 class DefaultCachedModuleVersionList implements ModuleVersionsCache.CachedModuleVersionList {
     private final Set<String> moduleVersions;
+    private final Map<String, ExternalResourceListing> listings;
     private final long ageMillis;
 
     public DefaultCachedModuleVersionList(ModuleVersionsCacheEntry entry, BuildCommencedTimeProvider timeProvider) {
         this.moduleVersions = entry.moduleVersionListing;
+        this.listings = entry.listings;
         ageMillis = timeProvider.getCurrentTime() - entry.createTimestamp;
     }
 
@@ -35,4 +39,8 @@ class DefaultCachedModuleVersionList implements ModuleVersionsCache.CachedModule
     public long getAgeMillis() {
         return ageMillis;
     }
+
+    public Map<String, ExternalResourceListing> getListings() {
+        return listings;
+    }
 }
@@ -17,12 +17,17 @@ package org.gradle.api.internal.artifacts.ivyservice.dynamicversions;
 
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
+import org.gradle.internal.resource.transfer.ExternalResourceListing;
 
+import java.util.Map;
 import java.util.Set;
 
 public interface ModuleVersionsCache {
 
-    void cacheModuleVersionList(ModuleComponentRepository repository, ModuleIdentifier moduleId, Set<String> listedVersions);
+    /**
+     * Caches the versions of a module, along with the listings of the resources that the versions were listed from.
+     */
+    void cacheModuleVersionList(ModuleComponentRepository repository, ModuleIdentifier moduleId, Set<String> listedVersions, Map<String, ExternalResourceListing> listings);
 
     CachedModuleVersionList getCachedModuleResolution(ModuleComponentRepository repository, ModuleIdentifier moduleId);
 
@@ -30,5 +35,10 @@ public interface ModuleVersionsCache {
         Set<String> getModuleVersions();
 
         long getAgeMillis();
+
+        /**
+         * The listings that the versions were listed from, by location. A listing is made again only when its location has changed.
+         */
+        Map<String, ExternalResourceListing> getListings();
     }
 }
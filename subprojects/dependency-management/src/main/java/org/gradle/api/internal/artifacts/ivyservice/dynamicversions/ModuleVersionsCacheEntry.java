@@ -15,14 +15,19 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.dynamicversions;
 
+import org.gradle.internal.resource.transfer.ExternalResourceListing;
+
+import java.util.Map;
 import java.util.Set;
 
 class ModuleVersionsCacheEntry {
     public Set<String> moduleVersionListing;
+    public Map<String, ExternalResourceListing> listings;
     public long createTimestamp;
 
-    ModuleVersionsCacheEntry(Set<String> moduleVersionListing, long createTimestamp) {
+    ModuleVersionsCacheEntry(Set<String> moduleVersionListing, Map<String, ExternalResourceListing> listings, long createTimestamp) {
         this.moduleVersionListing = moduleVersionListing;
+        this.listings = listings;
         this.createTimestamp = createTimestamp;
     }
 }
@@ -20,6 +20,7 @@ import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.resource.transfer.ExternalResourceListing;
 import org.gradle.internal.serialize.AbstractSerializer;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
@@ -27,7 +28,12 @@ import org.gradle.util.BuildCommencedTimeProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class SingleFileBackedModuleVersionsCache implements ModuleVersionsCache {
@@ -55,9 +61,9 @@ public class SingleFileBackedModuleVersionsCache implements ModuleVersionsCache
         return cacheLockingManager.createCache("module-versions", new ModuleKeySerializer(moduleIdentifierFactory), new ModuleVersionsCacheEntrySerializer());
     }
 
-    public void cacheModuleVersionList(ModuleComponentRepository repository, ModuleIdentifier moduleId, Set<String> listedVersions) {
+    public void cacheModuleVersionList(ModuleComponentRepository repository, ModuleIdentifier moduleId, Set<String> listedVersions, Map<String, ExternalResourceListing> listings) {
         LOGGER.debug("Caching version list in module versions cache: Using '{}' for '{}'", listedVersions, moduleId);
-        getCache().put(createKey(repository, moduleId), createEntry(listedVersions));
+        getCache().put(createKey(repository, moduleId), createEntry(listedVersions, listings));
     }
 
     public CachedModuleVersionList getCachedModuleResolution(ModuleComponentRepository repository, ModuleIdentifier moduleId) {
@@ -72,8 +78,8 @@ public class SingleFileBackedModuleVersionsCache implements ModuleVersionsCache
         return new ModuleKey(repository.getId(), moduleId);
     }
 
-    private ModuleVersionsCacheEntry createEntry(Set<String> listedVersions) {
-        return new ModuleVersionsCacheEntry(listedVersions, timeProvider.getCurrentTime());
+    private ModuleVersionsCacheEntry createEntry(Set<String> listedVersions, Map<String, ExternalResourceListing> listings) {
+        return new ModuleVersionsCacheEntry(listedVersions, listings, timeProvider.getCurrentTime());
     }
 
     private static class ModuleKey {
@@ -129,6 +135,19 @@ public class SingleFileBackedModuleVersionsCache implements ModuleVersionsCache
             for (String version : versions) {
                 encoder.writeString(version);
             }
+            Map<String, ExternalResourceListing> listings = value.listings;
+            encoder.writeSmallInt(listings.size());
+            for (Map.Entry<String, ExternalResourceListing> entry : listings.entrySet()) {
+                ExternalResourceListing listing = entry.getValue();
+                encoder.writeString(entry.getKey());
+                encoder.writeSmallInt(listing.getChildren().size());
+                for (String child : listing.getChildren()) {
+                    encoder.writeString(child);
+                }
+                encoder.writeNullableString(listing.getEtag());
+                Date lastModified = listing.getLastModified();
+                encoder.writeLong(lastModified == null ? -1 : lastModified.getTime());
+            }
             encoder.writeLong(value.createTimestamp);
         }
 
@@ -138,8 +157,21 @@ public class SingleFileBackedModuleVersionsCache implements ModuleVersionsCache
             for (int i = 0; i < size; i++) {
                 versions.add(decoder.readString());
             }
+            int listingCount = decoder.readSmallInt();
+            Map<String, ExternalResourceListing> listings = new LinkedHashMap<String, ExternalResourceListing>(listingCount);
+            for (int i = 0; i < listingCount; i++) {
+                String location = decoder.readString();
+                int childCount = decoder.readSmallInt();
+                List<String> children = new ArrayList<String>(childCount);
+                for (int j = 0; j < childCount; j++) {
+                    children.add(decoder.readString());
+                }
+                String etag = decoder.readNullableString();
+                long lastModified = decoder.readLong();
+                listings.put(location, new ExternalResourceListing(children, etag, lastModified == -1 ? null : new Date(lastModified)));
+            }
             long createTimestamp = decoder.readLong();
-            return new ModuleVersionsCacheEntry(versions, createTimestamp);
+            return new ModuleVersionsCacheEntry(versions, listings, createTimestamp);
         }
     }
 
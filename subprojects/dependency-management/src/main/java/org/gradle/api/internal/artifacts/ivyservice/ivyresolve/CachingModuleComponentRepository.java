@@ -299,12 +299,17 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
 
         @Override
         public void listModuleVersions(DependencyMetadata dependency, BuildableModuleVersionListingResolveResult result) {
+            ModuleIdentifier moduleId = getCacheKey(dependency.getRequested());
+            // Use the listings of an expired entry, so that the locations that have not changed need not be listed again
+            ModuleVersionsCache.CachedModuleVersionList cachedModuleVersionList = moduleVersionsCache.getCachedModuleResolution(delegate, moduleId);
+            if (cachedModuleVersionList != null) {
+                result.setPreviousListings(cachedModuleVersionList.getListings());
+            }
             delegate.getRemoteAccess().listModuleVersions(dependency, result);
             switch (result.getState()) {
                 case Listed:
-                    ModuleIdentifier moduleId = getCacheKey(dependency.getRequested());
                     Set<String> versionList = result.getVersions();
-                    moduleVersionsCache.cacheModuleVersionList(delegate, moduleId, versionList);
+                    moduleVersionsCache.cacheModuleVersionList(delegate, moduleId, versionList, result.getListings());
                     break;
                 case Failed:
                     break;
@@ -41,6 +41,7 @@ import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveRe
 import org.gradle.internal.resource.local.LocalResource;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
 import org.gradle.internal.resource.transfer.ExternalResourceConnector;
+import org.gradle.internal.resource.transfer.ExternalResourceListing;
 import org.gradle.internal.resource.transfer.ExternalResourceReadResponse;
 
 import java.io.IOException;
@@ -182,6 +183,12 @@ public class StartParameterResolutionOverride {
             throw offlineResource(parent);
         }
 
+        @Nullable
+        @Override
+        public ExternalResourceListing list(URI parent, @Nullable ExternalResourceListing previous) throws ResourceException {
+            throw offlineResource(parent);
+        }
+
         @Override
         public void upload(LocalResource resource, URI destination) throws IOException {
             throw new ResourceException(destination, String.format("Cannot upload to '%s' in offline mode.", destination));
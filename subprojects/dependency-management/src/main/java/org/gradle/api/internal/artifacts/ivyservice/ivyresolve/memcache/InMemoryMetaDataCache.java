@@ -28,11 +28,15 @@ import java.util.Set;
 import static org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult.State.Listed;
 
 class InMemoryMetaDataCache {
+    private final Object lock = new Object();
     private final Map<ModuleVersionSelector, Set<String>> moduleVersionListing = new HashMap<ModuleVersionSelector, Set<String>>();
     private final Map<ModuleComponentIdentifier, CachedModuleVersionResult> metaData = new HashMap<ModuleComponentIdentifier, CachedModuleVersionResult>();
 
     public boolean supplyModuleVersions(ModuleVersionSelector requested, BuildableModuleVersionListingResolveResult result) {
-        Set<String> versions = moduleVersionListing.get(requested);
+        Set<String> versions;
+        synchronized (lock) {
+            versions = moduleVersionListing.get(requested);
+        }
         if (versions == null) {
             return false;
         }
@@ -42,12 +46,17 @@ class InMemoryMetaDataCache {
 
     public void newModuleVersions(ModuleVersionSelector requested, BuildableModuleVersionListingResolveResult result) {
         if (result.getState() == Listed) {
-            moduleVersionListing.put(requested, result.getVersions());
+            synchronized (lock) {
+                moduleVersionListing.put(requested, result.getVersions());
+            }
         }
     }
 
     boolean supplyMetaData(ModuleComponentIdentifier requested, BuildableModuleComponentMetaDataResolveResult result) {
-        CachedModuleVersionResult fromCache = metaData.get(requested);
+        CachedModuleVersionResult fromCache;
+        synchronized (lock) {
+            fromCache = metaData.get(requested);
+        }
         if (fromCache == null) {
             return false;
         }
@@ -58,7 +67,9 @@ class InMemoryMetaDataCache {
     void newDependencyResult(ModuleComponentIdentifier requested, BuildableModuleComponentMetaDataResolveResult result) {
         CachedModuleVersionResult cachedResult = new CachedModuleVersionResult(result);
         if (cachedResult.isCacheable()) {
-            metaData.put(requested, cachedResult);
+            synchronized (lock) {
+                metaData.put(requested, cachedResult);
+            }
         }
     }
 }
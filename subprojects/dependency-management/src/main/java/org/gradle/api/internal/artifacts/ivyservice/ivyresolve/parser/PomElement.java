@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import com.google.common.collect.ImmutableSet;
+import org.gradle.api.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An element of a POM file, holding only what {@link PomReader} reads: the name of the element, its text and its child elements.
+ *
+ * The child elements of the project and of its profiles that are never read, such as the build and reporting sections, are not retained.
+ */
+public final class PomElement {
+    private static final Set<String> PROJECT_CHILDREN = ImmutableSet.of("groupId", "artifactId", "version", "packaging", "description", "parent", "properties", "dependencies", "dependencyManagement", "distributionManagement", "profiles");
+    private static final Set<String> PROFILE_CHILDREN = ImmutableSet.of("id", "activation", "properties", "dependencies", "dependencyManagement");
+
+    private final String name;
+    private final Set<String> retainedChildren;
+    private final List<PomElement> children = new ArrayList<PomElement>(4);
+    private StringBuilder text;
+
+    private PomElement(String name, @Nullable Set<String> retainedChildren) {
+        this.name = name;
+        this.retainedChildren = retainedChildren;
+    }
+
+    /**
+     * Creates the root element of a POM.
+     */
+    public static PomElement root(String name) {
+        return new PomElement(name, PROJECT_CHILDREN);
+    }
+
+    /**
+     * Adds a child element with the given name, or returns null when the child element is not retained.
+     */
+    @Nullable
+    public PomElement addChild(String name) {
+        if (retainedChildren != null && !retainedChildren.contains(name)) {
+            return null;
+        }
+        PomElement child = new PomElement(name, isProfile(name) ? PROFILE_CHILDREN : null);
+        children.add(child);
+        return child;
+    }
+
+    private boolean isProfile(String childName) {
+        return "profiles".equals(name) && "profile".equals(childName);
+    }
+
+    /**
+     * Appends to the text of this element. Only the text and CDATA directly contained in the element make up its text.
+     */
+    public void appendText(char[] chars, int start, int length) {
+        if (text == null) {
+            text = new StringBuilder(length);
+        }
+        text.append(chars, start, length);
+    }
+
+    public void appendText(String value) {
+        if (text == null) {
+            text = new StringBuilder(value.length());
+        }
+        text.append(value);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getText() {
+        return text == null ? "" : text.toString();
+    }
+
+    public List<PomElement> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    @Nullable
+    public PomElement getFirstChild(String name) {
+        for (PomElement child : children) {
+            if (name.equals(child.name)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "<" + name + ">";
+    }
+}
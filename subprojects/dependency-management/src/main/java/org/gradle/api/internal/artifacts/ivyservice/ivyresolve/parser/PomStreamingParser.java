@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.gradle.internal.classloader.ClassLoaderUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.PomDomParser.AddDTDFilterInputStream;
+
+/**
+ * Reads a POM in a single forward pass over a StAX stream, without building a DOM. The elements that {@link PomReader} does not read are skipped as they are encountered.
+ *
+ * Produces the same {@link PomElement} tree as {@link PomDomParser#parsePom(InputStream, String)}, including the replacement of the HTML entities that Maven accepts in POM files.
+ */
+public final class PomStreamingParser {
+    /**
+     * Selects the DOM based parser instead of this parser, when set to {@code dom}.
+     */
+    public static final String SYSTEM_PROPERTY = "org.gradle.internal.maven.pom.parser";
+
+    private static final XMLInputFactory INPUT_FACTORY;
+
+    static {
+        // Use the StAX implementation provided by the JVM, as for the DOM parser
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(ClassLoaderUtils.getPlatformClassLoader());
+        try {
+            INPUT_FACTORY = XMLInputFactory.newInstance();
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_VALIDATING, false);
+        INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, true);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+        INPUT_FACTORY.setXMLResolver(new XMLResolver() {
+            public Object resolveEntity(String publicId, String systemId, String baseUri, String namespace) throws XMLStreamException {
+                if ((systemId != null) && systemId.endsWith("m2-entities.ent")) {
+                    return new ByteArrayInputStream(PomDomParser.M2_ENTITIES_RESOURCE);
+                }
+                return null;
+            }
+        });
+    }
+
+    private PomStreamingParser() {
+    }
+
+    public static boolean isSelected() {
+        return !"dom".equals(System.getProperty(SYSTEM_PROPERTY));
+    }
+
+    public static PomElement parsePom(InputStream stream, String systemId) throws IOException, XMLStreamException {
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(systemId, new AddDTDFilterInputStream(stream));
+        try {
+            while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                // Skip the prolog
+            }
+            PomElement root = PomElement.root(getName(reader));
+            readContent(reader, root);
+            return root;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads the content of the current element up to and including its end tag.
+     */
+    private static void readContent(XMLStreamReader reader, PomElement element) throws XMLStreamException {
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    element.appendText(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                case XMLStreamConstants.START_ELEMENT:
+                    PomElement child = element.addChild(getName(reader));
+                    if (child == null) {
+                        skipElement(reader);
+                    } else {
+                        readContent(reader, child);
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    return;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static String getName(XMLStreamReader reader) {
+        String prefix = reader.getPrefix();
+        if (prefix == null || prefix.length() == 0) {
+            return reader.getLocalName();
+        }
+        return prefix + ":" + reader.getLocalName();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
+import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetadata;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Stores the module metadata of all modules in a single memory mapped cache file, rather than in a file per module.
+ *
+ * Each entry is written with indexed strings, so that the strings repeated within a module are decoded once, and the strings shared by several modules are held once.
+ * A lookup reads the entry from the mapped cache file, without opening a file for the module, and decodes the whole entry. The decoded metadata is not
+ * kept, as it is mutable and is configured by the caller; the in-memory metadata cache of the build holds it instead.
+ */
+public class CompactModuleMetadataStore {
+    /**
+     * Selects this store for the module metadata cache, instead of {@link ModuleMetadataStore}.
+     */
+    public static final String SYSTEM_PROPERTY = "org.gradle.internal.metadata.compactStore";
+
+    private final CacheLockingManager cacheLockingManager;
+    private final ModuleMetadataSerializer moduleMetadataSerializer = new ModuleMetadataSerializer(true);
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+    private final ModuleExclusions moduleExclusions;
+    private PersistentIndexedCache<ModuleComponentAtRepositoryKey, byte[]> cache;
+
+    public CompactModuleMetadataStore(CacheLockingManager cacheLockingManager, ImmutableModuleIdentifierFactory moduleIdentifierFactory, ModuleExclusions moduleExclusions) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.moduleIdentifierFactory = moduleIdentifierFactory;
+        this.moduleExclusions = moduleExclusions;
+    }
+
+    public static boolean isSelected() {
+        return Boolean.getBoolean(SYSTEM_PROPERTY);
+    }
+
+    private synchronized PersistentIndexedCache<ModuleComponentAtRepositoryKey, byte[]> getCache() {
+        if (cache == null) {
+            cache = cacheLockingManager.createCache(
+                PersistentIndexedCacheParameters.of("module-metadata-compact", new DefaultModuleMetaDataCache.RevisionKeySerializer(), BaseSerializerFactory.BYTE_ARRAY_SERIALIZER).memoryMapped(true));
+        }
+        return cache;
+    }
+
+    @Nullable
+    public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponentAtRepositoryKey component) {
+        byte[] entry = getCache().get(component);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(entry), entry.length);
+            return moduleMetadataSerializer.read(decoder, moduleIdentifierFactory, moduleExclusions);
+        } catch (Exception e) {
+            throw new RuntimeException("Could not load module metadata for " + component.getComponentId() + " from " + component.getRepositoryId(), e);
+        }
+    }
+
+    /**
+     * Stores the module metadata, and returns the hash of the stored entry.
+     */
+    public HashValue putModuleDescriptor(ModuleComponentAtRepositoryKey component, ModuleComponentResolveMetadata metadata) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+            moduleMetadataSerializer.write(encoder, metadata);
+            encoder.flush();
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        byte[] entry = outputStream.toByteArray();
+        getCache().put(component, entry);
+        return HashUtil.sha1(entry);
+    }
+}
@@ -28,7 +28,6 @@ import org.gradle.internal.Factory;
 import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
 import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetadata;
 import org.gradle.internal.hash.HashValue;
-import org.gradle.internal.resource.local.LocallyAvailableResource;
 import org.gradle.internal.resource.local.PathKeyFileStore;
 import org.gradle.internal.serialize.AbstractSerializer;
 import org.gradle.internal.serialize.Decoder;
@@ -44,6 +43,7 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
     private final CacheLockingManager cacheLockingManager;
 
     private final ModuleMetadataStore moduleMetadataStore;
+    private final CompactModuleMetadataStore compactModuleMetadataStore;
     private PersistentIndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCacheEntry> cache;
 
     public DefaultModuleMetaDataCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, ArtifactCacheMetaData artifactCacheMetaData, ImmutableModuleIdentifierFactory moduleIdentifierFactory, ModuleExclusions moduleExclusions) {
@@ -51,6 +51,7 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
         this.cacheLockingManager = cacheLockingManager;
 
         moduleMetadataStore = new ModuleMetadataStore(new PathKeyFileStore(artifactCacheMetaData.getMetaDataStoreDirectory()), new ModuleMetadataSerializer(), moduleIdentifierFactory, moduleExclusions);
+        compactModuleMetadataStore = CompactModuleMetadataStore.isSelected() ? new CompactModuleMetadataStore(cacheLockingManager, moduleIdentifierFactory, moduleExclusions) : null;
     }
 
     private PersistentIndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCacheEntry> getCache() {
@@ -77,9 +78,9 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
                 if (entry.isMissing()) {
                     return new DefaultCachedMetaData(entry, null, timeProvider);
                 }
-                MutableModuleComponentResolveMetadata metadata = moduleMetadataStore.getModuleDescriptor(key);
+                MutableModuleComponentResolveMetadata metadata = compactModuleMetadataStore != null ? compactModuleMetadataStore.getModuleDescriptor(key) : moduleMetadataStore.getModuleDescriptor(key);
                 if (metadata == null) {
-                    // Descriptor file has been deleted - ignore the entry
+                    // Descriptor has been deleted, or was written by the other store - ignore the entry
                     cache.remove(key);
                     return null;
                 }
@@ -101,8 +102,8 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
         return cacheLockingManager.useCache(new Factory<CachedMetaData>() {
             @Override
             public CachedMetaData create() {
-                LocallyAvailableResource resource = moduleMetadataStore.putModuleDescriptor(key, metadata);
-                ModuleMetadataCacheEntry entry = createEntry(metadata, resource.getSha1());
+                HashValue descriptorHash = compactModuleMetadataStore != null ? compactModuleMetadataStore.putModuleDescriptor(key, metadata) : moduleMetadataStore.putModuleDescriptor(key, metadata).getSha1();
+                ModuleMetadataCacheEntry entry = createEntry(metadata, descriptorHash);
                 getCache().put(key, entry);
                 return new DefaultCachedMetaData(entry, null, timeProvider);
             }
@@ -117,7 +118,7 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
         return ModuleMetadataCacheEntry.forMetaData(metaData, timeProvider.getCurrentTime(), moduleDescriptorHash.asBigInteger());
     }
 
-    private static class RevisionKeySerializer extends AbstractSerializer<ModuleComponentAtRepositoryKey> {
+    static class RevisionKeySerializer extends AbstractSerializer<ModuleComponentAtRepositoryKey> {
         private final ComponentIdentifierSerializer componentIdSerializer = new ComponentIdentifierSerializer();
 
         public void write(Encoder encoder, ModuleComponentAtRepositoryKey value) throws Exception {
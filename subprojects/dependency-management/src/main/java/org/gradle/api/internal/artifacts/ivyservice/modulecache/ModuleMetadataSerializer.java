@@ -15,6 +15,8 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.SetMultimap;
@@ -51,28 +53,49 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Serializes module metadata. When the strings are indexed, each distinct string is written once per module and referred to by index afterwards,
+ * and the strings that are read are shared with the other modules that were read by this process.
+ */
 public class ModuleMetadataSerializer {
     private static final byte TYPE_IVY = 1;
     private static final byte TYPE_MAVEN = 2;
+    private static final int NULL_STRING = 0;
+    private static final int NEW_STRING = 1;
+    private static final int FIRST_STRING_INDEX = 2;
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+
+    private final boolean indexedStrings;
+
+    public ModuleMetadataSerializer() {
+        this(false);
+    }
+
+    public ModuleMetadataSerializer(boolean indexedStrings) {
+        this.indexedStrings = indexedStrings;
+    }
 
     public MutableModuleComponentResolveMetadata read(Decoder decoder, ImmutableModuleIdentifierFactory moduleIdentifierFactory, ModuleExclusions moduleExclusions) throws IOException {
-        return new Reader(decoder, moduleIdentifierFactory).read();
+        return new Reader(decoder, moduleIdentifierFactory, indexedStrings).read();
     }
 
     public void write(Encoder encoder, ModuleComponentResolveMetadata metadata) throws IOException {
-        new Writer(encoder).write(metadata);
+        new Writer(encoder, indexedStrings).write(metadata);
     }
 
     private static class Writer {
         private final Encoder encoder;
+        private final Map<String, Integer> strings;
 
-        private Writer(Encoder encoder) {
+        private Writer(Encoder encoder, boolean indexedStrings) {
             this.encoder = encoder;
+            this.strings = indexedStrings ? new HashMap<String, Integer>() : null;
         }
 
         public void write(ModuleComponentResolveMetadata metadata) throws IOException {
@@ -230,11 +253,34 @@ public class ModuleMetadataSerializer {
         }
 
         private void writeString(String str) throws IOException {
-            encoder.writeString(str);
+            if (strings == null) {
+                encoder.writeString(str);
+            } else {
+                writeIndexedString(str);
+            }
         }
 
         private void writeNullableString(String str) throws IOException {
-            encoder.writeNullableString(str);
+            if (strings == null) {
+                encoder.writeNullableString(str);
+            } else {
+                writeIndexedString(str);
+            }
+        }
+
+        private void writeIndexedString(String str) throws IOException {
+            if (str == null) {
+                encoder.writeSmallInt(NULL_STRING);
+                return;
+            }
+            Integer index = strings.get(str);
+            if (index == null) {
+                strings.put(str, strings.size());
+                encoder.writeSmallInt(NEW_STRING);
+                encoder.writeString(str);
+            } else {
+                encoder.writeSmallInt(FIRST_STRING_INDEX + index);
+            }
         }
 
         private void writeBoolean(boolean b) throws IOException {
@@ -278,13 +324,15 @@ public class ModuleMetadataSerializer {
     private static class Reader {
         private final Decoder decoder;
         private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+        private final List<String> strings;
         private MutableModuleDescriptorState md;
         private ModuleComponentIdentifier id;
         private ModuleVersionIdentifier mvi;
 
-        private Reader(Decoder decoder, ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+        private Reader(Decoder decoder, ImmutableModuleIdentifierFactory moduleIdentifierFactory, boolean indexedStrings) {
             this.decoder = decoder;
             this.moduleIdentifierFactory = moduleIdentifierFactory;
+            this.strings = indexedStrings ? new ArrayList<String>() : null;
         }
 
         public MutableModuleComponentResolveMetadata read() throws IOException {
@@ -468,11 +516,31 @@ public class ModuleMetadataSerializer {
         }
 
         private String readString() throws IOException {
-            return decoder.readString();
+            if (strings == null) {
+                return decoder.readString();
+            }
+            return readIndexedString();
         }
 
         private String readNullableString() throws IOException {
-            return decoder.readNullableString();
+            if (strings == null) {
+                return decoder.readNullableString();
+            }
+            return readIndexedString();
+        }
+
+        private String readIndexedString() throws IOException {
+            int index = decoder.readSmallInt();
+            switch (index) {
+                case NULL_STRING:
+                    return null;
+                case NEW_STRING:
+                    String str = STRINGS.intern(decoder.readString());
+                    strings.add(str);
+                    return str;
+                default:
+                    return strings.get(index - FIRST_STRING_INDEX);
+            }
         }
 
         private boolean readBoolean() throws IOException {
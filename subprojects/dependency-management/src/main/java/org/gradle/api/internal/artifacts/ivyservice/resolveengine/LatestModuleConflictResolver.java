@@ -24,6 +24,8 @@ import java.util.*;
 
 class LatestModuleConflictResolver implements ModuleConflictResolver {
     private final Comparator<Version> versionComparator;
+    // The same candidates take part in a conflict again each time more versions of the module are found, so parse each version once
+    private final Map<String, Version> parsedVersions = new HashMap<String, Version>();
 
     LatestModuleConflictResolver(VersionComparator versionComparator) {
         this.versionComparator = versionComparator.asVersionComparator();
@@ -34,7 +36,7 @@ class LatestModuleConflictResolver implements ModuleConflictResolver {
         Version baseVersion = null;
         Map<Version, T> matches = new LinkedHashMap<Version, T>();
         for (T candidate : candidates) {
-            Version version = VersionParser.INSTANCE.transform(candidate.getVersion());
+            Version version = parse(candidate.getVersion());
             if (baseVersion == null || versionComparator.compare(version.getBaseVersion(), baseVersion) > 0) {
                 matches.clear();
                 baseVersion = version.getBaseVersion();
@@ -65,4 +67,13 @@ class LatestModuleConflictResolver implements ModuleConflictResolver {
         // Nothing - just return the highest version
         return matches.get(sorted.get(0));
     }
+
+    private Version parse(String original) {
+        Version version = parsedVersions.get(original);
+        if (version == null) {
+            version = VersionParser.INSTANCE.transform(original);
+            parsedVersions.put(original, version);
+        }
+        return version;
+    }
 }
@@ -16,6 +16,10 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -48,10 +52,14 @@ import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.exclude
  * <ul> <li>When a module dependency has multiple exclusions, then the resulting exclusion is the _intersection_ of those exclusions (module is excluded if excluded by _any_).</li> <li>When a module
  * is depended on via a transitive path, then the resulting exclusion is the _intersection_ of the exclusions on each leg of the path (module is excluded if excluded by _any_).</li> <li>When a module
  * is depended on via multiple paths in the graph, then the resulting exclusion is the _union_ of the exclusions on each of those paths (module is excluded if excluded by _all_).</li> </ul>
+ *
+ * <p>The exclusions created by this class are canonical: exclusions that are equal are the same instance. This makes most equality and {@link ModuleExclusion#excludesSameModulesAs(ModuleExclusion)}
+ * checks an identity check, and allows the results of recent union and intersection operations to be looked up by the identity of their operands.</p>
  */
 public class ModuleExclusions {
     private static final ExcludeNone EXCLUDE_NONE = new ExcludeNone();
     private static final ExcludeAllModulesSpec EXCLUDE_ALL_MODULES_SPEC = new ExcludeAllModulesSpec();
+    private static final int MAX_CACHED_OPERATIONS = 10000;
 
     private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
 
@@ -61,6 +69,9 @@ public class ModuleExclusions {
     private final Map<Set<AbstractModuleExclusion>, ImmutableModuleExclusionSet> exclusionSetCache = Maps.newConcurrentMap();
     private final Map<AbstractModuleExclusion[], Map<AbstractModuleExclusion[], MergeOperation>> mergeOperationCache = Maps.newIdentityHashMap();
     private final Object mergeOperationLock = new Object();
+    private final Interner<AbstractModuleExclusion> canonicalExclusions = Interners.newWeakInterner();
+    private final Cache<OperandPair, ModuleExclusion> intersectionCache = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_OPERATIONS).build();
+    private final Cache<OperandPair, ModuleExclusion> unionCache = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_OPERATIONS).build();
 
     public ModuleExclusions(ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
         this.moduleIdentifierFactory = moduleIdentifierFactory;
@@ -130,12 +141,23 @@ public class ModuleExclusions {
         for (Exclude exclude : excludes) {
             exclusions.add(forExclude(exclude));
         }
-        exclusion = new IntersectionExclusion(asImmutable(exclusions));
+        exclusion = canonical(new IntersectionExclusion(asImmutable(exclusions)));
         excludeAnyCache.put(excludes, exclusion);
         return exclusion;
     }
 
-    private static AbstractModuleExclusion forExclude(Exclude rule) {
+    /**
+     * Returns the instance that is equal to the given exclusion and that was created first.
+     */
+    private AbstractModuleExclusion canonical(AbstractModuleExclusion exclusion) {
+        return canonicalExclusions.intern(exclusion);
+    }
+
+    private AbstractModuleExclusion forExclude(Exclude rule) {
+        return canonical(createExclusion(rule));
+    }
+
+    private static AbstractModuleExclusion createExclusion(Exclude rule) {
         // For custom ivy pattern matchers, don't inspect the rule any more deeply: this prevents us from doing smart merging later
         if (!PatternMatchers.isExactMatcher(rule.getMatcher())) {
             return new IvyPatternMatcherExcludeRuleSpec(rule);
@@ -180,6 +202,16 @@ public class ModuleExclusions {
             return one;
         }
 
+        OperandPair operands = new OperandPair(one, two);
+        ModuleExclusion intersection = intersectionCache.getIfPresent(operands);
+        if (intersection == null) {
+            intersection = doIntersect(one, two);
+            intersectionCache.put(operands, intersection);
+        }
+        return intersection;
+    }
+
+    private ModuleExclusion doIntersect(ModuleExclusion one, ModuleExclusion two) {
         if (one instanceof IntersectionExclusion && ((IntersectionExclusion) one).getFilters().contains(two)) {
             return one;
         } else if (two instanceof IntersectionExclusion && ((IntersectionExclusion) two).getFilters().contains(one)) {
@@ -191,7 +223,7 @@ public class ModuleExclusions {
         ((AbstractModuleExclusion) one).unpackIntersection(builder);
         ((AbstractModuleExclusion) two).unpackIntersection(builder);
 
-        return new IntersectionExclusion(asImmutable(builder));
+        return canonical(new IntersectionExclusion(asImmutable(builder)));
     }
 
     /**
@@ -208,6 +240,16 @@ public class ModuleExclusions {
             return one;
         }
 
+        OperandPair operands = new OperandPair(one, two);
+        ModuleExclusion union = unionCache.getIfPresent(operands);
+        if (union == null) {
+            union = doUnion(one, two);
+            unionCache.put(operands, union);
+        }
+        return union;
+    }
+
+    private ModuleExclusion doUnion(ModuleExclusion one, ModuleExclusion two) {
         List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>();
         ((AbstractModuleExclusion) one).unpackUnion(specs);
         ((AbstractModuleExclusion) two).unpackUnion(specs);
@@ -232,7 +274,7 @@ public class ModuleExclusions {
         if (specs.size() == 1) {
             return specs.get(0);
         }
-        return new UnionExclusion(specs);
+        return canonical(new UnionExclusion(specs));
     }
 
     /**
@@ -306,7 +348,7 @@ public class ModuleExclusions {
         if (merged.isEmpty()) {
             exclusion = ModuleExclusions.EXCLUDE_NONE;
         } else {
-            exclusion = new IntersectionExclusion(asImmutable(merged));
+            exclusion = canonical(new IntersectionExclusion(asImmutable(merged)));
         }
         mergeCache.put(merge, exclusion);
         return exclusion;
@@ -365,7 +407,7 @@ public class ModuleExclusions {
         } else if (spec2 instanceof ModuleNameExcludeSpec) {
             // Intersection of group & module name exclude only excludes module with matching group + name
             ModuleNameExcludeSpec moduleNameExcludeSpec = (ModuleNameExcludeSpec) spec2;
-            merged.add(new ModuleIdExcludeSpec(moduleIdentifierFactory.module(spec1.group, moduleNameExcludeSpec.module)));
+            merged.add(canonical(new ModuleIdExcludeSpec(moduleIdentifierFactory.module(spec1.group, moduleNameExcludeSpec.module))));
         } else if (spec2 instanceof ModuleIdExcludeSpec) {
             // Intersection of group + module id exclude only excludes the module id if the excluded groups match
             ModuleIdExcludeSpec moduleIdExcludeSpec = (ModuleIdExcludeSpec) spec2;
@@ -430,6 +472,36 @@ public class ModuleExclusions {
         }
     }
 
+    /**
+     * The operands of a union or intersection, compared by identity.
+     */
+    private static final class OperandPair {
+        private final ModuleExclusion one;
+        private final ModuleExclusion two;
+
+        private OperandPair(ModuleExclusion one, ModuleExclusion two) {
+            this.one = one;
+            this.two = two;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            OperandPair that = (OperandPair) o;
+            return one == that.one && two == that.two;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(one) + System.identityHashCode(two);
+        }
+    }
+
     private static final class MergeSet extends HashSet<AbstractModuleExclusion> {
         private final BitSet remaining;
         private int idx;
@@ -46,6 +46,11 @@ import org.gradle.internal.component.model.DependencyMetadata;
 import org.gradle.internal.component.model.Exclude;
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.id.LongIdGenerator;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.progress.BuildOperationDescriptor;
 import org.gradle.internal.resolve.ModuleVersionResolveException;
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
 import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
@@ -69,6 +74,11 @@ import java.util.Map;
 import java.util.Set;
 
 public class DependencyGraphBuilder {
+    /**
+     * Fetches the meta-data of the dependencies of each visited configuration concurrently, rather than one at a time as each dependency is attached.
+     */
+    public static final String PARALLEL_METADATA_PROPERTY = "org.gradle.internal.resolution.parallelMetadata";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(DependencyGraphBuilder.class);
     private final ConflictHandler conflictHandler;
     private final Spec<? super DependencyMetadata> edgeFilter;
@@ -78,11 +88,14 @@ public class DependencyGraphBuilder {
     private final AttributesSchemaInternal attributesSchema;
     private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
     private final ModuleExclusions moduleExclusions;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final boolean fetchMetadataInParallel;
 
     public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
                                   ResolveContextToComponentResolver resolveContextToComponentResolver,
                                   ConflictHandler conflictHandler, Spec<? super DependencyMetadata> edgeFilter, AttributesSchemaInternal attributesSchema,
-                                  ImmutableModuleIdentifierFactory moduleIdentifierFactory, ModuleExclusions moduleExclusions) {
+                                  ImmutableModuleIdentifierFactory moduleIdentifierFactory, ModuleExclusions moduleExclusions,
+                                  BuildOperationExecutor buildOperationExecutor, boolean fetchMetadataInParallel) {
         this.idResolver = componentIdResolver;
         this.metaDataResolver = componentMetaDataResolver;
         this.moduleResolver = resolveContextToComponentResolver;
@@ -91,6 +104,12 @@ public class DependencyGraphBuilder {
         this.attributesSchema = attributesSchema;
         this.moduleIdentifierFactory = moduleIdentifierFactory;
         this.moduleExclusions = moduleExclusions;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.fetchMetadataInParallel = fetchMetadataInParallel;
+    }
+
+    public static boolean isParallelMetadataFetchingEnabled() {
+        return Boolean.getBoolean(PARALLEL_METADATA_PROPERTY);
     }
 
     public void resolve(ResolveContext resolveContext, DependencyGraphVisitor modelVisitor) {
@@ -122,6 +141,9 @@ public class DependencyGraphBuilder {
                 // Calculate the outgoing edges of this configuration
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
+                if (fetchMetadataInParallel) {
+                    fetchTargetMetadata(dependencies);
+                }
 
                 for (DependencyEdge dependency : dependencies) {
                     LOGGER.debug("Visiting dependency {}", dependency);
@@ -184,6 +206,33 @@ public class DependencyGraphBuilder {
         }
     }
 
+    /**
+     * Resolves the selectors of the given edges in order, and then fetches the meta-data of the target versions concurrently.
+     * The edges are attached afterwards in the same order as without fetching, so that the resulting graph and the outcome of conflict resolution do not change.
+     */
+    private void fetchTargetMetadata(List<DependencyEdge> dependencies) {
+        final Set<ModuleVersionResolveState> targets = new LinkedHashSet<ModuleVersionResolveState>();
+        for (DependencyEdge dependency : dependencies) {
+            ModuleVersionResolveState moduleRevision = dependency.selector.resolveModuleRevisionId();
+            if (moduleRevision != null && moduleRevision.isMetaDataFetchRequired()) {
+                targets.add(moduleRevision);
+            }
+        }
+        if (targets.size() < 2) {
+            // Nothing to gain, fetch when attached
+            return;
+        }
+        LOGGER.debug("Fetching meta-data for {} module versions.", targets.size());
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<RunnableBuildOperation>>() {
+            @Override
+            public void execute(BuildOperationQueue<RunnableBuildOperation> queue) {
+                for (ModuleVersionResolveState target : targets) {
+                    queue.add(new FetchMetaDataOperation(target));
+                }
+            }
+        });
+    }
+
     /**
      * Populates the result from the graph traversal state.
      */
@@ -666,6 +715,17 @@ public class DependencyGraphBuilder {
             metaData = result.getMetaData();
         }
 
+        /**
+         * Returns true when the meta-data of this version needs to be fetched, and the version is likely to be selected once attached.
+         * Versions that conflict with another version of the same module are left alone, as they may be evicted without ever needing their meta-data.
+         */
+        boolean isMetaDataFetchRequired() {
+            if (metaData != null || failure != null || firstReference == null || firstReference.idResolveResult.getMetaData() != null) {
+                return false;
+            }
+            return state == ModuleState.Selected || (state == ModuleState.New && module.versions.size() == 1);
+        }
+
         @Override
         public ComponentResolveMetadata getMetaData() {
             if (metaData == null) {
@@ -1001,6 +1061,29 @@ public class DependencyGraphBuilder {
         }
     }
 
+    private static class FetchMetaDataOperation implements RunnableBuildOperation {
+        private final ModuleVersionResolveState moduleRevision;
+
+        FetchMetaDataOperation(ModuleVersionResolveState moduleRevision) {
+            this.moduleRevision = moduleRevision;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            try {
+                moduleRevision.resolve();
+            } catch (RuntimeException e) {
+                // Leave the version unresolved, so that the failure is reported in the usual way when the version is attached
+                LOGGER.debug("Could not fetch meta-data for {}.", moduleRevision, e);
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Resolve meta-data for " + moduleRevision);
+        }
+    }
+
     private static class DirectDependencyForcingResolver implements ModuleConflictResolver {
         private final ModuleVersionResolveState root;
 
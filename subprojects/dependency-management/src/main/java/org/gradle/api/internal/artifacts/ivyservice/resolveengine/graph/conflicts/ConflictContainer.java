@@ -19,7 +19,6 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflic
 import com.google.common.base.Joiner;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Sets;
 import org.gradle.api.Nullable;
 
 import java.util.*;
@@ -37,6 +36,8 @@ class ConflictContainer<K, T> {
 
     private final Map<K, Collection<? extends T>> elements = newHashMap();
     private final Multimap<K, K> targetToSource = LinkedHashMultimap.create();
+    private final Multimap<K, Conflict> conflictsByParticipant = LinkedHashMultimap.create();
+    private long nextConflictOrder;
 
     /**
      * Adds new element and returns a conflict instance if given element is conflicted. Element is conflicted when:
@@ -85,19 +86,32 @@ class ConflictContainer<K, T> {
         //Brand new conflict goes to the end
         //If we find any matching conflict we have to hook up with it
 
-        //Find an existing matching conflict
-        for (Conflict c : conflicts) {
-            if (!Sets.intersection(participants, c.participants).isEmpty()) {
-                //there is already registered conflict with at least one matching participant, hook up to this conflict
-                c.candidates = candidates;
-                c.participants.addAll(participants);
-                return c;
+        //Find the earliest registered conflict with a matching participant, using the index rather than scanning all conflicts
+        Conflict match = null;
+        for (K participant : participants) {
+            for (Conflict c : conflictsByParticipant.get(participant)) {
+                if (match == null || c.order < match.order) {
+                    match = c;
+                }
             }
         }
+        if (match != null) {
+            //there is already registered conflict with at least one matching participant, hook up to this conflict
+            match.candidates = candidates;
+            for (K participant : participants) {
+                if (match.participants.add(participant)) {
+                    conflictsByParticipant.put(participant, match);
+                }
+            }
+            return match;
+        }
 
         //No conflict with matching participants found, create new
-        Conflict c = new Conflict(participants, candidates);
+        Conflict c = new Conflict(participants, candidates, nextConflictOrder++);
         conflicts.add(c);
+        for (K participant : participants) {
+            conflictsByParticipant.put(participant, c);
+        }
         return c;
     }
 
@@ -111,16 +125,22 @@ class ConflictContainer<K, T> {
 
     public Conflict popConflict() {
         assert !conflicts.isEmpty();
-        return conflicts.pop();
+        Conflict conflict = conflicts.pop();
+        for (K participant : conflict.participants) {
+            conflictsByParticipant.remove(participant, conflict);
+        }
+        return conflict;
     }
 
     class Conflict {
         Set<K> participants;
         Collection<? extends T> candidates;
+        private final long order;
 
-        public Conflict(Set<K> participants, Collection<? extends T> candidates) {
+        public Conflict(Set<K> participants, Collection<? extends T> candidates, long order) {
             this.participants = participants;
             this.candidates = candidates;
+            this.order = order;
         }
 
         public String toString() {
@@ -18,10 +18,12 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
 
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
 import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.result.ComponentSelectionReason;
 import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
 import org.gradle.api.internal.artifacts.ModuleVersionIdentifierSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.Serializer;
@@ -44,7 +46,7 @@ public class ComponentResultSerializer implements Serializer<ComponentResult> {
         long resultId = decoder.readSmallLong();
         ModuleVersionIdentifier id = idSerializer.read(decoder);
         ComponentSelectionReason reason = reasonSerializer.read(decoder);
-        ComponentIdentifier componentId = componentIdSerializer.read(decoder);
+        ComponentIdentifier componentId = decoder.readBoolean() ? DefaultModuleComponentIdentifier.newId(id) : componentIdSerializer.read(decoder);
         return new DefaultComponentResult(resultId, id, reason, componentId);
     }
 
@@ -52,6 +54,19 @@ public class ComponentResultSerializer implements Serializer<ComponentResult> {
         encoder.writeSmallLong(value.getResultId());
         idSerializer.write(encoder, value.getModuleVersion());
         reasonSerializer.write(encoder, value.getSelectionReason());
-        componentIdSerializer.write(encoder, value.getComponentId());
+        // The identifier of a module component repeats the module version, so write a marker instead
+        boolean sameAsModuleVersion = isModuleVersion(value.getComponentId(), value.getModuleVersion());
+        encoder.writeBoolean(sameAsModuleVersion);
+        if (!sameAsModuleVersion) {
+            componentIdSerializer.write(encoder, value.getComponentId());
+        }
+    }
+
+    private static boolean isModuleVersion(ComponentIdentifier componentId, ModuleVersionIdentifier id) {
+        if (!(componentId instanceof ModuleComponentIdentifier)) {
+            return false;
+        }
+        ModuleComponentIdentifier moduleComponentId = (ModuleComponentIdentifier) componentId;
+        return moduleComponentId.getGroup().equals(id.getGroup()) && moduleComponentId.getModule().equals(id.getName()) && moduleComponentId.getVersion().equals(id.getVersion());
     }
 }
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import org.gradle.api.internal.cache.BinaryStore;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A binary store that keeps its content in direct buffers outside of the heap, instead of in a temporary file. The content is read back from memory.
+ * The buffers are accounted for in a {@link Memory}, which is shared by all the stores of a build, and are released when the store is closed.
+ * The buffers are not freed explicitly, as a reader may still hold on to them. They are freed once they are no longer referenced.
+ */
+class OffHeapBinaryStore implements BinaryStore, Closeable {
+    static final int CHUNK_SIZE = 256 * 1024;
+
+    private final Memory memory;
+    private final List<ByteBuffer> chunks = new CopyOnWriteArrayList<ByteBuffer>();
+    private KryoBackedEncoder encoder;
+    private int offset = -1;
+
+    public OffHeapBinaryStore(Memory memory) {
+        this.memory = memory;
+    }
+
+    public void write(WriteAction write) {
+        if (encoder == null) {
+            encoder = new KryoBackedEncoder(new ChunkOutputStream());
+        }
+        if (offset == -1) {
+            offset = encoder.getWritePosition();
+            if (offset == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Unable to write to binary store. "
+                        + "The bytes offset has reached a point where using it is unsafe. Please report this error.");
+            }
+        }
+        try {
+            write.write(encoder);
+        } catch (Exception e) {
+            throw new RuntimeException("Problems writing to " + this, e);
+        }
+    }
+
+    public String toString() {
+        return "Off-heap binary store";
+    }
+
+    public BinaryData done() {
+        try {
+            if (encoder != null) {
+                encoder.flush();
+            }
+            return new ChunkBinaryData(chunks, offset, toString());
+        } finally {
+            offset = -1;
+        }
+    }
+
+    public void close() {
+        try {
+            if (encoder != null) {
+                encoder.close();
+            }
+        } finally {
+            memory.released((long) chunks.size() * CHUNK_SIZE);
+            chunks.clear();
+            encoder = null;
+        }
+    }
+
+    /**
+     * The amount of memory that was allocated for this store.
+     */
+    long getSize() {
+        return (long) chunks.size() * CHUNK_SIZE;
+    }
+
+    /**
+     * Accounts for the off-heap memory of a set of stores.
+     */
+    static class Memory {
+        private final long maxSize;
+        private final AtomicLong used = new AtomicLong();
+
+        Memory(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Returns true when a new store may be created. A store that has been created can grow past the limit, so the limit is approximate.
+         */
+        boolean hasCapacity() {
+            return used.get() < maxSize;
+        }
+
+        long getUsed() {
+            return used.get();
+        }
+
+        private ByteBuffer allocate() {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+            used.addAndGet(CHUNK_SIZE);
+            return chunk;
+        }
+
+        private void released(long size) {
+            used.addAndGet(-size);
+        }
+    }
+
+    private class ChunkOutputStream extends OutputStream {
+        private ByteBuffer current;
+
+        @Override
+        public void write(int b) {
+            nextChunkIfFull();
+            current.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            while (length > 0) {
+                nextChunkIfFull();
+                int count = Math.min(length, current.remaining());
+                current.put(bytes, offset, count);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        private void nextChunkIfFull() {
+            if (current == null || !current.hasRemaining()) {
+                current = memory.allocate();
+                chunks.add(current);
+            }
+        }
+    }
+
+    private static class ChunkBinaryData implements BinaryStore.BinaryData {
+        private final List<ByteBuffer> chunks;
+        private final int offset;
+        private final String sourceDescription;
+        private KryoBackedDecoder decoder;
+
+        ChunkBinaryData(List<ByteBuffer> chunks, int offset, String sourceDescription) {
+            this.chunks = chunks;
+            this.offset = offset;
+            this.sourceDescription = sourceDescription;
+        }
+
+        public <T> T read(ReadAction<T> readAction) {
+            try {
+                if (decoder == null) {
+                    decoder = new KryoBackedDecoder(new ChunkInputStream(chunks, offset));
+                }
+                return readAction.read(decoder);
+            } catch (Exception e) {
+                throw new RuntimeException("Problems reading data from " + sourceDescription, e);
+            }
+        }
+
+        public void close() {
+            decoder = null;
+        }
+
+        public String toString() {
+            return sourceDescription;
+        }
+    }
+
+    /**
+     * Reads the chunks from the given position on. Each reader uses its own views of the chunks, so that the data can be read concurrently and while the store is written to.
+     */
+    private static class ChunkInputStream extends InputStream {
+        private final List<ByteBuffer> chunks;
+        private int chunkIndex;
+        private int chunkPosition;
+        private ByteBuffer current;
+
+        ChunkInputStream(List<ByteBuffer> chunks, int position) {
+            this.chunks = chunks;
+            chunkIndex = position / CHUNK_SIZE;
+            chunkPosition = position % CHUNK_SIZE;
+        }
+
+        @Override
+        public int read() {
+            if (!nextChunkIfConsumed()) {
+                return -1;
+            }
+            return current.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!nextChunkIfConsumed()) {
+                return -1;
+            }
+            int count = Math.min(length, current.remaining());
+            current.get(bytes, offset, count);
+            return count;
+        }
+
+        private boolean nextChunkIfConsumed() {
+            while (current == null || !current.hasRemaining()) {
+                if (chunkIndex >= chunks.size()) {
+                    return false;
+                }
+                current = chunks.get(chunkIndex++).duplicate();
+                current.clear();
+                current.position(chunkPosition);
+                chunkPosition = 0;
+            }
+            return true;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
 
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResults;
+import org.gradle.api.internal.cache.BinaryStore;
 import org.gradle.api.internal.cache.Store;
 import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.logging.Logger;
@@ -33,11 +34,16 @@ import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class ResolutionResultsStoreFactory implements Closeable {
+    /**
+     * The amount of off-heap memory, in megabytes, that the binary stores may use before they fall back to temporary files. Defaults to 0, which keeps all stores in files.
+     */
+    public static final String OFF_HEAP_SIZE_PROPERTY = "org.gradle.internal.resolution.offHeapStoreSize";
     private final static Logger LOG = Logging.getLogger(ResolutionResultsStoreFactory.class);
     private static final int DEFAULT_MAX_SIZE = 2000000000; //2 gigs
 
     private final TemporaryFileProvider temp;
     private int maxSize;
+    private final OffHeapBinaryStore.Memory offHeapMemory;
 
     private CachedStoreFactory<TransientConfigurationResults> oldModelCache;
     private CachedStoreFactory<ResolvedComponentResult> newModelCache;
@@ -45,7 +51,7 @@ public class ResolutionResultsStoreFactory implements Closeable {
     private AtomicInteger storeSetBaseId = new AtomicInteger(0);
 
     public ResolutionResultsStoreFactory(TemporaryFileProvider temp) {
-        this(temp, DEFAULT_MAX_SIZE);
+        this(temp, DEFAULT_MAX_SIZE, Long.getLong(OFF_HEAP_SIZE_PROPERTY, 0L) * 1024 * 1024);
     }
 
     /**
@@ -53,19 +59,33 @@ public class ResolutionResultsStoreFactory implements Closeable {
      * @param maxSize - indicates the approx. maximum size of the binary store that will trigger rolling of the file
      */
     ResolutionResultsStoreFactory(TemporaryFileProvider temp, int maxSize) {
+        this(temp, maxSize, 0);
+    }
+
+    /**
+     * @param temp - Provider of temporary files.
+     * @param maxSize - indicates the approx. maximum size of the binary store that will trigger rolling of the file
+     * @param maxOffHeapSize - indicates the approx. maximum size of all off-heap binary stores, after which new stores use files
+     */
+    ResolutionResultsStoreFactory(TemporaryFileProvider temp, int maxSize, long maxOffHeapSize) {
         this.temp = temp;
         this.maxSize = maxSize;
+        this.offHeapMemory = new OffHeapBinaryStore.Memory(maxOffHeapSize);
     }
 
-    private final Map<String, DefaultBinaryStore> stores = new HashMap<String, DefaultBinaryStore>();
+    private final Map<String, BinaryStore> stores = new HashMap<String, BinaryStore>();
     private final CompositeStoppable cleanUpLater = new CompositeStoppable();
 
-    private synchronized DefaultBinaryStore createBinaryStore(String storeKey) {
-        DefaultBinaryStore store = stores.get(storeKey);
+    private synchronized BinaryStore createBinaryStore(String storeKey) {
+        BinaryStore store = stores.get(storeKey);
         if (store == null || isFull(store)) {
-            File storeFile = temp.createTemporaryFile("gradle", ".bin");
-            storeFile.deleteOnExit();
-            store = new DefaultBinaryStore(storeFile);
+            if (offHeapMemory.hasCapacity()) {
+                store = new OffHeapBinaryStore(offHeapMemory);
+            } else {
+                File storeFile = temp.createTemporaryFile("gradle", ".bin");
+                storeFile.deleteOnExit();
+                store = new DefaultBinaryStore(storeFile);
+            }
             stores.put(storeKey, store);
             cleanUpLater.add(store);
         }
@@ -92,7 +112,7 @@ public class ResolutionResultsStoreFactory implements Closeable {
         return new StoreSet() {
             int storeSetId = storeSetBaseId.getAndIncrement();
             int binaryStoreId;
-            public DefaultBinaryStore nextBinaryStore() {
+            public BinaryStore nextBinaryStore() {
                 //one binary store per id+threadId
                 String storeKey = Thread.currentThread().getId() + "-" + binaryStoreId++;
                 return createBinaryStore(storeKey);
@@ -112,15 +132,19 @@ public class ResolutionResultsStoreFactory implements Closeable {
     //because of the int max value
     //for large streams/files (huge builds), we need to roll the file
     //otherwise the stream.size() returns max integer and the offset is no longer correct
-    private boolean isFull(DefaultBinaryStore store) {
-        return store.getSize() > maxSize;
+    //an off-heap store also rolls when the off-heap memory is used up, so that the next store uses a file
+    private boolean isFull(BinaryStore store) {
+        if (store instanceof OffHeapBinaryStore) {
+            return ((OffHeapBinaryStore) store).getSize() > maxSize || !offHeapMemory.hasCapacity();
+        }
+        return ((DefaultBinaryStore) store).getSize() > maxSize;
     }
 
     public void close() {
         try {
             Timer clock = Timers.startTimer();
             cleanUpLater.stop();
-            LOG.debug("Deleted {} resolution results binary files in {}", stores.size(), clock.getElapsed());
+            LOG.debug("Released {} resolution results binary stores in {}", stores.size(), clock.getElapsed());
         } finally {
             oldModelCache = null;
             newModelCache = null;
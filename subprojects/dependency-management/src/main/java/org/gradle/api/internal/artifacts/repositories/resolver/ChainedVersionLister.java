@@ -20,7 +20,7 @@ import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.resources.MissingResourceException;
 import org.gradle.api.resources.ResourceException;
 import org.gradle.internal.component.model.IvyArtifactName;
-import org.gradle.internal.resolve.result.ResourceAwareResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -34,7 +34,7 @@ public class ChainedVersionLister implements VersionLister {
         this.versionListers = Arrays.asList(delegates);
     }
 
-    public VersionPatternVisitor newVisitor(final ModuleIdentifier module, final Collection<String> dest, final ResourceAwareResolveResult result)  {
+    public VersionPatternVisitor newVisitor(final ModuleIdentifier module, final Collection<String> dest, final BuildableModuleVersionListingResolveResult result)  {
         final List<VersionPatternVisitor> visitors = new ArrayList<VersionPatternVisitor>();
         for (VersionLister lister : versionListers) {
             visitors.add(lister.newVisitor(module, dest, result));
@@ -19,7 +19,7 @@ package org.gradle.api.internal.artifacts.repositories.resolver;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.resources.ResourceException;
 import org.gradle.internal.component.model.IvyArtifactName;
-import org.gradle.internal.resolve.result.ResourceAwareResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
 import org.gradle.internal.resource.ExternalResourceName;
 import org.gradle.internal.resource.local.FileStore;
 import org.gradle.internal.resource.transfer.CacheAwareExternalResourceAccessor;
@@ -35,7 +35,7 @@ public class MavenVersionLister implements VersionLister {
         this.mavenMetadataLoader = new MavenMetadataLoader(cacheAwareExternalResourceAccessor, resourcesFileStore);
     }
 
-    public VersionPatternVisitor newVisitor(final ModuleIdentifier module, final Collection<String> dest, final ResourceAwareResolveResult result) {
+    public VersionPatternVisitor newVisitor(final ModuleIdentifier module, final Collection<String> dest, final BuildableModuleVersionListingResolveResult result) {
         return new VersionPatternVisitor() {
             final Set<ExternalResourceName> searched = new HashSet<ExternalResourceName>();
 
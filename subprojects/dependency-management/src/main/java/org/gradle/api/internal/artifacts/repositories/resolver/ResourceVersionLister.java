@@ -20,9 +20,10 @@ import org.apache.ivy.core.IvyPatternHelper;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.resources.ResourceException;
 import org.gradle.internal.component.model.IvyArtifactName;
-import org.gradle.internal.resolve.result.ResourceAwareResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
 import org.gradle.internal.resource.ExternalResourceName;
 import org.gradle.internal.resource.ResourceExceptions;
+import org.gradle.internal.resource.transfer.ExternalResourceListing;
 import org.gradle.internal.resource.transport.ExternalResourceRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,7 +44,7 @@ public class ResourceVersionLister implements VersionLister {
         this.repository = repository;
     }
 
-    public VersionPatternVisitor newVisitor(final ModuleIdentifier module, final Collection<String> dest, final ResourceAwareResolveResult result) {
+    public VersionPatternVisitor newVisitor(final ModuleIdentifier module, final Collection<String> dest, final BuildableModuleVersionListingResolveResult result) {
         return new VersionPatternVisitor() {
             final Set<ExternalResourceName> directories = new HashSet<ExternalResourceName>();
 
@@ -80,7 +81,7 @@ public class ResourceVersionLister implements VersionLister {
                         return Collections.emptyList();
                     }
                     result.attempted(parent);
-                    List<String> all = repository.list(parent.getUri());
+                    List<String> all = list(parent);
                     if (all == null) {
                         return Collections.emptyList();
                     }
@@ -138,13 +139,24 @@ public class ResourceVersionLister implements VersionLister {
                 }
                 LOGGER.debug("using {} to list all in {}", repository, parent);
                 result.attempted(parent.toString());
-                List<String> paths = repository.list(parent.getUri());
+                List<String> paths = list(parent);
                 if (paths == null) {
                     return Collections.emptyList();
                 }
                 LOGGER.debug("found {} resources", paths.size());
                 return paths;
             }
+
+            // lists the parent again only when it has changed since the versions were last listed
+            private List<String> list(ExternalResourceName parent) {
+                String location = parent.getUri().toString();
+                ExternalResourceListing listing = repository.list(parent.getUri(), result.getPreviousListing(location));
+                if (listing == null) {
+                    return null;
+                }
+                result.addListing(location, listing);
+                return listing.getChildren();
+            }
         };
     }
 }
@@ -17,7 +17,7 @@
 package org.gradle.api.internal.artifacts.repositories.resolver;
 
 import org.gradle.api.artifacts.ModuleIdentifier;
-import org.gradle.internal.resolve.result.ResourceAwareResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
 
 import java.util.Collection;
 
@@ -26,7 +26,7 @@ public interface VersionLister {
      * Creates a visitor for the given module. Call {@link VersionPatternVisitor#visit(ResourcePattern, org.gradle.internal.component.model.IvyArtifactName)} to search for versions.
      *
      * @param dest collection to add versions to
-     * @param result used to add candidate locations.
+     * @param result used to add candidate locations and listings, and to find the listings that were made when the versions were last listed.
      */
-    VersionPatternVisitor newVisitor(ModuleIdentifier module, Collection<String> dest, ResourceAwareResolveResult result);
+    VersionPatternVisitor newVisitor(ModuleIdentifier module, Collection<String> dest, BuildableModuleVersionListingResolveResult result);
 }
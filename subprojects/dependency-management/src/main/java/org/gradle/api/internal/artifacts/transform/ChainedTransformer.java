@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.transform;
+
+import org.gradle.api.Transformer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Applies a transform to the outputs of another transform. The steps of the chain are exposed, so that the second step can be applied to the outputs of the first step concurrently.
+ */
+class ChainedTransformer implements Transformer<List<File>, File> {
+    private final Transformer<List<File>, File> first;
+    private final Transformer<List<File>, File> second;
+
+    ChainedTransformer(Transformer<List<File>, File> first, Transformer<List<File>, File> second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * Returns the steps of the given transform, in the order that they are applied.
+     */
+    static List<Transformer<List<File>, File>> stepsOf(Transformer<List<File>, File> transformer) {
+        if (!(transformer instanceof ChainedTransformer)) {
+            return Collections.singletonList(transformer);
+        }
+        ChainedTransformer chain = (ChainedTransformer) transformer;
+        List<Transformer<List<File>, File>> steps = new ArrayList<Transformer<List<File>, File>>(stepsOf(chain.first));
+        steps.add(chain.second);
+        return steps;
+    }
+
+    @Override
+    public List<File> transform(File file) {
+        List<File> result = new ArrayList<File>();
+        for (File intermediate : first.transform(file)) {
+            result.addAll(second.transform(intermediate));
+        }
+        return result;
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.api.internal.artifacts.transform;
 
 import com.google.common.io.Files;
 import org.gradle.api.Buildable;
+import org.gradle.api.Nullable;
 import org.gradle.api.Transformer;
 import org.gradle.api.artifacts.ResolvedArtifact;
 import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
@@ -166,7 +167,7 @@ public class DefaultArtifactTransforms implements ArtifactTransforms {
 
             @Override
             public void artifactAvailable(ResolvedArtifact artifact) {
-                TransformArtifactOperation operation = new TransformArtifactOperation(artifact, transform);
+                TransformArtifactOperation operation = new TransformArtifactOperation(artifact, transform, actions);
                 artifactResults.put(artifact, operation);
                 actions.add(operation);
             }
@@ -184,7 +185,7 @@ public class DefaultArtifactTransforms implements ArtifactTransforms {
 
             @Override
             public void fileAvailable(File file) {
-                TransformFileOperation operation = new TransformFileOperation(file, transform);
+                TransformFileOperation operation = new TransformFileOperation(file, transform, actions);
                 fileResults.put(file, operation);
                 actions.add(operation);
             }
@@ -208,54 +209,123 @@ public class DefaultArtifactTransforms implements ArtifactTransforms {
         }
     }
 
-    private static class TransformArtifactOperation implements RunnableBuildOperation {
-        private final ResolvedArtifact artifact;
-        private final Transformer<List<File>, File> transform;
+    /**
+     * Applies a transform to a file. When the transform is a chain of transforms, the next step of the chain is applied to each output of the first step
+     * in a separate operation, so that the outputs are transformed concurrently.
+     */
+    private static abstract class TransformOperation implements RunnableBuildOperation {
+        private final List<Transformer<List<File>, File>> steps;
+        private final BuildOperationQueue<RunnableBuildOperation> actions;
         private Throwable failure;
         private List<File> result;
+        private List<TransformOperation> nextSteps;
 
-        TransformArtifactOperation(ResolvedArtifact artifact, Transformer<List<File>, File> transform) {
-            this.artifact = artifact;
-            this.transform = transform;
+        TransformOperation(Transformer<List<File>, File> transform, BuildOperationQueue<RunnableBuildOperation> actions) {
+            this(ChainedTransformer.stepsOf(transform), actions);
+        }
+
+        TransformOperation(List<Transformer<List<File>, File>> steps, BuildOperationQueue<RunnableBuildOperation> actions) {
+            this.steps = steps;
+            this.actions = actions;
+        }
+
+        protected abstract File getInputFile();
+
+        protected Transformer<List<File>, File> getTransform() {
+            return steps.get(0);
         }
 
         @Override
         public void run(BuildOperationContext context) {
             try {
-                result = transform.transform(artifact.getFile());
+                result = getTransform().transform(getInputFile());
             } catch (Throwable t) {
                 failure = t;
+                return;
+            }
+            if (steps.size() > 1) {
+                List<Transformer<List<File>, File>> remainingSteps = steps.subList(1, steps.size());
+                nextSteps = new ArrayList<TransformOperation>(result.size());
+                for (File intermediate : result) {
+                    TransformFileOperation nextStep = new TransformFileOperation(intermediate, remainingSteps, actions);
+                    nextSteps.add(nextStep);
+                    actions.add(nextStep);
+                }
+            }
+        }
+
+        /**
+         * Returns the failure of this operation or of the first failed step applied to its outputs. Called once all operations have completed.
+         */
+        @Nullable
+        Throwable getFailure() {
+            if (failure != null || nextSteps == null) {
+                return failure;
+            }
+            for (TransformOperation nextStep : nextSteps) {
+                Throwable nextStepFailure = nextStep.getFailure();
+                if (nextStepFailure != null) {
+                    return nextStepFailure;
+                }
             }
+            return null;
+        }
+
+        /**
+         * Returns the outputs of the last step of the transform, in order. Called once all operations have completed.
+         */
+        List<File> getResult() {
+            if (nextSteps == null) {
+                return result;
+            }
+            List<File> files = new ArrayList<File>();
+            for (TransformOperation nextStep : nextSteps) {
+                files.addAll(nextStep.getResult());
+            }
+            return files;
+        }
+    }
+
+    private static class TransformArtifactOperation extends TransformOperation {
+        private final ResolvedArtifact artifact;
+
+        TransformArtifactOperation(ResolvedArtifact artifact, Transformer<List<File>, File> transform, BuildOperationQueue<RunnableBuildOperation> actions) {
+            super(transform, actions);
+            this.artifact = artifact;
+        }
+
+        @Override
+        protected File getInputFile() {
+            return artifact.getFile();
         }
 
         @Override
         public BuildOperationDescriptor.Builder description() {
-           return BuildOperationDescriptor.displayName("Apply " + transform + " to " + artifact);
+           return BuildOperationDescriptor.displayName("Apply " + getTransform() + " to " + artifact);
         }
     }
 
-    private static class TransformFileOperation implements RunnableBuildOperation {
+    private static class TransformFileOperation extends TransformOperation {
         private final File file;
-        private final Transformer<List<File>, File> transform;
-        private Throwable failure;
-        private List<File> result;
 
-        TransformFileOperation(File file, Transformer<List<File>, File> transform) {
+        TransformFileOperation(File file, Transformer<List<File>, File> transform, BuildOperationQueue<RunnableBuildOperation> actions) {
+            super(transform, actions);
+            this.file = file;
+        }
+
+        TransformFileOperation(File file, List<Transformer<List<File>, File>> steps, BuildOperationQueue<RunnableBuildOperation> actions) {
+            super(steps, actions);
             this.file = file;
-            this.transform = transform;
         }
 
         @Override
-        public void run(BuildOperationContext context) {
-            try {
-                result = transform.transform(file);
-            } catch (Throwable t) {
-                failure = t;
-            }
+        protected File getInputFile() {
+            return file;
         }
+
         @Override
         public BuildOperationDescriptor.Builder description() {
-            return BuildOperationDescriptor.displayName("Apply " + transform + " to " + file);
+            return BuildOperationDescriptor.displayName("Apply " + getTransform() + " to " + file);
         }
     }
 
@@ -275,12 +345,13 @@ public class DefaultArtifactTransforms implements ArtifactTransforms {
         @Override
         public void visitArtifact(AttributeContainer variant, ResolvedArtifact artifact) {
             TransformArtifactOperation operation = artifactResults.get(artifact);
-            if (operation.failure != null) {
-                visitor.visitFailure(operation.failure);
+            Throwable failure = operation.getFailure();
+            if (failure != null) {
+                visitor.visitFailure(failure);
                 return;
             }
 
-            List<File> transformedFiles = operation.result;
+            List<File> transformedFiles = operation.getResult();
 
             TaskDependency buildDependencies = ((Buildable) artifact).getBuildDependencies();
             for (File output : transformedFiles) {
@@ -310,12 +381,13 @@ public class DefaultArtifactTransforms implements ArtifactTransforms {
         @Override
         public void visitFile(ComponentArtifactIdentifier artifactIdentifier, AttributeContainer variant, File file) {
             TransformFileOperation operation = fileResults.get(file);
-            if (operation.failure != null) {
-                visitor.visitFailure(operation.failure);
+            Throwable failure = operation.getFailure();
+            if (failure != null) {
+                visitor.visitFailure(failure);
                 return;
             }
 
-            List<File> result = operation.result;
+            List<File> result = operation.getResult();
             for (File outputFile : result) {
                 visitor.visitFile(new ComponentFileArtifactIdentifier(artifactIdentifier.getComponentIdentifier(), outputFile.getName()), target, outputFile);
             }
@@ -70,24 +70,15 @@ public class VariantAttributeMatchingCache {
             return;
         }
 
-        for (final VariantTransformRegistry.Registration candidate : candidates) {
+        for (VariantTransformRegistry.Registration candidate : candidates) {
             ConsumerVariantMatchResult inputVariants = new ConsumerVariantMatchResult();
             collectConsumerVariants(actual, candidate.getFrom(), inputVariants);
             if (!inputVariants.hasMatches()) {
                 continue;
             }
-            for (final ConsumerVariantMatchResult.ConsumerVariant inputVariant : inputVariants.getMatches()) {
+            for (ConsumerVariantMatchResult.ConsumerVariant inputVariant : inputVariants.getMatches()) {
                 ImmutableAttributes variantAttributes = attributesFactory.concat(inputVariant.attributes.asImmutable(), candidate.getTo().asImmutable());
-                Transformer<List<File>, File> transformer = new Transformer<List<File>, File>() {
-                    @Override
-                    public List<File> transform(File file) {
-                        List<File> result = new ArrayList<File>();
-                        for (File intermediate : inputVariant.transformer.transform(file)) {
-                            result.addAll(candidate.getArtifactTransform().transform(intermediate));
-                        }
-                        return result;
-                    }
-                };
+                Transformer<List<File>, File> transformer = new ChainedTransformer(inputVariant.transformer, candidate.getArtifactTransform());
                 result.matched(variantAttributes, transformer, inputVariant.depth + 1);
             }
         }
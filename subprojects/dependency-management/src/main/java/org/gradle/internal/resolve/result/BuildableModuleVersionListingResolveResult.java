@@ -18,8 +18,10 @@ package org.gradle.internal.resolve.result;
 
 import org.gradle.api.Nullable;
 import org.gradle.internal.resolve.ModuleVersionResolveException;
+import org.gradle.internal.resource.transfer.ExternalResourceListing;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -62,4 +64,25 @@ public interface BuildableModuleVersionListingResolveResult extends ResourceAwar
     boolean isAuthoritative();
 
     void setAuthoritative(boolean authoritative);
+
+    /**
+     * Returns the listing of the given location that was made when the versions were last listed, or null if there is none.
+     */
+    @Nullable
+    ExternalResourceListing getPreviousListing(String location);
+
+    /**
+     * Sets the listings that were made when the versions were last listed, so that a location is listed again only when it has changed.
+     */
+    void setPreviousListings(Map<String, ExternalResourceListing> listings);
+
+    /**
+     * Adds a listing of a location that the versions were listed from.
+     */
+    void addListing(String location, ExternalResourceListing listing);
+
+    /**
+     * Returns the listings that the versions were listed from, by location.
+     */
+    Map<String, ExternalResourceListing> getListings();
 }
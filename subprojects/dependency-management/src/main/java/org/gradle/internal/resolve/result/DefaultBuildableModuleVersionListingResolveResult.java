@@ -16,9 +16,13 @@
 package org.gradle.internal.resolve.result;
 
 import org.gradle.internal.resolve.ModuleVersionResolveException;
+import org.gradle.internal.resource.transfer.ExternalResourceListing;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 public class DefaultBuildableModuleVersionListingResolveResult extends DefaultResourceAwareResolveResult implements BuildableModuleVersionListingResolveResult {
@@ -26,6 +30,8 @@ public class DefaultBuildableModuleVersionListingResolveResult extends DefaultRe
     private ModuleVersionResolveException failure;
     private Set<String> versions;
     private boolean authoritative;
+    private Map<String, ExternalResourceListing> previousListings = Collections.emptyMap();
+    private final Map<String, ExternalResourceListing> listings = new LinkedHashMap<String, ExternalResourceListing>();
 
     private void reset(State state) {
         this.state = state;
@@ -74,6 +80,22 @@ public class DefaultBuildableModuleVersionListingResolveResult extends DefaultRe
         this.authoritative = authoritative;
     }
 
+    public ExternalResourceListing getPreviousListing(String location) {
+        return previousListings.get(location);
+    }
+
+    public void setPreviousListings(Map<String, ExternalResourceListing> listings) {
+        this.previousListings = listings;
+    }
+
+    public void addListing(String location, ExternalResourceListing listing) {
+        listings.put(location, listing);
+    }
+
+    public Map<String, ExternalResourceListing> getListings() {
+        return listings;
+    }
+
     private void assertHasResult() {
         if (!hasResult()) {
             throw new IllegalStateException("No result has been specified.");
@@ -27,6 +27,7 @@ import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.resources.ResourceException;
 import org.gradle.cache.internal.ProducerGuard;
 import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.hash.HashUtil;
 import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.resource.ExternalResource;
@@ -51,6 +52,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExternalResourceAccessor {
 
@@ -245,13 +249,30 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
         @Override
         public Object execute(InputStream inputStream, ExternalResourceMetaData metaData) throws IOException {
             this.metaData = metaData;
+            // Calculate the checksum of the content as it is written, so that the content does not have to be read again to verify it
+            DigestInputStream digestInputStream = new DigestInputStream(inputStream, createSha1Digest());
             FileOutputStream outputStream = new FileOutputStream(destination);
             try {
-                IOUtils.copyLarge(inputStream, outputStream);
+                IOUtils.copyLarge(digestInputStream, outputStream);
             } finally {
                 outputStream.close();
             }
+            HashValue expectedSha1 = metaData.getSha1();
+            if (expectedSha1 != null) {
+                HashValue actualSha1 = new HashValue(digestInputStream.getMessageDigest().digest());
+                if (!actualSha1.equals(expectedSha1)) {
+                    throw new IOException(String.format("SHA-1 of downloaded content %s does not match the SHA-1 %s sent by the server.", actualSha1.asHexString(), expectedSha1.asHexString()));
+                }
+            }
             return null;
         }
+
+        private static MessageDigest createSha1Digest() {
+            try {
+                return MessageDigest.getInstance("SHA1");
+            } catch (NoSuchAlgorithmException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
     }
 }
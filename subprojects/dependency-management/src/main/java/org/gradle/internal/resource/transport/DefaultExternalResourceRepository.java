@@ -81,6 +81,10 @@ public class DefaultExternalResourceRepository implements ExternalResourceReposi
         return lister.list(parent);
     }
 
+    public ExternalResourceListing list(URI parent, ExternalResourceListing previous) {
+        return lister.list(parent, previous);
+    }
+
     public String toString() {
         return name;
     }
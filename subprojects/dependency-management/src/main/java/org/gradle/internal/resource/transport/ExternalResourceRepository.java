@@ -21,6 +21,7 @@ import org.gradle.api.resources.ResourceException;
 import org.gradle.internal.resource.ExternalResource;
 import org.gradle.internal.resource.local.LocalResource;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+import org.gradle.internal.resource.transfer.ExternalResourceListing;
 
 import java.io.IOException;
 import java.net.URI;
@@ -72,4 +73,15 @@ public interface ExternalResourceRepository {
      */
     @Nullable
     List<String> list(URI parent) throws ResourceException;
+
+    /**
+     * Return a listing of child resources names, unless the parent has not changed since the given listing was made.
+     *
+     * @param parent The parent directory from which to generate the listing.
+     * @param previous An earlier listing of the given parent, or null.
+     * @return A listing of the direct children of the given parent. Returns the previous listing when the parent has not changed, and null when the parent resource does not exist.
+     * @throws ResourceException On listing failure.
+     */
+    @Nullable
+    ExternalResourceListing list(URI parent, @Nullable ExternalResourceListing previous) throws ResourceException;
 }
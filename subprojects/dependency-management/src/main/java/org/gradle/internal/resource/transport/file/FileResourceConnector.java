@@ -22,6 +22,7 @@ import org.gradle.internal.resource.local.LocallyAvailableExternalResource;
 import org.gradle.internal.resource.local.DefaultLocallyAvailableResource;
 import org.gradle.internal.resource.local.LocalResource;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+import org.gradle.internal.resource.transfer.ExternalResourceListing;
 import org.gradle.internal.resource.transport.ExternalResourceRepository;
 import org.gradle.util.GFileUtils;
 
@@ -50,6 +51,11 @@ public class FileResourceConnector implements ExternalResourceRepository {
         return null;
     }
 
+    @Override
+    public ExternalResourceListing list(URI parent, ExternalResourceListing previous) {
+        return ExternalResourceListing.of(list(parent));
+    }
+
     @Override
     public void put(LocalResource source, URI destination) throws IOException {
         File target = getFile(destination);
@@ -18,6 +18,8 @@ package org.gradle.api.internal.artifacts.ivyservice.ivyresolve
 
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier
 import org.gradle.api.internal.artifacts.ComponentMetadataProcessor
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector
 import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory
 import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy
 import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.ModuleVersionsCache
@@ -40,6 +42,7 @@ import org.gradle.internal.resolve.result.DefaultBuildableModuleComponentMetaDat
 import org.gradle.internal.resolve.result.DefaultBuildableModuleVersionListingResolveResult
 import org.gradle.internal.resource.cached.CachedArtifactIndex
 import org.gradle.internal.resource.cached.ivy.ArtifactAtRepositoryKey
+import org.gradle.internal.resource.transfer.ExternalResourceListing
 import org.gradle.util.BuildCommencedTimeProvider
 import spock.lang.Specification
 import spock.lang.Unroll
@@ -52,7 +55,7 @@ class CachingModuleComponentRepositoryTest extends Specification {
         getLocalAccess() >> realLocalAccess
         getRemoteAccess() >> realRemoteAccess
     }
-    def moduleResolutionCache = Stub(ModuleVersionsCache)
+    def moduleResolutionCache = Mock(ModuleVersionsCache)
     def moduleDescriptorCache = Mock(ModuleMetaDataCache)
     def moduleArtifactsCache = Mock(ModuleArtifactsCache)
     def artifactAtRepositoryCache = Mock(CachedArtifactIndex)
@@ -108,6 +111,35 @@ class CachingModuleComponentRepositoryTest extends Specification {
         0 * _
     }
 
+    def "caches the listings that module versions were listed from and reuses the listings of an expired entry"() {
+        def dependency = Stub(DependencyMetadata) {
+            getRequested() >> DefaultModuleVersionSelector.newSelector("group", "name", "1.+")
+        }
+        def moduleId = DefaultModuleIdentifier.newId("group", "name")
+        def location = "http://repo/group/name/"
+        def previousListing = new ExternalResourceListing(["1.0"], '"abc"', null)
+        def listing = new ExternalResourceListing(["1.0", "1.1"], '"def"', null)
+        def cached = Stub(ModuleVersionsCache.CachedModuleVersionList) {
+            getListings() >> [(location): previousListing]
+        }
+        def result = new DefaultBuildableModuleVersionListingResolveResult()
+
+        given:
+        moduleIdentifierFactory.module("group", "name") >> moduleId
+
+        when:
+        repo.remoteAccess.listModuleVersions(dependency, result)
+
+        then:
+        1 * moduleResolutionCache.getCachedModuleResolution(realRepo, moduleId) >> cached
+        1 * realRemoteAccess.listModuleVersions(dependency, result) >> {
+            assert result.getPreviousListing(location).is(previousListing)
+            result.addListing(location, listing)
+            result.listed(["1.0", "1.1"])
+        }
+        1 * moduleResolutionCache.cacheModuleVersionList(realRepo, moduleId, ["1.0", "1.1"] as Set, [(location): listing])
+    }
+
     def "does not use cache when component metadata can be determined locally"() {
         def componentId = Mock(ModuleComponentIdentifier)
         def prescribedMetaData = Mock(ComponentOverrideMetadata)
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser
+
+import spock.lang.Specification
+
+import javax.xml.stream.XMLStreamException
+
+class PomStreamingParserTest extends Specification {
+    static final String SYSTEM_ID = "file:/pom.xml"
+
+    def "reads the same elements as the DOM parser"() {
+        when:
+        def streamed = PomStreamingParser.parsePom(stream(pom), SYSTEM_ID)
+        def dom = PomDomParser.parsePom(stream(pom), SYSTEM_ID)
+
+        then:
+        render(streamed) == render(dom)
+
+        where:
+        pom << [
+            """<?xml version="1.0" encoding="UTF-8"?>
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-one</version>
+    <description>
+        The first test artifact
+    </description>
+</project>
+""",
+            """<project>
+    <parent><groupId>parent</groupId><artifactId>parent</artifactId><version>1</version></parent>
+    <properties><a.b>1</a.b><ns:c>2</ns:c><empty/></properties>
+    <dependencyManagement><dependencies><dependency><groupId>g</groupId><artifactId>bom</artifactId><type>pom</type><scope>import</scope></dependency></dependencies></dependencyManagement>
+    <dependencies>
+        <dependency>
+            <groupId>g</groupId><artifactId>a</artifactId><optional>true</optional>
+            <exclusions><exclusion><groupId>e</groupId><artifactId>e</artifactId></exclusion></exclusions>
+        </dependency>
+    </dependencies>
+    <profiles><profile><id>p</id><activation><activeByDefault>true</activeByDefault></activation><properties><p>1</p></properties></profile></profiles>
+</project>
+""",
+            """<model><groupId>g&amp;&oslash;</groupId><artifactId><![CDATA[a<b>]]>c</artifactId></model>"""
+        ]
+    }
+
+    def "does not retain the elements that are not read"() {
+        when:
+        def root = PomStreamingParser.parsePom(stream("""
+<project>
+    <groupId>group-one</groupId>
+    <build><plugins><plugin><groupId>ignored</groupId></plugin></plugins></build>
+    <developers><developer><name>ignored</name></developer></developers>
+    <profiles><profile><id>p</id><build><finalName>ignored</finalName></build></profile></profiles>
+</project>
+"""), SYSTEM_ID)
+
+        then:
+        root.children*.name == ["groupId", "profiles"]
+        root.getFirstChild("profiles").getFirstChild("profile").children*.name == ["id"]
+    }
+
+    def "replaces the HTML entities accepted in POM files"() {
+        when:
+        def root = PomStreamingParser.parsePom(stream("""<?xml version="1.0" encoding="UTF-8"?>
+<project><description>caf&eacute; &copy; &lt;&gt;</description></project>
+"""), SYSTEM_ID)
+
+        then:
+        root.getFirstChild("description").text == "café © <>"
+    }
+
+    def "fails on malformed XML"() {
+        when:
+        PomStreamingParser.parsePom(stream("<project><groupId>g</project>"), SYSTEM_ID)
+
+        then:
+        thrown(XMLStreamException)
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes("UTF-8"))
+    }
+
+    private static String render(PomElement element) {
+        return "${element.name}[${element.text}](${element.children.collect { render(it) }.join(',')})"
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.gradle.api.internal.artifacts.DefaultImmutableModuleIdentifierFactory
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.component.external.descriptor.DefaultExclude
+import org.gradle.internal.component.external.descriptor.MavenScope
+import org.gradle.internal.component.external.descriptor.MutableModuleDescriptorState
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultMutableMavenModuleResolveMetadata
+import org.gradle.internal.component.external.model.MavenDependencyMetadata
+import org.gradle.internal.component.external.model.MavenModuleResolveMetadata
+import spock.lang.Specification
+
+class CompactModuleMetadataStoreTest extends Specification {
+    def moduleIdentifierFactory = new DefaultImmutableModuleIdentifierFactory()
+    def entries = [:]
+    def cache = Stub(PersistentIndexedCache) {
+        get(_) >> { args -> entries[args[0]] }
+        put(_, _) >> { args -> entries[args[0]] = args[1] }
+    }
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        createCache(_) >> cache
+    }
+    def store = new CompactModuleMetadataStore(cacheLockingManager, moduleIdentifierFactory, new ModuleExclusions(moduleIdentifierFactory))
+
+    def "returns null for a module that is not stored"() {
+        expect:
+        store.getModuleDescriptor(key("org.test", "missing")) == null
+    }
+
+    def "reads the stored module metadata"() {
+        def metadata = mavenMetadata("org.test", "lib")
+
+        when:
+        def hash = store.putModuleDescriptor(key("org.test", "lib"), metadata)
+        def read = store.getModuleDescriptor(key("org.test", "lib")).asImmutable() as MavenModuleResolveMetadata
+
+        then:
+        hash != null
+        read.componentId == metadata.componentId
+        read.packaging == "jar"
+        read.dependencies.size() == 3
+        read.dependencies*.requested*.group == ["org.test.dep", "org.test.dep", "org.other"]
+        read.dependencies*.requested*.name == ["dep0", "dep1", "other"]
+        read.dependencies*.scope == [MavenScope.Compile, MavenScope.Compile, MavenScope.Runtime]
+        read.dependencies[2].optional
+        read.dependencies[0].excludes.size() == 1
+        read.dependencies[0].excludes[0].moduleId.group == "commons-logging"
+    }
+
+    def "shares the strings of modules that were read"() {
+        given:
+        store.putModuleDescriptor(key("org.test", "lib1"), mavenMetadata("org.test", "lib1"))
+        store.putModuleDescriptor(key("org.test", "lib2"), mavenMetadata("org.test", "lib2"))
+
+        when:
+        def first = store.getModuleDescriptor(key("org.test", "lib1")).asImmutable()
+        def second = store.getModuleDescriptor(key("org.test", "lib2")).asImmutable()
+
+        then:
+        first.dependencies[0].requested.group.is(second.dependencies[0].requested.group)
+        first.dependencies[0].requested.group.is(first.dependencies[1].requested.group)
+    }
+
+    private static ModuleComponentAtRepositoryKey key(String group, String module) {
+        new ModuleComponentAtRepositoryKey("repo", DefaultModuleComponentIdentifier.newId(group, module, "1.0"))
+    }
+
+    private MavenModuleResolveMetadata mavenMetadata(String group, String module) {
+        def id = DefaultModuleComponentIdentifier.newId(group, module, "1.0")
+        def exclude = new DefaultExclude(moduleIdentifierFactory.module("commons-logging", "commons-logging"))
+        def dependencies = [
+            new MavenDependencyMetadata(MavenScope.Compile, false, DefaultModuleVersionSelector.newSelector(new String("org.test.dep"), "dep0", "1.0"), [], [exclude]),
+            new MavenDependencyMetadata(MavenScope.Compile, false, DefaultModuleVersionSelector.newSelector(new String("org.test.dep"), "dep1", "1.0"), [], []),
+            new MavenDependencyMetadata(MavenScope.Runtime, true, DefaultModuleVersionSelector.newSelector("org.other", "other", "2.0"), [], [])
+        ]
+        return new DefaultMutableMavenModuleResolveMetadata(moduleIdentifierFactory.moduleWithVersion(group, module, "1.0"), id, new MutableModuleDescriptorState(id), "jar", false, dependencies).asImmutable()
+    }
+}
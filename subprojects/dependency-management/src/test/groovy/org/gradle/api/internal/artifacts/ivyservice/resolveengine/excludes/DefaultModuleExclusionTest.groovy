@@ -766,6 +766,28 @@ class DefaultModuleExclusionTest extends Specification {
         moduleExclusions.intersect(spec, otherRule)
     }
 
+    def "specs that contain the same rules are the same instance"() {
+        def rule1 = excludeRule("org", "module")
+        def rule2 = excludeRule("org", "module2")
+        def rule3 = excludeGroupRule("other")
+
+        expect:
+        excludeAny(rule1, rule2).is(excludeAny(rule2, rule1))
+        excludeAny(rule1, rule2).is(excludeAny(excludeRule("org", "module"), excludeRule("org", "module2")))
+        moduleExclusions.intersect(excludeAny(rule1), excludeAny(rule2, rule3)).is(moduleExclusions.intersect(excludeAny(rule2), excludeAny(rule1, rule3)))
+        moduleExclusions.union(excludeAny(rule1, rule3), excludeAny(rule2, rule3)).is(moduleExclusions.union(excludeAny(rule1, rule3), excludeAny(rule2, rule3)))
+    }
+
+    def "reuses the result of a union or intersection of the same specs"() {
+        def spec1 = excludeAny(excludeRule("org", "module"), excludeGroupRule("other"))
+        def spec2 = excludeAny(excludeModuleRule("module"), excludeRule("org", "module2"))
+
+        expect:
+        moduleExclusions.union(spec1, spec2).is(moduleExclusions.union(spec1, spec2))
+        moduleExclusions.intersect(spec1, spec2).is(moduleExclusions.intersect(spec1, spec2))
+        moduleExclusions.intersect(spec1, spec2).is(moduleExclusions.intersect(spec2, spec1))
+    }
+
     ModuleExclusion excludeAny(Exclude... excludes) {
         moduleExclusions.excludeAny(excludes)
     }
@@ -146,4 +146,25 @@ class ConflictContainerTest extends Specification {
         container.conflicts.size() == 1
         container.popConflict().toString() == "a,c,b:3"
     }
+
+    def "hooks up with the earliest matching conflict"() {
+        container.newElement("a", [1, 2], null)
+        container.newElement("b", [3, 4], null)
+        container.newElement("a", [1], "b")
+
+        expect:
+        container.conflicts.size() == 2
+        container.popConflict().toString() == "a,b:3,4"
+        container.popConflict().toString() == "b:3,4"
+    }
+
+    def "does not hook up with a conflict that was popped"() {
+        container.newElement("a", [1, 2], null)
+        container.popConflict()
+        container.newElement("a", [1, 2, 3], null)
+
+        expect:
+        container.conflicts.size() == 1
+        container.popConflict().toString() == "a:1,2,3"
+    }
 }
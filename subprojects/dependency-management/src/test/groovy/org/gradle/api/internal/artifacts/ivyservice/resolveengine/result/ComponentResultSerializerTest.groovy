@@ -21,6 +21,7 @@ import org.gradle.internal.component.external.model.DefaultModuleComponentIdenti
 import org.gradle.internal.serialize.SerializerSpec
 
 import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
+import static org.gradle.internal.component.local.model.TestComponentIdentifiers.newProjectId
 
 class ComponentResultSerializerTest extends SerializerSpec {
 
@@ -39,4 +40,30 @@ class ComponentResultSerializerTest extends SerializerSpec {
         result.moduleVersion == newId("org", "foo", "2.0")
         result.componentId == componentIdentifier
     }
+
+    def "serializes module component identifier that matches the module version without repeating it"() {
+        def componentIdentifier = new DefaultModuleComponentIdentifier('org', 'foo', '2.0')
+        def selection = new DefaultComponentResult(12L, newId("org", "foo", "2.0"), VersionSelectionReasons.REQUESTED, componentIdentifier)
+        def other = new DefaultComponentResult(12L, newId("org", "foo", "2.0"), VersionSelectionReasons.REQUESTED, new DefaultModuleComponentIdentifier('org', 'foo', '2.1'))
+
+        when:
+        def result = serialize(selection, serializer)
+
+        then:
+        result.moduleVersion == newId("org", "foo", "2.0")
+        result.componentId == componentIdentifier
+        toBytes(selection, serializer).length < toBytes(other, serializer).length
+    }
+
+    def "serializes project component identifier"() {
+        def componentIdentifier = newProjectId(":lib")
+        def selection = new DefaultComponentResult(12L, newId("org", "lib", "unspecified"), VersionSelectionReasons.REQUESTED, componentIdentifier)
+
+        when:
+        def result = serialize(selection, serializer)
+
+        then:
+        result.moduleVersion == newId("org", "lib", "unspecified")
+        result.componentId == componentIdentifier
+    }
 }
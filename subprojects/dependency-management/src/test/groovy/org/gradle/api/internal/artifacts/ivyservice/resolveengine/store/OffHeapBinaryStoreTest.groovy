@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store
+
+import org.gradle.api.internal.cache.BinaryStore
+import spock.lang.Specification
+
+class OffHeapBinaryStoreTest extends Specification {
+    def memory = new OffHeapBinaryStore.Memory(1024 * 1024)
+    def store = new OffHeapBinaryStore(memory)
+
+    def cleanup() {
+        store.close()
+    }
+
+    def "stores binary data"() {
+        when:
+        store.write({ it.writeInt(10) } as BinaryStore.WriteAction)
+        store.write({ it.writeString("x") } as BinaryStore.WriteAction)
+        def data1 = store.done()
+        store.write({ it.writeString("y") } as BinaryStore.WriteAction)
+        def data2 = store.done()
+
+        then:
+        data1.read({ it.readInt() } as BinaryStore.ReadAction) == 10
+        data1.read({ it.readString() } as BinaryStore.ReadAction) == "x"
+        data1.close()
+
+        data2.read({ it.readString() } as BinaryStore.ReadAction) == "y"
+        data2.close()
+    }
+
+    def "data can be re-read"() {
+        when:
+        store.write({ it.writeInt(10) } as BinaryStore.WriteAction)
+        store.write({ it.writeString("x") } as BinaryStore.WriteAction)
+        def data = store.done()
+
+        then:
+        data.read({ it.readInt() } as BinaryStore.ReadAction) == 10
+        data.read({ it.readString() } as BinaryStore.ReadAction) == "x"
+        data.close()
+
+        then:
+        data.read({ it.readInt() } as BinaryStore.ReadAction) == 10
+        data.read({ it.readString() } as BinaryStore.ReadAction) == "x"
+        data.close()
+    }
+
+    def "reads data that spans several chunks"() {
+        def value = "x" * (OffHeapBinaryStore.CHUNK_SIZE + 100)
+
+        when:
+        store.write({ it.writeString("first") } as BinaryStore.WriteAction)
+        def data1 = store.done()
+        store.write({ it.writeString(value); it.writeInt(42) } as BinaryStore.WriteAction)
+        def data2 = store.done()
+        store.write({ it.writeString("last") } as BinaryStore.WriteAction)
+        def data3 = store.done()
+
+        then:
+        data2.read({ it.readString() } as BinaryStore.ReadAction) == value
+        data2.read({ it.readInt() } as BinaryStore.ReadAction) == 42
+        data3.read({ it.readString() } as BinaryStore.ReadAction) == "last"
+        data1.read({ it.readString() } as BinaryStore.ReadAction) == "first"
+    }
+
+    def "accounts for the memory used by the store"() {
+        when:
+        store.write({ it.writeBytes(new byte[OffHeapBinaryStore.CHUNK_SIZE + 1]) } as BinaryStore.WriteAction)
+        store.done()
+
+        then:
+        store.size == 2 * OffHeapBinaryStore.CHUNK_SIZE
+        memory.used == 2 * OffHeapBinaryStore.CHUNK_SIZE
+        memory.hasCapacity()
+
+        when:
+        store.write({ it.writeBytes(new byte[2 * OffHeapBinaryStore.CHUNK_SIZE]) } as BinaryStore.WriteAction)
+        store.done()
+
+        then:
+        memory.used == 4 * OffHeapBinaryStore.CHUNK_SIZE
+        !memory.hasCapacity()
+
+        when:
+        store.close()
+
+        then:
+        memory.used == 0
+        memory.hasCapacity()
+    }
+
+    class SomeException extends RuntimeException {}
+
+    def "write action exception is propagated to the client"() {
+        when:
+        store.write({ throw new SomeException() } as BinaryStore.WriteAction)
+
+        then:
+        def e = thrown(Exception)
+        e.cause.class == SomeException
+    }
+
+    def "read action exception is propagated to the client"() {
+        store.write({ it.writeInt(10) } as BinaryStore.WriteAction)
+        def data = store.done()
+
+        when:
+        data.read({ throw new SomeException() } as BinaryStore.ReadAction)
+
+        then:
+        def e = thrown(Exception)
+        e.cause.class == SomeException
+
+        cleanup:
+        data.close()
+    }
+
+    def "may be empty"() {
+        when:
+        def data = store.done()
+        store.close()
+
+        then:
+        data.close()
+        memory.used == 0
+    }
+}
@@ -77,6 +77,30 @@ class ResolutionResultsStoreFactoryTest extends Specification {
         [store.file, store2.file, store3.file].each { !it.exists() }
     }
 
+    def "keeps binary stores off-heap until the off-heap memory is used up"() {
+        f = new ResolutionResultsStoreFactory(new TmpDirTemporaryFileProvider(), 2000000000, OffHeapBinaryStore.CHUNK_SIZE)
+
+        when:
+        def store = f.createStoreSet().nextBinaryStore()
+        store.write({it.writeByte((byte) 1)} as BinaryStore.WriteAction)
+        store.done()
+        def store2 = f.createStoreSet().nextBinaryStore()
+
+        then:
+        store instanceof OffHeapBinaryStore
+        store2 instanceof DefaultBinaryStore
+
+        when:
+        f.close()
+        def store3 = f.createStoreSet().nextBinaryStore()
+
+        then:
+        store3 instanceof OffHeapBinaryStore
+
+        cleanup:
+        f.close()
+    }
+
     def "provides stores"() {
         def set1 = f.createStoreSet()
         def set2 = f.createStoreSet()
@@ -20,7 +20,7 @@ import org.gradle.api.artifacts.ModuleIdentifier
 import org.gradle.api.resources.MissingResourceException
 import org.gradle.api.resources.ResourceException
 import org.gradle.internal.component.model.IvyArtifactName
-import org.gradle.internal.resolve.result.ResourceAwareResolveResult
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult
 import spock.lang.Specification
 
 class ChainedVersionListerTest extends Specification {
@@ -34,7 +34,7 @@ class ChainedVersionListerTest extends Specification {
     ResourcePattern pattern = Mock()
     ModuleIdentifier module = Mock()
     IvyArtifactName artifact = Mock()
-    ResourceAwareResolveResult result = Mock()
+    BuildableModuleVersionListingResolveResult result = Mock()
 
     def chainedVersionLister = new ChainedVersionLister(lister1, lister2)
 
@@ -20,8 +20,9 @@ import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
 import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
 import org.gradle.api.internal.artifacts.ivyservice.IvyUtil
 import org.gradle.internal.component.model.DefaultIvyArtifactName
-import org.gradle.internal.resolve.result.DefaultResourceAwareResolveResult
+import org.gradle.internal.resolve.result.DefaultBuildableModuleVersionListingResolveResult
 import org.gradle.api.resources.ResourceException
+import org.gradle.internal.resource.transfer.ExternalResourceListing
 import org.gradle.internal.resource.transport.ExternalResourceRepository
 import spock.lang.Specification
 import spock.lang.Unroll
@@ -33,7 +34,7 @@ class ResourceVersionListerTest extends Specification {
     def module = new DefaultModuleIdentifier("org.acme", "proj1")
     def moduleVersion = new DefaultModuleVersionIdentifier(module, "1.0")
     def artifact = new DefaultIvyArtifactName("proj1", "jar", "jar")
-    def result = new DefaultResourceAwareResolveResult()
+    def result = new DefaultBuildableModuleVersionListingResolveResult()
 
     def ResourceVersionLister lister;
 
@@ -45,7 +46,7 @@ class ResourceVersionListerTest extends Specification {
         setup:
         def failure = new RuntimeException("Test IO Exception")
         def testPattern = pattern("/a/pattern/with/[revision]/")
-        1 * repo.list(_) >> { throw failure }
+        1 * repo.list(_, _) >> { throw failure }
 
         when:
         def versionList = lister.newVisitor(module, [], result)
@@ -59,7 +60,7 @@ class ResourceVersionListerTest extends Specification {
 
     def "visit produces empty versionList for missing resource"() {
         setup:
-        1 * repo.list(_) >> null
+        1 * repo.list(_, _) >> null
 
         when:
         def versions = []
@@ -75,7 +76,7 @@ class ResourceVersionListerTest extends Specification {
 
     def "visit returns empty VersionList when repository contains empty list"() {
         setup:
-        1 * repo.list(_) >> []
+        1 * repo.list(_, _) >> listing([])
 
         when:
         def versions = []
@@ -97,7 +98,7 @@ class ResourceVersionListerTest extends Specification {
         versions == ["1", "2.1", "a-version"]
 
         and:
-        1 * repo.list(URI.create(repoListingPath)) >> repoResult
+        1 * repo.list(URI.create(repoListingPath), null) >> listing(repoResult)
         0 * repo._
 
         where:
@@ -134,8 +135,8 @@ class ResourceVersionListerTest extends Specification {
         versions == ["1.2", "1.3", "1.3", "1.4"]
 
         and:
-        1 * repo.list(URI.create("/")) >> ["1.2", "1.3"]
-        1 * repo.list(URI.create("/org.acme/")) >> ["1.3", "1.4"]
+        1 * repo.list(URI.create("/"), null) >> listing(["1.2", "1.3"])
+        1 * repo.list(URI.create("/org.acme/"), null) >> listing(["1.3", "1.4"])
         0 * repo._
     }
 
@@ -151,7 +152,7 @@ class ResourceVersionListerTest extends Specification {
         versions == ["1.2", "1.3"]
 
         and:
-        1 * repo.list(URI.create("/a/")) >> ["1.2", "1.3"]
+        1 * repo.list(URI.create("/a/"), null) >> listing(["1.2", "1.3"])
         0 * repo._
     }
 
@@ -162,7 +163,7 @@ class ResourceVersionListerTest extends Specification {
         versionList.visit(pattern(inputPattern), artifact)
 
         then:
-        1 * repo.list(URI.create(repoPath)) >> ['1.2']
+        1 * repo.list(URI.create(repoPath), null) >> listing(['1.2'])
 
         where:
         inputPattern                                  | repoPath
@@ -177,7 +178,7 @@ class ResourceVersionListerTest extends Specification {
 
     def "visit returns empty version list when pattern has no revision token"() {
         setup:
-        repo.list(_) >> repoResult
+        repo.list(_, _) >> listing(repoResult)
 
         when:
         def versions = []
@@ -192,6 +193,28 @@ class ResourceVersionListerTest extends Specification {
         "/some/pattern/with/no/revision" | ["/some/1-version", "/some/2.1-version", "/some/a-version-version"]
     }
 
+    def "visit lists directory conditionally on the listing that was made when versions were last listed"() {
+        def previous = new ExternalResourceListing(["1.2", "1.3"], '"abc"', null)
+        result.setPreviousListings(["/a/": previous])
+
+        when:
+        def versions = []
+        def versionList = lister.newVisitor(module, versions, result)
+        versionList.visit(pattern("/a/[revision]/[artifact]-[revision].[ext]"), artifact)
+
+        then:
+        versions == ["1.2", "1.3"]
+        result.listings == ["/a/": previous]
+
+        and:
+        1 * repo.list(URI.create("/a/"), previous) >> previous
+        0 * repo._
+    }
+
+    def listing(List<String> children) {
+        return ExternalResourceListing.of(children)
+    }
+
     def pattern(String pattern) {
         return new IvyResourcePattern(pattern)
     }
@@ -157,6 +157,69 @@ class DefaultArtifactTransformsTest extends Specification {
         0 * transformer._
     }
 
+    def "applies each step of a chain of transforms to the outputs of the previous step in a separate operation"() {
+        def variant1 = Stub(ResolvedVariant)
+        def variant1Artifacts = Stub(ResolvedArtifactSet)
+        def sourceArtifact = Stub(TestArtifact)
+        def sourceArtifactFile = new File("thing-1.0.aar")
+        def intermediate1 = new File("classes.jar")
+        def intermediate2 = new File("lib.jar")
+        def outFile1 = new File("out1.classes")
+        def outFile2 = new File("out2.classes")
+        def outFile3 = new File("out3.classes")
+        def set = Stub(ResolvedVariantSet)
+        def variants = [variant1] as Set
+        def transformer1 = Mock(Transformer)
+        def transformer2 = Mock(Transformer)
+        def queue = new TestBuildOperationExecutor.TestBuildOperationQueue<RunnableBuildOperation>()
+        def visitor = Mock(ArtifactVisitor)
+        def targetAttributes = typeAttributes("classes")
+
+        given:
+        set.schema >> producerSchema
+        set.variants >> variants
+        variant1.attributes >> typeAttributes("aar")
+        variant1.artifacts >> variant1Artifacts
+        sourceArtifact.file >> sourceArtifactFile
+
+        consumerSchema.withProducer(producerSchema) >> attributeMatcher
+        attributeMatcher.matches(_, _) >> []
+
+        matchingCache.collectConsumerVariants(typeAttributes("aar"), targetAttributes, _) >> { AttributeContainerInternal from, AttributeContainerInternal to, ConsumerVariantMatchResult result ->
+            result.matched(to, new ChainedTransformer(transformer1, transformer2), 2)
+        }
+
+        def result = transforms.variantSelector(targetAttributes, true).select(set)
+
+        when:
+        result.startVisit(queue, Stub(ResolvedArtifactSet.AsyncArtifactListener)).visit(visitor)
+
+        then:
+        _ * variant1Artifacts.startVisit(_, _) >> { BuildOperationQueue q, ResolvedArtifactSet.AsyncArtifactListener l ->
+            l.artifactAvailable(sourceArtifact)
+            return new ResolvedArtifactSet.Completion() {
+                @Override
+                void visit(ArtifactVisitor v) {
+                    v.visitArtifact(targetAttributes, sourceArtifact)
+                }
+            }
+        }
+        1 * transformer1.transform(sourceArtifactFile) >> [intermediate1, intermediate2]
+        1 * transformer2.transform(intermediate1) >> [outFile1, outFile2]
+        1 * transformer2.transform(intermediate2) >> [outFile3]
+        1 * visitor.visitArtifact(targetAttributes, {it.file == outFile1})
+
+        then:
+        1 * visitor.visitArtifact(targetAttributes, {it.file == outFile2})
+
+        then:
+        1 * visitor.visitArtifact(targetAttributes, {it.file == outFile3})
+        0 * visitor._
+
+        and:
+        queue.operations.size() == 3
+    }
+
     def "fails when multiple transforms match"() {
         def variant1 = Stub(ResolvedVariant)
         def variant2 = Stub(ResolvedVariant)
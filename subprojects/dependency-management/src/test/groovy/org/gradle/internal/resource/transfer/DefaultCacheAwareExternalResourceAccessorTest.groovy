@@ -20,6 +20,7 @@ import org.gradle.api.Transformer
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.DefaultExternalResourceCachePolicy
 import org.gradle.api.internal.file.TemporaryFileProvider
+import org.gradle.api.resources.ResourceException
 import org.gradle.cache.internal.ProducerGuard
 import org.gradle.internal.hash.HashUtil
 import org.gradle.internal.resource.ExternalResource
@@ -118,6 +119,7 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
             a.execute(new ByteArrayInputStream(), metaData)
         }
         1 * remoteResource.close()
+        _ * metaData.sha1 >> null
 
         and:
         1 * cacheLockingManager.useCache(_) >> { org.gradle.internal.Factory factory ->
@@ -128,6 +130,34 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         0 * _._
     }
 
+    def "fails and does not move resource into the cache when the downloaded content does not match the sha1 sent by the server"() {
+        def uri = new URI("scheme:thing")
+        def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
+        def localCandidates = Mock(LocallyAvailableResourceCandidates)
+        def remoteResource = Mock(ExternalResource)
+        def metaData = Mock(ExternalResourceMetaData)
+
+        when:
+        cache.getResource(uri, fileStore, localCandidates)
+
+        then:
+        ResourceException e = thrown()
+        e.cause.message == "SHA-1 of downloaded content ${HashUtil.createHash("truncated", "SHA1").asHexString()} does not match the SHA-1 ${HashUtil.createHash("content", "SHA1").asHexString()} sent by the server."
+
+        and:
+        1 * index.lookup("scheme:thing") >> null
+        1 * localCandidates.isNone() >> true
+        1 * repository.withProgressLogging() >> progressLoggingRepo
+        1 * progressLoggingRepo.getResource(uri, false) >> remoteResource
+        1 * remoteResource.withContent(_) >> { ExternalResource.ContentAction a ->
+            a.execute(new ByteArrayInputStream("truncated".bytes), metaData)
+        }
+        1 * remoteResource.close()
+        _ * metaData.sha1 >> HashUtil.createHash("content", "SHA1")
+        0 * fileStore._
+        0 * index.store(_, _, _)
+    }
+
     def "reuses cached resource if it has not expired"() {
         def uri = new URI("scheme:thing")
         def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
@@ -24,6 +24,8 @@ enum JavaTestProject {
     MEDIUM_MONOLITHIC_JAVA_PROJECT("mediumMonolithicJavaProject", 10000, 0, '4g'),
     MEDIUM_JAVA_MULTI_PROJECT("mediumJavaMultiProject", 100, 100, '256m'),
 
+    SMALL_MODULES_JAVA_MULTI_PROJECT("smallModulesJavaMultiProject", 20, 200, '256m'),
+
     MEDIUM_JAVA_MULTI_PROJECT_WITH_TEST_NG("mediumJavaMultiProjectWithTestNG", 100, 100, '256m', true)
 
     private TestProjectGeneratorConfiguration config
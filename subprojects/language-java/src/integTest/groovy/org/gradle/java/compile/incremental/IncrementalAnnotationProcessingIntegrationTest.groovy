@@ -0,0 +1,365 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.java.compile.incremental
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.CompilationOutputsFixture
+import org.gradle.internal.jvm.Jvm
+import org.gradle.util.TextUtil
+import spock.lang.IgnoreIf
+
+class IncrementalAnnotationProcessingIntegrationTest extends AbstractIntegrationSpec {
+
+    CompilationOutputsFixture outputs
+
+    def setup() {
+        executer.requireOwnGradleUserHomeDir()
+        outputs = new CompilationOutputsFixture(file("build/classes"))
+
+        settingsFile << "include 'processor'"
+        buildFile << """
+            apply plugin: 'java'
+
+            configurations {
+                processor
+            }
+            dependencies {
+                compileOnly project(':processor')
+                processor project(':processor')
+            }
+            compileJava.options.incremental = true
+            compileJava.options.annotationProcessorPath = configurations.processor
+
+            project(':processor') {
+                apply plugin: 'java'
+            }
+        """
+
+        writeIsolatingProcessor()
+        writeAggregatingProcessor()
+        file("processor/src/main/resources/META-INF/services/javax.annotation.processing.Processor").text = """
+            HelperProcessor
+            ServiceRegistryProcessor
+        """.stripIndent().trim()
+        file("processor/src/main/resources/META-INF/gradle/incremental.annotation.processors").text = """
+            HelperProcessor,isolating
+            ServiceRegistryProcessor,aggregating
+        """.stripIndent().trim()
+    }
+
+    private File java(String... classBodies) {
+        File out
+        for (String body : classBodies) {
+            def className = (body =~ /(?s).*?class (\w+) .*/)[0][1]
+            assert className: "unable to find class name"
+            def f = file("src/main/java/${className}.java")
+            f.createFile()
+            f.text = body
+            out = f
+        }
+        out
+    }
+
+    def "recompiles the origin and the type generated from it when the origin changes"() {
+        def a = java "@Helper class A {}"
+        java "@Helper class B {}", "class Unrelated {}"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        a.text = "@Helper class A { void foo() {} }"
+        run "compileJava"
+
+        then:
+        outputs.recompiledClasses "A", "AHelper"
+    }
+
+    def "recompiles the classes using a generated type when its origin changes"() {
+        def a = java "@Helper class A {}"
+        java "class UsesHelper { AHelper helper; }", "class Unrelated {}"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        a.text = "@Helper class A { void foo() {} }"
+        run "compileJava"
+
+        then:
+        outputs.recompiledClasses "A", "AHelper", "UsesHelper"
+    }
+
+    def "does not run the isolating processor again when an unrelated class changes"() {
+        java "@Helper class A {}"
+        def unrelated = java "class Unrelated {}"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        unrelated.text = "class Unrelated { void foo() {} }"
+        run "compileJava"
+
+        then:
+        outputs.recompiledClasses "Unrelated"
+    }
+
+    def "deletes the generated type when its origin is deleted"() {
+        def a = java "@Helper class A {}"
+        java "@Helper class B {}"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        assert a.delete()
+        run "compileJava"
+
+        then:
+        outputs.noneRecompiled()
+        outputs.deletedClasses "A", "AHelper"
+    }
+
+    def "generates a type for a new annotated class"() {
+        java "@Helper class A {}", "class Unrelated {}"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        java "@Helper class B {}"
+        run "compileJava"
+
+        then:
+        outputs.recompiledClasses "B", "BHelper"
+    }
+
+    def "regenerates the aggregated type from all annotated classes when a new annotated class is added"() {
+        java "@Service class A {}", "@Service class B {}", "class Unrelated {}"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        java "@Service class C {}"
+        run "compileJava"
+
+        then:
+        outputs.recompiledClasses "A", "B", "C", "ServiceRegistry"
+        serviceRegistry.contains("A.class")
+        serviceRegistry.contains("B.class")
+        serviceRegistry.contains("C.class")
+    }
+
+    def "regenerates the aggregated type when an annotated class is deleted"() {
+        def a = java "@Service class A {}"
+        java "@Service class B {}"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        assert a.delete()
+        run "compileJava"
+
+        then:
+        outputs.recompiledClasses "B", "ServiceRegistry"
+        outputs.deletedClasses "A"
+        !serviceRegistry.contains("A.class")
+        serviceRegistry.contains("B.class")
+    }
+
+    def "regenerates the aggregated type and recompiles its users whenever anything is recompiled"() {
+        java "@Service class A {}", "class UsesRegistry { ServiceRegistry registry; }"
+        def unrelated = java "class Unrelated {}"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        unrelated.text = "class Unrelated { void foo() {} }"
+        run "compileJava"
+
+        then:
+        outputs.recompiledClasses "A", "ServiceRegistry", "UsesRegistry", "Unrelated"
+    }
+
+    def "recompiles everything when the annotation processor path changes"() {
+        java "@Helper class A {}", "@Service class B {}", "class Unrelated {}"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        file("processor/src/main/java/HelperProcessor.java").text = file("processor/src/main/java/HelperProcessor.java").text.replace("return 1;", "return 2;")
+        executer.withArgument("--info")
+        run "compileJava"
+
+        then:
+        outputs.recompiledClasses "A", "AHelper", "B", "ServiceRegistry", "Unrelated"
+        outputContains("on the annotation processor path was changed")
+    }
+
+    def "recompiles everything after an annotation processor generated a resource"() {
+        def processor = file("processor/src/main/java/HelperProcessor.java")
+        processor.text = processor.text.replace("JavaFileObject sourceFile =",
+            "processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, \"\", helperName + \".txt\", element).openWriter().close();\n JavaFileObject sourceFile =")
+        def a = java "@Helper class A {}"
+        java "class Unrelated {}"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        a.text = "@Helper class A { void foo() {} }"
+        run "compileJava"
+
+        then:
+        outputs.recompiledClasses "A", "AHelper", "Unrelated"
+        outputContains("Annotation processing in the previous build could not be tracked: the annotation processor HelperProcessor generated resource")
+    }
+
+    @IgnoreIf({ !Jvm.current().getExecutable("javac").exists() })
+    def "recompiles everything after annotation processing was done by the command line compiler"() {
+        def executable = TextUtil.escapeString(Jvm.current().getExecutable("javac"))
+        buildFile << """
+            compileJava.options.with {
+                fork = true
+                forkOptions.executable = "$executable"
+            }
+        """
+        executer.beforeExecute {
+            expectDeprecationWarning()
+        }
+        def a = java "@Helper class A {}"
+        java "class Unrelated {}"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        a.text = "@Helper class A { void foo() {} }"
+        run "compileJava"
+
+        then:
+        outputs.recompiledClasses "A", "AHelper", "Unrelated"
+        outputContains("Annotation processing in the previous build could not be tracked: the compiler does not track annotation processing.")
+    }
+
+    private String getServiceRegistry() {
+        file("build/classes/main/ServiceRegistry.java").text
+    }
+
+    private void writeIsolatingProcessor() {
+        file("processor/src/main/java/Helper.java").text = """
+            import java.lang.annotation.*;
+
+            @Retention(RetentionPolicy.SOURCE)
+            public @interface Helper {
+            }
+        """
+        file("processor/src/main/java/HelperProcessor.java").text = """
+            import java.io.Writer;
+            import java.util.Collections;
+            import java.util.Set;
+            import javax.annotation.processing.*;
+            import javax.lang.model.SourceVersion;
+            import javax.lang.model.element.*;
+            import javax.tools.*;
+
+            public class HelperProcessor extends AbstractProcessor {
+                @Override
+                public Set<String> getSupportedAnnotationTypes() {
+                    return Collections.singleton(Helper.class.getName());
+                }
+
+                @Override
+                public SourceVersion getSupportedSourceVersion() {
+                    return SourceVersion.latestSupported();
+                }
+
+                @Override
+                public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+                    for (Element element : roundEnv.getElementsAnnotatedWith(Helper.class)) {
+                        String helperName = element.getSimpleName() + "Helper";
+                        try {
+                            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(helperName, element);
+                            Writer writer = sourceFile.openWriter();
+                            try {
+                                writer.write("class " + helperName + " { int getVersion() { return " + version() + "; } }");
+                            } finally {
+                                writer.close();
+                            }
+                        } catch (Exception e) {
+                            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to generate " + helperName, element);
+                        }
+                    }
+                    return true;
+                }
+
+                private static int version() {
+                    return 1;
+                }
+            }
+        """
+    }
+
+    private void writeAggregatingProcessor() {
+        file("processor/src/main/java/Service.java").text = """
+            import java.lang.annotation.*;
+
+            @Retention(RetentionPolicy.SOURCE)
+            public @interface Service {
+            }
+        """
+        file("processor/src/main/java/ServiceRegistryProcessor.java").text = """
+            import java.io.Writer;
+            import java.util.Collections;
+            import java.util.Set;
+            import javax.annotation.processing.*;
+            import javax.lang.model.SourceVersion;
+            import javax.lang.model.element.*;
+            import javax.tools.*;
+
+            public class ServiceRegistryProcessor extends AbstractProcessor {
+                @Override
+                public Set<String> getSupportedAnnotationTypes() {
+                    return Collections.singleton(Service.class.getName());
+                }
+
+                @Override
+                public SourceVersion getSupportedSourceVersion() {
+                    return SourceVersion.latestSupported();
+                }
+
+                @Override
+                public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+                    if (annotations.isEmpty()) {
+                        return false;
+                    }
+                    Set<? extends Element> services = roundEnv.getElementsAnnotatedWith(Service.class);
+                    StringBuilder body = new StringBuilder();
+                    for (Element service : services) {
+                        body.append(service.getSimpleName()).append(".class, ");
+                    }
+                    try {
+                        JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile("ServiceRegistry", services.toArray(new Element[0]));
+                        Writer writer = sourceFile.openWriter();
+                        try {
+                            writer.write("class ServiceRegistry { Class<?>[] services = { " + body + "}; }");
+                        } finally {
+                            writer.close();
+                        }
+                    } catch (Exception e) {
+                        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to generate ServiceRegistry");
+                    }
+                    return true;
+                }
+            }
+        """
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.analyzer;
+
+import com.google.common.io.ByteStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Analyses all the classes of a large library jar, as done when the jar is snapshotted for incremental Java compilation.
+ * The class files are read into memory up front, so that only the analysis is measured.
+ */
+@State(Scope.Benchmark)
+public class ClassDependenciesAnalyzerBenchmark {
+    @Param({"guava", "scala-library"})
+    String library;
+
+    List<byte[]> classFiles;
+    ClassDependenciesAnalyzer analyzer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        String libraryClass = "guava".equals(library) ? "com.google.common.collect.ImmutableList" : "scala.Predef";
+        File jar = new File(Class.forName(libraryClass).getProtectionDomain().getCodeSource().getLocation().toURI());
+        classFiles = readClassFiles(jar);
+        analyzer = new DefaultClassDependenciesAnalyzer();
+    }
+
+    @Benchmark
+    public void analyzeAllClasses(Blackhole bh) throws IOException {
+        for (byte[] classFile : classFiles) {
+            bh.consume(analyzer.getClassAnalysis(new ByteArrayInputStream(classFile)));
+        }
+    }
+
+    private static List<byte[]> readClassFiles(File jar) throws IOException {
+        List<byte[]> classFiles = new ArrayList<byte[]>();
+        ZipFile zipFile = new ZipFile(jar);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+                    continue;
+                }
+                InputStream input = zipFile.getInputStream(entry);
+                try {
+                    classFiles.add(ByteStreams.toByteArray(input));
+                } finally {
+                    input.close();
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+        return classFiles;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.internal.FileUtils;
+
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Serves the class files of the jars on the compile classpath from a {@link JarClassContentCache}, instead of having javac open and read the jars for every
+ * compilation. The class files in directories on the classpath are listed in classpath order, as javac does. When the classpath contains any other kind of
+ * file, such as a zip file, the classpath is listed by javac instead.
+ */
+public class ClassContentCachingFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    private final JarClassContentCache cache;
+
+    public ClassContentCachingFileManager(StandardJavaFileManager fileManager, JarClassContentCache cache) {
+        super(fileManager);
+        this.cache = cache;
+    }
+
+    @Override
+    public Iterable<JavaFileObject> list(Location location, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
+        if (location != StandardLocation.CLASS_PATH || !kinds.contains(JavaFileObject.Kind.CLASS)) {
+            return super.list(location, packageName, kinds, recurse);
+        }
+        Iterable<? extends File> classpath = fileManager.getLocation(location);
+        if (classpath == null || !isCacheable(classpath)) {
+            return super.list(location, packageName, kinds, recurse);
+        }
+        List<JavaFileObject> files = new ArrayList<JavaFileObject>();
+        for (File entry : classpath) {
+            if (entry.isDirectory()) {
+                listDirectory(entry, packageName, recurse, files);
+            } else if (entry.isFile()) {
+                JarClassContentCache.JarContents contents = cache.get(entry);
+                for (JarClassContentCache.ClassContent content : recurse ? contents.getClassesRecursively(packageName) : contents.getClasses(packageName)) {
+                    files.add(new CachedClassFileObject(content));
+                }
+            }
+        }
+        Set<JavaFileObject.Kind> otherKinds = EnumSet.noneOf(JavaFileObject.Kind.class);
+        otherKinds.addAll(kinds);
+        otherKinds.remove(JavaFileObject.Kind.CLASS);
+        if (!otherKinds.isEmpty()) {
+            for (JavaFileObject file : super.list(location, packageName, otherKinds, recurse)) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private static boolean isCacheable(Iterable<? extends File> classpath) {
+        for (File entry : classpath) {
+            if (entry.isFile() && !FileUtils.isJar(entry.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void listDirectory(File classesDir, String packageName, boolean recurse, List<JavaFileObject> files) {
+        File packageDir = packageName.length() == 0 ? classesDir : new File(classesDir, packageName.replace('.', File.separatorChar));
+        File[] children = packageDir.listFiles();
+        if (children == null) {
+            return;
+        }
+        List<File> classFiles = new ArrayList<File>();
+        for (File child : children) {
+            if (child.isFile() && child.getName().endsWith(".class")) {
+                classFiles.add(child);
+            }
+        }
+        for (JavaFileObject file : fileManager.getJavaFileObjectsFromFiles(classFiles)) {
+            files.add(file);
+        }
+        if (recurse) {
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    listDirectory(classesDir, packageName.length() == 0 ? child.getName() : packageName + "." + child.getName(), true, files);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String inferBinaryName(Location location, JavaFileObject file) {
+        if (file instanceof CachedClassFileObject) {
+            return ((CachedClassFileObject) file).content.getBinaryName();
+        }
+        return super.inferBinaryName(location, file);
+    }
+
+    @Override
+    public boolean isSameFile(FileObject a, FileObject b) {
+        if (a instanceof CachedClassFileObject || b instanceof CachedClassFileObject) {
+            return a.toUri().equals(b.toUri());
+        }
+        return super.isSameFile(a, b);
+    }
+
+    /**
+     * A class file in a jar. This does not extend {@link javax.tools.SimpleJavaFileObject}, which only accepts hierarchical URIs.
+     */
+    private static class CachedClassFileObject implements JavaFileObject {
+        private final JarClassContentCache.ClassContent content;
+
+        CachedClassFileObject(JarClassContentCache.ClassContent content) {
+            this.content = content;
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.CLASS;
+        }
+
+        @Override
+        public boolean isNameCompatible(String simpleName, Kind kind) {
+            if (kind != Kind.CLASS) {
+                return false;
+            }
+            String binaryName = content.getBinaryName();
+            return binaryName.endsWith(simpleName) && (binaryName.length() == simpleName.length() || binaryName.charAt(binaryName.length() - simpleName.length() - 1) == '.');
+        }
+
+        @Override
+        public URI toUri() {
+            return URI.create(content.getUri());
+        }
+
+        @Override
+        public String getName() {
+            return content.getUri();
+        }
+
+        @Override
+        public InputStream openInputStream() {
+            return new ByteArrayInputStream(content.getContent());
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Reader openReader(boolean ignoreEncodingErrors) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Writer openWriter() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getLastModified() {
+            return 0;
+        }
+
+        @Override
+        public boolean delete() {
+            return false;
+        }
+
+        @Override
+        public NestingKind getNestingKind() {
+            return null;
+        }
+
+        @Override
+        public Modifier getAccessLevel() {
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return content.getUri();
+        }
+    }
+}
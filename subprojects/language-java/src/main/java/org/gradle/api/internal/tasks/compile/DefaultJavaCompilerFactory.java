@@ -24,6 +24,12 @@ import javax.tools.JavaCompiler;
 import java.io.File;
 
 public class DefaultJavaCompilerFactory implements JavaCompilerFactory {
+    /**
+     * When set to {@code true}, the JDK compiler keeps the class files of the jars on compile classpaths in memory, keyed by the jar content hash, so that later
+     * compilations in the same build daemon or compiler daemon do not read the jars again.
+     */
+    public static final String CACHE_CLASSPATH_JARS_PROPERTY = "org.gradle.internal.java.compile.cacheClasspathJars";
+
     private final File daemonWorkingDir;
     private final WorkerDaemonFactory workerDaemonFactory;
     private final Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory;
@@ -54,7 +60,7 @@ public class DefaultJavaCompilerFactory implements JavaCompilerFactory {
             return new CommandLineJavaCompiler();
         }
 
-        Compiler<JavaCompileSpec> compiler = new JdkJavaCompiler(javaHomeBasedJavaCompilerFactory);
+        Compiler<JavaCompileSpec> compiler = new JdkJavaCompiler(javaHomeBasedJavaCompilerFactory, Boolean.getBoolean(CACHE_CLASSPATH_JARS_PROPERTY));
         if (ForkingJavaCompileSpec.class.isAssignableFrom(type) && !jointCompilation) {
             return new DaemonJavaCompiler(daemonWorkingDir, compiler, workerDaemonFactory);
         }
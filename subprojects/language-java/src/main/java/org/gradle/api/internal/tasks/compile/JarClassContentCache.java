@@ -0,0 +1,210 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.gradle.api.UncheckedIOException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Keeps the class files of the jars on compile classpaths in memory, keyed by the hash of the jar content, so that the compilations run by a long-lived
+ * process do not read the same jars again. A jar is hashed again only when its length or timestamp changes.
+ *
+ * <p>There is one cache per process, which is either the build daemon or a compiler daemon.</p>
+ */
+public class JarClassContentCache {
+    private static final JarClassContentCache INSTANCE = new JarClassContentCache(Runtime.getRuntime().maxMemory() / 4);
+
+    private final ConcurrentMap<File, JarSnapshot> snapshots = new ConcurrentHashMap<File, JarSnapshot>();
+    private final Cache<HashCode, JarContents> contents;
+
+    public static JarClassContentCache getInstance() {
+        return INSTANCE;
+    }
+
+    JarClassContentCache(long maxBytes) {
+        contents = CacheBuilder.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher(new Weigher<HashCode, JarContents>() {
+                @Override
+                public int weigh(HashCode key, JarContents value) {
+                    return (int) Math.min(Integer.MAX_VALUE, value.size);
+                }
+            })
+            .softValues()
+            .build();
+    }
+
+    /**
+     * Returns the class files of the given jar.
+     */
+    public JarContents get(final File jar) {
+        final HashCode hash = hash(jar);
+        try {
+            return contents.get(hash, new Callable<JarContents>() {
+                @Override
+                public JarContents call() throws Exception {
+                    return read(jar);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new UncheckedIOException("Could not read " + jar, e.getCause());
+        }
+    }
+
+    private HashCode hash(File jar) {
+        long length = jar.length();
+        long lastModified = jar.lastModified();
+        JarSnapshot snapshot = snapshots.get(jar);
+        if (snapshot == null || snapshot.length != length || snapshot.lastModified != lastModified) {
+            try {
+                snapshot = new JarSnapshot(length, lastModified, Files.hash(jar, Hashing.md5()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not hash " + jar, e);
+            }
+            snapshots.put(jar, snapshot);
+        }
+        return snapshot.hash;
+    }
+
+    private static JarContents read(File jar) throws IOException {
+        Map<String, List<ClassContent>> classesByPackage = new HashMap<String, List<ClassContent>>();
+        long size = 0;
+        String jarUri = jar.toURI().toString();
+        ZipFile zipFile = new ZipFile(jar);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                // Versioned class files of multi-release jars live under META-INF
+                if (entry.isDirectory() || !name.endsWith(".class") || name.startsWith("META-INF/")) {
+                    continue;
+                }
+                byte[] content;
+                InputStream inputStream = zipFile.getInputStream(entry);
+                try {
+                    content = ByteStreams.toByteArray(inputStream);
+                } finally {
+                    inputStream.close();
+                }
+                int separator = name.lastIndexOf('/');
+                String packageName = separator < 0 ? "" : name.substring(0, separator).replace('/', '.');
+                String binaryName = name.substring(0, name.length() - ".class".length()).replace('/', '.');
+                List<ClassContent> classes = classesByPackage.get(packageName);
+                if (classes == null) {
+                    classes = new ArrayList<ClassContent>();
+                    classesByPackage.put(packageName, classes);
+                }
+                classes.add(new ClassContent(binaryName, "jar:" + jarUri + "!/" + name, content));
+                size += content.length;
+            }
+        } finally {
+            zipFile.close();
+        }
+        return new JarContents(classesByPackage, size);
+    }
+
+    private static class JarSnapshot {
+        final long length;
+        final long lastModified;
+        final HashCode hash;
+
+        JarSnapshot(long length, long lastModified, HashCode hash) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * The class files of a jar, by package.
+     */
+    public static class JarContents {
+        private final Map<String, List<ClassContent>> classesByPackage;
+        private final long size;
+
+        JarContents(Map<String, List<ClassContent>> classesByPackage, long size) {
+            this.classesByPackage = classesByPackage;
+            this.size = size;
+        }
+
+        public List<ClassContent> getClasses(String packageName) {
+            List<ClassContent> classes = classesByPackage.get(packageName);
+            return classes == null ? Collections.<ClassContent>emptyList() : classes;
+        }
+
+        /**
+         * Returns the classes in the given package and in the packages nested in it.
+         */
+        public List<ClassContent> getClassesRecursively(String packageName) {
+            List<ClassContent> classes = new ArrayList<ClassContent>();
+            String prefix = packageName + ".";
+            for (Map.Entry<String, List<ClassContent>> entry : classesByPackage.entrySet()) {
+                if (packageName.length() == 0 || entry.getKey().equals(packageName) || entry.getKey().startsWith(prefix)) {
+                    classes.addAll(entry.getValue());
+                }
+            }
+            return classes;
+        }
+    }
+
+    public static class ClassContent {
+        private final String binaryName;
+        private final String uri;
+        private final byte[] content;
+
+        ClassContent(String binaryName, String uri, byte[] content) {
+            this.binaryName = binaryName;
+            this.uri = uri;
+            this.content = content;
+        }
+
+        public String getBinaryName() {
+            return binaryName;
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+    }
+}
@@ -15,7 +15,12 @@
  */
 package org.gradle.api.internal.tasks.compile;
 
+import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.tasks.SimpleWorkResult;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDeclaration;
+import org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType;
+import org.gradle.api.internal.tasks.compile.processing.TrackingProcessor;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.compile.CompileOptions;
 import org.gradle.internal.Factory;
@@ -23,40 +28,139 @@ import org.gradle.language.base.internal.compile.Compiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.processing.Processor;
 import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(JdkJavaCompiler.class);
     private final Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory;
+    private final boolean cacheClasspathJars;
 
     public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory) {
+        this(javaHomeBasedJavaCompilerFactory, false);
+    }
+
+    /**
+     * @param cacheClasspathJars whether to keep the class files of classpath jars in memory, for the compilations run later by the same process.
+     */
+    public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory, boolean cacheClasspathJars) {
         this.javaHomeBasedJavaCompilerFactory = javaHomeBasedJavaCompilerFactory;
+        this.cacheClasspathJars = cacheClasspathJars;
     }
 
     @Override
     public WorkResult execute(JavaCompileSpec spec) {
         LOGGER.info("Compiling with JDK Java compiler API.");
 
-        JavaCompiler.CompilationTask task = createCompileTask(spec);
-        boolean success = task.call();
-        if (!success) {
-            throw new CompilationFailedException();
-        }
-
-        return new SimpleWorkResult(true);
-    }
-
-    private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec) {
         List<String> options = new JavaCompilerArgumentsBuilder(spec).build();
         JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
         CompileOptions compileOptions = spec.getCompileOptions();
         StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null);
         Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(spec.getSource());
-        return compiler.getTask(null, null, null, options, null, compilationUnits);
+        JavaFileManager taskFileManager = cacheClasspathJars ? new ClassContentCachingFileManager(fileManager, JarClassContentCache.getInstance()) : fileManager;
+        JavaCompiler.CompilationTask task = compiler.getTask(null, taskFileManager, null, options, null, compilationUnits);
+
+        AnnotationProcessingData processingResult = null;
+        ClassLoader processorClassLoader = null;
+        if (spec.getEffectiveAnnotationProcessors() != null && spec.getAnnotationProcessorPath() != null && !spec.getAnnotationProcessorPath().isEmpty()) {
+            List<AnnotationProcessorDeclaration> processors = getRequestedProcessors(spec);
+            if (processors != null) {
+                processingResult = new AnnotationProcessingData();
+                processorClassLoader = createProcessorClassLoader(fileManager, spec.getAnnotationProcessorPath());
+                task.setProcessors(createTrackingProcessors(processors, processorClassLoader, processingResult));
+            }
+        }
+
+        try {
+            boolean success = task.call();
+            if (!success) {
+                throw new CompilationFailedException();
+            }
+        } finally {
+            close(processorClassLoader);
+        }
+
+        if (processingResult != null) {
+            processingResult.writeTo(AnnotationProcessingData.getResultFile(spec.getTempDir()));
+        }
+        return new SimpleWorkResult(true);
+    }
+
+    private static ClassLoader createProcessorClassLoader(StandardJavaFileManager fileManager, List<File> annotationProcessorPath) {
+        try {
+            fileManager.setLocation(StandardLocation.ANNOTATION_PROCESSOR_PATH, annotationProcessorPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return fileManager.getClassLoader(StandardLocation.ANNOTATION_PROCESSOR_PATH);
+    }
+
+    /**
+     * Returns the processors javac would run, which are the ones named by a {@code -processor} compiler argument when one is present. Returns null when
+     * javac would run a processor that was not found on the processor path, which then cannot be tracked.
+     */
+    private static List<AnnotationProcessorDeclaration> getRequestedProcessors(JavaCompileSpec spec) {
+        List<String> compilerArgs = spec.getCompileOptions().getCompilerArgs();
+        int pos = compilerArgs.indexOf("-processor");
+        if (pos < 0 || pos == compilerArgs.size() - 1) {
+            return spec.getEffectiveAnnotationProcessors();
+        }
+        Map<String, AnnotationProcessorDeclaration> declarations = new HashMap<String, AnnotationProcessorDeclaration>();
+        for (AnnotationProcessorDeclaration declaration : spec.getEffectiveAnnotationProcessors()) {
+            declarations.put(declaration.getClassName(), declaration);
+        }
+        List<AnnotationProcessorDeclaration> processors = new ArrayList<AnnotationProcessorDeclaration>();
+        for (String processorName : compilerArgs.get(pos + 1).split(",")) {
+            AnnotationProcessorDeclaration declaration = declarations.get(processorName.trim());
+            if (declaration == null) {
+                LOGGER.debug("Not tracking annotation processing, as annotation processor {} was not found on the processor path.", processorName);
+                return null;
+            }
+            processors.add(declaration);
+        }
+        return processors;
+    }
+
+    /**
+     * Instantiates the processors, as javac would, so that what they generate can be recorded.
+     */
+    private static List<Processor> createTrackingProcessors(List<AnnotationProcessorDeclaration> declarations, ClassLoader processorClassLoader, AnnotationProcessingData processingResult) {
+        List<Processor> processors = new ArrayList<Processor>();
+        for (AnnotationProcessorDeclaration declaration : declarations) {
+            Processor processor;
+            try {
+                processor = (Processor) processorClassLoader.loadClass(declaration.getClassName()).newInstance();
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Could not create annotation processor " + declaration.getClassName() + ".", e);
+            }
+            if (declaration.getType() == IncrementalAnnotationProcessorType.AGGREGATING) {
+                processingResult.setHasAggregatingProcessors();
+            }
+            processors.add(new TrackingProcessor(processor, declaration, processingResult));
+        }
+        return processors;
+    }
+
+    private static void close(ClassLoader classLoader) {
+        if (classLoader instanceof Closeable) {
+            try {
+                ((Closeable) classLoader).close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close annotation processor class loader.", e);
+            }
+        }
     }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
+import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation;
+import org.gradle.api.internal.tasks.compile.incremental.recomp.RecompilationSpec;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+
+/**
+ * Adds the classes that have to be recompiled so that annotation processors generate the stale classes again.
+ *
+ * <p>A class generated by an isolating processor is recompiled along with the class it was generated from. When aggregating processors were run and
+ * any class is recompiled, all the classes that aggregating processors were run on and all the classes they generated are recompiled as well, so
+ * that the aggregating processors see all of their inputs again. The recompiled class may be a new annotated class that the processors have never
+ * seen before.</p>
+ */
+public class AnnotationProcessingChangeProcessor {
+
+    private final PreviousCompilation previousCompilation;
+
+    public AnnotationProcessingChangeProcessor(PreviousCompilation previousCompilation) {
+        this.previousCompilation = previousCompilation;
+    }
+
+    public void processChanges(RecompilationSpec spec) {
+        AnnotationProcessingData processingData = previousCompilation.getAnnotationProcessingData();
+        if (processingData.isEmpty()) {
+            return;
+        }
+        Deque<String> toVisit = new ArrayDeque<String>(spec.getClassNames());
+        if (processingData.hasAggregatingProcessors() && !toVisit.isEmpty()) {
+            for (String aggregatedType : processingData.getAggregatedTypes()) {
+                add(aggregatedType, spec, toVisit);
+            }
+            for (String generatedType : processingData.getGeneratedTypesDependingOnAllOthers()) {
+                addWithDependents(generatedType, spec, toVisit);
+            }
+        }
+        while (!toVisit.isEmpty() && !spec.isFullRebuildNeeded()) {
+            String className = toVisit.poll();
+            String originType = processingData.getGeneratedTypesToOrigins().get(className);
+            if (originType != null) {
+                add(originType, spec, toVisit);
+            }
+            for (String generatedType : processingData.getGeneratedTypes(className)) {
+                addWithDependents(generatedType, spec, toVisit);
+            }
+        }
+    }
+
+    private void addWithDependents(String className, RecompilationSpec spec, Deque<String> toVisit) {
+        add(className, spec, toVisit);
+        DependentsSet dependents = previousCompilation.getDependents(className, Collections.<Integer>emptySet());
+        if (dependents.isDependencyToAll()) {
+            String description = dependents.getDescription();
+            spec.setFullRebuildCause(description != null ? description : "generated class '" + className + "' has to be generated again", null);
+            return;
+        }
+        for (String dependent : dependents.getDependentClasses()) {
+            add(dependent, spec, toVisit);
+        }
+    }
+
+    private static void add(String className, RecompilationSpec spec, Deque<String> toVisit) {
+        if (spec.getClassNames().add(className)) {
+            toVisit.add(className);
+        }
+    }
+}
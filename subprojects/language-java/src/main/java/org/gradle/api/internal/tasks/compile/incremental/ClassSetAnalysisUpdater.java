@@ -19,19 +19,21 @@ package org.gradle.api.internal.tasks.compile.incremental;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
-import org.gradle.api.internal.cache.Stash;
 import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.hash.FileHasher;
 import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassFilesAnalyzer;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.api.internal.tasks.compile.incremental.deps.LocalClassSetAnalysisStore;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.time.Timer;
 import org.gradle.internal.time.Timers;
 
 import java.io.File;
+import java.util.HashSet;
 import java.util.Set;
 
 public class ClassSetAnalysisUpdater {
@@ -44,13 +46,13 @@ public class ClassSetAnalysisUpdater {
         }
     };
 
-    private final Stash<ClassSetAnalysisData> stash;
+    private final LocalClassSetAnalysisStore store;
     private final FileOperations fileOperations;
     private ClassDependenciesAnalyzer analyzer;
     private final FileHasher fileHasher;
 
-    public ClassSetAnalysisUpdater(Stash<ClassSetAnalysisData> stash, FileOperations fileOperations, ClassDependenciesAnalyzer analyzer, FileHasher fileHasher) {
-        this.stash = stash;
+    public ClassSetAnalysisUpdater(LocalClassSetAnalysisStore store, FileOperations fileOperations, ClassDependenciesAnalyzer analyzer, FileHasher fileHasher) {
+        this.store = store;
         this.fileOperations = fileOperations;
         this.analyzer = analyzer;
         this.fileHasher = fileHasher;
@@ -66,7 +68,27 @@ public class ClassSetAnalysisUpdater {
             fileOperations.fileTree(baseDir).visit(analyzer);
         }
         ClassSetAnalysisData data = analyzer.getAnalysis();
-        stash.put(data);
+        if (spec.getEffectiveAnnotationProcessors() != null) {
+            data = data.withAnnotationProcessingData(updateAnnotationProcessingData(spec, data));
+        }
+        store.put(data);
         LOG.info("Class dependency analysis for incremental compilation took {}.", clock.getElapsed());
     }
+
+    /**
+     * Combines what the annotation processors generated in this compilation with what they generated before, for the classes that were not recompiled.
+     */
+    private AnnotationProcessingData updateAnnotationProcessingData(JavaCompileSpec spec, ClassSetAnalysisData data) {
+        File resultFile = AnnotationProcessingData.getResultFile(spec.getTempDir());
+        AnnotationProcessingData current = AnnotationProcessingData.readFrom(resultFile);
+        fileOperations.delete(resultFile);
+        if (current == null) {
+            // Only the in-process and daemon compilers track annotation processing
+            current = new AnnotationProcessingData();
+            current.setFullRebuildCause("the compiler does not track annotation processing");
+        }
+        ClassSetAnalysisData previous = store.get();
+        AnnotationProcessingData previousProcessing = previous == null ? new AnnotationProcessingData() : previous.getAnnotationProcessingData();
+        return previousProcessing.merge(current, new HashSet<String>(data.getClassNames()));
+    }
 }
@@ -16,26 +16,46 @@
 
 package org.gradle.api.internal.tasks.compile.incremental;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshotWriter;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDeclaration;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.language.base.internal.compile.Compiler;
 
+import java.util.List;
+
 class IncrementalCompilationFinalizer implements Compiler<JavaCompileSpec> {
 
     private final Compiler<JavaCompileSpec> delegate;
     private final JarClasspathSnapshotWriter writer;
     private final ClassSetAnalysisUpdater updater;
+    private final List<AnnotationProcessorDeclaration> annotationProcessors;
 
     public IncrementalCompilationFinalizer(Compiler<JavaCompileSpec> delegate, JarClasspathSnapshotWriter writer,
                                            ClassSetAnalysisUpdater updater) {
+        this(delegate, writer, updater, null);
+    }
+
+    /**
+     * @param annotationProcessors the incremental annotation processors to track, or null when annotation processing is not tracked.
+     */
+    public IncrementalCompilationFinalizer(Compiler<JavaCompileSpec> delegate, JarClasspathSnapshotWriter writer,
+                                           ClassSetAnalysisUpdater updater, @Nullable List<AnnotationProcessorDeclaration> annotationProcessors) {
         this.delegate = delegate;
         this.writer = writer;
         this.updater = updater;
+        this.annotationProcessors = annotationProcessors;
     }
 
     @Override
     public WorkResult execute(JavaCompileSpec spec) {
+        if (annotationProcessors != null) {
+            //the compiler writes what the processors generated, get rid of a result left over by a failed compilation
+            AnnotationProcessingData.getResultFile(spec.getTempDir()).delete();
+            spec.setEffectiveAnnotationProcessors(annotationProcessors);
+        }
         WorkResult out = delegate.execute(spec);
 
         if (!(out instanceof RecompilationNotNecessary)) {
@@ -24,11 +24,16 @@ import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysis;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshotMaker;
 import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDeclaration;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDeclarationDetector;
+import org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.language.base.internal.compile.Compiler;
 
+import java.util.List;
+
 public class IncrementalCompilerDecorator {
 
     private static final Logger LOG = Logging.getLogger(IncrementalCompilerDecorator.class);
@@ -58,11 +63,23 @@ public class IncrementalCompilerDecorator {
     }
 
     public Compiler<JavaCompileSpec> prepareCompiler(IncrementalTaskInputs inputs) {
-        Compiler<JavaCompileSpec> compiler = getCompiler(inputs, sourceDirs);
-        return new IncrementalCompilationFinalizer(compiler, jarClasspathSnapshotMaker, classSetAnalysisUpdater);
+        List<AnnotationProcessorDeclaration> annotationProcessors = null;
+        AnnotationProcessorDeclaration nonIncrementalProcessor = null;
+        if (!annotationProcessorPath.isEmpty()) {
+            annotationProcessors = new AnnotationProcessorDeclarationDetector().detectProcessors(annotationProcessorPath);
+            for (AnnotationProcessorDeclaration annotationProcessor : annotationProcessors) {
+                if (annotationProcessor.getType() == IncrementalAnnotationProcessorType.UNKNOWN) {
+                    nonIncrementalProcessor = annotationProcessor;
+                    annotationProcessors = null;
+                    break;
+                }
+            }
+        }
+        Compiler<JavaCompileSpec> compiler = getCompiler(inputs, sourceDirs, nonIncrementalProcessor);
+        return new IncrementalCompilationFinalizer(compiler, jarClasspathSnapshotMaker, classSetAnalysisUpdater, annotationProcessors);
     }
 
-    private Compiler<JavaCompileSpec> getCompiler(IncrementalTaskInputs inputs, CompilationSourceDirs sourceDirs) {
+    private Compiler<JavaCompileSpec> getCompiler(IncrementalTaskInputs inputs, CompilationSourceDirs sourceDirs, AnnotationProcessorDeclaration nonIncrementalProcessor) {
         if (!inputs.isIncremental()) {
             LOG.lifecycle("{} - is not incremental (e.g. outputs have changed, no previous execution, etc.).", displayName);
             return cleaningCompiler;
@@ -71,8 +88,8 @@ public class IncrementalCompilerDecorator {
             LOG.lifecycle("{} - is not incremental. Unable to infer the source directories.", displayName);
             return cleaningCompiler;
         }
-        if (!annotationProcessorPath.isEmpty()) {
-            LOG.lifecycle("{} - is not incremental. Annotation processors are present.", displayName);
+        if (nonIncrementalProcessor != null) {
+            LOG.lifecycle("{} - is not incremental. Annotation processor {} does not declare itself incremental.", displayName, nonIncrementalProcessor.getClassName());
             return cleaningCompiler;
         }
         ClassSetAnalysisData data = compileCaches.getLocalClassSetAnalysisStore().get();
@@ -80,6 +97,11 @@ public class IncrementalCompilerDecorator {
             LOG.lifecycle("{} - is not incremental. No class analysis data available from the previous build.", displayName);
             return cleaningCompiler;
         }
+        String annotationProcessingRebuildCause = data.getAnnotationProcessingData().getFullRebuildCause();
+        if (annotationProcessingRebuildCause != null) {
+            LOG.lifecycle("{} - is not incremental. Annotation processing in the previous build could not be tracked: {}.", displayName, annotationProcessingRebuildCause);
+            return cleaningCompiler;
+        }
         PreviousCompilation previousCompilation = new PreviousCompilation(new ClassSetAnalysis(data), compileCaches.getLocalJarClasspathSnapshotStore(), compileCaches.getJarSnapshotCache());
         return new SelectiveCompiler(inputs, previousCompilation, cleaningCompiler, staleClassDetecter, compilationInitializer, jarClasspathSnapshotMaker);
     }
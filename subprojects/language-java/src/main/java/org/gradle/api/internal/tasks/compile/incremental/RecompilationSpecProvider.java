@@ -16,7 +16,9 @@
 
 package org.gradle.api.internal.tasks.compile.incremental;
 
+import com.google.common.collect.ImmutableSet;
 import org.gradle.api.Action;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarChangeProcessor;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshot;
@@ -25,16 +27,21 @@ import org.gradle.api.internal.tasks.compile.incremental.recomp.RecompilationSpe
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.api.tasks.incremental.InputFileDetails;
 
+import java.io.File;
+import java.util.Set;
+
 import static org.gradle.internal.FileUtils.hasExtension;
 
 public class RecompilationSpecProvider {
 
     private final SourceToNameConverter sourceToNameConverter;
     private final FileOperations fileOperations;
+    private final FileCollection annotationProcessorPath;
 
-    public RecompilationSpecProvider(SourceToNameConverter sourceToNameConverter, FileOperations fileOperations) {
+    public RecompilationSpecProvider(SourceToNameConverter sourceToNameConverter, FileOperations fileOperations, FileCollection annotationProcessorPath) {
         this.sourceToNameConverter = sourceToNameConverter;
         this.fileOperations = fileOperations;
+        this.annotationProcessorPath = annotationProcessorPath;
     }
 
     public RecompilationSpec provideRecompilationSpec(IncrementalTaskInputs inputs, PreviousCompilation previousCompilation, JarClasspathSnapshot jarClasspathSnapshot) {
@@ -43,7 +50,7 @@ public class RecompilationSpecProvider {
         JavaChangeProcessor javaChangeProcessor = new JavaChangeProcessor(previousCompilation, sourceToNameConverter);
         ClassChangeProcessor classChangeProcessor = new ClassChangeProcessor(previousCompilation);
         JarChangeProcessor jarChangeProcessor = new JarChangeProcessor(fileOperations, jarClasspathSnapshot, previousCompilation);
-        InputChangeAction action = new InputChangeAction(spec, javaChangeProcessor, classChangeProcessor, jarChangeProcessor);
+        InputChangeAction action = new InputChangeAction(spec, javaChangeProcessor, classChangeProcessor, jarChangeProcessor, ImmutableSet.copyOf(annotationProcessorPath.getFiles()));
 
         //go!
         inputs.outOfDate(action);
@@ -52,6 +59,9 @@ public class RecompilationSpecProvider {
             return action.spec;
         }
         inputs.removed(action);
+        if (action.spec.getFullRebuildCause() == null) {
+            new AnnotationProcessingChangeProcessor(previousCompilation).processChanges(action.spec);
+        }
         return action.spec;
     }
 
@@ -60,12 +70,14 @@ public class RecompilationSpecProvider {
         private final JavaChangeProcessor javaChangeProcessor;
         private final ClassChangeProcessor classChangeProcessor;
         private final JarChangeProcessor jarChangeProcessor;
+        private final Set<File> annotationProcessorPath;
 
-        public InputChangeAction(RecompilationSpec spec, JavaChangeProcessor javaChangeProcessor, ClassChangeProcessor classChangeProcessor, JarChangeProcessor jarChangeProcessor) {
+        public InputChangeAction(RecompilationSpec spec, JavaChangeProcessor javaChangeProcessor, ClassChangeProcessor classChangeProcessor, JarChangeProcessor jarChangeProcessor, Set<File> annotationProcessorPath) {
             this.spec = spec;
             this.javaChangeProcessor = javaChangeProcessor;
             this.classChangeProcessor = classChangeProcessor;
             this.jarChangeProcessor = jarChangeProcessor;
+            this.annotationProcessorPath = annotationProcessorPath;
         }
 
         @Override
@@ -73,6 +85,11 @@ public class RecompilationSpecProvider {
             if (spec.getFullRebuildCause() != null) {
                 return;
             }
+            if (isOnAnnotationProcessorPath(input.getFile())) {
+                // The processors may have changed, so what they generate for any of the sources may have changed too
+                spec.setFullRebuildCause("'" + input.getFile().getName() + "' on the annotation processor path was changed", input.getFile());
+                return;
+            }
             if (hasExtension(input.getFile(), ".java")) {
                 javaChangeProcessor.processChange(input, spec);
             } else if (hasExtension(input.getFile(), ".class")) {
@@ -81,5 +98,18 @@ public class RecompilationSpecProvider {
                 jarChangeProcessor.processChange(input, spec);
             }
         }
+
+        private boolean isOnAnnotationProcessorPath(File file) {
+            if (annotationProcessorPath.isEmpty()) {
+                return false;
+            }
+            // The path may contain directories, in which case the changed file is below one of them
+            for (File current = file; current != null; current = current.getParentFile()) {
+                if (annotationProcessorPath.contains(current)) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 }
@@ -19,12 +19,14 @@ package org.gradle.api.internal.tasks.compile.incremental.deps;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData;
 import org.gradle.internal.serialize.AbstractSerializer;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.SetSerializer;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -38,17 +40,27 @@ public class ClassSetAnalysisData {
     final Map<String, Set<Integer>> classesToConstants;
     final Map<Integer, Set<String>> literalsToClasses;
     final Map<String, Set<String>> classesToChildren;
+    final AnnotationProcessingData annotationProcessingData;
 
     public ClassSetAnalysisData(Map<String, String> filePathToClassName, Map<String, DependentsSet> dependents, Multimap<String, Integer> classesToConstants, Multimap<Integer, String> literalsToClasses, Multimap<String, String> classesToChildren) {
         this(filePathToClassName, dependents, asMap(classesToConstants), asMap(literalsToClasses), asMap(classesToChildren));
     }
 
     public ClassSetAnalysisData(Map<String, String> filePathToClassName, Map<String, DependentsSet> dependents, Map<String, Set<Integer>> classesToConstants, Map<Integer, Set<String>> literalsToClasses, Map<String, Set<String>> classesToChildren) {
+        this(filePathToClassName, dependents, classesToConstants, literalsToClasses, classesToChildren, new AnnotationProcessingData());
+    }
+
+    public ClassSetAnalysisData(Map<String, String> filePathToClassName, Map<String, DependentsSet> dependents, Map<String, Set<Integer>> classesToConstants, Map<Integer, Set<String>> literalsToClasses, Map<String, Set<String>> classesToChildren, AnnotationProcessingData annotationProcessingData) {
         this.filePathToClassName = filePathToClassName;
         this.dependents = dependents;
         this.classesToConstants = classesToConstants;
         this.literalsToClasses = literalsToClasses;
         this.classesToChildren = classesToChildren;
+        this.annotationProcessingData = annotationProcessingData;
+    }
+
+    public ClassSetAnalysisData withAnnotationProcessingData(AnnotationProcessingData annotationProcessingData) {
+        return new ClassSetAnalysisData(filePathToClassName, dependents, classesToConstants, literalsToClasses, classesToChildren, annotationProcessingData);
     }
 
     private static <K, V> Map<K, Set<V>> asMap(Multimap<K, V> multimap) {
@@ -80,8 +92,20 @@ public class ClassSetAnalysisData {
         return children == null ? Collections.<String>emptySet() : children;
     }
 
+    /**
+     * Returns the class names of all the classes in the analysis.
+     */
+    public Collection<String> getClassNames() {
+        return filePathToClassName.values();
+    }
+
+    public AnnotationProcessingData getAnnotationProcessingData() {
+        return annotationProcessingData;
+    }
+
     public static class Serializer extends AbstractSerializer<ClassSetAnalysisData> {
         private static final SetSerializer<Integer> INTEGER_SET_SERIALIZER = new SetSerializer<Integer>(INTEGER_SERIALIZER, false);
+        private static final AnnotationProcessingData.Serializer ANNOTATION_PROCESSING_DATA_SERIALIZER = new AnnotationProcessingData.Serializer();
 
         @Override
         public ClassSetAnalysisData read(Decoder decoder) throws Exception {
@@ -136,7 +160,9 @@ public class ClassSetAnalysisData {
                 classNameToChildren.put(parent, namesBuilder.build());
             }
 
-            return new ClassSetAnalysisData(filePathToClassNameBuilder.build(), dependentsBuilder.build(), classesToConstantsBuilder.build(), literalsToClassesBuilder.build(), classNameToChildren.build());
+            AnnotationProcessingData annotationProcessingData = ANNOTATION_PROCESSING_DATA_SERIALIZER.read(decoder);
+
+            return new ClassSetAnalysisData(filePathToClassNameBuilder.build(), dependentsBuilder.build(), classesToConstantsBuilder.build(), literalsToClassesBuilder.build(), classNameToChildren.build(), annotationProcessingData);
         }
 
         @Override
@@ -180,6 +206,8 @@ public class ClassSetAnalysisData {
                     writeClassName(className, classNameMap, encoder);
                 }
             }
+
+            ANNOTATION_PROCESSING_DATA_SERIALIZER.write(encoder, value.annotationProcessingData);
         }
 
         private DependentsSet readDependentsSet(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
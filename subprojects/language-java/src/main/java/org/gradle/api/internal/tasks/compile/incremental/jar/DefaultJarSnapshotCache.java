@@ -25,11 +25,17 @@ import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Caches jar snapshots in the persistent cache of the build, backed by snapshots shared in memory between builds. A snapshot taken from memory is
+ * still written to the persistent cache, as later builds of this project may no longer find it in memory.
+ */
 public class DefaultJarSnapshotCache implements JarSnapshotCache {
     private final MinimalPersistentCache<HashCode, JarSnapshotData> cache;
+    private final InMemoryJarSnapshotStore inMemoryStore;
 
-    public DefaultJarSnapshotCache(PersistentIndexedCache<HashCode, JarSnapshotData> persistentCache) {
-        cache = new MinimalPersistentCache<HashCode, JarSnapshotData>(persistentCache);
+    public DefaultJarSnapshotCache(PersistentIndexedCache<HashCode, JarSnapshotData> persistentCache, InMemoryJarSnapshotStore inMemoryStore) {
+        this.cache = new MinimalPersistentCache<HashCode, JarSnapshotData>(persistentCache);
+        this.inMemoryStore = inMemoryStore;
     }
 
     @Override
@@ -47,10 +53,14 @@ public class DefaultJarSnapshotCache implements JarSnapshotCache {
     }
 
     @Override
-    public JarSnapshot get(HashCode key, final Factory<JarSnapshot> factory) {
+    public JarSnapshot get(final HashCode key, final Factory<JarSnapshot> factory) {
         return new JarSnapshot(cache.get(key, new Factory<JarSnapshotData>() {
             public JarSnapshotData create() {
-                return factory.create().getData();
+                return inMemoryStore.get(key, new Factory<JarSnapshotData>() {
+                    public JarSnapshotData create() {
+                        return factory.create().getData();
+                    }
+                });
             }
         }));
     }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.jar;
+
+import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.cache.CrossBuildInMemoryCache;
+import org.gradle.api.internal.cache.CrossBuildInMemoryCacheFactory;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Keeps the jar snapshots in memory for the lifetime of the daemon, keyed by the hash of the jar content, so that the builds of all projects share them
+ * instead of each analysing the jar again for its own persistent cache. A jar that several tasks snapshot at the same time is analysed only once.
+ */
+public class InMemoryJarSnapshotStore {
+    private final CrossBuildInMemoryCache<HashCode, JarSnapshotData> snapshots;
+    private final ConcurrentMap<HashCode, FutureTask<JarSnapshotData>> inProgress = new ConcurrentHashMap<HashCode, FutureTask<JarSnapshotData>>();
+
+    public InMemoryJarSnapshotStore(CrossBuildInMemoryCacheFactory cacheFactory) {
+        this.snapshots = cacheFactory.newCache();
+    }
+
+    @Nullable
+    public JarSnapshotData get(HashCode hash) {
+        return snapshots.get(hash);
+    }
+
+    /**
+     * Returns the snapshot with the given hash, using the given factory when it is not in memory. The factory is not called again while another thread
+     * is creating the same snapshot, the snapshot created by the other thread is returned instead.
+     */
+    public JarSnapshotData get(HashCode hash, final Factory<JarSnapshotData> factory) {
+        JarSnapshotData data = snapshots.get(hash);
+        if (data != null) {
+            return data;
+        }
+        FutureTask<JarSnapshotData> task = new FutureTask<JarSnapshotData>(new Callable<JarSnapshotData>() {
+            @Override
+            public JarSnapshotData call() {
+                return factory.create();
+            }
+        });
+        FutureTask<JarSnapshotData> existing = inProgress.putIfAbsent(hash, task);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            // Another thread may have finished the snapshot in the meantime
+            data = snapshots.get(hash);
+            if (data != null) {
+                return data;
+            }
+            task.run();
+            data = await(task);
+            snapshots.put(hash, data);
+            return data;
+        } finally {
+            inProgress.remove(hash, task);
+        }
+    }
+
+    private static JarSnapshotData await(FutureTask<JarSnapshotData> task) {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.gradle.api.internal.tasks.compile.incremental.jar;
 import com.google.common.collect.Sets;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysis;
 import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData;
 
 import java.io.File;
 import java.util.Map;
@@ -45,6 +46,10 @@ public class PreviousCompilation {
         return analysis.getData().getClassNameForFile(path);
     }
 
+    public AnnotationProcessingData getAnnotationProcessingData() {
+        return analysis.getData().getAnnotationProcessingData();
+    }
+
     public JarSnapshot getJarSnapshot(File file) {
         if (jarSnapshots == null) {
             JarClasspathSnapshotData data = classpathSnapshotStore.get();
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+import org.gradle.api.Nullable;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The types that incremental annotation processors generated, and the types they were generated from.
+ *
+ * <p>A type generated by an isolating processor has a single origin, and is regenerated when its origin is processed again. The types generated by
+ * aggregating processors are regenerated from all the types that aggregating processors were run on.</p>
+ */
+public class AnnotationProcessingData implements Serializable {
+    private static final String RESULT_FILE_NAME = "annotation-processing.bin";
+
+    private final Map<String, String> generatedTypesToOrigins = new HashMap<String, String>();
+    private final SetMultimap<String, String> originsToGeneratedTypes = HashMultimap.create();
+    private final Set<String> aggregatedTypes = new HashSet<String>();
+    private final Set<String> generatedTypesDependingOnAllOthers = new HashSet<String>();
+    private boolean hasAggregatingProcessors;
+    private String fullRebuildCause;
+
+    /**
+     * The file in the compilation's temporary directory that the result of annotation processing is written to.
+     */
+    public static File getResultFile(File tempDir) {
+        return new File(tempDir, RESULT_FILE_NAME);
+    }
+
+    public void addGeneratedType(String generatedType, String originType) {
+        String previousOrigin = generatedTypesToOrigins.put(generatedType, originType);
+        if (previousOrigin != null) {
+            originsToGeneratedTypes.remove(previousOrigin, generatedType);
+        }
+        originsToGeneratedTypes.put(originType, generatedType);
+    }
+
+    public void addAggregatedType(String type) {
+        aggregatedTypes.add(type);
+    }
+
+    public void addTypeGeneratedByAggregatingProcessor(String generatedType) {
+        generatedTypesDependingOnAllOthers.add(generatedType);
+    }
+
+    /**
+     * Records that aggregating processors were run, whether or not they found any annotated type.
+     */
+    public void setHasAggregatingProcessors() {
+        hasAggregatingProcessors = true;
+    }
+
+    public boolean hasAggregatingProcessors() {
+        return hasAggregatingProcessors;
+    }
+
+    /**
+     * Records that the processing cannot be tracked, so that the next compilation has to recompile everything.
+     */
+    public void setFullRebuildCause(String fullRebuildCause) {
+        if (this.fullRebuildCause == null) {
+            this.fullRebuildCause = fullRebuildCause;
+        }
+    }
+
+    @Nullable
+    public String getFullRebuildCause() {
+        return fullRebuildCause;
+    }
+
+    public Map<String, String> getGeneratedTypesToOrigins() {
+        return Collections.unmodifiableMap(generatedTypesToOrigins);
+    }
+
+    public Set<String> getAggregatedTypes() {
+        return Collections.unmodifiableSet(aggregatedTypes);
+    }
+
+    public Set<String> getGeneratedTypesDependingOnAllOthers() {
+        return Collections.unmodifiableSet(generatedTypesDependingOnAllOthers);
+    }
+
+    /**
+     * Returns the types generated from the given type by an isolating processor.
+     */
+    public Set<String> getGeneratedTypes(String originType) {
+        return Collections.unmodifiableSet(originsToGeneratedTypes.get(originType));
+    }
+
+    public boolean isEmpty() {
+        return generatedTypesToOrigins.isEmpty() && aggregatedTypes.isEmpty() && generatedTypesDependingOnAllOthers.isEmpty() && !hasAggregatingProcessors && fullRebuildCause == null;
+    }
+
+    /**
+     * Combines the result of an incremental compilation with the data of the previous compilation. The types of the previous compilation
+     * that no longer exist are dropped, which includes the types that were generated again by this compilation.
+     */
+    public AnnotationProcessingData merge(AnnotationProcessingData current, Collection<String> existingTypes) {
+        AnnotationProcessingData merged = new AnnotationProcessingData();
+        for (Map.Entry<String, String> entry : generatedTypesToOrigins.entrySet()) {
+            if (existingTypes.contains(entry.getKey()) && existingTypes.contains(entry.getValue())) {
+                merged.addGeneratedType(entry.getKey(), entry.getValue());
+            }
+        }
+        for (String type : aggregatedTypes) {
+            if (existingTypes.contains(type)) {
+                merged.addAggregatedType(type);
+            }
+        }
+        for (String type : generatedTypesDependingOnAllOthers) {
+            if (existingTypes.contains(type)) {
+                merged.addTypeGeneratedByAggregatingProcessor(type);
+            }
+        }
+        for (Map.Entry<String, String> entry : current.generatedTypesToOrigins.entrySet()) {
+            merged.addGeneratedType(entry.getKey(), entry.getValue());
+        }
+        merged.aggregatedTypes.addAll(current.aggregatedTypes);
+        merged.generatedTypesDependingOnAllOthers.addAll(current.generatedTypesDependingOnAllOthers);
+        merged.hasAggregatingProcessors = current.hasAggregatingProcessors;
+        merged.setFullRebuildCause(current.fullRebuildCause);
+        return merged;
+    }
+
+    /**
+     * Writes the result of annotation processing, to be picked up once the compilation has finished. Plain Java serialization is used, as this may
+     * happen in a compiler daemon.
+     */
+    public void writeTo(File file) {
+        try {
+            ObjectOutputStream outputStream = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            try {
+                outputStream.writeObject(this);
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the result of annotation processing written by the compiler, or returns null when the compiler did not track annotation processing.
+     */
+    @Nullable
+    public static AnnotationProcessingData readFrom(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            ObjectInputStream inputStream = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                return (AnnotationProcessingData) inputStream.readObject();
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class Serializer extends AbstractSerializer<AnnotationProcessingData> {
+        @Override
+        public AnnotationProcessingData read(Decoder decoder) throws Exception {
+            AnnotationProcessingData data = new AnnotationProcessingData();
+            int count = decoder.readSmallInt();
+            for (int i = 0; i < count; i++) {
+                data.addGeneratedType(decoder.readString(), decoder.readString());
+            }
+            count = decoder.readSmallInt();
+            for (int i = 0; i < count; i++) {
+                data.addAggregatedType(decoder.readString());
+            }
+            count = decoder.readSmallInt();
+            for (int i = 0; i < count; i++) {
+                data.addTypeGeneratedByAggregatingProcessor(decoder.readString());
+            }
+            data.hasAggregatingProcessors = decoder.readBoolean();
+            data.fullRebuildCause = decoder.readNullableString();
+            return data;
+        }
+
+        @Override
+        public void write(Encoder encoder, AnnotationProcessingData value) throws Exception {
+            encoder.writeSmallInt(value.generatedTypesToOrigins.size());
+            for (Map.Entry<String, String> entry : value.generatedTypesToOrigins.entrySet()) {
+                encoder.writeString(entry.getKey());
+                encoder.writeString(entry.getValue());
+            }
+            writeStrings(encoder, value.aggregatedTypes);
+            writeStrings(encoder, value.generatedTypesDependingOnAllOthers);
+            encoder.writeBoolean(value.hasAggregatingProcessors);
+            encoder.writeNullableString(value.fullRebuildCause);
+        }
+
+        private static void writeStrings(Encoder encoder, Set<String> strings) throws IOException {
+            encoder.writeSmallInt(strings.size());
+            for (String string : strings) {
+                encoder.writeString(string);
+            }
+        }
+    }
+}
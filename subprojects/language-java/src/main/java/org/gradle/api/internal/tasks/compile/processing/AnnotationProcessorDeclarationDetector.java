@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.CharStreams;
+import com.google.common.io.Files;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Finds the annotation processors on an annotation processor path, along with whether they are incremental.
+ *
+ * <p>The processors are found as javac finds them, using the {@code META-INF/services/javax.annotation.processing.Processor} files. A processor declares itself
+ * incremental with a line of the form {@code <processor class name>,isolating} or {@code <processor class name>,aggregating} in a
+ * {@code META-INF/gradle/incremental.annotation.processors} file in the same jar or directory.</p>
+ */
+public class AnnotationProcessorDeclarationDetector {
+    static final String PROCESSOR_SERVICES = "META-INF/services/javax.annotation.processing.Processor";
+    static final String INCREMENTAL_PROCESSORS = "META-INF/gradle/incremental.annotation.processors";
+
+    public List<AnnotationProcessorDeclaration> detectProcessors(Iterable<File> processorPath) {
+        Map<String, IncrementalAnnotationProcessorType> processors = new LinkedHashMap<String, IncrementalAnnotationProcessorType>();
+        for (File file : processorPath) {
+            List<String> processorNames = readLines(file, PROCESSOR_SERVICES);
+            if (processorNames.isEmpty()) {
+                continue;
+            }
+            Map<String, IncrementalAnnotationProcessorType> types = readTypes(readLines(file, INCREMENTAL_PROCESSORS));
+            for (String processorName : processorNames) {
+                if (!processors.containsKey(processorName)) {
+                    IncrementalAnnotationProcessorType type = types.get(processorName);
+                    processors.put(processorName, type == null ? IncrementalAnnotationProcessorType.UNKNOWN : type);
+                }
+            }
+        }
+        List<AnnotationProcessorDeclaration> declarations = new ArrayList<AnnotationProcessorDeclaration>(processors.size());
+        for (Map.Entry<String, IncrementalAnnotationProcessorType> entry : processors.entrySet()) {
+            declarations.add(new AnnotationProcessorDeclaration(entry.getKey(), entry.getValue()));
+        }
+        return declarations;
+    }
+
+    private static Map<String, IncrementalAnnotationProcessorType> readTypes(List<String> lines) {
+        Map<String, IncrementalAnnotationProcessorType> types = new LinkedHashMap<String, IncrementalAnnotationProcessorType>();
+        for (String line : lines) {
+            int separator = line.indexOf(',');
+            if (separator < 0) {
+                continue;
+            }
+            String kind = line.substring(separator + 1).trim();
+            IncrementalAnnotationProcessorType type;
+            if ("isolating".equalsIgnoreCase(kind)) {
+                type = IncrementalAnnotationProcessorType.ISOLATING;
+            } else if ("aggregating".equalsIgnoreCase(kind)) {
+                type = IncrementalAnnotationProcessorType.AGGREGATING;
+            } else {
+                continue;
+            }
+            types.put(line.substring(0, separator).trim(), type);
+        }
+        return types;
+    }
+
+    private static List<String> readLines(File file, String path) {
+        try {
+            String content;
+            if (file.isDirectory()) {
+                File entry = new File(file, path);
+                if (!entry.isFile()) {
+                    return Collections.emptyList();
+                }
+                content = Files.toString(entry, Charsets.UTF_8);
+            } else if (file.isFile() && FileUtils.isJar(file.getName())) {
+                ZipFile zipFile = new ZipFile(file);
+                try {
+                    ZipEntry entry = zipFile.getEntry(path);
+                    if (entry == null) {
+                        return Collections.emptyList();
+                    }
+                    InputStream inputStream = zipFile.getInputStream(entry);
+                    try {
+                        content = CharStreams.toString(new InputStreamReader(inputStream, Charsets.UTF_8));
+                    } finally {
+                        inputStream.close();
+                    }
+                } finally {
+                    zipFile.close();
+                }
+            } else {
+                return Collections.emptyList();
+            }
+            List<String> lines = new ArrayList<String>();
+            for (String line : content.split("\\r?\\n")) {
+                int comment = line.indexOf('#');
+                if (comment >= 0) {
+                    line = line.substring(0, comment);
+                }
+                line = line.trim();
+                if (line.length() > 0) {
+                    lines.add(line);
+                }
+            }
+            return lines;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + path + " from " + file, e);
+        }
+    }
+}
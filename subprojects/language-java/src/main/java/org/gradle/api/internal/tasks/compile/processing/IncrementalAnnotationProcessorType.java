@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+/**
+ * How an annotation processor can be run during incremental compilation, as declared by the processor.
+ */
+public enum IncrementalAnnotationProcessorType {
+    /**
+     * Each generated file is generated from exactly one annotated type, and can be regenerated by processing that type alone.
+     */
+    ISOLATING,
+    /**
+     * The generated files may be generated from any number of annotated types, and are regenerated by processing all of them.
+     */
+    AGGREGATING,
+    /**
+     * The processor did not declare itself incremental.
+     */
+    UNKNOWN
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Wraps an incremental annotation processor, recording the types it generates and the types they are generated from.
+ *
+ * <p>An isolating processor has to pass exactly one originating element, or elements that all belong to the same top-level type, when it creates a source
+ * or class file. Otherwise, the processing is not tracked and the next compilation is a full recompilation. The resources created by processors are not
+ * tracked either, so creating a resource also makes the next compilation a full recompilation, which removes stale resources.</p>
+ */
+public class TrackingProcessor implements Processor {
+    private final Processor delegate;
+    private final AnnotationProcessorDeclaration declaration;
+    private final AnnotationProcessingData result;
+
+    public TrackingProcessor(Processor delegate, AnnotationProcessorDeclaration declaration, AnnotationProcessingData result) {
+        this.delegate = delegate;
+        this.declaration = declaration;
+        this.result = result;
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return delegate.getSupportedOptions();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return delegate.getSupportedAnnotationTypes();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return delegate.getSupportedSourceVersion();
+    }
+
+    @Override
+    public void init(ProcessingEnvironment processingEnv) {
+        delegate.init(new TrackingProcessingEnvironment(processingEnv));
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (declaration.getType() == IncrementalAnnotationProcessorType.AGGREGATING) {
+            for (TypeElement annotation : annotations) {
+                for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                    TypeElement type = getTopLevelType(element);
+                    if (type != null) {
+                        result.addAggregatedType(type.getQualifiedName().toString());
+                    }
+                }
+            }
+        }
+        return delegate.process(annotations, roundEnv);
+    }
+
+    @Override
+    public Iterable<? extends Completion> getCompletions(Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+        return delegate.getCompletions(element, annotation, member, userText);
+    }
+
+    private void generatedType(CharSequence name, Element[] originatingElements) {
+        String generatedType = name.toString();
+        if (declaration.getType() == IncrementalAnnotationProcessorType.AGGREGATING) {
+            result.addTypeGeneratedByAggregatingProcessor(generatedType);
+            return;
+        }
+        Set<String> originTypes = new LinkedHashSet<String>();
+        for (Element element : originatingElements) {
+            TypeElement type = getTopLevelType(element);
+            if (type != null) {
+                originTypes.add(type.getQualifiedName().toString());
+            }
+        }
+        if (originTypes.size() != 1) {
+            result.setFullRebuildCause("the isolating annotation processor " + declaration.getClassName() + " generated " + generatedType + " from " + originTypes.size() + " types");
+            return;
+        }
+        result.addGeneratedType(generatedType, originTypes.iterator().next());
+    }
+
+    private static TypeElement getTopLevelType(Element element) {
+        Element current = element;
+        while (current != null && !(current instanceof PackageElement)) {
+            Element enclosing = current.getEnclosingElement();
+            if (current instanceof TypeElement && (enclosing == null || enclosing instanceof PackageElement)) {
+                return (TypeElement) current;
+            }
+            current = enclosing;
+        }
+        return null;
+    }
+
+    private class TrackingProcessingEnvironment implements ProcessingEnvironment {
+        private final ProcessingEnvironment delegate;
+        private final Filer filer;
+
+        TrackingProcessingEnvironment(ProcessingEnvironment delegate) {
+            this.delegate = delegate;
+            this.filer = new TrackingFiler(delegate.getFiler());
+        }
+
+        @Override
+        public Map<String, String> getOptions() {
+            return delegate.getOptions();
+        }
+
+        @Override
+        public Messager getMessager() {
+            return delegate.getMessager();
+        }
+
+        @Override
+        public Filer getFiler() {
+            return filer;
+        }
+
+        @Override
+        public Elements getElementUtils() {
+            return delegate.getElementUtils();
+        }
+
+        @Override
+        public Types getTypeUtils() {
+            return delegate.getTypeUtils();
+        }
+
+        @Override
+        public SourceVersion getSourceVersion() {
+            return delegate.getSourceVersion();
+        }
+
+        @Override
+        public Locale getLocale() {
+            return delegate.getLocale();
+        }
+    }
+
+    private class TrackingFiler implements Filer {
+        private final Filer delegate;
+
+        TrackingFiler(Filer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements) throws IOException {
+            JavaFileObject file = delegate.createSourceFile(name, originatingElements);
+            generatedType(name, originatingElements);
+            return file;
+        }
+
+        @Override
+        public JavaFileObject createClassFile(CharSequence name, Element... originatingElements) throws IOException {
+            JavaFileObject file = delegate.createClassFile(name, originatingElements);
+            generatedType(name, originatingElements);
+            return file;
+        }
+
+        @Override
+        public FileObject createResource(JavaFileManager.Location location, CharSequence pkg, CharSequence relativeName, Element... originatingElements) throws IOException {
+            FileObject file = delegate.createResource(location, pkg, relativeName, originatingElements);
+            result.setFullRebuildCause("the annotation processor " + declaration.getClassName() + " generated resource " + file.getName());
+            return file;
+        }
+
+        @Override
+        public FileObject getResource(JavaFileManager.Location location, CharSequence pkg, CharSequence relativeName) throws IOException {
+            return delegate.getResource(location, pkg, relativeName);
+        }
+    }
+}
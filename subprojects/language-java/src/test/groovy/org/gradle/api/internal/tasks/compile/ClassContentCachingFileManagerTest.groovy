@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaFileObject
+import javax.tools.StandardLocation
+import java.util.jar.JarOutputStream
+import java.util.zip.ZipEntry
+
+import static org.gradle.util.TestPrecondition.JDK
+
+@Requires(JDK)
+class ClassContentCachingFileManagerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def compiler = JdkTools.current().systemJavaCompiler
+    def cache = new JarClassContentCache(10 * 1024 * 1024)
+
+    def "compiles against the classes of cached jars and of directories"() {
+        given:
+        def libJar = jar("lib.jar", "lib/Greeter.java": "package lib; public class Greeter { public static class Nested { public static String name() { return \"nested\"; } } }")
+        def otherClasses = compile(tmpDir.file("other-classes"), [], "other/Names.java": "package other; public class Names { public static String name() { return \"other\"; } }")
+        def source = tmpDir.file("src/app/Main.java")
+        source.text = "package app; public class Main { String s = lib.Greeter.Nested.name() + other.Names.name(); }"
+        def classesDir = tmpDir.createDir("classes")
+
+        when:
+        def fileManager = new ClassContentCachingFileManager(compiler.getStandardFileManager(null, null, null), cache)
+        def success = compiler.getTask(null, fileManager, null, ["-d", classesDir.path, "-classpath", [otherClasses, libJar].join(File.pathSeparator)], null,
+            fileManager.getJavaFileObjectsFromFiles([source])).call()
+
+        then:
+        success
+        classesDir.file("app/Main.class").file
+    }
+
+    def "lists the classes of jars from the cache in classpath order"() {
+        given:
+        def first = jar("first.jar", "lib/A.java": "package lib; public class A {}")
+        def second = jar("second.jar", "lib/A.java": "package lib; public class A {}", "lib/sub/B.java": "package lib.sub; public class B {}")
+        def fileManager = new ClassContentCachingFileManager(compiler.getStandardFileManager(null, null, null), cache)
+        fileManager.setLocation(StandardLocation.CLASS_PATH, [first, second])
+
+        when:
+        def files = fileManager.list(StandardLocation.CLASS_PATH, "lib", EnumSet.of(JavaFileObject.Kind.CLASS), false) as List
+        def allFiles = fileManager.list(StandardLocation.CLASS_PATH, "lib", EnumSet.of(JavaFileObject.Kind.CLASS), true) as List
+
+        then:
+        files.collect { fileManager.inferBinaryName(StandardLocation.CLASS_PATH, it) } == ["lib.A", "lib.A"]
+        files[0].toUri().toString().contains("first.jar")
+        files[0].isNameCompatible("A", JavaFileObject.Kind.CLASS)
+        !files[0].isNameCompatible("B", JavaFileObject.Kind.CLASS)
+        allFiles.collect { fileManager.inferBinaryName(StandardLocation.CLASS_PATH, it) } as Set == ["lib.A", "lib.sub.B"] as Set
+    }
+
+    def "lets javac list a classpath containing a zip file"() {
+        given:
+        def zip = jar("lib.zip", "lib/A.java": "package lib; public class A {}")
+        def other = jar("other.jar", "lib/B.java": "package lib; public class B {}")
+        def fileManager = new ClassContentCachingFileManager(compiler.getStandardFileManager(null, null, null), cache)
+        fileManager.setLocation(StandardLocation.CLASS_PATH, [zip, other])
+        def source = tmpDir.file("src/app/Main.java")
+        source.text = "package app; public class Main { lib.A a; lib.B b; }"
+        def classesDir = tmpDir.createDir("classes")
+
+        when:
+        def files = fileManager.list(StandardLocation.CLASS_PATH, "lib", EnumSet.of(JavaFileObject.Kind.CLASS), false) as List
+        def success = compiler.getTask(null, fileManager, null, ["-d", classesDir.path], null, fileManager.getJavaFileObjectsFromFiles([source])).call()
+
+        then:
+        files.collect { fileManager.inferBinaryName(StandardLocation.CLASS_PATH, it) } == ["lib.A", "lib.B"]
+        success
+        classesDir.file("app/Main.class").file
+    }
+
+    def "reads a jar again only when its content changes"() {
+        given:
+        def original = jar("lib.jar", "lib/A.java": "package lib; public class A {}")
+        def copy = tmpDir.file("copy/lib.jar")
+        original.copyTo(copy)
+
+        when:
+        def contents = cache.get(original)
+
+        then:
+        contents.getClasses("lib")*.binaryName == ["lib.A"]
+        cache.get(original).is(contents)
+        cache.get(copy).is(contents)
+
+        when:
+        jar("lib.jar", "lib/A.java": "package lib; public class A {}", "lib/B.java": "package lib; public class B {}")
+        original.lastModified = original.lastModified() + 2000
+
+        then:
+        !cache.get(original).is(contents)
+        cache.get(original).getClasses("lib")*.binaryName as Set == ["lib.A", "lib.B"] as Set
+    }
+
+    private TestFile jar(Map<String, String> sources, String name) {
+        def classesDir = compile(sources, tmpDir.file("${name}-classes"), [])
+        def jar = tmpDir.file(name)
+        def out = new JarOutputStream(new FileOutputStream(jar))
+        try {
+            classesDir.eachFileRecurse { File file ->
+                if (file.file) {
+                    out.putNextEntry(new ZipEntry(classesDir.toURI().relativize(file.toURI()).path))
+                    out.write(file.bytes)
+                }
+            }
+        } finally {
+            out.close()
+        }
+        return jar
+    }
+
+    private TestFile compile(Map<String, String> sources, TestFile classesDir, List<File> classpath) {
+        classesDir.deleteDir().createDir()
+        def sourceFiles = sources.collect { path, text ->
+            def file = tmpDir.file("${classesDir.name}-src", path)
+            file.text = text
+            file
+        }
+        def fileManager = compiler.getStandardFileManager(null, null, null)
+        assert compiler.getTask(null, fileManager, null, ["-d", classesDir.path, "-classpath", classpath.join(File.pathSeparator)], null,
+            fileManager.getJavaFileObjectsFromFiles(sourceFiles)).call()
+        return classesDir
+    }
+}
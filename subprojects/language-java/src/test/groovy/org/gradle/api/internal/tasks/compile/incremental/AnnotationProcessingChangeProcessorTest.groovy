@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental
+
+import org.gradle.api.internal.tasks.compile.incremental.deps.DefaultDependentsSet
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependencyToAll
+import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation
+import org.gradle.api.internal.tasks.compile.incremental.recomp.RecompilationSpec
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData
+import spock.lang.Specification
+import spock.lang.Subject
+
+class AnnotationProcessingChangeProcessorTest extends Specification {
+    def previousCompilation = Stub(PreviousCompilation)
+    def processingData = new AnnotationProcessingData()
+    def spec = new RecompilationSpec()
+    def dependents = [:]
+
+    @Subject processor = new AnnotationProcessingChangeProcessor(previousCompilation)
+
+    def setup() {
+        previousCompilation.getAnnotationProcessingData() >> processingData
+        previousCompilation.getDependents(_ as String, _ as Set) >> { String className, Set constants -> dependents[className] ?: DefaultDependentsSet.EMPTY }
+    }
+
+    def "does nothing when nothing was generated"() {
+        given:
+        spec.classNames.add("A")
+
+        when:
+        processor.processChanges(spec)
+
+        then:
+        spec.classNames as List == ["A"]
+    }
+
+    def "recompiles the types generated from a stale type along with their dependents"() {
+        given:
+        processingData.addGeneratedType("AGenerated", "A")
+        processingData.addGeneratedType("BGenerated", "B")
+        dependents.AGenerated = new DefaultDependentsSet(["UsesAGenerated"] as Set)
+        spec.classNames.add("A")
+
+        when:
+        processor.processChanges(spec)
+
+        then:
+        spec.classNames as List == ["A", "AGenerated", "UsesAGenerated"]
+        !spec.fullRebuildNeeded
+    }
+
+    def "recompiles the origin of a stale generated type"() {
+        given:
+        processingData.addGeneratedType("AGenerated", "A")
+        processingData.addGeneratedType("AGeneratedAgain", "AGenerated")
+        spec.classNames.add("AGeneratedAgain")
+
+        when:
+        processor.processChanges(spec)
+
+        then:
+        spec.classNames as List == ["AGeneratedAgain", "AGenerated", "A"]
+    }
+
+    def "recompiles all aggregated types when any type is stale"() {
+        given:
+        processingData.setHasAggregatingProcessors()
+        processingData.addAggregatedType("A")
+        processingData.addAggregatedType("B")
+        processingData.addTypeGeneratedByAggregatingProcessor("Registry")
+        processingData.addGeneratedType("CGenerated", "C")
+        dependents.Registry = new DefaultDependentsSet(["Main"] as Set)
+        spec.classNames.add(stale)
+
+        when:
+        processor.processChanges(spec)
+
+        then:
+        spec.classNames as Set == (["A", "B", "Registry", "Main"] + stale) as Set
+
+        where:
+        stale << ["A", "Registry", "NewAnnotatedType", "Unrelated"]
+    }
+
+    def "recompiles only the stale types when aggregating processors have not found any type before"() {
+        given:
+        processingData.setHasAggregatingProcessors()
+        spec.classNames.add("NewAnnotatedType")
+
+        when:
+        processor.processChanges(spec)
+
+        then:
+        spec.classNames as List == ["NewAnnotatedType"]
+        !spec.fullRebuildNeeded
+    }
+
+    def "does not recompile aggregated types when nothing is stale"() {
+        given:
+        processingData.setHasAggregatingProcessors()
+        processingData.addAggregatedType("A")
+        processingData.addTypeGeneratedByAggregatingProcessor("Registry")
+
+        when:
+        processor.processChanges(spec)
+
+        then:
+        spec.classNames.empty
+    }
+
+    def "rebuilds everything when a generated type is a dependency to all"() {
+        given:
+        processingData.addGeneratedType("AGenerated", "A")
+        dependents.AGenerated = new DependencyToAll("some reason")
+        spec.classNames.add("A")
+
+        when:
+        processor.processChanges(spec)
+
+        then:
+        spec.fullRebuildCause == "some reason"
+    }
+}
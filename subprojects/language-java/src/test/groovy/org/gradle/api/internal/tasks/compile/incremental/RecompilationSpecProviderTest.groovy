@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental
+
+import org.gradle.api.Action
+import org.gradle.api.internal.file.FileOperations
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshot
+import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs
+import org.gradle.api.tasks.incremental.InputFileDetails
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class RecompilationSpecProviderTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def fileOperations = Mock(FileOperations)
+    def previousCompilation = Stub(PreviousCompilation)
+    def jarClasspathSnapshot = Stub(JarClasspathSnapshot)
+    def sourceToNameConverter = Stub(SourceToNameConverter)
+
+    def setup() {
+        previousCompilation.getAnnotationProcessingData() >> new AnnotationProcessingData()
+    }
+
+    def "rebuilds everything when a file on the annotation processor path changes"() {
+        def processorJar = tmpDir.file("processor.jar")
+        def processorDir = tmpDir.file("processor-classes")
+        def provider = new RecompilationSpecProvider(sourceToNameConverter, fileOperations, new SimpleFileCollection(processorJar, processorDir))
+
+        when:
+        def spec = provider.provideRecompilationSpec(inputs(change(processorJar, processorDir)), previousCompilation, jarClasspathSnapshot)
+
+        then:
+        spec.fullRebuildNeeded
+        spec.fullRebuildCause.contains("on the annotation processor path was changed")
+        0 * fileOperations._
+
+        where:
+        change << [
+            { jar, dir -> added(jar) },
+            { jar, dir -> modified(jar) },
+            { jar, dir -> removed(jar) },
+            { jar, dir -> modified(new File(dir, "com/example/Processor.class")) }
+        ]
+    }
+
+    def "does not rebuild everything when the annotation processor path is empty"() {
+        def provider = new RecompilationSpecProvider(sourceToNameConverter, fileOperations, new SimpleFileCollection())
+        def source = tmpDir.file("src/A.java")
+        sourceToNameConverter.getClassName(source) >> "A"
+
+        when:
+        def spec = provider.provideRecompilationSpec(inputs(modified(source)), previousCompilation, jarClasspathSnapshot)
+
+        then:
+        !spec.fullRebuildNeeded
+        spec.classNames as List == ["A"]
+    }
+
+    private IncrementalTaskInputs inputs(InputFileDetails details) {
+        Stub(IncrementalTaskInputs) {
+            outOfDate(_) >> { Action<InputFileDetails> action ->
+                if (!details.removed) {
+                    action.execute(details)
+                }
+            }
+            removed(_) >> { Action<InputFileDetails> action ->
+                if (details.removed) {
+                    action.execute(details)
+                }
+            }
+        }
+    }
+
+    private InputFileDetails added(File file) {
+        details(file, true, false, false)
+    }
+
+    private InputFileDetails modified(File file) {
+        details(file, false, true, false)
+    }
+
+    private InputFileDetails removed(File file) {
+        details(file, false, false, true)
+    }
+
+    private InputFileDetails details(File file, boolean added, boolean modified, boolean removed) {
+        Stub(InputFileDetails) {
+            getFile() >> file
+            isAdded() >> added
+            isModified() >> modified
+            isRemoved() >> removed
+        }
+    }
+}
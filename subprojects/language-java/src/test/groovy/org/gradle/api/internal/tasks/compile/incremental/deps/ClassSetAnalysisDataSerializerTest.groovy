@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps
 
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData
 import org.gradle.internal.serialize.InputStreamBackedDecoder
 import org.gradle.internal.serialize.OutputStreamBackedEncoder
 import spock.lang.Specification
@@ -55,5 +56,30 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
         read.classesToConstants == [C: [1,2] as Set, D: [] as Set]
         read.literalsToClasses == [3: ['A', 'B'] as Set, 4: ['D'] as Set]
         read.classesToChildren == ['A': ['SA'] as Set, B: ['SB1', 'SB2'] as Set]
+        read.annotationProcessingData.empty
+    }
+
+    def "serializes annotation processing data"() {
+        def processing = new AnnotationProcessingData()
+        processing.addGeneratedType("AGenerated", "A")
+        processing.addGeneratedType("BGenerated", "B")
+        processing.setHasAggregatingProcessors()
+        processing.addAggregatedType("C")
+        processing.addTypeGeneratedByAggregatingProcessor("Registry")
+        processing.setFullRebuildCause("some reason")
+        def data = new ClassSetAnalysisData(["A.class": "A"], ["A": dependents()], [:], [:], [:], processing)
+        def os = new ByteArrayOutputStream()
+        def e = new OutputStreamBackedEncoder(os)
+
+        when:
+        serializer.write(e, data)
+        ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+
+        then:
+        read.annotationProcessingData.generatedTypesToOrigins == [AGenerated: "A", BGenerated: "B"]
+        read.annotationProcessingData.aggregatedTypes == ["C"] as Set
+        read.annotationProcessingData.generatedTypesDependingOnAllOthers == ["Registry"] as Set
+        read.annotationProcessingData.hasAggregatingProcessors()
+        read.annotationProcessingData.fullRebuildCause == "some reason"
     }
 }
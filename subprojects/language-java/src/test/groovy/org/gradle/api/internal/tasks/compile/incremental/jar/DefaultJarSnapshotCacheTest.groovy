@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.jar
+
+import com.google.common.hash.HashCode
+import org.gradle.api.internal.cache.CrossBuildInMemoryCacheFactory
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.Factory
+import org.gradle.internal.event.DefaultListenerManager
+import spock.lang.Specification
+
+class DefaultJarSnapshotCacheTest extends Specification {
+    def inMemoryStore = new InMemoryJarSnapshotStore(new CrossBuildInMemoryCacheFactory(new DefaultListenerManager()))
+    def hash = HashCode.fromInt(123)
+    def jar = new File("lib.jar")
+    def data = Stub(JarSnapshotData)
+    def snapshot = Stub(JarSnapshot) {
+        getData() >> data
+    }
+
+    def "writes a snapshot found in memory to the persistent cache of the build"() {
+        def persistentA = persistentCache()
+        def persistentB = persistentCache()
+        def factory = Mock(Factory)
+
+        when:
+        new DefaultJarSnapshotCache(persistentA, inMemoryStore).get(hash, factory)
+        new DefaultJarSnapshotCache(persistentB, inMemoryStore).get(hash, factory)
+
+        then:
+        1 * factory.create() >> snapshot
+        persistentA.get(hash) == data
+        persistentB.get(hash) == data
+
+        when:
+        def freshInMemoryStore = new InMemoryJarSnapshotStore(new CrossBuildInMemoryCacheFactory(new DefaultListenerManager()))
+        def snapshots = new DefaultJarSnapshotCache(persistentB, freshInMemoryStore).getJarSnapshots([(jar): hash])
+
+        then:
+        snapshots[jar].data == data
+    }
+
+    def "fails when a snapshot was never taken"() {
+        def cache = new DefaultJarSnapshotCache(persistentCache(), inMemoryStore)
+
+        when:
+        cache.getJarSnapshots([(jar): hash])
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message == "No Jar snapshot data available for ${jar} with hash ${hash}."
+    }
+
+    private PersistentIndexedCache<HashCode, JarSnapshotData> persistentCache() {
+        Map<HashCode, JarSnapshotData> entries = [:]
+        Stub(PersistentIndexedCache) {
+            get(_) >> { HashCode key -> entries[key] }
+            put(_, _) >> { HashCode key, JarSnapshotData value -> entries[key] = value }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.jar
+
+import com.google.common.hash.HashCode
+import org.gradle.api.internal.cache.CrossBuildInMemoryCacheFactory
+import org.gradle.internal.Factory
+import org.gradle.internal.event.DefaultListenerManager
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+class InMemoryJarSnapshotStoreTest extends ConcurrentSpec {
+    def store = new InMemoryJarSnapshotStore(new CrossBuildInMemoryCacheFactory(new DefaultListenerManager()))
+    def hash = HashCode.fromInt(123)
+    def data = Stub(JarSnapshotData)
+
+    def "creates snapshot once and reuses it"() {
+        def factory = Mock(Factory)
+
+        when:
+        def first = store.get(hash, factory)
+        def second = store.get(hash, factory)
+
+        then:
+        1 * factory.create() >> data
+        0 * _
+        first == data
+        second == data
+        store.get(hash) == data
+    }
+
+    def "returns null for unknown snapshot"() {
+        expect:
+        store.get(hash) == null
+    }
+
+    def "waits for snapshot created by another thread instead of creating it again"() {
+        def factory1 = Mock(Factory)
+        def factory2 = Mock(Factory)
+        def result1
+        def result2
+
+        when:
+        async {
+            start {
+                result1 = store.get(hash, factory1)
+            }
+            start {
+                thread.blockUntil.started
+                result2 = store.get(hash, factory2)
+            }
+        }
+
+        then:
+        1 * factory1.create() >> {
+            instant.started
+            thread.block()
+            data
+        }
+        0 * factory2._
+        result1 == data
+        result2 == data
+    }
+
+    def "does not keep failed snapshot"() {
+        def factory = Mock(Factory)
+        def failure = new RuntimeException("broken")
+
+        when:
+        store.get(hash, factory)
+
+        then:
+        1 * factory.create() >> { throw failure }
+        def e = thrown(RuntimeException)
+        e == failure
+
+        when:
+        def result = store.get(hash, factory)
+
+        then:
+        1 * factory.create() >> data
+        result == data
+    }
+}
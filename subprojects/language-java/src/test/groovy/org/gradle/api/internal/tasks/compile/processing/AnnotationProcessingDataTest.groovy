@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class AnnotationProcessingDataTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def data = new AnnotationProcessingData()
+
+    def "looks up the types generated from an origin"() {
+        when:
+        data.addGeneratedType("AHelper", "A")
+        data.addGeneratedType("ABuilder", "A")
+        data.addGeneratedType("BHelper", "B")
+
+        then:
+        data.getGeneratedTypes("A") == ["AHelper", "ABuilder"] as Set
+        data.getGeneratedTypes("B") == ["BHelper"] as Set
+        data.getGeneratedTypes("C").empty
+    }
+
+    def "forgets the previous origin of a type generated again from another origin"() {
+        when:
+        data.addGeneratedType("Helper", "A")
+        data.addGeneratedType("Helper", "B")
+
+        then:
+        data.getGeneratedTypes("A").empty
+        data.getGeneratedTypes("B") == ["Helper"] as Set
+        data.generatedTypesToOrigins == [Helper: "B"]
+    }
+
+    def "merged data looks up the generated types of both compilations"() {
+        data.addGeneratedType("AHelper", "A")
+        data.addGeneratedType("BHelper", "B")
+        def current = new AnnotationProcessingData()
+        current.addGeneratedType("CHelper", "C")
+        current.addGeneratedType("BHelper", "C")
+
+        when:
+        def merged = data.merge(current, ["A", "AHelper", "B", "BHelper", "C", "CHelper"])
+
+        then:
+        merged.getGeneratedTypes("A") == ["AHelper"] as Set
+        merged.getGeneratedTypes("B").empty
+        merged.getGeneratedTypes("C") == ["CHelper", "BHelper"] as Set
+    }
+
+    def "looks up generated types after being written by the compiler"() {
+        def file = tmpDir.file("result.bin")
+        data.addGeneratedType("AHelper", "A")
+
+        when:
+        data.writeTo(file)
+        def read = AnnotationProcessingData.readFrom(file)
+
+        then:
+        read.getGeneratedTypes("A") == ["AHelper"] as Set
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.JarUtils
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType.AGGREGATING
+import static org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType.ISOLATING
+import static org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType.UNKNOWN
+
+class AnnotationProcessorDeclarationDetectorTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def detector = new AnnotationProcessorDeclarationDetector()
+
+    def "detects processors declared in jars"() {
+        given:
+        def jar = tmpDir.file("processor.jar")
+        jar << JarUtils.jarWithContents(
+            "META-INF/services/javax.annotation.processing.Processor": "# processors\norg.Isolating\norg.Aggregating\r\norg.Other # not incremental\n",
+            "META-INF/gradle/incremental.annotation.processors": "org.Isolating,isolating\norg.Aggregating, aggregating\norg.Other,unknown")
+
+        expect:
+        declarations(jar) == [["org.Isolating", ISOLATING], ["org.Aggregating", AGGREGATING], ["org.Other", UNKNOWN]]
+    }
+
+    def "detects processors declared in directories"() {
+        given:
+        def dir = tmpDir.file("classes")
+        dir.file("META-INF/services/javax.annotation.processing.Processor").text = "org.Isolating"
+        dir.file("META-INF/gradle/incremental.annotation.processors").text = "org.Isolating,isolating"
+
+        expect:
+        declarations(dir) == [["org.Isolating", ISOLATING]]
+    }
+
+    def "processors without an incremental declaration are not incremental"() {
+        given:
+        def dir = tmpDir.file("classes")
+        dir.file("META-INF/services/javax.annotation.processing.Processor").text = "org.Processor"
+        def jar = tmpDir.file("other.jar")
+        jar << JarUtils.jarWithContents("META-INF/gradle/incremental.annotation.processors": "org.Processor,isolating")
+
+        expect:
+        declarations(dir, jar) == [["org.Processor", UNKNOWN]]
+    }
+
+    def "ignores files that do not declare processors"() {
+        given:
+        def dir = tmpDir.createDir("classes")
+        dir.file("Thing.class").createFile()
+        def jar = tmpDir.file("lib.jar")
+        jar << JarUtils.jarWithContents("Other.class": "other")
+        def missing = tmpDir.file("missing.jar")
+
+        expect:
+        declarations(dir, jar, missing).empty
+    }
+
+    def "the first declaration of a processor wins"() {
+        given:
+        def first = tmpDir.file("first.jar")
+        first << JarUtils.jarWithContents(
+            "META-INF/services/javax.annotation.processing.Processor": "org.Processor",
+            "META-INF/gradle/incremental.annotation.processors": "org.Processor,aggregating")
+        def second = tmpDir.file("second.jar")
+        second << JarUtils.jarWithContents(
+            "META-INF/services/javax.annotation.processing.Processor": "org.Processor",
+            "META-INF/gradle/incremental.annotation.processors": "org.Processor,isolating")
+
+        expect:
+        declarations(first, second) == [["org.Processor", AGGREGATING]]
+    }
+
+    List<List<Object>> declarations(File... files) {
+        detector.detectProcessors(files as List).collect { [it.className, it.type] }
+    }
+}
@@ -16,10 +16,12 @@
 
 package org.gradle.api.internal.tasks;
 
+import org.gradle.api.internal.cache.CrossBuildInMemoryCacheFactory;
 import org.gradle.api.internal.changedetection.state.InMemoryCacheDecoratorFactory;
 import org.gradle.api.internal.jvm.JvmBinaryRenderer;
 import org.gradle.api.internal.tasks.compile.incremental.cache.DefaultGeneralCompileCaches;
 import org.gradle.api.internal.tasks.compile.incremental.cache.GeneralCompileCaches;
+import org.gradle.api.internal.tasks.compile.incremental.jar.InMemoryJarSnapshotStore;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
 import org.gradle.initialization.JdkToolsInitializer;
@@ -29,6 +31,7 @@ import org.gradle.internal.service.scopes.PluginServiceRegistry;
 public class CompileServices implements PluginServiceRegistry {
     public void registerGlobalServices(ServiceRegistration registration) {
         registration.add(JvmBinaryRenderer.class);
+        registration.addProvider(new GlobalScopeCompileServices());
     }
 
     public void registerBuildSessionServices(ServiceRegistration registration) {
@@ -44,14 +47,20 @@ public class CompileServices implements PluginServiceRegistry {
     public void registerProjectServices(ServiceRegistration registration) {
     }
 
+    private static class GlobalScopeCompileServices {
+        InMemoryJarSnapshotStore createInMemoryJarSnapshotStore(CrossBuildInMemoryCacheFactory cacheFactory) {
+            return new InMemoryJarSnapshotStore(cacheFactory);
+        }
+    }
+
     private static class GradleScopeCompileServices {
         void configure(ServiceRegistration registration, JdkToolsInitializer initializer) {
             // Hackery
             initializer.initializeJdkTools();
         }
 
-        GeneralCompileCaches createGeneralCompileCaches(CacheRepository cacheRepository, Gradle gradle, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory) {
-            return new DefaultGeneralCompileCaches(cacheRepository, gradle, inMemoryCacheDecoratorFactory);
+        GeneralCompileCaches createGeneralCompileCaches(CacheRepository cacheRepository, Gradle gradle, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory, InMemoryJarSnapshotStore inMemoryJarSnapshotStore) {
+            return new DefaultGeneralCompileCaches(cacheRepository, gradle, inMemoryCacheDecoratorFactory, inMemoryJarSnapshotStore);
         }
     }
 }
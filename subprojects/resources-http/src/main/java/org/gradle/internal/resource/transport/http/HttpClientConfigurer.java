@@ -69,6 +69,11 @@ public class HttpClientConfigurer {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientConfigurer.class);
     private static final int MAX_HTTP_CONNECTIONS = 20;
 
+    /**
+     * The maximum number of connections to a single host, and so the maximum number of concurrent downloads from the host. Defaults to {@value #MAX_HTTP_CONNECTIONS}.
+     */
+    public static final String MAX_CONNECTIONS_PER_HOST_PROPERTY = "org.gradle.internal.http.maxConnectionsPerHost";
+
     private final HttpSettings httpSettings;
 
     public HttpClientConfigurer(HttpSettings httpSettings) {
@@ -84,7 +89,12 @@ public class HttpClientConfigurer {
         configureUserAgent(builder);
         builder.setDefaultCredentialsProvider(credentialsProvider);
         builder.setMaxConnTotal(MAX_HTTP_CONNECTIONS);
-        builder.setMaxConnPerRoute(MAX_HTTP_CONNECTIONS);
+        builder.setMaxConnPerRoute(getMaxConnectionsPerHost());
+    }
+
+    private static int getMaxConnectionsPerHost() {
+        int maxConnectionsPerHost = Integer.getInteger(MAX_CONNECTIONS_PER_HOST_PROPERTY, MAX_HTTP_CONNECTIONS);
+        return Math.max(1, Math.min(maxConnectionsPerHost, MAX_HTTP_CONNECTIONS));
     }
 
     private void configureSslSocketConnectionFactory(HttpClientBuilder builder, SslContextFactory sslContextFactory) {
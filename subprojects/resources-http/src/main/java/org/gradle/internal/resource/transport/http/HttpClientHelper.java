@@ -20,6 +20,7 @@ import org.apache.http.Header;
 import org.apache.http.HeaderIterator;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
 import org.apache.http.ProtocolVersion;
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -27,18 +28,21 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.DateUtils;
 import org.apache.http.client.utils.HttpClientUtils;
 import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
+import org.gradle.api.Nullable;
 import org.gradle.api.UncheckedIOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Date;
 import java.util.Locale;
 
 /**
@@ -77,6 +81,41 @@ public class HttpClientHelper implements Closeable {
         return processResponse(source, "GET", performRawGet(source, revalidate));
     }
 
+    /**
+     * Requests the content of the given resource, unless it still matches the given ETag or has not been modified since the given date.
+     * The response has status 304 (Not Modified) when the resource has not changed. Returns {@code null} when the resource does not exist.
+     */
+    @Nullable
+    public CloseableHttpResponse performConditionalGet(String source, @Nullable String etag, @Nullable Date lastModified) {
+        HttpGet request = new HttpGet(source);
+        if (etag != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null) {
+            request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, DateUtils.formatDate(lastModified));
+        }
+        return processResponse(source, "GET", performRequest(request, true));
+    }
+
+    /**
+     * Requests the content of the given resource from the given offset on, provided that the resource still matches the given validator, an ETag or a Last-Modified date.
+     * Returns {@code null} when the server does not send the requested range, for example because the resource has changed.
+     */
+    @Nullable
+    public CloseableHttpResponse performRangeGet(String source, long offset, String validator) {
+        HttpGet request = new HttpGet(source);
+        request.addHeader(HttpHeaders.RANGE, "bytes=" + offset + "-");
+        request.addHeader(HttpHeaders.IF_RANGE, validator);
+        CloseableHttpResponse response = performRequest(request, false);
+        Header contentRange = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+        if (response.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT || contentRange == null || !contentRange.getValue().startsWith("bytes " + offset + "-")) {
+            LOGGER.debug("Server did not send the requested range. [HTTP GET: {}, Range: bytes={}-, Status: {}]", source, offset, response.getStatusLine());
+            HttpClientUtils.closeQuietly(response);
+            return null;
+        }
+        return response;
+    }
+
     public CloseableHttpResponse performRequest(HttpRequestBase request, boolean revalidate) {
         String method = request.getMethod();
         if (revalidate) {
@@ -25,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
+import java.util.Date;
 
 public class HttpResourceAccessor implements ExternalResourceAccessor {
 
@@ -48,6 +49,23 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
         return null;
     }
 
+    /**
+     * Same as {@link #openResource(URI, boolean)} except that the content is only sent when the resource no longer matches the given ETag or has been modified since the given date.
+     * The returned resource has status 304 (Not Modified) and no content when the resource has not changed.
+     */
+    @Nullable
+    public HttpResponseResource openResourceIfChanged(URI uri, @Nullable String etag, @Nullable Date lastModified) {
+        String location = uri.toString();
+        LOGGER.debug("Constructing external resource: {}", location);
+
+        CloseableHttpResponse response = http.performConditionalGet(location, etag, lastModified);
+        if (response != null) {
+            return wrapResponse(uri, response);
+        }
+
+        return null;
+    }
+
     /**
      * Same as #getResource except that it always gives access to the response body,
      * irrespective of the returned HTTP status code. Never returns {@code null}.
@@ -77,7 +95,7 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
     }
 
     private HttpResponseResource wrapResponse(URI uri, CloseableHttpResponse response) {
-        return new HttpResponseResource("GET", uri, response);
+        return new HttpResponseResource("GET", uri, response, http);
     }
 
 }
@@ -16,10 +16,15 @@
 
 package org.gradle.internal.resource.transport.http;
 
+import org.apache.http.HttpStatus;
+import org.gradle.api.Nullable;
 import org.gradle.api.resources.ResourceException;
 import org.gradle.internal.resource.ResourceExceptions;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
 import org.gradle.internal.resource.transfer.ExternalResourceLister;
-import org.gradle.internal.resource.transfer.ExternalResourceReadResponse;
+import org.gradle.internal.resource.transfer.ExternalResourceListing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -27,6 +32,7 @@ import java.net.URI;
 import java.util.List;
 
 public class HttpResourceLister implements ExternalResourceLister {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpResourceLister.class);
     private HttpResourceAccessor accessor;
 
     public HttpResourceLister(HttpResourceAccessor accessor) {
@@ -34,20 +40,36 @@ public class HttpResourceLister implements ExternalResourceLister {
     }
 
     public List<String> list(final URI directory) {
-        final ExternalResourceReadResponse response = accessor.openResource(directory, true);
+        ExternalResourceListing listing = list(directory, null);
+        return listing == null ? null : listing.getChildren();
+    }
+
+    public ExternalResourceListing list(URI directory, @Nullable ExternalResourceListing previous) {
+        HttpResponseResource response;
+        if (previous != null && previous.hasValidator()) {
+            response = accessor.openResourceIfChanged(directory, previous.getEtag(), previous.getLastModified());
+        } else {
+            response = accessor.openResource(directory, true);
+        }
         if (response == null) {
             return null;
         }
         try {
             try {
-                String contentType = response.getMetaData().getContentType();
+                if (response.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                    LOGGER.debug("Directory listing of {} has not changed.", directory);
+                    return previous;
+                }
+                ExternalResourceMetaData metaData = response.getMetaData();
                 ApacheDirectoryListingParser directoryListingParser = new ApacheDirectoryListingParser();
                 InputStream inputStream = response.openStream();
+                List<String> children;
                 try {
-                    return directoryListingParser.parse(directory, inputStream, contentType);
+                    children = directoryListingParser.parse(directory, inputStream, metaData.getContentType());
                 } catch (Exception e) {
                     throw new ResourceException(directory, String.format("Unable to parse HTTP directory listing for '%s'.", directory), e);
                 }
+                return new ExternalResourceListing(children, metaData.getEtag(), metaData.getLastModified());
             } finally {
                 response.close();
             }
@@ -19,9 +19,12 @@ import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.entity.DecompressingEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.utils.DateUtils;
 import org.apache.http.client.utils.HttpClientUtils;
+import org.gradle.api.Nullable;
 import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.resource.metadata.DefaultExternalResourceMetaData;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
@@ -40,12 +43,21 @@ public class HttpResponseResource implements ExternalResourceReadResponse {
     private final URI source;
     private final CloseableHttpResponse response;
     private final ExternalResourceMetaData metaData;
+    private final HttpClientHelper http;
     private boolean wasOpened;
 
     public HttpResponseResource(String method, URI source, CloseableHttpResponse response) {
+        this(method, source, response, null);
+    }
+
+    /**
+     * Creates a resource whose content is resumed with the given client when the connection drops while the content is read.
+     */
+    public HttpResponseResource(String method, URI source, CloseableHttpResponse response, @Nullable HttpClientHelper http) {
         this.method = method;
         this.source = source;
         this.response = response;
+        this.http = http;
 
         String etag = getEtag(response);
         this.metaData = new DefaultExternalResourceMetaData(source, getLastModified(), getContentLength(), getContentType(), etag, getSha1(response, etag));
@@ -122,7 +134,25 @@ public class HttpResponseResource implements ExternalResourceReadResponse {
         if (entity == null) {
             throw new IOException(String.format("Response %d: %s has no content!", getStatusCode(), response.getStatusLine().getReasonPhrase()));
         }
-        return entity.getContent();
+        InputStream content = entity.getContent();
+        String validator = getResumeValidator();
+        // Ranges address the content as sent, so a response that is decompressed on the fly cannot be resumed
+        if (http != null && validator != null && getStatusCode() == HttpStatus.SC_OK && !(entity instanceof DecompressingEntity)) {
+            return new ResumableHttpInputStream(http, source, validator, content);
+        }
+        return content;
+    }
+
+    /**
+     * Returns the strong validator that a range request for the rest of the content can be made conditional on, so that the rest of a changed resource is not appended.
+     */
+    @Nullable
+    private String getResumeValidator() {
+        String etag = metaData.getEtag();
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return getHeaderValue(HttpHeaders.LAST_MODIFIED);
     }
 
     @Override
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.utils.HttpClientUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * Reads the content of a resource, and requests the rest of the content with a range request when the connection is dropped part way through,
+ * so that the content read so far is not downloaded again.
+ */
+class ResumableHttpInputStream extends InputStream {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResumableHttpInputStream.class);
+    static final int MAX_RESUME_ATTEMPTS = 3;
+
+    private final HttpClientHelper http;
+    private final URI source;
+    private final String validator;
+    private InputStream content;
+    private CloseableHttpResponse resumedResponse;
+    private long position;
+    private int resumeAttempts;
+
+    ResumableHttpInputStream(HttpClientHelper http, URI source, String validator, InputStream content) {
+        this.http = http;
+        this.source = source;
+        this.validator = validator;
+        this.content = content;
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (true) {
+            try {
+                int value = content.read();
+                if (value >= 0) {
+                    position++;
+                }
+                return value;
+            } catch (IOException e) {
+                resume(e);
+            }
+        }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        while (true) {
+            try {
+                int count = content.read(buffer, offset, length);
+                if (count > 0) {
+                    position += count;
+                }
+                return count;
+            } catch (IOException e) {
+                resume(e);
+            }
+        }
+    }
+
+    private void resume(IOException failure) throws IOException {
+        if (resumeAttempts == MAX_RESUME_ATTEMPTS) {
+            throw failure;
+        }
+        resumeAttempts++;
+        LOGGER.info("Download of {} was interrupted after {} bytes, resuming download ({}).", source, position, failure.getMessage());
+        closeContent();
+        CloseableHttpResponse response;
+        try {
+            response = http.performRangeGet(source.toString(), position, validator);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not resume download of {}.", source, e);
+            throw failure;
+        }
+        if (response == null) {
+            throw failure;
+        }
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            HttpClientUtils.closeQuietly(response);
+            throw failure;
+        }
+        resumedResponse = response;
+        content = entity.getContent();
+    }
+
+    private void closeContent() {
+        try {
+            content.close();
+        } catch (IOException e) {
+            // Ignore, the connection has failed already
+        }
+        if (resumedResponse != null) {
+            HttpClientUtils.closeQuietly(resumedResponse);
+            resumedResponse = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            content.close();
+        } finally {
+            if (resumedResponse != null) {
+                HttpClientUtils.closeQuietly(resumedResponse);
+            }
+        }
+    }
+}
@@ -16,11 +16,18 @@
 
 package org.gradle.internal.resource.transport.http
 
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+import org.apache.http.ConnectionClosedException
 import org.apache.http.client.methods.CloseableHttpResponse
+import org.apache.http.ssl.SSLContexts
 import spock.lang.Specification
 
 class HttpResourceAccessorTest  extends Specification {
     URI uri = new URI("http://somewhere")
+    HttpServer server
+    HttpClientHelper client
 
     def "should call close() on ClosableHttpResource when getMetaData is called"() {
         def response = Mock(CloseableHttpResponse)
@@ -34,4 +41,111 @@ class HttpResourceAccessorTest  extends Specification {
         then:
         1 * response.close()
     }
+
+    def "resumes download with a range request when the connection drops"() {
+        def content = content()
+        def requests = []
+        startServer { HttpExchange exchange ->
+            requests << exchange.requestHeaders.getFirst("Range")
+            exchange.responseHeaders.add("ETag", '"v1"')
+            // Drop the connection after sending part of the content
+            sendPartially(exchange, content, 1000)
+        }
+
+        when:
+        def resource = new HttpResourceAccessor(client).openResource(serverUri(), false)
+        def downloaded = resource.openStream().bytes
+        resource.close()
+
+        then:
+        downloaded == content
+        requests == [null, "bytes=1000-", "bytes=2000-"]
+    }
+
+    def "does not resume download when the resource has changed"() {
+        def content = content()
+        def requests = []
+        startServer { HttpExchange exchange ->
+            requests << exchange.requestHeaders.getFirst("If-Range")
+            exchange.responseHeaders.add("ETag", requests.size() == 1 ? '"v1"' : '"v2"')
+            exchange.sendResponseHeaders(200, content.length)
+            exchange.responseBody.write(content, 0, 1000)
+            exchange.close()
+        }
+
+        when:
+        def resource = new HttpResourceAccessor(client).openResource(serverUri(), false)
+        try {
+            resource.openStream().bytes
+        } finally {
+            resource.close()
+        }
+
+        then:
+        thrown(ConnectionClosedException)
+        requests == [null, '"v1"']
+    }
+
+    def "gives up resuming download after repeated failures"() {
+        def content = new byte[10000]
+        def requests = 0
+        startServer { HttpExchange exchange ->
+            requests++
+            exchange.responseHeaders.add("Last-Modified", "Tue, 15 Nov 1994 12:45:26 GMT")
+            sendPartially(exchange, content, 1000)
+        }
+
+        when:
+        def resource = new HttpResourceAccessor(client).openResource(serverUri(), false)
+        try {
+            resource.openStream().bytes
+        } finally {
+            resource.close()
+        }
+
+        then:
+        thrown(ConnectionClosedException)
+        requests == ResumableHttpInputStream.MAX_RESUME_ATTEMPTS + 1
+    }
+
+    def cleanup() {
+        server?.stop(0)
+        client?.close()
+    }
+
+    private static byte[] content() {
+        def content = new byte[2500]
+        new Random(42).nextBytes(content)
+        return content
+    }
+
+    private static void sendPartially(HttpExchange exchange, byte[] content, int length) {
+        def range = exchange.requestHeaders.getFirst("Range")
+        def start = range ? Integer.parseInt(range.substring("bytes=".length(), range.length() - 1)) : 0
+        if (start > 0) {
+            exchange.responseHeaders.add("Content-Range", "bytes ${start}-${content.length - 1}/${content.length}")
+            exchange.sendResponseHeaders(206, content.length - start)
+        } else {
+            exchange.sendResponseHeaders(200, content.length)
+        }
+        exchange.responseBody.write(content, start, Math.min(length, content.length - start))
+        exchange.close()
+    }
+
+    private void startServer(Closure handler) {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+        server.createContext("/", handler as HttpHandler)
+        server.start()
+        client = new HttpClientHelper(Stub(HttpSettings) {
+            getProxySettings() >> Mock(HttpProxySettings)
+            getSecureProxySettings() >> Mock(HttpProxySettings)
+            getSslContextFactory() >> Mock(SslContextFactory) {
+                createSslContext() >> SSLContexts.createDefault()
+            }
+        })
+    }
+
+    private URI serverUri() {
+        return new URI("http://127.0.0.1:${server.address.port}/lib.jar")
+    }
 }
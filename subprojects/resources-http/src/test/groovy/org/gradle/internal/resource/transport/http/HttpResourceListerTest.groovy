@@ -17,6 +17,7 @@
 package org.gradle.internal.resource.transport.http
 
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData
+import org.gradle.internal.resource.transfer.ExternalResourceListing
 import spock.lang.Specification
 
 class HttpResourceListerTest extends Specification {
@@ -43,4 +44,57 @@ class HttpResourceListerTest extends Specification {
         expect:
         null == lister.list(new URI("http://testrepo"))
     }
+
+    def "returns listing with the validators of the response"() {
+        def lastModified = new Date()
+
+        given:
+        accessorMock.openResource(new URI("http://testrepo/"), true) >> externalResource
+        externalResource.openStream() >> new ByteArrayInputStream("<a href='child'/>".bytes)
+        externalResource.metaData >> metaData
+        metaData.contentType >> "text/html"
+        metaData.etag >> '"abc"'
+        metaData.lastModified >> lastModified
+
+        when:
+        def listing = lister.list(new URI("http://testrepo/"), null)
+
+        then:
+        listing.children == ["child"]
+        listing.etag == '"abc"'
+        listing.lastModified == lastModified
+    }
+
+    def "returns previous listing when directory has not been modified"() {
+        def lastModified = new Date()
+        def previous = new ExternalResourceListing(["child"], '"abc"', lastModified)
+
+        when:
+        def listing = lister.list(new URI("http://testrepo/"), previous)
+
+        then:
+        listing.is(previous)
+        1 * accessorMock.openResourceIfChanged(new URI("http://testrepo/"), '"abc"', lastModified) >> externalResource
+        _ * externalResource.statusCode >> 304
+        0 * externalResource.openStream()
+        1 * externalResource.close()
+        0 * accessorMock.openResource(_, _)
+    }
+
+    def "lists directory again when it has been modified since the previous listing"() {
+        def previous = new ExternalResourceListing(["child"], '"abc"', null)
+
+        when:
+        def listing = lister.list(new URI("http://testrepo/"), previous)
+
+        then:
+        listing.children == ["child", "other"]
+        listing.etag == '"def"'
+        1 * accessorMock.openResourceIfChanged(new URI("http://testrepo/"), '"abc"', null) >> externalResource
+        _ * externalResource.statusCode >> 200
+        1 * externalResource.openStream() >> new ByteArrayInputStream("<a href='child'/><a href='other'/>".bytes)
+        _ * externalResource.metaData >> metaData
+        _ * metaData.contentType >> "text/html"
+        _ * metaData.etag >> '"def"'
+    }
 }
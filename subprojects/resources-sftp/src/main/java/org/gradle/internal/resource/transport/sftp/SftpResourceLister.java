@@ -20,6 +20,7 @@ import com.jcraft.jsch.ChannelSftp;
 import org.gradle.api.artifacts.repositories.PasswordCredentials;
 import org.gradle.api.resources.ResourceException;
 import org.gradle.internal.resource.transfer.ExternalResourceLister;
+import org.gradle.internal.resource.transfer.ExternalResourceListing;
 
 import java.net.URI;
 import java.util.ArrayList;
@@ -55,4 +56,8 @@ public class SftpResourceLister implements ExternalResourceLister {
             sftpClientFactory.releaseSftpClient(client);
         }
     }
+
+    public ExternalResourceListing list(URI directory, ExternalResourceListing previous) {
+        return ExternalResourceListing.of(list(directory));
+    }
 }
@@ -70,6 +70,13 @@ public class DefaultExternalResourceConnector implements ExternalResourceConnect
         return lister.list(parent);
     }
 
+    @Nullable
+    @Override
+    public ExternalResourceListing list(URI parent, @Nullable ExternalResourceListing previous) {
+        STATS.list(parent);
+        return lister.list(parent, previous);
+    }
+
     @Override
     public void upload(LocalResource resource, URI destination) throws IOException {
         STATS.upload(destination);
@@ -33,4 +33,14 @@ public interface ExternalResourceLister {
     @Nullable
     List<String> list(URI parent) throws ResourceException;
 
+    /**
+     * Lists the direct children of the parent resource, unless the parent resource has not changed since the given listing was made.
+     *
+     * @param parent the resource to list from
+     * @param previous an earlier listing of the <code>parent</code>, or null
+     * @return A listing of the direct children of the <code>parent</code>. This is <code>previous</code> when the <code>parent</code> has not changed, and null when the <code>parent</code> does not exist.
+     */
+    @Nullable
+    ExternalResourceListing list(URI parent, @Nullable ExternalResourceListing previous) throws ResourceException;
+
 }
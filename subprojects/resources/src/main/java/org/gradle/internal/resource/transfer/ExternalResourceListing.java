@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transfer;
+
+import org.gradle.api.Nullable;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The direct children of a resource, along with the validators that the listing was sent with. The validators allow a later listing to be skipped when the resource has not changed.
+ */
+public class ExternalResourceListing {
+    private final List<String> children;
+    private final String etag;
+    private final Date lastModified;
+
+    public ExternalResourceListing(List<String> children, @Nullable String etag, @Nullable Date lastModified) {
+        this.children = children;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Creates a listing without validators, for a lister that cannot make conditional requests.
+     */
+    @Nullable
+    public static ExternalResourceListing of(@Nullable List<String> children) {
+        return children == null ? null : new ExternalResourceListing(children, null, null);
+    }
+
+    public List<String> getChildren() {
+        return children;
+    }
+
+    @Nullable
+    public String getEtag() {
+        return etag;
+    }
+
+    @Nullable
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    public boolean hasValidator() {
+        return etag != null || lastModified != null;
+    }
+}
@@ -27,16 +27,25 @@ import org.gradle.internal.actor.ActorFactory;
 import org.gradle.internal.dispatch.DispatchException;
 
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
 
 /**
  * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
  * processors.
+ *
+ * <p>Alternatively, test classes can be pulled by the processors: a test class is assigned to a processor that is free, or is queued until a processor
+ * becomes free. A slow test class then does not hold up the test classes that would have been assigned to the same processor. This requires that
+ * the processors do not return from {@link TestClassProcessor#processTestClass(TestClassRunInfo)} until the test class has been executed.</p>
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final boolean pullTestClasses;
+    private final Object lock = new Object();
+    private final LinkedList<TestClassRunInfo> pendingTestClasses = new LinkedList<TestClassRunInfo>();
+    private final List<TestClassProcessor> freeProcessors = new ArrayList<TestClassProcessor>();
     private TestResultProcessor resultProcessor;
     private int pos;
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
@@ -44,9 +53,14 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private Actor resultProcessorActor;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, false);
+    }
+
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, boolean pullTestClasses) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.pullTestClasses = pullTestClasses;
     }
 
     @Override
@@ -58,14 +72,13 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
 
     @Override
     public void processTestClass(TestClassRunInfo testClass) {
+        if (pullTestClasses) {
+            dispatchToFreeProcessor(testClass);
+            return;
+        }
         TestClassProcessor processor;
         if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
+            processor = startProcessor(factory.create());
         } else {
             processor = processors.get(pos);
             pos = (pos + 1) % processors.size();
@@ -73,6 +86,45 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
         processor.processTestClass(testClass);
     }
 
+    private void dispatchToFreeProcessor(TestClassRunInfo testClass) {
+        TestClassProcessor processor;
+        synchronized (lock) {
+            if (!freeProcessors.isEmpty()) {
+                processor = freeProcessors.remove(freeProcessors.size() - 1);
+            } else if (processors.size() < maxProcessors) {
+                PullingTestClassProcessor pullingProcessor = new PullingTestClassProcessor(factory.create());
+                processor = startProcessor(pullingProcessor);
+                pullingProcessor.proxy = processor;
+            } else {
+                pendingTestClasses.add(testClass);
+                return;
+            }
+        }
+        processor.processTestClass(testClass);
+    }
+
+    private TestClassProcessor startProcessor(TestClassProcessor processor) {
+        Actor actor = actorFactory.createActor(processor);
+        TestClassProcessor proxy = actor.getProxy(TestClassProcessor.class);
+        actors.add(actor);
+        processors.add(proxy);
+        proxy.startProcessing(resultProcessor);
+        return proxy;
+    }
+
+    /**
+     * Returns the next test class for the given processor, or marks the processor as free when there are no test classes waiting.
+     */
+    private TestClassRunInfo nextTestClass(PullingTestClassProcessor processor) {
+        synchronized (lock) {
+            TestClassRunInfo testClass = pendingTestClasses.poll();
+            if (testClass == null) {
+                freeProcessors.add(processor.proxy);
+            }
+            return testClass;
+        }
+    }
+
     @Override
     public void stop() {
         try {
@@ -81,4 +133,34 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
             throw UncheckedException.throwAsUncheckedException(e.getCause());
         }
     }
+
+    /**
+     * Executes the test classes that are waiting once it has executed the test class it was given, in the thread of its actor.
+     */
+    private class PullingTestClassProcessor implements TestClassProcessor {
+        private final TestClassProcessor delegate;
+        private TestClassProcessor proxy;
+
+        PullingTestClassProcessor(TestClassProcessor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            delegate.startProcessing(resultProcessor);
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            while (testClass != null) {
+                delegate.processTestClass(testClass);
+                testClass = nextTestClass(this);
+            }
+        }
+
+        @Override
+        public void stop() {
+            delegate.stop();
+        }
+    }
 }
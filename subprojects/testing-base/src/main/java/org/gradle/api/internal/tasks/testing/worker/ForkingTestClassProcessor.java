@@ -22,6 +22,8 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.dispatch.StreamCompletion;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.process.JavaForkOptions;
 import org.gradle.process.internal.worker.WorkerProcess;
@@ -33,6 +35,10 @@ import java.io.File;
 import java.net.URL;
 import java.util.List;
 
+/**
+ * Executes test classes in a forked worker process. Optionally waits for the worker to finish with each test class, so that the caller only
+ * hands over another test class once the worker is free.
+ */
 public class ForkingTestClassProcessor implements TestClassProcessor {
     private final WorkerProcessFactory workerFactory;
     private final WorkerTestClassProcessorFactory processorFactory;
@@ -40,11 +46,18 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private final ModuleRegistry moduleRegistry;
+    private final boolean waitForTestClasses;
+    private final ProcessedTestClasses processedTestClasses = new ProcessedTestClasses();
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
     private TestResultProcessor resultProcessor;
 
     public ForkingTestClassProcessor(WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry) {
+        this(workerFactory, processorFactory, options, classPath, buildConfigAction, moduleRegistry, false);
+    }
+
+    public ForkingTestClassProcessor(WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, boolean waitForTestClasses) {
+        this.waitForTestClasses = waitForTestClasses;
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
         this.options = options;
@@ -65,6 +78,9 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         }
 
         remoteProcessor.processTestClass(testClass);
+        if (waitForTestClasses) {
+            processedTestClasses.waitForTestClass();
+        }
     }
 
     RemoteTestClassProcessor forkProcess() {
@@ -82,6 +98,7 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         ObjectConnection connection = workerProcess.getConnection();
         connection.useParameterSerializers(TestEventSerializer.create());
         connection.addIncoming(TestResultProcessor.class, resultProcessor);
+        connection.addIncoming(TestClassProcessedListener.class, processedTestClasses);
         RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
         connection.connect();
         remoteProcessor.startProcessing();
@@ -116,4 +133,37 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
             workerProcess.waitForStop();
         }
     }
+
+    /**
+     * Counts the test classes that the worker has finished with. Stops waiting when the worker goes away, for example when it crashes.
+     */
+    private static class ProcessedTestClasses implements TestClassProcessedListener, StreamCompletion {
+        private int processed;
+        private boolean ended;
+
+        @Override
+        public synchronized void testClassProcessed() {
+            processed++;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void endStream() {
+            ended = true;
+            notifyAll();
+        }
+
+        synchronized void waitForTestClass() {
+            try {
+                while (processed == 0 && !ended) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            if (processed > 0) {
+                processed--;
+            }
+        }
+    }
 }
@@ -21,6 +21,8 @@ import org.gradle.api.internal.tasks.testing.TestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.internal.actor.Actor
 import org.gradle.internal.actor.ActorFactory
+import org.gradle.internal.actor.internal.DefaultActorFactory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import spock.lang.Specification
 import org.gradle.internal.Factory
 
@@ -167,4 +169,83 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         then:
         1 * asyncProcessor2.processTestClass(test)
     }
+
+    def pullsTestClassesWhenProcessorsBecomeFree() {
+        def executorFactory = new DefaultExecutorFactory()
+        def realActorFactory = new DefaultActorFactory(executorFactory)
+        def processed = Collections.synchronizedList([])
+        def pulling = new MaxNParallelTestClassProcessor(2, { new SleepingTestClassProcessor(processed) } as Factory, realActorFactory, true)
+
+        when:
+        pulling.startProcessing(resultProcessor)
+        ["slow1", "fast1", "slow2", "fast2", "fast3", "fast4"].each { pulling.processTestClass(testClass(it)) }
+        pulling.stop()
+
+        then:
+        processed.sort() == ["fast1", "fast2", "fast3", "fast4", "slow1", "slow2"]
+
+        cleanup:
+        realActorFactory.stop()
+        executorFactory.stop()
+    }
+
+    def pullingTestClassesReducesWallClockTimeWhenTestClassDurationsAreSkewed() {
+        def executorFactory = new DefaultExecutorFactory()
+        def realActorFactory = new DefaultActorFactory(executorFactory)
+        // Round-robin assigns both slow test classes to the first processor
+        def testClasses = ["slow1", "fast1", "slow2", "fast2", "fast3", "fast4"]
+
+        when:
+        def roundRobinTime = time(new MaxNParallelTestClassProcessor(2, { new SleepingTestClassProcessor([]) } as Factory, realActorFactory, false), testClasses)
+        def pullingTime = time(new MaxNParallelTestClassProcessor(2, { new SleepingTestClassProcessor([]) } as Factory, realActorFactory, true), testClasses)
+
+        then:
+        roundRobinTime >= 2 * SleepingTestClassProcessor.SLOW
+        pullingTime < 2 * SleepingTestClassProcessor.SLOW
+
+        cleanup:
+        realActorFactory.stop()
+        executorFactory.stop()
+    }
+
+    private long time(TestClassProcessor processor, List<String> testClasses) {
+        long start = System.nanoTime()
+        processor.startProcessing(resultProcessor)
+        testClasses.each { processor.processTestClass(testClass(it)) }
+        processor.stop()
+        return (System.nanoTime() - start) / 1000000
+    }
+
+    private TestClassRunInfo testClass(String name) {
+        return Stub(TestClassRunInfo) {
+            getTestClassName() >> name
+        }
+    }
+
+    /**
+     * Takes much longer for the slow test classes than for the fast ones, and does not return until the test class has been executed, like a forked worker that is waited for.
+     */
+    private static class SleepingTestClassProcessor implements TestClassProcessor {
+        static final long SLOW = 500
+        static final long FAST = 20
+        private final List<String> processed
+
+        SleepingTestClassProcessor(List<String> processed) {
+            this.processed = processed
+        }
+
+        @Override
+        void startProcessing(TestResultProcessor resultProcessor) {
+        }
+
+        @Override
+        void processTestClass(TestClassRunInfo testClass) {
+            Thread.sleep(testClass.testClassName.startsWith("slow") ? SLOW : FAST)
+            processed << testClass.testClassName
+        }
+
+        @Override
+        void stop() {
+        }
+    }
 }
@@ -17,12 +17,14 @@
 package org.gradle.api.internal.tasks.testing.detection;
 
 import com.google.common.collect.ImmutableSet;
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassHistory;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
@@ -48,20 +50,46 @@ public class DefaultTestExecuter implements TestExecuter {
 
     private static final Logger LOGGER = Logging.getLogger(DefaultTestExecuter.class);
 
+    /**
+     * When true, each test worker is handed the next test class only once it has finished with the previous one, rather than test classes being
+     * assigned to the workers round-robin as they are found. This keeps the workers busy when the test classes take very different amounts of time.
+     */
+    public static final String PULL_TEST_CLASSES_PROPERTY = "org.gradle.internal.testing.pullTestClasses";
+
+    /**
+     * When true, the test classes are run longest first, according to the results of the previous run, and are handed to the test workers as
+     * they become free. Implies {@link #PULL_TEST_CLASSES_PROPERTY}.
+     */
+    public static final String ORDER_BY_HISTORY_PROPERTY = "org.gradle.internal.testing.orderByHistory";
+
+    /**
+     * When true, along with {@link #ORDER_BY_HISTORY_PROPERTY}, the test classes that failed in the previous run are run before all others.
+     */
+    public static final String FAILED_FIRST_PROPERTY = "org.gradle.internal.testing.failedFirst";
+
     private final WorkerProcessFactory workerFactory;
     private final ActorFactory actorFactory;
     private final ModuleRegistry moduleRegistry;
     private final WorkerLeaseRegistry workerLeaseRegistry;
     private final BuildOperationExecutor buildOperationExecutor;
     private final int maxWorkerCount;
+    private final TestClassHistory testClassHistory;
 
-    public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry, WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor, int maxWorkerCount) {
+    /**
+     * @param testClassHistory The results of the previous run, used to order the test classes. Null when the test classes are not ordered.
+     */
+    public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry, WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor, int maxWorkerCount, @Nullable TestClassHistory testClassHistory) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
         this.moduleRegistry = moduleRegistry;
         this.workerLeaseRegistry = workerLeaseRegistry;
         this.buildOperationExecutor = buildOperationExecutor;
         this.maxWorkerCount = maxWorkerCount;
+        this.testClassHistory = testClassHistory;
+    }
+
+    public static boolean isOrderByHistory() {
+        return Boolean.getBoolean(ORDER_BY_HISTORY_PROPERTY);
     }
 
     @Override
@@ -70,10 +98,11 @@ public class DefaultTestExecuter implements TestExecuter {
         final WorkerTestClassProcessorFactory testInstanceFactory = testFramework.getProcessorFactory();
         final WorkerLeaseRegistry.WorkerLease currentWorkerLease = workerLeaseRegistry.getCurrentWorkerLease();
         final Set<File> classpath = ImmutableSet.copyOf(testTask.getClasspath());
+        final boolean pullTestClasses = Boolean.getBoolean(PULL_TEST_CLASSES_PROPERTY) || testClassHistory != null;
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
-                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry);
+                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, pullTestClasses);
             }
         };
         final Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -88,7 +117,10 @@ public class DefaultTestExecuter implements TestExecuter {
             }
         };
 
-        TestClassProcessor processor = new MaxNParallelTestClassProcessor(getMaxParallelForks(testTask), workerLeaseHolderProcessorFactory, actorFactory);
+        TestClassProcessor processor = new MaxNParallelTestClassProcessor(getMaxParallelForks(testTask), workerLeaseHolderProcessorFactory, actorFactory, pullTestClasses);
+        if (testClassHistory != null) {
+            processor = new HistoryOrderingTestClassProcessor(processor, testClassHistory, Boolean.getBoolean(FAILED_FIRST_PROPERTY));
+        }
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
 
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassHistory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Holds back the test classes until all of them have been found, then hands them to the delegate longest first, according to the durations of
+ * the previous run. Test classes that did not run before go first, as their duration is not known. Optionally, the test classes that failed in the
+ * previous run go before all others. Test classes that cannot be told apart keep the order in which they were found.
+ *
+ * <p>When the delegate hands each test class to the first worker that is free, this packs the test classes onto the workers greedily, longest first,
+ * so that a long test class does not start last and hold up the end of the run.</p>
+ */
+public class HistoryOrderingTestClassProcessor implements TestClassProcessor {
+    private final TestClassProcessor delegate;
+    private final TestClassHistory history;
+    private final boolean failedFirst;
+    private final List<TestClassRunInfo> testClasses = new ArrayList<TestClassRunInfo>();
+
+    public HistoryOrderingTestClassProcessor(TestClassProcessor delegate, TestClassHistory history, boolean failedFirst) {
+        this.delegate = delegate;
+        this.history = history;
+        this.failedFirst = failedFirst;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        delegate.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        testClasses.add(testClass);
+    }
+
+    @Override
+    public void stop() {
+        try {
+            Collections.sort(testClasses, new HistoryComparator());
+            for (TestClassRunInfo testClass : testClasses) {
+                delegate.processTestClass(testClass);
+            }
+        } finally {
+            testClasses.clear();
+            delegate.stop();
+        }
+    }
+
+    private class HistoryComparator implements Comparator<TestClassRunInfo> {
+        @Override
+        public int compare(TestClassRunInfo left, TestClassRunInfo right) {
+            String leftName = left.getTestClassName();
+            String rightName = right.getTestClassName();
+            if (failedFirst) {
+                boolean leftFailed = history.hasFailed(leftName);
+                boolean rightFailed = history.hasFailed(rightName);
+                if (leftFailed != rightFailed) {
+                    return leftFailed ? -1 : 1;
+                }
+            }
+            Long leftDuration = history.getDuration(leftName);
+            Long rightDuration = history.getDuration(rightName);
+            if (leftDuration == null || rightDuration == null) {
+                return leftDuration == null ? (rightDuration == null ? 0 : -1) : 1;
+            }
+            return rightDuration.compareTo(leftDuration);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The duration and outcome of each test class in a previous run of a test task, as read from the binary results of that run.
+ */
+public class TestClassHistory {
+    private final static Logger LOG = Logging.getLogger(TestClassHistory.class);
+
+    private final Map<String, Long> durations = new HashMap<String, Long>();
+    private final Set<String> failed = new HashSet<String>();
+
+    /**
+     * Reads the results in the given directory. Returns an empty history when there are no results, or when the results cannot be read.
+     */
+    public static TestClassHistory read(File binResultsDir) {
+        final TestClassHistory history = new TestClassHistory();
+        TestResultSerializer serializer = new TestResultSerializer(binResultsDir);
+        if (!serializer.isHasResults()) {
+            return history;
+        }
+        try {
+            serializer.read(new Action<TestClassResult>() {
+                public void execute(TestClassResult result) {
+                    history.add(result.getClassName(), result.getDuration(), result.getFailuresCount() > 0);
+                }
+            });
+        } catch (RuntimeException e) {
+            LOG.debug("Could not read the results of the previous test run from {}.", binResultsDir, e);
+            return new TestClassHistory();
+        }
+        return history;
+    }
+
+    void add(String className, long duration, boolean failed) {
+        Long previous = durations.get(className);
+        durations.put(className, previous == null ? duration : previous + duration);
+        if (failed) {
+            this.failed.add(className);
+        }
+    }
+
+    /**
+     * Returns the duration of the given test class in milliseconds, or null when the test class did not run.
+     */
+    @Nullable
+    public Long getDuration(String className) {
+        return durations.get(className);
+    }
+
+    public boolean hasFailed(String className) {
+        return failed.contains(className);
+    }
+
+    public boolean isEmpty() {
+        return durations.isEmpty();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassHistory
+import spock.lang.Specification
+
+class HistoryOrderingTestClassProcessorTest extends Specification {
+    def delegate = Mock(TestClassProcessor)
+    def history = Stub(TestClassHistory) {
+        getDuration("Short") >> 10L
+        getDuration("Long") >> 1000L
+        getDuration("Medium") >> 100L
+        getDuration("Failed") >> 50L
+        hasFailed("Failed") >> true
+    }
+
+    def "hands over test classes longest first once all have been found"() {
+        def processor = new HistoryOrderingTestClassProcessor(delegate, history, false)
+        def resultProcessor = Mock(TestResultProcessor)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        ["Short", "Failed", "Long", "Medium"].each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+
+        then:
+        1 * delegate.startProcessing(resultProcessor)
+        0 * delegate._
+
+        when:
+        processor.stop()
+
+        then:
+        1 * delegate.processTestClass({ it.testClassName == "Long" })
+
+        then:
+        1 * delegate.processTestClass({ it.testClassName == "Medium" })
+
+        then:
+        1 * delegate.processTestClass({ it.testClassName == "Failed" })
+
+        then:
+        1 * delegate.processTestClass({ it.testClassName == "Short" })
+
+        then:
+        1 * delegate.stop()
+    }
+
+    def "hands over failed test classes first when requested"() {
+        def processor = new HistoryOrderingTestClassProcessor(delegate, history, true)
+
+        when:
+        ["Short", "Long", "Failed"].each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+        processor.stop()
+
+        then:
+        1 * delegate.processTestClass({ it.testClassName == "Failed" })
+
+        then:
+        1 * delegate.processTestClass({ it.testClassName == "Long" })
+
+        then:
+        1 * delegate.processTestClass({ it.testClassName == "Short" })
+
+        then:
+        1 * delegate.stop()
+    }
+
+    def "hands over test classes that did not run before first, in the order they were found"() {
+        def processor = new HistoryOrderingTestClassProcessor(delegate, history, true)
+
+        when:
+        ["Short", "New2", "Long", "New1"].each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+        processor.stop()
+
+        then:
+        1 * delegate.processTestClass({ it.testClassName == "New2" })
+
+        then:
+        1 * delegate.processTestClass({ it.testClassName == "New1" })
+
+        then:
+        1 * delegate.processTestClass({ it.testClassName == "Long" })
+
+        then:
+        1 * delegate.processTestClass({ it.testClassName == "Short" })
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result
+
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestClassHistoryTest extends Specification {
+    @Rule
+    private TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+
+    def "reads durations and failures of previous run"() {
+        def class1 = new TestClassResult(1, 'Class1', 1000)
+        class1.add(new TestMethodResult(1, "method1", TestResult.ResultType.SUCCESS, 100, 1100))
+        class1.add(new TestMethodResult(2, "method2", TestResult.ResultType.FAILURE, 200, 1300))
+        def class2 = new TestClassResult(2, 'Class2', 2000)
+        class2.add(new TestMethodResult(3, "method1", TestResult.ResultType.SUCCESS, 50, 2050))
+        new TestResultSerializer(tmp.testDirectory).write([class1, class2])
+
+        when:
+        def history = TestClassHistory.read(tmp.testDirectory)
+
+        then:
+        history.getDuration('Class1') == 300
+        history.hasFailed('Class1')
+        history.getDuration('Class2') == 50
+        !history.hasFailed('Class2')
+        history.getDuration('Class3') == null
+        !history.hasFailed('Class3')
+    }
+
+    def "history is empty when there are no results"() {
+        expect:
+        TestClassHistory.read(tmp.testDirectory).empty
+        TestClassHistory.read(tmp.file("missing")).empty
+    }
+
+    def "history is empty when the results cannot be read"() {
+        tmp.file("results.bin").text = "not results"
+
+        expect:
+        TestClassHistory.read(tmp.testDirectory).empty
+    }
+}